@@ -144,10 +144,11 @@ public class Decoder implements Codec {
         
         byte[] data=frame.getData();
         byte[] resData=res.getData();
+        int offset=frame.getOffset();
         
         for (i = 0,j = 0; i < sourceLen; i++) 
         {
-        	currentIndex = data[i] & 0xff;
+        	currentIndex = data[offset + i] & 0xff;
             resData[j++] = aLawDecompressTable_low[currentIndex];
             resData[j++] = aLawDecompressTable_high[currentIndex];
         }
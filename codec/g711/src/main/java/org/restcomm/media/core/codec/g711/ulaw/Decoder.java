@@ -141,10 +141,11 @@ public class Decoder implements Codec {
         
         byte[] data=frame.getData();
         byte[] resData=res.getData();
+        int offset=frame.getOffset();
         
         for (i = 0,j = 0; i < sourceLen; i++) 
         {
-        	currentIndex = data[i] & 0xff;
+        	currentIndex = data[offset + i] & 0xff;
             resData[j++] = muLawDecompressTable_low[currentIndex];             	
             resData[j++] = muLawDecompressTable_high[currentIndex];
         }
@@ -42,15 +42,19 @@ public class CircularBuffer {
 	}
 	
 	public void addData(byte[] data) {
+		addData(data, 0, data.length);
+	}
+	
+	public void addData(byte[] data, int offset, int length) {
 		synchronized(LOCK) {
 			boolean zeros = false;
-			//for(int q=0; q<data.length; q++) if(data[q]!=0) zeros = false;
+			//for(int q=0; q<length; q++) if(data[offset+q]!=0) zeros = false;
 			if(!zeros) {
-				for(int q=0; q<data.length; q++) {
-					buffer[(writeCursor+q)%buffer.length] = data[q];
+				for(int q=0; q<length; q++) {
+					buffer[(writeCursor+q)%buffer.length] = data[offset+q];
 				}
-				writeCursor = (writeCursor + data.length)%buffer.length;
-				availableData += data.length;
+				writeCursor = (writeCursor + length)%buffer.length;
+				availableData += length;
 				if(availableData > buffer.length) 
 				{
 					readCursor=(readCursor + availableData - buffer.length)%buffer.length;
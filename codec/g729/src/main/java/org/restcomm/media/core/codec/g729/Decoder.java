@@ -84,14 +84,14 @@ public class Decoder implements Codec {
 
     public Frame process(Frame frame) {
         Frame res = null;
-        byte[] data = frame.getData();
+        int length = frame.getLength();
         
-        if(data.length==0 || data.length>100 || data.length%10!=0)
+        if(length==0 || length>100 || length%10!=0)
         	throw new RuntimeException("Invalid frame size!");
         
-        circular.addData(data);
+        circular.addData(frame.getData(), frame.getOffset(), length);
 
-        byte[] speechWindow = circular.getData(data.length);
+        byte[] speechWindow = circular.getData(length);
 
         // Process two frames at time, 20ms
         byte[] resultBytes = null,transcodedBytes=null;
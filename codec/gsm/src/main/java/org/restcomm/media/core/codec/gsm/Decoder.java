@@ -64,8 +64,10 @@ public class Decoder implements Codec {
     }
 
     public Frame process(Frame frame) {
-    	byte[] data=frame.getData();    	
-    	if(data.length==0)
+    	byte[] data=frame.getData();
+    	int offset=frame.getOffset();
+    	int length=frame.getLength();
+    	if(length==0)
     	{
     		//dummy frame received , sending blank data
     		Frame res = Memory.allocate(320);
@@ -85,17 +87,17 @@ public class Decoder implements Codec {
             return res;
     	}
     	
-    	if(data.length%33!=0)
-    		throw new IllegalArgumentException("invalid frame size expected 33,received " + data.length);
+    	if(length%33!=0)
+    		throw new IllegalArgumentException("invalid frame size expected 33,received " + length);
     	
-    	framesCount=data.length/33;
+    	framesCount=length/33;
     	Frame res = Memory.allocate(320*framesCount);
     	resdata=res.getData();
-    	for(l=0;l<(data.length/33);l++)
+    	for(l=0;l<framesCount;l++)
     	{
-    		k_temp=(short)(l*33);
+    		k_temp=(short)(offset+l*33);
     		if(((data[k_temp]>>4) & 0xF) != 0xD)
-    			throw new IllegalArgumentException("not gsm fr frame,expected 0xD received " + Integer.toHexString(data[k_temp]>>4) +  " FRAME SIZE:" + data.length);
+    			throw new IllegalArgumentException("not gsm fr frame,expected 0xD received " + Integer.toHexString(data[k_temp]>>4) +  " FRAME SIZE:" + length);
     	    		
     		//lets load LARC array
     		//LARC[1] - 4 bits from byte 0 and 2 bits from byte 1
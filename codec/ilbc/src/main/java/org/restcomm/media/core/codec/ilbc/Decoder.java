@@ -72,19 +72,21 @@ public class Decoder implements Codec {
     
     public Frame process(Frame frame) {
     	
-    	byte[] inputData = frame.getData();    	    	
-    	if(inputData.length==50)
+    	byte[] inputData = frame.getData();
+    	int offset = frame.getOffset();
+    	int length = frame.getLength();
+    	if(length==50)
     		mode=30;
-    	else if(inputData.length==38)
+    	else if(length==38)
     		mode=20;
     	else
     		throw new IllegalArgumentException("INVALID FRAME SIZE");
     	
     	decoderState.setMode(mode);
-    	temp=inputData.length/2;
+    	temp=length/2;
     	
     	for (i = 0; i < temp; i++) {
-    		signal[i] = ((short) ((inputData[i*2] << 8) | (inputData[i*2 + 1] & 0xFF)));
+    		signal[i] = ((short) ((inputData[offset + i*2] << 8) | (inputData[offset + i*2 + 1] & 0xFF)));
         }
     	
     	unpackBits(signal,mode);
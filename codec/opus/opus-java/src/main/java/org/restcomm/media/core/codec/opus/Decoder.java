@@ -23,6 +23,7 @@ package org.restcomm.media.core.codec.opus;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -43,14 +44,24 @@ public class Decoder implements Codec {
     private final static Logger log = LogManager.getLogger(Encoder.class);
 
     private final static Format opus = FormatFactory.createAudioFormat("opus", 48000, 8, 2);
-    private final static Format linear = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
+    private final Format linear;
 
     private long decoderAddress;
     
-    private final int OPUS_SAMPLE_RATE = 8000;
+    private final static int OPUS_SAMPLE_RATE = 8000;
 
     public Decoder() {
-        decoderAddress = OpusJni.createDecoderNative(OPUS_SAMPLE_RATE, 1);
+        this(OPUS_SAMPLE_RATE);
+    }
+
+    /**
+     * Creates a decoder producing linear audio at the given rate.
+     * 
+     * @param sampleRate 8000, 12000, 16000, 24000 or 48000 Hertz
+     */
+    protected Decoder(int sampleRate) {
+        linear = FormatFactory.createAudioFormat("linear", sampleRate, 16, 1);
+        decoderAddress = OpusJni.createDecoderNative(sampleRate, 1);
     }
     
     @Override
@@ -72,7 +83,12 @@ public class Decoder implements Codec {
     @Override
     public Frame process(Frame frame) {
     	
-        short[] decodedData = OpusJni.decodeNative(decoderAddress, frame.getData());
+        // the native decoder takes the whole array, so frames that share theirs are copied
+        byte[] input = frame.getData();
+        if (frame.getOffset() != 0 || frame.getLength() != input.length) {
+            input = Arrays.copyOfRange(input, frame.getOffset(), frame.getOffset() + frame.getLength());
+        }
+        short[] decodedData = OpusJni.decodeNative(decoderAddress, input);
         byte[] output = new byte[2 * decodedData.length];
         ByteBuffer.wrap(output).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().put(decodedData);
     	
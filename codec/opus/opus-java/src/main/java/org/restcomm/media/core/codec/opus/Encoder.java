@@ -43,15 +43,26 @@ public class Encoder implements Codec {
     private final static Logger log = LogManager.getLogger(Encoder.class);
 
     private final static Format opus = FormatFactory.createAudioFormat("opus", 48000, 8, 2);
-    private final static Format linear = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
+    private final Format linear;
     
     private long encoderAddress;
 
-    private final int OPUS_SAMPLE_RATE = 8000;
-    private final int OPUS_BITRATE = 20000;
+    private final static int OPUS_SAMPLE_RATE = 8000;
+    private final static int OPUS_BITRATE = 20000;
 
     public Encoder() {
-        encoderAddress = OpusJni.createEncoderNative(OPUS_SAMPLE_RATE, 1, OpusJni.OPUS_APPLICATION_VOIP, OPUS_BITRATE);
+        this(OPUS_SAMPLE_RATE, OPUS_BITRATE);
+    }
+
+    /**
+     * Creates an encoder of linear audio at the given rate.
+     * 
+     * @param sampleRate 8000, 12000, 16000, 24000 or 48000 Hertz
+     * @param bitRate the target bit rate in bits per second
+     */
+    protected Encoder(int sampleRate, int bitRate) {
+        linear = FormatFactory.createAudioFormat("linear", sampleRate, 16, 1);
+        encoderAddress = OpusJni.createEncoderNative(sampleRate, 1, OpusJni.OPUS_APPLICATION_VOIP, bitRate);
     }
     
     @Override
@@ -0,0 +1,37 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.codec.opus;
+
+/**
+ * Opus decoder producing 48 kHz linear audio.
+ * <p>
+ * Register it along with the narrowband codec so that mixers working at 48000 Hz exchange audio with Opus legs without
+ * resampling.
+ * </p>
+ */
+public class FullbandDecoder extends Decoder {
+
+    public FullbandDecoder() {
+        super(48000);
+    }
+
+}
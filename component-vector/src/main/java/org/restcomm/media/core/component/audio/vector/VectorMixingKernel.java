@@ -0,0 +1,213 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.component.audio.vector;
+
+import java.nio.ByteOrder;
+
+import org.restcomm.media.core.component.audio.MixingKernel;
+import org.restcomm.media.core.component.audio.MixingKernels;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Mixing kernel built on the JDK Vector API.
+ * <p>
+ * Gives the same results as the scalar kernel: sums wrap the same way, gains are applied in double precision and
+ * truncated to 16 bits like a <code>(short)</code> cast. Remaining samples that do not fill a whole vector are
+ * processed one at a time, and so are gains on JVMs older than 21.
+ * </p>
+ * <p>
+ * Selected by {@link MixingKernels} when the JVM runs with <code>--add-modules jdk.incubator.vector</code>.
+ * </p>
+ */
+public class VectorMixingKernel implements MixingKernel {
+
+    public static final String NAME = "vector";
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    // PCM conversion: 16 bytes hold 8 samples, widened to 8 ints
+    private static final VectorSpecies<Byte> PCM_BYTES = ByteVector.SPECIES_128;
+    private static final VectorSpecies<Short> PCM_SHORTS = ShortVector.SPECIES_128;
+    private static final VectorSpecies<Integer> PCM_INTS = IntVector.SPECIES_256;
+
+    // Gain: ints widened to as many doubles, so the products are the same as in the scalar kernel
+    private static final VectorSpecies<Double> GAIN_DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> GAIN_INTS = VectorSpecies.of(int.class,
+            VectorShape.forBitSize(GAIN_DOUBLES.vectorBitSize() / 2));
+
+    // Conversions between int and double lanes are slower than the scalar loop before JDK 21
+    private static final boolean FAST_CONVERSIONS = Runtime.version().feature() >= 21;
+
+    // Reinterpreting bytes as shorts follows the platform byte order
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void decode(byte[] src, int offset, int[] dst, int samples) {
+        int i = 0;
+        if (LITTLE_ENDIAN) {
+            final int step = PCM_INTS.length();
+            final int bound = PCM_INTS.loopBound(samples);
+            for (; i < bound; i += step) {
+                final ShortVector pcm = ByteVector.fromArray(PCM_BYTES, src, offset + 2 * i).reinterpretAsShorts();
+                ((IntVector) pcm.convertShape(VectorOperators.S2I, PCM_INTS, 0)).intoArray(dst, i);
+            }
+        }
+
+        int index = offset + 2 * i;
+        for (; i < samples; i++) {
+            dst[i] = (short) ((src[index + 1] << 8) | (src[index] & 0xff));
+            index += 2;
+        }
+    }
+
+    @Override
+    public void encode(int[] src, int samples, byte[] dst, int offset) {
+        int i = 0;
+        if (LITTLE_ENDIAN) {
+            final int step = PCM_INTS.length();
+            final int bound = PCM_INTS.loopBound(samples);
+            for (; i < bound; i += step) {
+                final IntVector pcm = IntVector.fromArray(PCM_INTS, src, i);
+                ((ShortVector) pcm.convertShape(VectorOperators.I2S, PCM_SHORTS, 0)).reinterpretAsBytes().intoArray(dst, offset + 2 * i);
+            }
+        }
+
+        int index = offset + 2 * i;
+        for (; i < samples; i++) {
+            dst[index++] = (byte) src[i];
+            dst[index++] = (byte) (src[i] >> 8);
+        }
+    }
+
+    @Override
+    public void add(int[] total, int[] samples, int length) {
+        int i = 0;
+        final int step = INTS.length();
+        final int bound = INTS.loopBound(length);
+        for (; i < bound; i += step) {
+            IntVector.fromArray(INTS, total, i).add(IntVector.fromArray(INTS, samples, i)).intoArray(total, i);
+        }
+
+        for (; i < length; i++) {
+            total[i] += samples[i];
+        }
+    }
+
+    @Override
+    public int peak(int[] samples, int length) {
+        int i = 0;
+        IntVector max = IntVector.zero(INTS);
+        IntVector min = IntVector.zero(INTS);
+        final int step = INTS.length();
+        final int bound = INTS.loopBound(length);
+        for (; i < bound; i += step) {
+            final IntVector v = IntVector.fromArray(INTS, samples, i);
+            max = max.max(v);
+            min = min.min(v);
+        }
+
+        int maxValue = max.reduceLanes(VectorOperators.MAX);
+        int minValue = min.reduceLanes(VectorOperators.MIN);
+        for (; i < length; i++) {
+            if (samples[i] > maxValue) {
+                maxValue = samples[i];
+            } else if (samples[i] < minValue) {
+                minValue = samples[i];
+            }
+        }
+        return Math.max(maxValue, -minValue);
+    }
+
+    @Override
+    public int energy(int[] samples, int length) {
+        int i = 0;
+        IntVector sum = IntVector.zero(INTS);
+        final int step = INTS.length();
+        final int bound = INTS.loopBound(length);
+        for (; i < bound; i += step) {
+            sum = sum.add(IntVector.fromArray(INTS, samples, i).abs());
+        }
+
+        int energy = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            energy += samples[i] < 0 ? -samples[i] : samples[i];
+        }
+        return energy;
+    }
+
+    @Override
+    public void scale(int[] samples, int length, double gain) {
+        int i = 0;
+        if (FAST_CONVERSIONS) {
+            final DoubleVector factor = DoubleVector.broadcast(GAIN_DOUBLES, gain);
+            final int step = GAIN_INTS.length();
+            final int bound = GAIN_INTS.loopBound(length);
+            for (; i < bound; i += step) {
+                multiply(IntVector.fromArray(GAIN_INTS, samples, i), factor).intoArray(samples, i);
+            }
+        }
+
+        for (; i < length; i++) {
+            samples[i] = (short) ((double) samples[i] * gain);
+        }
+    }
+
+    @Override
+    public void subtract(int[] total, int[] samples, int length, double gain) {
+        int i = 0;
+        if (FAST_CONVERSIONS) {
+            final DoubleVector factor = DoubleVector.broadcast(GAIN_DOUBLES, gain);
+            final int step = GAIN_INTS.length();
+            final int bound = GAIN_INTS.loopBound(length);
+            for (; i < bound; i += step) {
+                final IntVector own = multiply(IntVector.fromArray(GAIN_INTS, samples, i), factor);
+                IntVector.fromArray(GAIN_INTS, total, i).sub(own).intoArray(samples, i);
+            }
+        }
+
+        for (; i < length; i++) {
+            samples[i] = total[i] - (short) ((double) samples[i] * gain);
+        }
+    }
+
+    /**
+     * Computes <code>(short) (v * factor)</code> on each lane.
+     */
+    private static IntVector multiply(IntVector v, DoubleVector factor) {
+        final DoubleVector product = ((DoubleVector) v.convertShape(VectorOperators.I2D, GAIN_DOUBLES, 0)).mul(factor);
+        final IntVector truncated = (IntVector) product.convertShape(VectorOperators.D2I, GAIN_INTS, 0);
+        return truncated.lanewise(VectorOperators.LSHL, 16).lanewise(VectorOperators.ASHR, 16);
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.component.audio.vector;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.restcomm.media.core.component.audio.MixingKernel;
+import org.restcomm.media.core.component.audio.ScalarMixingKernel;
+
+/**
+ * Compares the mixing kernels over one 20ms mixing cycle of a conference.
+ * <p>
+ * A cycle unpacks the frame of every participant, sums them, normalizes the mix, and packs a mix-minus frame for every
+ * participant, like {@link org.restcomm.media.core.component.audio.AudioMixer} does.
+ * </p>
+ * <p>
+ * Run with <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.restcomm.media.core.component.audio.vector.MixingKernelBenchmark</code> or from the IDE.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+@State(Scope.Thread)
+public class MixingKernelBenchmark {
+
+    @Param({ ScalarMixingKernel.NAME, VectorMixingKernel.NAME })
+    public String kernelName;
+
+    @Param({ "8000", "16000", "48000" })
+    public int sampleRate;
+
+    @Param({ "2", "10", "100" })
+    public int participants;
+
+    private MixingKernel kernel;
+    private byte[][] frames;
+    private byte[][] mixes;
+    private int[][] samples;
+    private int[] total;
+
+    @Setup
+    public void setup() {
+        this.kernel = VectorMixingKernel.NAME.equals(kernelName) ? new VectorMixingKernel() : new ScalarMixingKernel();
+
+        final int length = sampleRate / 50;
+        final Random random = new Random(42);
+        this.frames = new byte[participants][2 * length];
+        this.mixes = new byte[participants][2 * length];
+        this.samples = new int[participants][length];
+        this.total = new int[length];
+        for (int p = 0; p < participants; p++) {
+            for (int i = 0; i < length; i++) {
+                // quiet speech level, so that the mix of many participants gets normalized
+                final int sample = (int) (4000 * Math.sin(2 * Math.PI * (200 + 10 * p) * i / sampleRate)) + random.nextInt(200) - 100;
+                frames[p][2 * i] = (byte) sample;
+                frames[p][2 * i + 1] = (byte) (sample >> 8);
+            }
+        }
+    }
+
+    @Benchmark
+    public int mix() {
+        final int length = total.length;
+        int energy = 0;
+        for (int p = 0; p < participants; p++) {
+            kernel.decode(frames[p], 0, samples[p], length);
+            energy += kernel.energy(samples[p], length);
+        }
+
+        System.arraycopy(samples[0], 0, total, 0, length);
+        for (int p = 1; p < participants; p++) {
+            kernel.add(total, samples[p], length);
+        }
+
+        final int peak = kernel.peak(total, length);
+        final double gain = peak > Short.MAX_VALUE ? (double) Short.MAX_VALUE / peak : 1.0;
+        kernel.scale(total, length, gain);
+
+        for (int p = 0; p < participants; p++) {
+            kernel.subtract(total, samples[p], length, gain);
+            kernel.encode(samples[p], length, mixes[p], 0);
+        }
+        return energy + total[0];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(MixingKernelBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+
+}
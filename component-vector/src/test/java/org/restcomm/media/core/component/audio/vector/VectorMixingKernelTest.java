@@ -0,0 +1,122 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.component.audio.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+import org.restcomm.media.core.component.audio.MixingKernel;
+import org.restcomm.media.core.component.audio.MixingKernels;
+import org.restcomm.media.core.component.audio.ScalarMixingKernel;
+
+public class VectorMixingKernelTest {
+
+    // 20ms at 8, 16 and 48 kHz, plus lengths that leave a scalar tail
+    private static final int[] LENGTHS = new int[] { 160, 320, 960, 3, 13, 167 };
+
+    private final MixingKernel scalar = new ScalarMixingKernel();
+    private final MixingKernel vector = new VectorMixingKernel();
+    private final Random random = new Random(1234);
+
+    private int[] samples(int length, int range) {
+        final int[] samples = new int[length];
+        for (int i = 0; i < length; i++) {
+            samples[i] = random.nextInt(2 * range) - range;
+        }
+        return samples;
+    }
+
+    @Test
+    public void testSelectedWhenModuleIsPresent() {
+        assertTrue(MixingKernels.getDefault() instanceof VectorMixingKernel);
+    }
+
+    @Test
+    public void testCodec() {
+        for (int length : LENGTHS) {
+            // given
+            final int[] samples = samples(length, 40000);
+            final byte[] expected = new byte[2 * length + 1];
+            final byte[] actual = new byte[2 * length + 1];
+            final int[] expectedSamples = new int[length];
+            final int[] actualSamples = new int[length];
+
+            // when
+            scalar.encode(samples, length, expected, 1);
+            vector.encode(samples, length, actual, 1);
+            scalar.decode(expected, 1, expectedSamples, length);
+            vector.decode(actual, 1, actualSamples, length);
+
+            // then
+            assertArrayEquals(expected, actual);
+            assertArrayEquals(expectedSamples, actualSamples);
+        }
+    }
+
+    @Test
+    public void testMixing() {
+        for (int length : LENGTHS) {
+            // given
+            final int[] first = samples(length, 32768);
+            final int[] second = samples(length, 32768);
+            final int[] expectedTotal = first.clone();
+            final int[] actualTotal = first.clone();
+            final int[] expectedOwn = second.clone();
+            final int[] actualOwn = second.clone();
+
+            // when
+            scalar.add(expectedTotal, second, length);
+            vector.add(actualTotal, second, length);
+            final int peak = vector.peak(actualTotal, length);
+            final double gain = 32767.0 / Math.max(peak, 1) * 0.7;
+            scalar.scale(expectedTotal, length, gain);
+            vector.scale(actualTotal, length, gain);
+            scalar.subtract(expectedTotal, expectedOwn, length, gain);
+            vector.subtract(actualTotal, actualOwn, length, gain);
+
+            // then
+            assertEquals(scalar.peak(first, length), vector.peak(first, length));
+            assertEquals(scalar.energy(first, length), vector.energy(first, length));
+            assertArrayEquals(expectedTotal, actualTotal);
+            assertArrayEquals(expectedOwn, actualOwn);
+        }
+    }
+
+    @Test
+    public void testScaleWrapsLikeScalar() {
+        // given
+        final int[] expected = samples(320, 1000000);
+        final int[] actual = expected.clone();
+
+        // when
+        scalar.scale(expected, expected.length, 1.3);
+        vector.scale(actual, actual.length, 1.3);
+
+        // then
+        assertArrayEquals(expected, actual);
+    }
+
+}
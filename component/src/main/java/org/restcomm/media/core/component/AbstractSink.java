@@ -47,6 +47,9 @@ public abstract class AbstractSink extends BaseComponent implements MediaSink {
     //transmission statisctics
     private volatile long rxPackets;
     private volatile long rxBytes;    
+
+    //source feeding this sink, if any
+    volatile AbstractSource mediaSource;
     
     private static final Logger logger = LogManager.getLogger(AbstractSink.class);
     
@@ -101,6 +104,19 @@ public abstract class AbstractSink extends BaseComponent implements MediaSink {
 		stopped();    	
     }
 
+    /**
+     * Modifies the affinity of the source that feeds this sink, so that both run in the same scheduler shard as the
+     * component consuming this sink.
+     * 
+     * @param affinity the affinity key of the endpoint the sink belongs to.
+     */
+    public void setAffinity(int affinity) {
+        final AbstractSource source = this.mediaSource;
+        if (source != null) {
+            source.setAffinity(affinity);
+        }
+    }
+
     @Override
     public abstract void activate();
     
@@ -135,6 +135,16 @@ public abstract class AbstractSource extends BaseComponent implements MediaSourc
         this.initialOffset = timestamp;
     }       
 
+    /**
+     * Modifies the affinity of the task that generates media for this source.
+     * 
+     * @param affinity the affinity key of the endpoint the source belongs to.
+     * @see org.restcomm.media.core.scheduler.Task#setAffinity(int)
+     */
+    public void setAffinity(int affinity) {
+        this.worker.setAffinity(affinity);
+    }
+
     /**
      * (Non Java-doc).
      * 
@@ -239,6 +249,7 @@ public abstract class AbstractSource extends BaseComponent implements MediaSourc
      */
     protected void connect(AbstractSink sink) {
         this.mediaSink = sink;
+        sink.mediaSource = this;
         if(started)
         	this.mediaSink.start();
     }
@@ -252,6 +263,7 @@ public abstract class AbstractSource extends BaseComponent implements MediaSourc
     	if(this.mediaSink!=null)
     	{
     		this.mediaSink.stop();
+    		this.mediaSink.mediaSource=null;
     		this.mediaSink=null;
     	}
     }
@@ -25,6 +25,7 @@ package org.restcomm.media.core.component.audio;
 import java.util.Iterator;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.restcomm.media.core.component.dsp.PcmResampler;
 import org.restcomm.media.core.concurrent.ConcurrentMap;
 import org.restcomm.media.core.spi.format.AudioFormat;
 import org.restcomm.media.core.spi.format.FormatFactory;
@@ -39,10 +40,8 @@ import org.restcomm.media.core.spi.memory.Memory;
  */
 public class AudioComponent {
 
-	// Format of the output stream.
-    private final static AudioFormat FORMAT = FormatFactory.createAudioFormat("LINEAR", 8000, 16, 1);
+    public final static int DEFAULT_SAMPLE_RATE = 8000;
     private final static long PERIOD = 20000000L;
-    private final static int PACKET_SIZE = (int) (PERIOD / 1000000) * FORMAT.getSampleRate() / 1000 * FORMAT.getSampleSize() / 8;
 
     // Component State
     private final int componentId;
@@ -52,9 +51,21 @@ public class AudioComponent {
 	protected final AtomicBoolean shouldRead;
 	protected final AtomicBoolean shouldWrite;
 
+	// Scheduling affinity shared with the mixer or splitter
+	private volatile boolean hasAffinity;
+	private volatile int affinity;
+
+	// Format of the output stream.
+	private volatile AudioFormat format;
+	private volatile int sampleRate;
+
 	// Mixing State
-	private final int[] data;
+	private int[] data;
+	private int[] resampled = new int[0];
+	private AudioFormat resampledFormat;
+	private volatile MixingKernel kernel = MixingKernels.getDefault();
 	final AtomicBoolean first;
+	private int level;
 
 	/**
 	 * Creates new instance with default name.
@@ -68,8 +79,8 @@ public class AudioComponent {
 		this.shouldWrite = new AtomicBoolean(false);
 
 		// Mixing State
-		this.data = new int[PACKET_SIZE / 2];
 		this.first = new AtomicBoolean(false);
+		setSampleRate(DEFAULT_SAMPLE_RATE);
 	}
 
 	public int getComponentId() {
@@ -81,12 +92,87 @@ public class AudioComponent {
 		this.shouldWrite.set(shouldWrite);
 	}
 
+	/**
+	 * Modifies the scheduling affinity of the sources feeding this component and of its outputs, so that they run in the
+	 * same scheduler shard as the mixer or splitter that owns the component.
+	 * 
+	 * @param affinity the affinity key
+	 */
+	public void setAffinity(int affinity) {
+		this.affinity = affinity;
+		this.hasAffinity = true;
+
+		final Iterator<AudioInput> activeInputs = inputs.valuesIterator();
+		while (activeInputs.hasNext()) {
+			activeInputs.next().setAffinity(affinity);
+		}
+
+		final Iterator<AudioOutput> activeOutputs = outputs.valuesIterator();
+		while (activeOutputs.hasNext()) {
+			activeOutputs.next().setAffinity(affinity);
+		}
+	}
+
+	/**
+	 * Gets the rate at which this component exchanges audio with its mixer or splitter.
+	 * 
+	 * @return the sampling rate in Hertz
+	 */
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	/**
+	 * Modifies the rate at which this component exchanges audio with its mixer or splitter.
+	 * <p>
+	 * Inputs are told the new rate so that their sources can produce it directly. Frames read at any other rate are
+	 * resampled, and so are frames written to outputs that require a specific rate.
+	 * </p>
+	 * <p>
+	 * Must not be called while the component is being mixed.
+	 * </p>
+	 * 
+	 * @param sampleRate the sampling rate in Hertz
+	 */
+	public void setSampleRate(int sampleRate) {
+		if (sampleRate <= 0 || sampleRate % 50 != 0) {
+			throw new IllegalArgumentException("Sample rate must be a positive multiple of 50: " + sampleRate);
+		}
+
+		if (this.format == null || this.sampleRate != sampleRate) {
+			this.data = new int[sampleRate / 50];
+			this.format = FormatFactory.createAudioFormat("LINEAR", sampleRate, 16, 1);
+			this.sampleRate = sampleRate;
+		}
+
+		final Iterator<AudioInput> activeInputs = inputs.valuesIterator();
+		while (activeInputs.hasNext()) {
+			activeInputs.next().setSampleRate(sampleRate);
+		}
+	}
+
+	/**
+	 * Replaces the kernel that converts frames to and from samples.
+	 * 
+	 * @param kernel the mixing kernel
+	 */
+	public void setKernel(MixingKernel kernel) {
+		this.kernel = kernel;
+	}
+
 	public void addInput(AudioInput input) {
 		inputs.put(input.getInputId(), input);
+		input.setSampleRate(sampleRate);
+		if (hasAffinity) {
+			input.setAffinity(affinity);
+		}
 	}
 
 	public void addOutput(AudioOutput output) {
 		outputs.put(output.getOutputId(), output);
+		if (hasAffinity) {
+			output.setAffinity(affinity);
+		}
 	}
 
 	public void remove(AudioInput input) {
@@ -108,10 +194,25 @@ public class AudioComponent {
             if (inputFrame != null) {
                 try {
                     final byte[] dataArray = inputFrame.getData();
+                    final int inputRate = AudioInput.sampleRateOf(inputFrame.getFormat());
+
+                    if (inputRate == 0 || inputRate == this.sampleRate) {
+                        kernel.decode(dataArray, 0, this.data, Math.min(dataArray.length / 2, this.data.length));
+                    } else {
+                        final int samples = dataArray.length / 2;
+                        if (this.resampled.length < samples) {
+                            this.resampled = new int[samples];
+                        }
+                        kernel.decode(dataArray, 0, this.resampled, samples);
+                        PcmResampler.resample(this.resampled, samples, this.data, this.data.length);
+                    }
 
-                    int inputIndex = 0;
-                    for (int inputCount = 0; inputCount < dataArray.length; inputCount += 2) {
-                        this.data[inputIndex++] = (short) (((dataArray[inputCount + 1]) << 8) | (dataArray[inputCount] & 0xff));
+                    final int inputIndex = this.data.length;
+                    final int energy = kernel.energy(this.data, inputIndex);
+
+                    // smooth the level so that active speakers do not flap between frames
+                    if (inputIndex > 0) {
+                        this.level = (3 * this.level + energy / inputIndex) >> 2;
                     }
 
                     if (first.get()) {
@@ -124,6 +225,19 @@ public class AudioComponent {
         }
     }
 
+	/**
+	 * Gets the speech level of the last frames read by this component.
+	 * <p>
+	 * The level is the mean absolute sample value of each frame, smoothed over the last few frames. It is only meaningful
+	 * while {@link #getData()} returns data.
+	 * </p>
+	 * 
+	 * @return the level, between 0 and 32768.
+	 */
+	public int getLevel() {
+		return level;
+	}
+
 	public int[] getData() {
 		if (!this.shouldRead.get()) {
 			return null;
@@ -141,29 +255,53 @@ public class AudioComponent {
 			return;
 		}
 
-		final Frame outputFrame = Memory.allocate(PACKET_SIZE);
-		final byte[] dataArray = outputFrame.getData();
-
-		int outputIndex = 0;
-		for (int outputCount = 0; outputCount < data.length;) {
-			dataArray[outputIndex++] = (byte) (data[outputCount]);
-			dataArray[outputIndex++] = (byte) (data[outputCount++] >> 8);
+		// outputs at the mixing rate share the frame, the last one gets the original
+		int sharing = 0;
+		Iterator<AudioOutput> activeOutputs = outputs.valuesIterator();
+		while (activeOutputs.hasNext()) {
+			if (isMixingRate(activeOutputs.next())) {
+				sharing++;
+			}
 		}
 
-		outputFrame.setOffset(0);
-		outputFrame.setLength(PACKET_SIZE);
-		outputFrame.setDuration(PERIOD);
-		outputFrame.setFormat(FORMAT);
+		final Frame outputFrame = sharing > 0 ? toFrame(data, data.length, format, kernel) : null;
 
-		final Iterator<AudioOutput> activeOutputs = outputs.valuesIterator();
+		activeOutputs = outputs.valuesIterator();
 		while (activeOutputs.hasNext()) {
 			AudioOutput output = activeOutputs.next();
-			if (!activeOutputs.hasNext()) {
-				output.offer(outputFrame);
+			if (isMixingRate(output)) {
+				output.offer(--sharing == 0 ? outputFrame : outputFrame.clone());
 			} else {
-				output.offer(outputFrame.clone());
+				output.offer(resample(data, output.getSampleRate()));
 			}
 			output.wakeup();
 		}
 	}
+
+	private boolean isMixingRate(AudioOutput output) {
+		final int rate = output.getSampleRate();
+		return rate == AudioOutput.ANY_RATE || rate == sampleRate;
+	}
+
+	private Frame resample(int[] data, int rate) {
+		final int samples = PcmResampler.samplesAt(data.length, sampleRate, rate);
+		if (this.resampled.length < samples) {
+			this.resampled = new int[samples];
+		}
+		PcmResampler.resample(data, data.length, this.resampled, samples);
+		if (this.resampledFormat == null || this.resampledFormat.getSampleRate() != rate) {
+			this.resampledFormat = FormatFactory.createAudioFormat("LINEAR", rate, 16, 1);
+		}
+		return toFrame(this.resampled, samples, this.resampledFormat, kernel);
+	}
+
+	private static Frame toFrame(int[] data, int samples, AudioFormat format, MixingKernel kernel) {
+		final Frame outputFrame = Memory.allocate(samples * 2);
+		kernel.encode(data, samples, outputFrame.getData(), 0);
+		outputFrame.setOffset(0);
+		outputFrame.setLength(samples * 2);
+		outputFrame.setDuration(PERIOD);
+		outputFrame.setFormat(format);
+		return outputFrame;
+	}
 }
@@ -25,7 +25,10 @@ package org.restcomm.media.core.component.audio;
 import java.io.IOException;
 
 import org.restcomm.media.core.component.AbstractSink;
-import org.restcomm.media.core.concurrent.ConcurrentCyclicFIFO;
+import org.restcomm.media.core.concurrent.MpmcRingBuffer;
+import org.restcomm.media.core.spi.format.AudioFormat;
+import org.restcomm.media.core.spi.format.EncodingName;
+import org.restcomm.media.core.spi.format.Format;
 import org.restcomm.media.core.spi.memory.Frame;
 import org.restcomm.media.core.spi.memory.Memory;
 
@@ -37,16 +40,21 @@ import org.restcomm.media.core.spi.memory.Memory;
 public class AudioInput extends AbstractSink {
 	
 	private static final long serialVersionUID = -6377790166652701617L;
+	
+	private static final EncodingName LINEAR = new EncodingName("LINEAR");
 
 	private int inputId;
     private int limit=3;
-    private ConcurrentCyclicFIFO<Frame> buffer = new ConcurrentCyclicFIFO<Frame>();
+    private MpmcRingBuffer<Frame> buffer = new MpmcRingBuffer<Frame>(limit);
     private Frame activeFrame=null;
     private byte[] activeData;
     private byte[] oldData;
     private int byteIndex=0;
     private int count=0;
     private int packetSize=0;
+    private int activeSize=0;
+    private Format activeFormat;
+    private volatile int sampleRate=8000;
     
     /**
      * Creates new stream
@@ -61,6 +69,42 @@ public class AudioInput extends AbstractSink {
     {
     	return inputId;
     }
+
+    /**
+     * Gets the sampling rate of the component reading this input.
+     * <p>
+     * Sources able to produce linear audio at several rates should use this one, so that the component does not have
+     * to resample their frames.
+     * </p>
+     * 
+     * @return the sampling rate in Hertz
+     */
+    public int getSampleRate()
+    {
+    	return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate)
+    {
+    	this.sampleRate=sampleRate;
+    }
+
+    /**
+     * Gets the sampling rate of 16-bit linear audio.
+     * 
+     * @param format the format of a frame
+     * @return the sampling rate, or 0 if the format is not 16-bit linear audio
+     */
+    static int sampleRateOf(Format format)
+    {
+    	if(format instanceof AudioFormat)
+    	{
+    		AudioFormat audioFormat=(AudioFormat)format;
+    		if(audioFormat.getSampleSize()==16 && LINEAR.equals(audioFormat.getName()))
+    			return audioFormat.getSampleRate();
+    	}
+    	return 0;
+    }
     
     public void activate()
     {
@@ -76,15 +120,31 @@ public class AudioInput extends AbstractSink {
     public void onMediaTransfer(Frame frame) throws IOException {
     	//generate frames with correct size here , aggregate frames if needed.
     	//allows to accept several sources with different ptime ( packet time ) 
+    	//output frames always hold 20ms of audio, whatever the sampling rate of the source
+    	int rate=sampleRateOf(frame.getFormat());
+    	Format format=rate>0?frame.getFormat():null;
+    	int size=rate>0?rate/50*2:packetSize;
+    	
+    	if(activeData!=null && size!=activeSize)
+    	{
+    		//the source changed its rate, the partial frame can not be completed
+    		activeFrame.recycle();
+    		activeFrame=null;
+    		activeData=null;
+    	}
+    	activeSize=size;
+    	activeFormat=format;
+    	
     	oldData=frame.getData();
     	count=0;
     	while(count<oldData.length)
     	{
     		if(activeData==null)
     		{
-    			activeFrame=Memory.allocate(packetSize);
+    			activeFrame=Memory.allocate(activeSize);
     			activeFrame.setOffset(0);
-    			activeFrame.setLength(packetSize);
+    			activeFrame.setLength(activeSize);
+    			activeFrame.setFormat(activeFormat);
     			activeData=activeFrame.getData(); 
     			byteIndex=0;
     		}
@@ -100,10 +160,12 @@ public class AudioInput extends AbstractSink {
     			System.arraycopy(oldData, count, activeData, byteIndex, activeData.length-byteIndex);
     			count+=activeData.length-byteIndex;
     			
-    			if (buffer.size() >= limit) 
-            		buffer.poll().recycle();
-                
-            	buffer.offer(activeFrame);
+    			//drop oldest frames until there is room for the new one
+    			while (buffer.size() >= limit || !buffer.offer(activeFrame)) {
+    				Frame oldest = buffer.poll();
+    				if (oldest != null)
+    					oldest.recycle();
+    			}
             	
             	activeFrame=null;
     			activeData=null;    			    			
@@ -135,8 +197,9 @@ public class AudioInput extends AbstractSink {
      * Recycles input stream
      */
     public void recycle() {
-    	while(buffer.size()>0)
-    		buffer.poll().recycle();
+    	Frame frame;
+    	while((frame=buffer.poll())!=null)
+    		frame.recycle();
     	
     	if(activeFrame!=null)
     		activeFrame.recycle();
@@ -148,7 +211,8 @@ public class AudioInput extends AbstractSink {
     
     public void resetBuffer()
     {
-    	while(buffer.size()>0)
-    		buffer.poll().recycle();
+    	Frame frame;
+    	while((frame=buffer.poll())!=null)
+    		frame.recycle();
     }
 }
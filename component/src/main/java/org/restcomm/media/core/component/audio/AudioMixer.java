@@ -22,6 +22,7 @@
 
 package org.restcomm.media.core.component.audio;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
 import org.restcomm.media.core.concurrent.ConcurrentMap;
@@ -32,21 +33,30 @@ import org.restcomm.media.core.spi.format.FormatFactory;
 
 /**
  * Implements compound audio mixer , one of core components of mms 3.0
+ * <p>
+ * By default every component with data is mixed, and each one receives the mix minus its own contribution. In active
+ * speaker mode, enabled with {@link #setMaxSpeakers(int)}, only the loudest components above the silence level are
+ * mixed: they receive the mix minus themselves and every other component receives the same shared mix. The cost of a
+ * cycle then grows with the number of speakers instead of the number of participants.
+ * </p>
  * 
  * @author Yulian Oifa
  */
 public class AudioMixer {
+
+	/** Mean absolute sample value below which a component is considered silent, about -50 dBFS */
+	public static final int DEFAULT_SILENCE_LEVEL = 100;
 	// scheduler for mixer job scheduling
 	private PriorityQueueScheduler scheduler;
 
 	// the format of the output stream.
-	private AudioFormat format = FormatFactory.createAudioFormat("LINEAR", 8000, 16, 1);
+	private final AudioFormat format;
 
 	// The pool of components
 	private ConcurrentMap<AudioComponent> components = new ConcurrentMap<AudioComponent>();
 
 	private long period = 20000000L;
-	private int packetSize = (int) (period / 1000000) * format.getSampleRate() / 1000 * format.getSampleSize() / 8;
+	private final int packetSize;
 
 	private MixTask mixer;
 	private volatile boolean started = false;
@@ -56,13 +66,73 @@ public class AudioMixer {
 	// gain value
 	private double gain = 1.0;
 
+	// active speaker mode: 0 mixes every component
+	private volatile int maxSpeakers = 0;
+	private volatile int silenceLevel = DEFAULT_SILENCE_LEVEL;
+
+	// sample level operations of the mixing cycle
+	private volatile MixingKernel kernel = MixingKernels.getDefault();
+
 	public AudioMixer(PriorityQueueScheduler scheduler) {
+		this(scheduler, AudioComponent.DEFAULT_SAMPLE_RATE);
+	}
+
+	/**
+	 * Creates a mixer working at the given rate.
+	 * <p>
+	 * Components are switched to the rate of the mixer when added. Wideband legs should be mixed at 16 or 48 kHz, so
+	 * that their audio is not resampled to narrowband and back on every hop.
+	 * </p>
+	 * 
+	 * @param scheduler the scheduler of the mixing task
+	 * @param sampleRate the mixing rate in Hertz
+	 */
+	public AudioMixer(PriorityQueueScheduler scheduler, int sampleRate) {
+		if (sampleRate <= 0 || sampleRate % 50 != 0) {
+			throw new IllegalArgumentException("Sample rate must be a positive multiple of 50: " + sampleRate);
+		}
 		this.scheduler = scheduler;
+		this.format = FormatFactory.createAudioFormat("LINEAR", sampleRate, 16, 1);
+		this.packetSize = (int) (period / 1000000) * format.getSampleRate() / 1000 * format.getSampleSize() / 8;
 		this.mixer = new MixTask();
 	}
 
 	public void addComponent(AudioComponent component) {
+		component.setSampleRate(format.getSampleRate());
+		component.setKernel(kernel);
 		components.put(component.getComponentId(), component);
+		component.setAffinity(mixer.getAffinity());
+	}
+
+	/**
+	 * Gets the rate at which components are mixed.
+	 * 
+	 * @return the sampling rate in Hertz
+	 */
+	public int getSampleRate() {
+		return format.getSampleRate();
+	}
+
+	/**
+	 * Gets the scheduling affinity of the mixer, shared by all its components.
+	 * 
+	 * @return the affinity key
+	 */
+	public int getAffinity() {
+		return mixer.getAffinity();
+	}
+
+	/**
+	 * Modifies the scheduling affinity of the mixer and of all its components.
+	 * 
+	 * @param affinity the affinity key
+	 */
+	public void setAffinity(int affinity) {
+		mixer.setAffinity(affinity);
+		Iterator<AudioComponent> activeComponents = components.valuesIterator();
+		while (activeComponents.hasNext()) {
+			activeComponents.next().setAffinity(affinity);
+		}
 	}
 
 	protected int getPacketSize() {
@@ -89,6 +159,59 @@ public class AudioMixer {
 		this.gain = gain > 0 ? gain * 1.26 : gain == 0 ? 1 : 1 / (gain * 1.26);
 	}
 
+	/**
+	 * Gets the maximum number of components mixed in each cycle.
+	 * 
+	 * @return the number of active speakers, or 0 if all components are mixed.
+	 */
+	public int getMaxSpeakers() {
+		return maxSpeakers;
+	}
+
+	/**
+	 * Limits the mix to the loudest components, for large conferences.
+	 * 
+	 * @param maxSpeakers the number of active speakers, or 0 to mix all components.
+	 */
+	public void setMaxSpeakers(int maxSpeakers) {
+		if (maxSpeakers < 0) {
+			throw new IllegalArgumentException("Number of speakers cannot be negative: " + maxSpeakers);
+		}
+		this.maxSpeakers = maxSpeakers;
+	}
+
+	public int getSilenceLevel() {
+		return silenceLevel;
+	}
+
+	/**
+	 * Sets the level below which components are left out of the mix in active speaker mode.
+	 * 
+	 * @param silenceLevel the mean absolute sample value of a frame.
+	 * @see AudioComponent#getLevel()
+	 */
+	public void setSilenceLevel(int silenceLevel) {
+		this.silenceLevel = silenceLevel;
+	}
+
+	public MixingKernel getKernel() {
+		return kernel;
+	}
+
+	/**
+	 * Replaces the kernel that performs the sample level operations of the mixing cycle.
+	 * 
+	 * @param kernel the mixing kernel
+	 * @see MixingKernels
+	 */
+	public void setKernel(MixingKernel kernel) {
+		this.kernel = kernel;
+		Iterator<AudioComponent> activeComponents = components.valuesIterator();
+		while (activeComponents.hasNext()) {
+			activeComponents.next().setKernel(kernel);
+		}
+	}
+
 	public void start() {
 		mixCount = 0;
 		started = true;
@@ -102,13 +225,15 @@ public class AudioMixer {
 
 	private class MixTask extends Task {
 		int sourcesCount = 0;
-		private int i;
-		private int minValue = 0;
-		private int maxValue = 0;
 		private double currGain = 0;
 		private int[] total = new int[packetSize / 2];
 		private int[] current;
 
+		// Active speakers of the current cycle, loudest first
+		private AudioComponent[] speakers = new AudioComponent[0];
+		private int[] speakerLevels = new int[0];
+		private int speakersCount = 0;
+
 		public MixTask() {
 			super();
 		}
@@ -120,6 +245,19 @@ public class AudioMixer {
 
 		@Override
 		public long perform() {
+			final int maxSpeakers = AudioMixer.this.maxSpeakers;
+			if (maxSpeakers > 0) {
+				mixSpeakers(maxSpeakers);
+			} else {
+				mixAll();
+			}
+
+			scheduler.submit(this, PriorityQueueScheduler.MIXER_MIX_QUEUE);
+			mixCount++;
+			return 0;
+		}
+
+		private void mixAll() {
 			// summarize all
 			sourcesCount = 0;
 			Iterator<AudioComponent> activeComponents = components.valuesIterator();
@@ -131,65 +269,123 @@ public class AudioMixer {
 					if (sourcesCount == 0) {
 						System.arraycopy(current, 0, total, 0, total.length);
 					} else {
-						for (i = 0; i < total.length; i++) {
-							total[i] += current[i];
-						}
+						kernel.add(total, current, total.length);
 					}
 					sourcesCount++;
 				}
 			}
 
 			if (sourcesCount == 0) {
-				scheduler.submit(this, PriorityQueueScheduler.MIXER_MIX_QUEUE);
-				mixCount++;
-				return 0;
+				return;
 			}
 
-			minValue = 0;
-			maxValue = 0;
-			for (i = 0; i < total.length; i++) {
-				if (total[i] > maxValue) {
-					maxValue = total[i];
-				} else if (total[i] < minValue) {
-					minValue = total[i];
+			normalize();
+
+			// get data for each component
+			activeComponents = components.valuesIterator();
+			while (activeComponents.hasNext()) {
+				AudioComponent component = activeComponents.next();
+				current = component.getData();
+				if (current != null && sourcesCount > 1) {
+					kernel.subtract(total, current, total.length, currGain);
+					component.offer(current);
+				} else if (current == null) {
+					component.offer(total);
 				}
 			}
+		}
 
-			if (minValue > 0) {
-				minValue = 0 - minValue;
+		private void mixSpeakers(int maxSpeakers) {
+			if (speakers.length != maxSpeakers) {
+				speakers = new AudioComponent[maxSpeakers];
+				speakerLevels = new int[maxSpeakers];
 			}
 
-			if (minValue > maxValue) {
-				maxValue = minValue;
+			// pick the loudest components, silent ones are skipped entirely
+			sourcesCount = 0;
+			speakersCount = 0;
+			final int silenceLevel = AudioMixer.this.silenceLevel;
+			Iterator<AudioComponent> activeComponents = components.valuesIterator();
+			while (activeComponents.hasNext()) {
+				AudioComponent component = activeComponents.next();
+				component.perform();
+				if (component.getData() != null) {
+					sourcesCount++;
+					final int level = component.getLevel();
+					if (level >= silenceLevel) {
+						elect(component, level);
+					}
+				}
 			}
 
-			currGain = gain;
-			if (maxValue > Short.MAX_VALUE) {
-				currGain = (currGain * (double) Short.MAX_VALUE) / (double) maxValue;
+			if (sourcesCount == 0) {
+				return;
 			}
 
-			for (i = 0; i < total.length; i++) {
-				total[i] = (short) ((double) total[i] * currGain);
+			// mix the speakers only
+			if (speakersCount == 0) {
+				Arrays.fill(total, 0);
+			} else {
+				System.arraycopy(speakers[0].getData(), 0, total, 0, total.length);
+				for (int s = 1; s < speakersCount; s++) {
+					kernel.add(total, speakers[s].getData(), total.length);
+				}
 			}
 
-			// get data for each component
+			normalize();
+
+			// speakers get the mix minus themselves, everybody else shares the same mix
 			activeComponents = components.valuesIterator();
 			while (activeComponents.hasNext()) {
 				AudioComponent component = activeComponents.next();
-				current = component.getData();
-				if (current != null && sourcesCount > 1) {
-					for (i = 0; i < total.length; i++) {
-						current[i] = total[i] - (short) ((double) current[i] * currGain);
-					}
-					component.offer(current);
-				} else if (current == null) {
+				if (!isSpeaker(component)) {
 					component.offer(total);
+				} else if (speakersCount > 1) {
+					current = component.getData();
+					kernel.subtract(total, current, total.length, currGain);
+					component.offer(current);
 				}
 			}
 
-			scheduler.submit(this, PriorityQueueScheduler.MIXER_MIX_QUEUE);
-			mixCount++;
-			return 0;
+			for (int s = 0; s < speakersCount; s++) {
+				speakers[s] = null;
+			}
+		}
+
+		private void elect(AudioComponent component, int level) {
+			if (speakersCount == speakers.length && level <= speakerLevels[speakersCount - 1]) {
+				return;
+			}
+
+			// insertion into the list of speakers, loudest first
+			int position = speakersCount < speakers.length ? speakersCount++ : speakersCount - 1;
+			while (position > 0 && speakerLevels[position - 1] < level) {
+				speakers[position] = speakers[position - 1];
+				speakerLevels[position] = speakerLevels[position - 1];
+				position--;
+			}
+			speakers[position] = component;
+			speakerLevels[position] = level;
+		}
+
+		private boolean isSpeaker(AudioComponent component) {
+			for (int s = 0; s < speakersCount; s++) {
+				if (speakers[s] == component) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void normalize() {
+			final int maxValue = kernel.peak(total, total.length);
+
+			currGain = gain;
+			if (maxValue > Short.MAX_VALUE) {
+				currGain = (currGain * (double) Short.MAX_VALUE) / (double) maxValue;
+			}
+
+			kernel.scale(total, total.length, currGain);
 		}
 	}
 }
@@ -37,8 +37,12 @@ public class AudioOutput extends AbstractSource {
 
 	private static final long serialVersionUID = -5988244809612104056L;
 
+	/** Sampling rate of outputs accepting linear audio at the rate of their component */
+	public static final int ANY_RATE = 0;
+
 	private int outputId;
 	private ConcurrentCyclicFIFO<Frame> buffer = new ConcurrentCyclicFIFO<Frame>();
+	private volatile int sampleRate = 8000;
 
 	/**
 	 * Creates new instance with default name.
@@ -52,6 +56,19 @@ public class AudioOutput extends AbstractSource {
 		return outputId;
 	}
 
+	/**
+	 * Gets the sampling rate of the frames expected by the sink of this output.
+	 * 
+	 * @return the sampling rate in Hertz, or {@link #ANY_RATE} if the sink accepts the rate of the component.
+	 */
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	public void setSampleRate(int sampleRate) {
+		this.sampleRate = sampleRate;
+	}
+
 	public void join(AbstractSink sink) {
 		connect(sink);
 	}
@@ -44,9 +44,9 @@ public class AudioSplitter {
 	private final PriorityQueueScheduler scheduler;
 
 	// the format of the output stream.
-	private static final AudioFormat FORMAT = FormatFactory.createAudioFormat("LINEAR", 8000, 16, 1);
+	private final AudioFormat format;
 	private static final long PERIOD = 20000000L;
-	private static final int PACKET_SIZE = (int) (PERIOD / 1000000) * FORMAT.getSampleRate() / 1000 * FORMAT.getSampleSize() / 8;
+	private final int packetSize;
 
 	// The pools of components
 	private final ConcurrentMap<AudioComponent> insideComponents;
@@ -60,10 +60,30 @@ public class AudioSplitter {
 	// gain value
 	private double gain = 1.0;
 
+	// sample level operations of the mixing cycles
+	private volatile MixingKernel kernel = MixingKernels.getDefault();
+
 	public AudioSplitter(PriorityQueueScheduler scheduler) {
+		this(scheduler, AudioComponent.DEFAULT_SAMPLE_RATE);
+	}
+
+	/**
+	 * Creates a splitter working at the given rate.
+	 * 
+	 * @param scheduler the scheduler of the mixing tasks
+	 * @param sampleRate the mixing rate in Hertz
+	 * @see AudioMixer#AudioMixer(PriorityQueueScheduler, int)
+	 */
+	public AudioSplitter(PriorityQueueScheduler scheduler, int sampleRate) {
+		if (sampleRate <= 0 || sampleRate % 50 != 0) {
+			throw new IllegalArgumentException("Sample rate must be a positive multiple of 50: " + sampleRate);
+		}
 		this.scheduler = scheduler;
+		this.format = FormatFactory.createAudioFormat("LINEAR", sampleRate, 16, 1);
+		this.packetSize = (int) (PERIOD / 1000000) * format.getSampleRate() / 1000 * format.getSampleSize() / 8;
 		this.insideMixer = new InsideMixTask();
 		this.outsideMixer = new OutsideMixTask();
+		this.outsideMixer.setAffinity(this.insideMixer.getAffinity());
 		this.insideComponents = new ConcurrentMap<AudioComponent>();
 		this.outsideComponents = new ConcurrentMap<AudioComponent>();
 		this.started = new AtomicBoolean(false);
@@ -71,15 +91,59 @@ public class AudioSplitter {
 	}
 
 	public void addInsideComponent(AudioComponent component) {
+		component.setSampleRate(format.getSampleRate());
+		component.setKernel(kernel);
 		insideComponents.put(component.getComponentId(), component);
+		component.setAffinity(insideMixer.getAffinity());
 	}
 
 	public void addOutsideComponent(AudioComponent component) {
+		component.setSampleRate(format.getSampleRate());
+		component.setKernel(kernel);
 		outsideComponents.put(component.getComponentId(), component);
+		component.setAffinity(insideMixer.getAffinity());
+	}
+
+	/**
+	 * Gets the scheduling affinity of the splitter, shared by all its components.
+	 * 
+	 * @return the affinity key
+	 */
+	public int getAffinity() {
+		return insideMixer.getAffinity();
+	}
+
+	/**
+	 * Modifies the scheduling affinity of the splitter and of all its components.
+	 * 
+	 * @param affinity the affinity key
+	 */
+	public void setAffinity(int affinity) {
+		insideMixer.setAffinity(affinity);
+		outsideMixer.setAffinity(affinity);
+
+		Iterator<AudioComponent> activeComponents = insideComponents.valuesIterator();
+		while (activeComponents.hasNext()) {
+			activeComponents.next().setAffinity(affinity);
+		}
+
+		activeComponents = outsideComponents.valuesIterator();
+		while (activeComponents.hasNext()) {
+			activeComponents.next().setAffinity(affinity);
+		}
 	}
 
 	protected int getPacketSize() {
-		return PACKET_SIZE;
+		return packetSize;
+	}
+
+	/**
+	 * Gets the rate at which components are mixed.
+	 * 
+	 * @return the sampling rate in Hertz
+	 */
+	public int getSampleRate() {
+		return format.getSampleRate();
 	}
 
 	/**
@@ -129,7 +193,7 @@ public class AudioSplitter {
 
 	private class InsideMixTask extends Task {
 
-	    private final int[] total = new int[PACKET_SIZE / 2];
+	    private final int[] total = new int[packetSize / 2];
 
 		public InsideMixTask() {
 			super();
@@ -155,9 +219,7 @@ public class AudioSplitter {
 						System.arraycopy(current, 0, total, 0, total.length);
 						first = false;
 					} else {
-						for (int i = 0; i < total.length; i++) {
-							total[i] += current[i];
-						}
+						kernel.add(total, current, total.length);
 					}
 				}
 			}
@@ -168,23 +230,7 @@ public class AudioSplitter {
 				return 0;
 			}
 
-			int minValue = 0;
-			int maxValue = 0;
-			for (int i = 0; i < total.length; i++) {
-				if (total[i] > maxValue) {
-					maxValue = total[i];
-				} else if (total[i] < minValue) {
-					minValue = total[i];
-				}
-			}
-
-			if (minValue > 0) {
-				minValue = 0 - minValue;
-			}
-
-			if (minValue > maxValue) {
-				maxValue = minValue;
-			}
+			final int maxValue = kernel.peak(total, total.length);
 
 			double currGain = gain;
 			if (maxValue > Short.MAX_VALUE) {
@@ -210,7 +256,7 @@ public class AudioSplitter {
 
 	private class OutsideMixTask extends Task {
 	    
-		private final int[] total = new int[PACKET_SIZE / 2];
+		private final int[] total = new int[packetSize / 2];
 
 		public OutsideMixTask() {
 			super();
@@ -236,9 +282,7 @@ public class AudioSplitter {
 						System.arraycopy(current, 0, total, 0, total.length);
 						first = false;
 					} else {
-						for (int i = 0; i < total.length; i++) {
-							total[i] += current[i];
-						}
+						kernel.add(total, current, total.length);
 					}
 				}
 			}
@@ -249,20 +293,7 @@ public class AudioSplitter {
 				return 0;
 			}
 
-			int minValue = 0;
-			int maxValue = 0;
-			for (int i = 0; i < total.length; i++) {
-				if (total[i] > maxValue) {
-					maxValue = total[i];
-				} else if (total[i] < minValue) {
-					minValue = total[i];
-				}
-			}
-
-			minValue = 0 - minValue;
-			if (minValue > maxValue) {
-				maxValue = minValue;
-			}
+			final int maxValue = kernel.peak(total, total.length);
 
 			double currGain = gain;
 			if (maxValue > Short.MAX_VALUE) {
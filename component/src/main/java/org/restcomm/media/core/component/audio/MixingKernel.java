@@ -0,0 +1,110 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.component.audio;
+
+/**
+ * Sample level operations of the mixing cycle.
+ * <p>
+ * Implementations must give exactly the same results as {@link ScalarMixingKernel}, so that mixers can switch kernels
+ * without any audible change. Samples are 16-bit values widened to <code>int</code>, so that sums of many participants
+ * do not overflow.
+ * </p>
+ * 
+ * @see MixingKernels
+ */
+public interface MixingKernel {
+
+    /**
+     * Gets the name of the kernel.
+     * 
+     * @return the name, used in logs and benchmarks
+     */
+    String getName();
+
+    /**
+     * Reads little-endian 16-bit samples.
+     * 
+     * @param src the encoded samples
+     * @param offset the offset of the first sample in the source
+     * @param dst the array receiving the samples
+     * @param samples the number of samples to read
+     */
+    void decode(byte[] src, int offset, int[] dst, int samples);
+
+    /**
+     * Writes the low 16 bits of the samples in little-endian order.
+     * 
+     * @param src the samples
+     * @param samples the number of samples to write
+     * @param dst the destination array
+     * @param offset the offset of the first sample in the destination
+     */
+    void encode(int[] src, int samples, byte[] dst, int offset);
+
+    /**
+     * Adds samples to a mix: <code>total[i] += samples[i]</code>.
+     * 
+     * @param total the mix
+     * @param samples the samples to add
+     * @param length the number of samples
+     */
+    void add(int[] total, int[] samples, int length);
+
+    /**
+     * Gets the peak of a signal.
+     * 
+     * @param samples the signal
+     * @param length the number of samples
+     * @return the largest absolute sample value
+     */
+    int peak(int[] samples, int length);
+
+    /**
+     * Gets the energy of a signal.
+     * 
+     * @param samples the signal
+     * @param length the number of samples
+     * @return the sum of the absolute sample values
+     */
+    int energy(int[] samples, int length);
+
+    /**
+     * Applies a gain to a mix: <code>samples[i] = (short) (samples[i] * gain)</code>.
+     * 
+     * @param samples the mix
+     * @param length the number of samples
+     * @param gain the gain
+     */
+    void scale(int[] samples, int length, double gain);
+
+    /**
+     * Removes the contribution of a participant from the mix it gets back:
+     * <code>samples[i] = total[i] - (short) (samples[i] * gain)</code>.
+     * 
+     * @param total the scaled mix of all participants
+     * @param samples the samples of the participant, replaced by its mix
+     * @param length the number of samples
+     * @param gain the gain applied to the mix
+     */
+    void subtract(int[] total, int[] samples, int length, double gain);
+
+}
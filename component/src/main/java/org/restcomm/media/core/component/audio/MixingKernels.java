@@ -0,0 +1,103 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.component.audio;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Selects the mixing kernel used by mixers, splitters and components.
+ * <p>
+ * The vector kernel lives in the <code>media-core-component-vector</code> module, which is built on JDK 17 and later.
+ * It is used when that module is on the class path and the JVM was started with
+ * <code>--add-modules jdk.incubator.vector</code>. Otherwise mixing falls back to the {@link ScalarMixingKernel}.
+ * </p>
+ * <p>
+ * The system property {@value #KERNEL_PROPERTY} forces a kernel: <code>scalar</code>, <code>vector</code> or
+ * <code>auto</code> (default).
+ * </p>
+ */
+public final class MixingKernels {
+
+    private static final Logger logger = LogManager.getLogger(MixingKernels.class);
+
+    public static final String KERNEL_PROPERTY = "restcomm.media.mixer.kernel";
+    public static final String VECTOR = "vector";
+    public static final String AUTO = "auto";
+
+    static final String VECTOR_KERNEL_CLASS = "org.restcomm.media.core.component.audio.vector.VectorMixingKernel";
+
+    private static final MixingKernel SCALAR_KERNEL = new ScalarMixingKernel();
+    private static final MixingKernel DEFAULT_KERNEL = select(System.getProperty(KERNEL_PROPERTY, AUTO));
+
+    private MixingKernels() {
+        super();
+    }
+
+    /**
+     * Gets the kernel selected for this JVM.
+     * 
+     * @return the mixing kernel
+     */
+    public static MixingKernel getDefault() {
+        return DEFAULT_KERNEL;
+    }
+
+    /**
+     * Gets the kernel that runs on any JVM.
+     * 
+     * @return the scalar mixing kernel
+     */
+    public static MixingKernel scalar() {
+        return SCALAR_KERNEL;
+    }
+
+    static MixingKernel select(String name) {
+        if (ScalarMixingKernel.NAME.equalsIgnoreCase(name)) {
+            return SCALAR_KERNEL;
+        }
+
+        final MixingKernel vector = loadVectorKernel();
+        if (vector != null) {
+            logger.info("Audio is mixed with the " + vector.getName() + " kernel");
+            return vector;
+        }
+
+        if (VECTOR.equalsIgnoreCase(name)) {
+            logger.warn("Vector mixing kernel is not available, falling back to the scalar kernel");
+        }
+        return SCALAR_KERNEL;
+    }
+
+    private static MixingKernel loadVectorKernel() {
+        try {
+            return (MixingKernel) Class.forName(VECTOR_KERNEL_CLASS).newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // module not deployed, JVM older than 17 or jdk.incubator.vector not enabled
+            if (logger.isDebugEnabled()) {
+                logger.debug("Vector mixing kernel is not available: " + e);
+            }
+            return null;
+        }
+    }
+
+}
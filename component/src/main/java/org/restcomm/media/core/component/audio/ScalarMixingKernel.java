@@ -0,0 +1,101 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.component.audio;
+
+/**
+ * Mixing kernel working one sample at a time.
+ * <p>
+ * Runs on any JVM and is the reference for the results of the other kernels.
+ * </p>
+ */
+public class ScalarMixingKernel implements MixingKernel {
+
+    public static final String NAME = "scalar";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void decode(byte[] src, int offset, int[] dst, int samples) {
+        int index = offset;
+        for (int i = 0; i < samples; i++) {
+            dst[i] = (short) ((src[index + 1] << 8) | (src[index] & 0xff));
+            index += 2;
+        }
+    }
+
+    @Override
+    public void encode(int[] src, int samples, byte[] dst, int offset) {
+        int index = offset;
+        for (int i = 0; i < samples; i++) {
+            dst[index++] = (byte) src[i];
+            dst[index++] = (byte) (src[i] >> 8);
+        }
+    }
+
+    @Override
+    public void add(int[] total, int[] samples, int length) {
+        for (int i = 0; i < length; i++) {
+            total[i] += samples[i];
+        }
+    }
+
+    @Override
+    public int peak(int[] samples, int length) {
+        int minValue = 0;
+        int maxValue = 0;
+        for (int i = 0; i < length; i++) {
+            if (samples[i] > maxValue) {
+                maxValue = samples[i];
+            } else if (samples[i] < minValue) {
+                minValue = samples[i];
+            }
+        }
+        return Math.max(maxValue, -minValue);
+    }
+
+    @Override
+    public int energy(int[] samples, int length) {
+        int energy = 0;
+        for (int i = 0; i < length; i++) {
+            energy += samples[i] < 0 ? -samples[i] : samples[i];
+        }
+        return energy;
+    }
+
+    @Override
+    public void scale(int[] samples, int length, double gain) {
+        for (int i = 0; i < length; i++) {
+            samples[i] = (short) ((double) samples[i] * gain);
+        }
+    }
+
+    @Override
+    public void subtract(int[] total, int[] samples, int length, double gain) {
+        for (int i = 0; i < length; i++) {
+            samples[i] = total[i] - (short) ((double) samples[i] * gain);
+        }
+    }
+
+}
@@ -24,6 +24,8 @@ package org.restcomm.media.core.component.dsp;
 
 import org.restcomm.media.core.spi.dsp.Codec;
 import org.restcomm.media.core.spi.dsp.Processor;
+import org.restcomm.media.core.spi.format.AudioFormat;
+import org.restcomm.media.core.spi.format.EncodingName;
 import org.restcomm.media.core.spi.format.Format;
 import org.restcomm.media.core.spi.memory.Frame;
 
@@ -34,15 +36,24 @@ import org.restcomm.media.core.spi.memory.Frame;
  * output format. Output formats are specified as array where order of the
  * formats defines format's priority. If frame has format matching to output
  * format the frame won't be changed.
+ * 
+ * Linear audio is resampled when no codec works at the rate of the
+ * stream, for example to encode 16 kHz mixer output with a narrowband codec.
  *
  * @author kulikov
  */
 public class Dsp implements Processor {
+    private final static EncodingName LINEAR = new EncodingName("LINEAR");
+
     private Codec codec;
     private Codec[] codecs;
 
     //The current format of the frame stream
     private Format sourceFormat,destinationFormat;    
+
+    //Linear audio is resampled before encoding or after decoding when no codec works at the required rate
+    private AudioFormat resampleBefore, resampleAfter;
+    private int[] resampleInput = new int[0], resampleOutput = new int[0];
     
     /**
      * Creates new instance of processor.
@@ -67,24 +78,49 @@ public class Dsp implements Processor {
     		return frame;
     	
     	//normal flow: format of the stream is already known
-		if (sourceFormat!=null && source.matches(sourceFormat) && destinationFormat != null && destination.matches(destinationFormat)) {
-			//do transcode if required
-			if (codec != null) {
-				try {
-					return codec.process(frame);
-				} finally {
-					frame.recycle();
-				}
+		if (sourceFormat==null || !source.matches(sourceFormat) || destinationFormat == null || !destination.matches(destinationFormat)) {
+			select(source, destination);
+		}
+
+		if (resampleBefore != null) {
+			frame = resample(frame, source, resampleBefore);
+		}
+
+		//do transcode if required
+		if (codec != null) {
+			final Frame original = frame;
+			try {
+				frame = codec.process(original);
+			} finally {
+				original.recycle();
 			}
+		}
 
-			//return the original frame if no transcoding required
-			return frame;
+		if (resampleAfter != null) {
+			frame = resample(frame, codec == null ? source : codec.getSupportedOutputFormat(), resampleAfter);
 		}
-		
+
+		return frame;
+    }
+
+    /**
+     * Selects the codec and the resampling steps that convert the source format into the destination format.
+     * <p>
+     * A codec working directly between both formats is always preferred, so that wideband streams are never converted
+     * to narrowband and back. Otherwise linear audio is resampled to the rate of a codec that can handle it.
+     * </p>
+     */
+    private void select(Format source, Format destination) {
+    	codec = null;
+    	resampleBefore = null;
+    	resampleAfter = null;
+    	sourceFormat = source;
+    	destinationFormat = destination;
+
 		//check that codecs are defined.
 		if (codecs == null) {
 			//no spade - no questions
-			return frame;
+			return;
 		}
 		
 		for (int i = 0; i < codecs.length; i++) {
@@ -93,23 +129,60 @@ public class Dsp implements Processor {
 				//check if this codec can transform frame to any of the output format
 				if (codecs[i].getSupportedOutputFormat().matches(destination)) {
 					codec = codecs[i];
-					destinationFormat=destination;
-					sourceFormat=source;
-					break;
+					return;
 				}
 			}
 		}
-		
-		//if codec found do the transcoding
-		if (codec != null) {
-			try {
-				return codec.process(frame);
-			} finally {
-				frame.recycle();
-			}    			    			    			
-		}    		
-		
-		//return frame without changes
-		return frame;
+
+		//linear audio at another rate needs no codec at all
+		if (isResampleable(source, destination)) {
+			resampleAfter = (AudioFormat) destination;
+			return;
+		}
+
+		for (int i = 0; i < codecs.length; i++) {
+			//decode at the rate of the codec, then resample
+			if (codecs[i].getSupportedInputFormat().matches(source) && isResampleable(codecs[i].getSupportedOutputFormat(), destination)) {
+				codec = codecs[i];
+				resampleAfter = (AudioFormat) destination;
+				return;
+			}
+			
+			//resample to the rate of the codec, then encode
+			if (codecs[i].getSupportedOutputFormat().matches(destination) && isResampleable(source, codecs[i].getSupportedInputFormat())) {
+				codec = codecs[i];
+				resampleBefore = (AudioFormat) codecs[i].getSupportedInputFormat();
+				return;
+			}
+		}
+    }
+
+    private static boolean isResampleable(Format source, Format destination) {
+    	if (!(source instanceof AudioFormat) || !(destination instanceof AudioFormat)) {
+    		return false;
+    	}
+    	
+    	AudioFormat from = (AudioFormat) source;
+    	AudioFormat to = (AudioFormat) destination;
+    	return LINEAR.equals(from.getName()) && LINEAR.equals(to.getName()) && from.getChannels() == to.getChannels()
+    			&& from.getSampleRate() > 0 && to.getSampleRate() > 0;
+    }
+
+    private Frame resample(Frame frame, Format source, AudioFormat destination) {
+    	final int fromRate = ((AudioFormat) source).getSampleRate();
+    	final int srcLength = frame.getLength() / 2;
+    	final int dstLength = PcmResampler.samplesAt(srcLength, fromRate, destination.getSampleRate());
+    	if (resampleInput.length < srcLength) {
+    		resampleInput = new int[srcLength];
+    	}
+    	if (resampleOutput.length < dstLength) {
+    		resampleOutput = new int[dstLength];
+    	}
+
+    	try {
+    		return PcmResampler.resample(frame, fromRate, destination, resampleInput, resampleOutput);
+    	} finally {
+    		frame.recycle();
+    	}
     }
 }
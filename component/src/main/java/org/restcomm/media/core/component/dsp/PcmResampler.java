@@ -0,0 +1,165 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.component.dsp;
+
+import org.restcomm.media.core.spi.format.AudioFormat;
+import org.restcomm.media.core.spi.memory.Frame;
+import org.restcomm.media.core.spi.memory.Memory;
+
+/**
+ * Converts 16-bit signed PCM between sampling rates.
+ * <p>
+ * Integer downsampling ratios (48 kHz to 16 or 8 kHz, 16 kHz to 8 kHz) average each group of source samples, which
+ * also acts as a crude low-pass filter. Any other ratio is linearly interpolated.
+ * </p>
+ * <p>
+ * The methods work on caller provided arrays and do not allocate, except for the frame conversion which allocates
+ * the resulting frame from {@link Memory}.
+ * </p>
+ */
+public final class PcmResampler {
+
+    private PcmResampler() {
+        super();
+    }
+
+    /**
+     * Resamples a block of samples.
+     * 
+     * @param src the source samples
+     * @param srcLength the number of source samples
+     * @param dst the array where the resampled signal is written
+     * @param dstLength the number of samples to produce
+     */
+    public static void resample(int[] src, int srcLength, int[] dst, int dstLength) {
+        if (srcLength == dstLength) {
+            System.arraycopy(src, 0, dst, 0, dstLength);
+        } else if (srcLength > dstLength && srcLength % dstLength == 0) {
+            decimate(src, srcLength / dstLength, dst, dstLength);
+        } else {
+            interpolate(src, srcLength, dst, dstLength);
+        }
+    }
+
+    private static void decimate(int[] src, int ratio, int[] dst, int dstLength) {
+        int index = 0;
+        for (int i = 0; i < dstLength; i++) {
+            int sum = 0;
+            for (int j = 0; j < ratio; j++) {
+                sum += src[index++];
+            }
+            dst[i] = sum / ratio;
+        }
+    }
+
+    private static void interpolate(int[] src, int srcLength, int[] dst, int dstLength) {
+        // source position of each output sample, in 16.16 fixed point
+        final long step = ((long) srcLength << 16) / dstLength;
+        long position = 0;
+        for (int i = 0; i < dstLength; i++) {
+            final int index = (int) (position >>> 16);
+            final int fraction = (int) (position & 0xffff);
+            final int a = src[index];
+            final int b = index + 1 < srcLength ? src[index + 1] : a;
+            dst[i] = a + (int) (((long) (b - a) * fraction) >> 16);
+            position += step;
+        }
+    }
+
+    /**
+     * Reads little-endian 16-bit samples.
+     * 
+     * @param data the encoded samples
+     * @param offset the offset of the first sample
+     * @param samples the number of samples to read
+     * @param dst the array receiving the samples
+     */
+    public static void decode(byte[] data, int offset, int samples, int[] dst) {
+        int index = offset;
+        for (int i = 0; i < samples; i++) {
+            dst[i] = (short) ((data[index + 1] << 8) | (data[index] & 0xff));
+            index += 2;
+        }
+    }
+
+    /**
+     * Writes samples as little-endian 16-bit values.
+     * 
+     * @param src the samples
+     * @param samples the number of samples to write
+     * @param data the destination array
+     * @param offset the offset of the first sample in the destination
+     */
+    public static void encode(int[] src, int samples, byte[] data, int offset) {
+        int index = offset;
+        for (int i = 0; i < samples; i++) {
+            data[index++] = (byte) src[i];
+            data[index++] = (byte) (src[i] >> 8);
+        }
+    }
+
+    /**
+     * Gets the number of samples a block of audio has at another sampling rate.
+     * 
+     * @param samples the number of samples at the original rate
+     * @param fromRate the original sampling rate
+     * @param toRate the new sampling rate
+     * @return the number of samples at the new rate
+     */
+    public static int samplesAt(int samples, int fromRate, int toRate) {
+        return (int) ((long) samples * toRate / fromRate);
+    }
+
+    /**
+     * Resamples a frame of linear audio.
+     * <p>
+     * The original frame is not recycled.
+     * </p>
+     * 
+     * @param frame the frame to resample
+     * @param fromRate the sampling rate of the frame
+     * @param format the format of the resulting frame
+     * @param src scratch array holding at least the samples of the frame
+     * @param dst scratch array holding at least the samples of the resulting frame
+     * @return a new frame in the given format
+     */
+    public static Frame resample(Frame frame, int fromRate, AudioFormat format, int[] src, int[] dst) {
+        final int srcLength = frame.getLength() / 2;
+        final int dstLength = samplesAt(srcLength, fromRate, format.getSampleRate());
+
+        decode(frame.getData(), frame.getOffset(), srcLength, src);
+        resample(src, srcLength, dst, dstLength);
+
+        final Frame res = Memory.allocate(dstLength * 2);
+        encode(dst, dstLength, res.getData(), 0);
+        res.setOffset(0);
+        res.setLength(dstLength * 2);
+        res.setTimestamp(frame.getTimestamp());
+        res.setDuration(frame.getDuration());
+        res.setSequenceNumber(frame.getSequenceNumber());
+        res.setEOM(frame.isEOM());
+        res.setHeader(frame.getHeader());
+        res.setFormat(format);
+        return res;
+    }
+
+}
@@ -42,6 +42,10 @@ public class OOBComponent {
 	private final AtomicBoolean shouldRead;
 	private final AtomicBoolean shouldWrite;
 
+	// Scheduling affinity shared with the mixer or splitter
+	private volatile boolean hasAffinity;
+	private volatile int affinity;
+
 	private Frame frame;
 
 	/**
@@ -64,12 +68,39 @@ public class OOBComponent {
 		this.shouldWrite.set(shouldWrite);
 	}
 
+	/**
+	 * Modifies the scheduling affinity of the sources feeding this component and of its outputs, so that they run in the
+	 * same scheduler shard as the mixer or splitter that owns the component.
+	 * 
+	 * @param affinity the affinity key
+	 */
+	public void setAffinity(int affinity) {
+		this.affinity = affinity;
+		this.hasAffinity = true;
+
+		final Iterator<OOBInput> activeInputs = inputs.valuesIterator();
+		while (activeInputs.hasNext()) {
+			activeInputs.next().setAffinity(affinity);
+		}
+
+		final Iterator<OOBOutput> activeOutputs = outputs.valuesIterator();
+		while (activeOutputs.hasNext()) {
+			activeOutputs.next().setAffinity(affinity);
+		}
+	}
+
 	public void addInput(OOBInput input) {
 		inputs.put(input.getInputId(), input);
+		if (hasAffinity) {
+			input.setAffinity(affinity);
+		}
 	}
 
 	public void addOutput(OOBOutput output) {
 		outputs.put(output.getOutputId(), output);
+		if (hasAffinity) {
+			output.setAffinity(affinity);
+		}
 	}
 
 	public void remove(OOBInput input) {
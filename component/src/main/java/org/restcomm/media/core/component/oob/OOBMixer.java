@@ -60,6 +60,29 @@ public class OOBMixer {
 
 	public void addComponent(OOBComponent component) {
 		components.put(component.getComponentId(), component);
+		component.setAffinity(mixer.getAffinity());
+	}
+
+	/**
+	 * Gets the scheduling affinity of the mixer, shared by all its components.
+	 * 
+	 * @return the affinity key
+	 */
+	public int getAffinity() {
+		return mixer.getAffinity();
+	}
+
+	/**
+	 * Modifies the scheduling affinity of the mixer and of all its components.
+	 * 
+	 * @param affinity the affinity key
+	 */
+	public void setAffinity(int affinity) {
+		mixer.setAffinity(affinity);
+		Iterator<OOBComponent> activeComponents = components.valuesIterator();
+		while (activeComponents.hasNext()) {
+			activeComponents.next().setAffinity(affinity);
+		}
 	}
 
 	/**
@@ -58,15 +58,47 @@ public class OOBSplitter {
 		this.outsideComponents = new ConcurrentMap<OOBComponent>();
 		this.insideMixer = new InsideMixTask();
 		this.outsideMixer = new OutsideMixTask();
+		this.outsideMixer.setAffinity(this.insideMixer.getAffinity());
 		this.started = new AtomicBoolean(false);
 	}
 
 	public void addInsideComponent(OOBComponent component) {
 		insideComponents.put(component.getComponentId(), component);
+		component.setAffinity(insideMixer.getAffinity());
 	}
 
 	public void addOutsideComponent(OOBComponent component) {
 		outsideComponents.put(component.getComponentId(), component);
+		component.setAffinity(insideMixer.getAffinity());
+	}
+
+	/**
+	 * Gets the scheduling affinity of the splitter, shared by all its components.
+	 * 
+	 * @return the affinity key
+	 */
+	public int getAffinity() {
+		return insideMixer.getAffinity();
+	}
+
+	/**
+	 * Modifies the scheduling affinity of the splitter and of all its components.
+	 * 
+	 * @param affinity the affinity key
+	 */
+	public void setAffinity(int affinity) {
+		insideMixer.setAffinity(affinity);
+		outsideMixer.setAffinity(affinity);
+
+		Iterator<OOBComponent> activeComponents = insideComponents.valuesIterator();
+		while (activeComponents.hasNext()) {
+			activeComponents.next().setAffinity(affinity);
+		}
+
+		activeComponents = outsideComponents.valuesIterator();
+		while (activeComponents.hasNext()) {
+			activeComponents.next().setAffinity(affinity);
+		}
 	}
 
 	/**
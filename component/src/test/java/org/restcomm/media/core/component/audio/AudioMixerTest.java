@@ -185,6 +185,103 @@ public class AudioMixerTest {
         assertEquals(0, res.length);
     }
     
+    @Test
+    public void testActiveSpeakers() throws InterruptedException {
+        // given
+        sine3.setAmplitude((short)(Short.MAX_VALUE / 6));
+        mixer.setMaxSpeakers(2);
+
+        // when
+        sine1.activate();
+        sine2.activate();
+        sine3.activate();
+        analyzer.activate();
+        mixer.start();
+
+        Thread.sleep(5000);
+
+        mixer.stop();
+        sine1.deactivate();
+        sine2.deactivate();
+        sine3.deactivate();
+        analyzer.deactivate();
+
+        // then
+        int res[] = analyzer.getSpectra();
+        assertEquals(2, res.length);
+        assertEquals(80, res[0], 5);
+        assertEquals(150, res[1], 5);
+    }
+
+    @Test
+    public void testSilentComponentsAreNotMixed() throws InterruptedException {
+        // given
+        sine2.setAmplitude((short)(Short.MAX_VALUE / 6));
+        sine3.setAmplitude((short)(Short.MAX_VALUE / 6));
+        mixer.setMaxSpeakers(3);
+        mixer.setSilenceLevel(4000);
+
+        // when
+        sine1.activate();
+        sine2.activate();
+        sine3.activate();
+        analyzer.activate();
+        mixer.start();
+
+        Thread.sleep(5000);
+
+        mixer.stop();
+        sine1.deactivate();
+        sine2.deactivate();
+        sine3.deactivate();
+        analyzer.deactivate();
+
+        // then
+        int res[] = analyzer.getSpectra();
+        assertEquals(1, res.length);
+        assertEquals(80, res[0], 5);
+    }
+
+    @Test
+    public void testWidebandPacketSize() {
+        assertEquals(640, new AudioMixer(scheduler, 16000).getPacketSize());
+        assertEquals(1920, new AudioMixer(scheduler, 48000).getPacketSize());
+    }
+
+    @Test
+    public void testWidebandMixing() throws InterruptedException {
+        // given
+        AudioMixer widebandMixer = new AudioMixer(scheduler, 16000);
+        widebandMixer.addComponent(sine1Component);
+        widebandMixer.addComponent(sine2Component);
+        widebandMixer.addComponent(sine3Component);
+        widebandMixer.addComponent(analyzerComponent);
+
+        // when
+        sine1.activate();
+        sine2.activate();
+        sine3.activate();
+        analyzer.activate();
+        widebandMixer.start();
+
+        Thread.sleep(5000);
+
+        widebandMixer.stop();
+        sine1.deactivate();
+        sine2.deactivate();
+        sine3.deactivate();
+        analyzer.deactivate();
+
+        // then
+        assertEquals(16000, sine1Component.getSampleRate());
+        assertEquals(16000, sine1.getAudioInput().getSampleRate());
+        int res[] = analyzer.getSpectra();
+        assertEquals(3, res.length);
+        assertEquals(80, res[0], 5);
+        assertEquals(150, res[1], 5);
+        assertEquals(250, res[2], 5);
+    }
+
     @Test
     public void testMixingFailure() throws InterruptedException {
         int N = 5;//100;
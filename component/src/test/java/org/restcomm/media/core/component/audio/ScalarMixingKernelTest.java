@@ -0,0 +1,97 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.component.audio;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ScalarMixingKernelTest {
+
+    private final MixingKernel kernel = new ScalarMixingKernel();
+
+    @Test
+    public void testPeakIncludesNegativeSamples() {
+        // given
+        int[] samples = new int[] { 100, -40000, 30000 };
+
+        // when
+        int peak = kernel.peak(samples, samples.length);
+
+        // then
+        assertEquals(40000, peak);
+    }
+
+    @Test
+    public void testMixMinusParticipant() {
+        // given
+        int[] first = new int[] { 1000, -2000 };
+        int[] second = new int[] { 3000, 500 };
+        int[] total = first.clone();
+
+        // when
+        kernel.add(total, second, total.length);
+        kernel.scale(total, total.length, 0.5);
+        kernel.subtract(total, first, first.length, 0.5);
+
+        // then
+        assertArrayEquals(new int[] { 2000, -750 }, total);
+        assertArrayEquals(new int[] { 1500, 250 }, first);
+    }
+
+    @Test
+    public void testScaleWrapsLikeShortCast() {
+        // given
+        int[] samples = new int[] { 40000, -3 };
+
+        // when
+        kernel.scale(samples, samples.length, 1.0);
+
+        // then
+        assertArrayEquals(new int[] { (short) 40000, -3 }, samples);
+    }
+
+    @Test
+    public void testCodec() {
+        // given
+        int[] samples = new int[] { 1, -1, Short.MAX_VALUE, Short.MIN_VALUE };
+        byte[] data = new byte[2 + samples.length * 2];
+        int[] decoded = new int[samples.length];
+
+        // when
+        kernel.encode(samples, samples.length, data, 2);
+        kernel.decode(data, 2, decoded, samples.length);
+
+        // then
+        assertArrayEquals(samples, decoded);
+        assertEquals(2 + Short.MAX_VALUE + 32768, kernel.energy(samples, samples.length));
+    }
+
+    @Test
+    public void testScalarKernelIsTheFallback() {
+        assertEquals(ScalarMixingKernel.NAME, MixingKernels.select(ScalarMixingKernel.NAME).getName());
+        // the vector module is not on the class path of this module
+        assertEquals(ScalarMixingKernel.NAME, MixingKernels.select(MixingKernels.VECTOR).getName());
+    }
+
+}
@@ -121,4 +121,61 @@ public class DspFactoryTest {
         System.out.println("fmt=" + frame2.getFormat().getName());
         assertTrue("Format missmatch", fmt2.matches(frame2.getFormat()));    	
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testResampling() throws Exception {
+        Format narrowband = FormatFactory.createAudioFormat("linear", 8000, 16, 1);
+        Format wideband = FormatFactory.createAudioFormat("linear", 16000, 16, 1);
+
+        Dsp dsp = dspFactory.newProcessor();
+
+        Frame frame = Memory.allocate(320);
+        frame.setLength(320);
+        frame.setFormat(narrowband);
+
+        Frame frame2 = dsp.process(frame, narrowband, wideband);
+
+        assertEquals(640, frame2.getLength());
+        assertTrue("Format missmatch", wideband.matches(frame2.getFormat()));
+    }
+
+    @Test
+    public void testEncodingWidebandAudio() throws Exception {
+        Format wideband = FormatFactory.createAudioFormat("linear", 16000, 16, 1);
+        Format pcma = FormatFactory.createAudioFormat("pcma", 8000, 8, 1);
+
+        dspFactory.addCodec(Encoder.class.getName());
+        dspFactory.addCodec(Decoder.class.getName());
+
+        Dsp dsp = dspFactory.newProcessor();
+
+        Frame frame = Memory.allocate(640);
+        frame.setLength(640);
+        frame.setFormat(wideband);
+
+        Frame frame2 = dsp.process(frame, wideband, pcma);
+
+        assertEquals(160, frame2.getLength());
+        assertTrue("Format missmatch", pcma.matches(frame2.getFormat()));
+    }
+
+    @Test
+    public void testDecodingToWidebandAudio() throws Exception {
+        Format pcma = FormatFactory.createAudioFormat("pcma", 8000, 8, 1);
+        Format wideband = FormatFactory.createAudioFormat("linear", 16000, 16, 1);
+
+        dspFactory.addCodec(Encoder.class.getName());
+        dspFactory.addCodec(Decoder.class.getName());
+
+        Dsp dsp = dspFactory.newProcessor();
+
+        Frame frame = Memory.allocate(160);
+        frame.setLength(160);
+        frame.setFormat(pcma);
+
+        Frame frame2 = dsp.process(frame, pcma, wideband);
+
+        assertEquals(640, frame2.getLength());
+        assertTrue("Format missmatch", wideband.matches(frame2.getFormat()));
+    }
+}
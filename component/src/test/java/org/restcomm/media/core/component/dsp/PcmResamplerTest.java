@@ -0,0 +1,94 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.component.dsp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PcmResamplerTest {
+
+    @Test
+    public void testDecimation() {
+        // given
+        int[] src = new int[] { 10, 20, 30, 40, -10, -20 };
+        int[] dst = new int[3];
+
+        // when
+        PcmResampler.resample(src, src.length, dst, dst.length);
+
+        // then
+        assertArrayEquals(new int[] { 15, 35, -15 }, dst);
+    }
+
+    @Test
+    public void testInterpolation() {
+        // given
+        int[] src = new int[] { 0, 100, 200 };
+        int[] dst = new int[6];
+
+        // when
+        PcmResampler.resample(src, src.length, dst, dst.length);
+
+        // then
+        assertArrayEquals(new int[] { 0, 50, 100, 150, 200, 200 }, dst);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        // given
+        int[] narrowband = new int[160];
+        for (int i = 0; i < narrowband.length; i++) {
+            narrowband[i] = (int) (10000 * Math.sin(2 * Math.PI * 200 * i / 8000));
+        }
+        int[] fullband = new int[960];
+        int[] result = new int[160];
+
+        // when
+        PcmResampler.resample(narrowband, narrowband.length, fullband, fullband.length);
+        PcmResampler.resample(fullband, fullband.length, result, result.length);
+
+        // then
+        for (int i = 0; i < narrowband.length - 1; i++) {
+            assertEquals(narrowband[i], result[i], 1000);
+        }
+    }
+
+    @Test
+    public void testEncoding() {
+        // given
+        int[] samples = new int[] { 1, -1, Short.MAX_VALUE, Short.MIN_VALUE };
+        byte[] data = new byte[samples.length * 2];
+        int[] decoded = new int[samples.length];
+
+        // when
+        PcmResampler.encode(samples, samples.length, data, 0);
+        PcmResampler.decode(data, 0, samples.length, decoded);
+
+        // then
+        assertArrayEquals(samples, decoded);
+        assertEquals((byte) 0xff, data[2]);
+        assertEquals((byte) 0xff, data[3]);
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.core.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations in the style of HdrHistogram, with fixed relative precision and a fixed memory footprint.
+ * <p>
+ * Durations are kept in microsecond units, in buckets that double in width every 16 buckets, so every recorded value is
+ * off by less than 1/16 (6.25%) of itself. The range goes up to about a minute; longer durations are counted in the last
+ * bucket.
+ * </p>
+ * <p>
+ * {@link #record(long)} is lock-free and does not allocate, so it can be called from the media threads on every cycle.
+ * Readers get a consistent enough view while values are being recorded.
+ * </p>
+ */
+public class LatencyHistogram {
+
+    /** Recorded values are in units of 2^10 ns (~1 microsecond) */
+    private static final int UNIT_SHIFT = 10;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+
+    /** Largest value that fits in the buckets, in units: ~68 seconds */
+    private static final long MAX_VALUE = (1L << 26) - 1;
+    private static final int BUCKETS = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong(0);
+    private final AtomicLong total = new AtomicLong(0);
+    private final AtomicLong max = new AtomicLong(0);
+
+    private static int indexOf(long units) {
+        if (units < SUB_BUCKET_COUNT) {
+            return (int) units;
+        }
+        // the 16 buckets of each power of two above the first 32 units
+        final int shift = (63 - Long.numberOfLeadingZeros(units)) - SUB_BUCKET_BITS + 1;
+        return shift * SUB_BUCKET_HALF + (int) (units >>> shift);
+    }
+
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKET_HALF - 1;
+        final long subBucket = index - shift * SUB_BUCKET_HALF;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Records a duration.
+     * 
+     * @param nanos the duration, in nanoseconds. Negative values are recorded as zero.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(indexOf(Math.min(nanos >>> UNIT_SHIFT, MAX_VALUE)));
+        count.incrementAndGet();
+        total.addAndGet(nanos);
+
+        long current = max.get();
+        while (nanos > current && !max.compareAndSet(current, nanos)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Gets the number of recorded values.
+     * 
+     * @return the count of values
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets the largest recorded value.
+     * 
+     * @return the exact maximum, in nanoseconds.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     * 
+     * @return the exact mean, in nanoseconds.
+     */
+    public long getMean() {
+        final long n = count.get();
+        return n == 0 ? 0 : total.get() / n;
+    }
+
+    /**
+     * Gets the value below which a given percentage of the recorded values fall.
+     * 
+     * @param percentile the percentile, between 0 and 100.
+     * @return the highest value equivalent to the percentile bucket, in nanoseconds, never above the maximum.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            n += counts.get(i);
+        }
+        if (n == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(n * Math.min(percentile, 100.0) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                // the last bucket also holds the values beyond the range
+                return i == BUCKETS - 1 ? max.get() : Math.min(((highestValueAt(i) + 1) << UNIT_SHIFT) - 1, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+}
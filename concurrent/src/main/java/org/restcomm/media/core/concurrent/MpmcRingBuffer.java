@@ -0,0 +1,115 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free bounded queue for multiple producers and multiple consumers.
+ * <p>
+ * Each slot carries a sequence number that tells producers and consumers whether the slot is free for the current lap of
+ * the ring. A thread claims a slot with a single CAS on the shared cursor, so the queue never allocates after construction.
+ * </p>
+ *
+ * @param <E> the type of elements held in the queue
+ */
+public class MpmcRingBuffer<E> extends RingBuffer<E> {
+
+    private final AtomicReferenceArray<E> buffer;
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong(0);
+    private final AtomicLong head = new AtomicLong(0);
+
+    public MpmcRingBuffer(int capacity) {
+        super(capacity);
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            this.sequences.lazySet(i, i);
+        }
+    }
+
+    @Override
+    protected boolean enqueue(E e) {
+        long position = tail.get();
+        while (true) {
+            final int index = (int) position & mask;
+            final long sequence = sequences.get(index);
+            final long delta = sequence - position;
+
+            if (delta == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer.lazySet(index, e);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (delta < 0) {
+                // slot still holds an element from the previous lap
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    @Override
+    protected E dequeue() {
+        long position = head.get();
+        while (true) {
+            final int index = (int) position & mask;
+            final long sequence = sequences.get(index);
+            final long delta = sequence - (position + 1);
+
+            if (delta == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    final E e = buffer.get(index);
+                    buffer.lazySet(index, null);
+                    sequences.lazySet(index, position + capacity);
+                    return e;
+                }
+                position = head.get();
+            } else if (delta < 0) {
+                // slot not yet published for this lap
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        // read head first so that a concurrent dequeue cannot make the result negative
+        final long h = head.get();
+        final long t = tail.get();
+        final long size = t - h;
+        if (size < 0) {
+            return 0;
+        }
+        return size > capacity ? capacity : (int) size;
+    }
+
+}
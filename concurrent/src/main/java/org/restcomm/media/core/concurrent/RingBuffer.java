@@ -0,0 +1,187 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.concurrent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded, array-backed queue with the same <code>offer/poll/take/size</code> contract as {@link ConcurrentCyclicFIFO}.
+ * <p>
+ * Producers and consumers never lock while the queue has elements. The lock is only taken by consumers that have to block
+ * in {@link #take()} and by producers that find such a blocked consumer, so the slow path is paid once per idle period
+ * and not once per element.
+ * </p>
+ * <p>
+ * Unlike {@link ConcurrentCyclicFIFO}, {@link #offer(Object)} returns <code>false</code> when the queue is full. Callers
+ * decide whether to drop the element or to make room for it.
+ * </p>
+ *
+ * @param <E> the type of elements held in the queue
+ */
+public abstract class RingBuffer<E> {
+
+    /** Busy spins done by {@link #take()} before it parks */
+    private static final int SPIN_TRIES = 64;
+
+    protected final int capacity;
+    protected final int mask;
+
+    /** Number of consumers blocked in take() */
+    private final AtomicInteger waiters = new AtomicInteger(0);
+    private final ReentrantLock takeLock = new ReentrantLock();
+    private final Condition notEmpty = takeLock.newCondition();
+
+    protected RingBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2: " + capacity);
+        }
+        this.capacity = roundToPowerOfTwo(capacity);
+        this.mask = this.capacity - 1;
+    }
+
+    static int roundToPowerOfTwo(int value) {
+        if (value > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity is too large: " + value);
+        }
+        return 1 << (32 - Integer.numberOfLeadingZeros(value - 1));
+    }
+
+    /**
+     * Gets the maximum number of elements the queue can hold.
+     *
+     * @return the capacity, always a power of two.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Inserts an element at the tail of the queue, if there is room for it.
+     *
+     * @param e the element to insert
+     * @return <code>true</code> if the element was queued; <code>false</code> if the queue is full.
+     * @throws NullPointerException if the element is null
+     */
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+
+        if (!enqueue(e)) {
+            return false;
+        }
+
+        if (waiters.get() > 0) {
+            signalNotEmpty();
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves and removes the head of the queue.
+     *
+     * @return the head of the queue, or <code>null</code> if the queue is empty.
+     */
+    public E poll() {
+        return dequeue();
+    }
+
+    /**
+     * Retrieves and removes the head of the queue, waiting until an element becomes available.
+     *
+     * @return the head of the queue
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public E take() throws InterruptedException {
+        E result;
+        for (int i = 0; i < SPIN_TRIES; i++) {
+            result = dequeue();
+            if (result != null) {
+                return result;
+            }
+        }
+
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lockInterruptibly();
+        try {
+            waiters.incrementAndGet();
+            try {
+                // offer() checks the waiters after publishing the element, so re-checking after registering never misses one
+                while ((result = dequeue()) == null) {
+                    notEmpty.await();
+                }
+            } finally {
+                waiters.decrementAndGet();
+            }
+        } finally {
+            takeLock.unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of elements in the queue.
+     * <p>
+     * The value is a snapshot and may already be stale when returned if other threads are using the queue.
+     * </p>
+     *
+     * @return the number of elements.
+     */
+    public abstract int size();
+
+    /**
+     * Removes all elements from the queue.
+     */
+    public void clear() {
+        while (dequeue() != null) {
+            // drain
+        }
+    }
+
+    private void signalNotEmpty() {
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lock();
+        try {
+            notEmpty.signal();
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    /**
+     * Publishes a non-null element.
+     *
+     * @param e the element
+     * @return <code>false</code> if the queue is full
+     */
+    protected abstract boolean enqueue(E e);
+
+    /**
+     * Removes the oldest element.
+     *
+     * @return the element or <code>null</code> if queue is empty
+     */
+    protected abstract E dequeue();
+
+}
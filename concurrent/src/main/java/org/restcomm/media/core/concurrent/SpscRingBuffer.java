@@ -0,0 +1,102 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free bounded queue for exactly one producer and one consumer.
+ * <p>
+ * Calls to {@link #offer(Object)} must not overlap each other, and neither may calls to {@link #poll()}, {@link #take()}
+ * and {@link #clear()}. The calls do not have to come from the same thread every time, as long as the caller orders them
+ * (for example, tasks of the same scheduler queue running one after the other).
+ * </p>
+ * <p>
+ * Each side only writes its own cursor and keeps a cached copy of the other side's cursor, so in the common case an
+ * operation touches no shared cache line other than the slot itself.
+ * </p>
+ *
+ * @param <E> the type of elements held in the queue
+ */
+public class SpscRingBuffer<E> extends RingBuffer<E> {
+
+    private final AtomicReferenceArray<E> buffer;
+
+    private final AtomicLong tail = new AtomicLong(0);
+    private final AtomicLong head = new AtomicLong(0);
+
+    // Owned by the producer
+    private long headCache = 0;
+
+    // Owned by the consumer
+    private long tailCache = 0;
+
+    public SpscRingBuffer(int capacity) {
+        super(capacity);
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+    }
+
+    @Override
+    protected boolean enqueue(E e) {
+        final long position = tail.get();
+        if (position - headCache >= capacity) {
+            headCache = head.get();
+            if (position - headCache >= capacity) {
+                return false;
+            }
+        }
+
+        buffer.lazySet((int) position & mask, e);
+        tail.set(position + 1);
+        return true;
+    }
+
+    @Override
+    protected E dequeue() {
+        final long position = head.get();
+        if (position >= tailCache) {
+            tailCache = tail.get();
+            if (position >= tailCache) {
+                return null;
+            }
+        }
+
+        final int index = (int) position & mask;
+        final E e = buffer.get(index);
+        buffer.lazySet(index, null);
+        head.lazySet(position + 1);
+        return e;
+    }
+
+    @Override
+    public int size() {
+        final long h = head.get();
+        final long t = tail.get();
+        final long size = t - h;
+        if (size < 0) {
+            return 0;
+        }
+        return size > capacity ? capacity : (int) size;
+    }
+
+}
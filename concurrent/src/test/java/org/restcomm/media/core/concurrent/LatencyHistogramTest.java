@@ -0,0 +1,115 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.core.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentilesWithinPrecision() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // when
+        for (long micros = 1; micros <= 10000; micros++) {
+            histogram.record(micros * 1000L);
+        }
+
+        // then
+        assertEquals(10000, histogram.getCount());
+        assertEquals(10000000L, histogram.getMax());
+        assertEquals(5000500L, histogram.getMean());
+        assertWithin(5000000L, histogram.getValueAtPercentile(50.0));
+        assertWithin(9900000L, histogram.getValueAtPercentile(99.0));
+        assertEquals(10000000L, histogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    public void testOutOfRangeValues() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // when
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE / 2);
+
+        // then
+        assertEquals(2, histogram.getCount());
+        assertEquals(0L, histogram.getValueAtPercentile(50.0) >>> 10);
+        assertEquals(Long.MAX_VALUE / 2, histogram.getValueAtPercentile(100.0));
+    }
+
+    @Test
+    public void testReset() {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(20000000L);
+
+        // when
+        histogram.reset();
+
+        // then
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean());
+        assertEquals(0, histogram.getValueAtPercentile(99.0));
+    }
+
+    @Test
+    public void testRecordingDoesNotAllocate() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < 100000; i++) {
+            histogram.record(i * 731L);
+        }
+
+        // when
+        long before = allocations.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 100000; i++) {
+            histogram.record(i * 731L);
+        }
+        long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+
+        // then
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected " + expected + " but was " + actual, Math.abs(actual - expected) <= expected / 16);
+    }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class MpmcRingBufferTest {
+
+    @Test
+    public void testCapacityIsRoundedToPowerOfTwo() {
+        assertEquals(8, new MpmcRingBuffer<Integer>(5).capacity());
+        assertEquals(16, new MpmcRingBuffer<Integer>(16).capacity());
+    }
+
+    @Test
+    public void testFifoOrder() {
+        // given
+        MpmcRingBuffer<Integer> queue = new MpmcRingBuffer<>(4);
+
+        // when
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+
+        // then
+        assertEquals(4, queue.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(Integer.valueOf(i), queue.poll());
+        }
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testOfferFailsWhenFull() {
+        // given
+        MpmcRingBuffer<Integer> queue = new MpmcRingBuffer<>(2);
+        queue.offer(1);
+        queue.offer(2);
+
+        // when
+        boolean offered = queue.offer(3);
+
+        // then
+        assertFalse(offered);
+        assertEquals(Integer.valueOf(1), queue.poll());
+        assertTrue(queue.offer(3));
+        assertEquals(Integer.valueOf(2), queue.poll());
+        assertEquals(Integer.valueOf(3), queue.poll());
+    }
+
+    @Test
+    public void testWrapAround() {
+        MpmcRingBuffer<Integer> queue = new MpmcRingBuffer<>(4);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(queue.offer(i));
+            assertTrue(queue.offer(i + 1));
+            assertEquals(Integer.valueOf(i), queue.poll());
+            assertEquals(Integer.valueOf(i + 1), queue.poll());
+        }
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testClear() {
+        MpmcRingBuffer<Integer> queue = new MpmcRingBuffer<>(8);
+        queue.offer(1);
+        queue.offer(2);
+
+        queue.clear();
+
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testOfferNull() {
+        new MpmcRingBuffer<Integer>(2).offer(null);
+    }
+
+    @Test(timeout = 5000)
+    public void testTakeBlocksUntilOffer() throws Exception {
+        // given
+        final MpmcRingBuffer<Integer> queue = new MpmcRingBuffer<>(4);
+        final CountDownLatch taken = new CountDownLatch(1);
+        Thread consumer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    if (queue.take() == 7) {
+                        taken.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    // test fails on timeout
+                }
+            }
+        });
+        consumer.start();
+
+        // when
+        Thread.sleep(50);
+        queue.offer(7);
+
+        // then
+        assertTrue(taken.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 20000)
+    public void testConcurrentProducersAndConsumers() throws Exception {
+        // given
+        final int producers = 4;
+        final int consumers = 4;
+        final int perProducer = 100000;
+        final MpmcRingBuffer<Integer> queue = new MpmcRingBuffer<>(1024);
+        final AtomicLong sum = new AtomicLong(0);
+        final CountDownLatch done = new CountDownLatch(producers * perProducer);
+
+        for (int c = 0; c < consumers; c++) {
+            Thread consumer = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    while (true) {
+                        try {
+                            Integer value = queue.take();
+                            sum.addAndGet(value);
+                            done.countDown();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            });
+            consumer.setDaemon(true);
+            consumer.start();
+        }
+
+        // when
+        for (int p = 0; p < producers; p++) {
+            new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (int i = 1; i <= perProducer; i++) {
+                        while (!queue.offer(i)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            }).start();
+        }
+
+        // then
+        assertTrue(done.await(15, TimeUnit.SECONDS));
+        long expected = (long) producers * perProducer * (perProducer + 1) / 2;
+        assertEquals(expected, sum.get());
+        assertEquals(0, queue.size());
+    }
+
+}
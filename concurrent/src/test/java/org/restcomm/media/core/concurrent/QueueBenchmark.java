@@ -0,0 +1,243 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares {@link ConcurrentCyclicFIFO} against the ring buffers under the access patterns of the media hot path.
+ * <p>
+ * Run with <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.restcomm.media.core.concurrent.QueueBenchmark</code> or from the IDE.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class QueueBenchmark {
+
+    private static final Object ELEMENT = new Object();
+    private static final int CAPACITY = 1024;
+
+    /**
+     * <code>fifo</code> runs every group on {@link ConcurrentCyclicFIFO}. <code>ring</code> runs the multi-threaded
+     * groups on {@link MpmcRingBuffer} and the single producer/consumer group on {@link SpscRingBuffer}.
+     */
+    @Param({ "fifo", "ring" })
+    public String implementation;
+
+    private QueueAdapter pool;
+    private QueueAdapter queue;
+    private QueueAdapter spsc;
+
+    @Setup
+    public void setup() {
+        if ("fifo".equals(implementation)) {
+            this.pool = fifo();
+            this.queue = fifo();
+            this.spsc = fifo();
+        } else {
+            this.pool = mpmc();
+            this.queue = mpmc();
+
+            final SpscRingBuffer<Object> spsc = new SpscRingBuffer<>(CAPACITY);
+            this.spsc = new QueueAdapter() {
+
+                @Override
+                public boolean offer(Object o) {
+                    return spsc.offer(o);
+                }
+
+                @Override
+                public Object poll() {
+                    return spsc.poll();
+                }
+            };
+        }
+
+        // half full, so pooled allocations and recycles rarely hit an empty or full queue
+        for (int i = 0; i < CAPACITY / 2; i++) {
+            pool.offer(ELEMENT);
+        }
+    }
+
+    private static QueueAdapter mpmc() {
+        final MpmcRingBuffer<Object> mpmc = new MpmcRingBuffer<>(CAPACITY);
+        return new QueueAdapter() {
+
+            @Override
+            public boolean offer(Object o) {
+                return mpmc.offer(o);
+            }
+
+            @Override
+            public Object poll() {
+                return mpmc.poll();
+            }
+        };
+    }
+
+    private static QueueAdapter fifo() {
+        final ConcurrentCyclicFIFO<Object> fifo = new ConcurrentCyclicFIFO<>();
+        return new QueueAdapter() {
+
+            @Override
+            public boolean offer(Object o) {
+                // unbounded, so apply the same back pressure as the ring buffers
+                if (fifo.size() >= CAPACITY) {
+                    return false;
+                }
+                fifo.offer(o);
+                return true;
+            }
+
+            @Override
+            public Object poll() {
+                return fifo.poll();
+            }
+        };
+    }
+
+    /**
+     * Counts the operations that actually moved an element, as opposed to attempts on a full or empty queue.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Transfers {
+
+        public long transferred;
+        public long missed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            transferred = 0;
+            missed = 0;
+        }
+
+    }
+
+    /*
+     * Memory partition: every scheduler worker takes a frame from the pool and recycles it later.
+     */
+
+    @Benchmark
+    @Group("partition")
+    @GroupThreads(4)
+    public void partition(Transfers transfers) {
+        Object element = pool.poll();
+        if (element == null) {
+            transfers.missed++;
+        } else {
+            pool.offer(element);
+            transfers.transferred++;
+        }
+    }
+
+    /*
+     * Scheduler: one core thread hands tasks to many workers.
+     */
+
+    @Benchmark
+    @Group("scheduler")
+    @GroupThreads(1)
+    public void schedulerSubmit(Transfers transfers) {
+        offer(queue, transfers);
+    }
+
+    @Benchmark
+    @Group("scheduler")
+    @GroupThreads(4)
+    public void schedulerWorker(Transfers transfers) {
+        poll(queue, transfers);
+    }
+
+    /*
+     * Component buffer: one upstream source and one downstream sink.
+     */
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public void spscOffer(Transfers transfers) {
+        offer(spsc, transfers);
+    }
+
+    @Benchmark
+    @Group("spsc")
+    @GroupThreads(1)
+    public void spscPoll(Transfers transfers) {
+        poll(spsc, transfers);
+    }
+
+    private static void offer(QueueAdapter queue, Transfers transfers) {
+        if (queue.offer(ELEMENT)) {
+            transfers.transferred++;
+        } else {
+            transfers.missed++;
+        }
+    }
+
+    private static void poll(QueueAdapter queue, Transfers transfers) {
+        if (queue.poll() == null) {
+            transfers.missed++;
+        } else {
+            transfers.transferred++;
+        }
+    }
+
+    private interface QueueAdapter {
+
+        boolean offer(Object o);
+
+        Object poll();
+
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(QueueBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+
+}
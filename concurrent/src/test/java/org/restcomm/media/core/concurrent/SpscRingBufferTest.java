@@ -0,0 +1,91 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class SpscRingBufferTest {
+
+    @Test
+    public void testFifoOrderAndCapacity() {
+        // given
+        SpscRingBuffer<Integer> queue = new SpscRingBuffer<>(3);
+
+        // when
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+
+        // then
+        assertFalse(queue.offer(4));
+        assertEquals(4, queue.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(Integer.valueOf(i), queue.poll());
+        }
+        assertNull(queue.poll());
+    }
+
+    @Test(timeout = 20000)
+    public void testProducerConsumerOrdering() throws Exception {
+        // given
+        final int count = 1000000;
+        final SpscRingBuffer<Integer> queue = new SpscRingBuffer<>(64);
+        final AtomicBoolean ordered = new AtomicBoolean(true);
+
+        Thread consumer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < count; i++) {
+                        if (queue.take() != i) {
+                            ordered.set(false);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    ordered.set(false);
+                }
+            }
+        });
+        consumer.start();
+
+        // when
+        for (int i = 0; i < count; i++) {
+            while (!queue.offer(i)) {
+                Thread.yield();
+            }
+        }
+        consumer.join();
+
+        // then
+        assertTrue(ordered.get());
+        assertEquals(0, queue.size());
+    }
+
+}
@@ -65,4 +65,16 @@ public class MgcpConnectionProvider {
         return new MgcpLocalConnection(this.idGenerator.incrementAndGet(), callId, this.timeout, eventProvider, channelsManager, executor);
     }
 
+    /**
+     * Gives back the media channel of a connection that was closed and deleted from its endpoint, so it can be reused by
+     * another connection.
+     * 
+     * @param connection The deleted connection. Must not be used anymore.
+     */
+    public void release(MgcpConnection connection) {
+        if (connection instanceof MgcpRemoteConnection && MgcpConnectionState.CLOSED.equals(connection.getState())) {
+            this.channelProvider.release(((MgcpRemoteConnection) connection).getAudioChannel());
+        }
+    }
+
 }
@@ -87,6 +87,7 @@ public class MgcpRemoteConnection extends AbstractMgcpConnection implements RtpL
         // Media Channels
         this.audioChannel = channelProvider.provideAudioChannel();
         this.audioChannel.setCname(this.cname);
+        this.audioChannel.setRtpListener(this);
     }
 
     public MgcpRemoteConnection(int identifier, int callId, int timeout, MgcpEventProvider eventProvider, MediaChannelProvider channelProvider, ListeningScheduledExecutorService executor) {
@@ -488,6 +489,10 @@ public class MgcpRemoteConnection extends AbstractMgcpConnection implements RtpL
         }
     }
     
+    AudioChannel getAudioChannel() {
+        return this.audioChannel;
+    }
+
     @Override
     public AudioComponent getAudioComponent() {
         return this.audioChannel.getAudioComponent();
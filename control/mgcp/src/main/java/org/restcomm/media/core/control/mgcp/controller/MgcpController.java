@@ -40,6 +40,7 @@ import org.restcomm.media.core.control.mgcp.message.MessageDirection;
 import org.restcomm.media.core.control.mgcp.message.MgcpMessage;
 import org.restcomm.media.core.control.mgcp.message.MgcpMessageObserver;
 import org.restcomm.media.core.control.mgcp.message.MgcpRequest;
+import org.restcomm.media.core.control.mgcp.message.MgcpRequestType;
 import org.restcomm.media.core.control.mgcp.message.MgcpResponse;
 import org.restcomm.media.core.control.mgcp.message.MgcpResponseCode;
 import org.restcomm.media.core.control.mgcp.network.netty.AsyncMgcpChannel;
@@ -63,16 +64,21 @@ public class MgcpController implements ServerManager, MgcpMessageObserver {
     private final MgcpTransactionManager transactions;
     private final MgcpEndpointManager endpoints;
     private final MgcpCommandProvider commands;
+    private final MgcpNotificationDispatcher notifications;
 
     // MGCP Controller State
     private final MgcpControllerGlobalContext context;
     private final MgcpControllerFsm fsm;
 
-    public MgcpController(String address, int port, AsyncMgcpChannel channel, MgcpTransactionManager transactions, MgcpEndpointManager endpoints, MgcpCommandProvider commands) {
+    public MgcpController(String address, int port, AsyncMgcpChannel channel, MgcpTransactionManager transactions, MgcpEndpointManager endpoints, MgcpCommandProvider commands, MgcpNotificationDispatcher notifications) {
         // MGCP Components
         this.transactions = transactions;
         this.endpoints = endpoints;
         this.commands = commands;
+        this.notifications = notifications;
+        if (this.notifications != null) {
+            this.notifications.setSender(new NotificationSender());
+        }
 
         // MGCP Controller State
         this.context = new MgcpControllerGlobalContext();
@@ -82,6 +88,10 @@ public class MgcpController implements ServerManager, MgcpMessageObserver {
         this.fsm.start();
     }
 
+    public MgcpController(String address, int port, AsyncMgcpChannel channel, MgcpTransactionManager transactions, MgcpEndpointManager endpoints, MgcpCommandProvider commands) {
+        this(address, port, channel, transactions, endpoints, commands, null);
+    }
+
     @Override
     public ControlProtocol getControlProtocol() {
         return ControlProtocol.MGPC;
@@ -176,6 +186,15 @@ public class MgcpController implements ServerManager, MgcpMessageObserver {
     }
 
     private void onOutgoingRequest(InetSocketAddress from, InetSocketAddress to, MgcpRequest request) {
+        if (this.notifications != null && MgcpRequestType.NTFY.equals(request.getRequestType())) {
+            // Dispatcher decides when the notification goes out
+            this.notifications.dispatch(from, to, request);
+        } else {
+            sendRequest(from, to, request);
+        }
+    }
+
+    private void sendRequest(InetSocketAddress from, InetSocketAddress to, MgcpRequest request) {
         try {
             // Start transaction
             this.transactions.process(from, to, request, null, MessageDirection.OUTGOING);
@@ -187,6 +206,10 @@ public class MgcpController implements ServerManager, MgcpMessageObserver {
     }
 
     private void onIncomingResponse(InetSocketAddress from, InetSocketAddress to, MgcpResponse response) {
+        if (this.notifications != null) {
+            this.notifications.onResponse(from, response);
+        }
+
         try {
             // Close transaction
             this.transactions.process(from, to, response, MessageDirection.INCOMING);
@@ -214,6 +237,21 @@ public class MgcpController implements ServerManager, MgcpMessageObserver {
         this.context.getChannel().send(response, to, new SendChannelCallback());
     }
     
+    private final class NotificationSender implements MgcpNotificationDispatcher.Sender {
+
+        @Override
+        public void send(InetSocketAddress from, InetSocketAddress to, MgcpRequest request) {
+            sendRequest(from, to, request);
+        }
+
+        @Override
+        public void retransmit(InetSocketAddress from, InetSocketAddress to, MgcpRequest request) {
+            // Transaction is still open, so the request goes out as is
+            context.getChannel().send(request, to, new SendChannelCallback());
+        }
+
+    }
+
     private class SendChannelCallback implements FutureCallback<Void> {
 
         @Override
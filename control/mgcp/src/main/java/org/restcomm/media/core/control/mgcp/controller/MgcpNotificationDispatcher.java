@@ -0,0 +1,388 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.control.mgcp.controller;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.restcomm.media.core.control.mgcp.message.MgcpParameterType;
+import org.restcomm.media.core.control.mgcp.message.MgcpRequest;
+import org.restcomm.media.core.control.mgcp.message.MgcpResponse;
+
+/**
+ * Delivers the notifications (NTFY) of the endpoints to the call agents.
+ * <p>
+ * Notifications of the same endpoint and request identifier that are raised within a short window are sent as a single
+ * NTFY that lists all observed events, in the order they were raised. Each call agent has a limit of notifications that
+ * were sent but not answered yet. Further notifications wait in a queue until the call agent answers, so a burst of
+ * events does not flood it.
+ * </p>
+ * <p>
+ * Notifications that are not answered in time are retransmitted, ahead of the queued ones, up to a maximum number of
+ * times. The following system properties tune the dispatcher:
+ * </p>
+ * <ul>
+ * <li><code>restcomm.media.mgcp.ntfy.window</code> - coalescing window, in milliseconds. 0 sends every notification on
+ * its own.</li>
+ * <li><code>restcomm.media.mgcp.ntfy.max-outstanding</code> - unanswered notifications per call agent.</li>
+ * <li><code>restcomm.media.mgcp.ntfy.retransmission-timeout</code> - time to wait for an answer, in milliseconds.</li>
+ * <li><code>restcomm.media.mgcp.ntfy.max-retransmissions</code> - retransmissions before a notification is dropped.</li>
+ * </ul>
+ */
+public class MgcpNotificationDispatcher {
+
+    public static final String WINDOW_PROPERTY = "restcomm.media.mgcp.ntfy.window";
+    public static final String MAX_OUTSTANDING_PROPERTY = "restcomm.media.mgcp.ntfy.max-outstanding";
+    public static final String RETRANSMISSION_TIMEOUT_PROPERTY = "restcomm.media.mgcp.ntfy.retransmission-timeout";
+    public static final String MAX_RETRANSMISSIONS_PROPERTY = "restcomm.media.mgcp.ntfy.max-retransmissions";
+
+    public static final long DEFAULT_WINDOW = 10L;
+    public static final int DEFAULT_MAX_OUTSTANDING = 32;
+    public static final long DEFAULT_RETRANSMISSION_TIMEOUT = 1000L;
+    public static final int DEFAULT_MAX_RETRANSMISSIONS = 3;
+
+    private static final Logger log = LogManager.getLogger(MgcpNotificationDispatcher.class);
+
+    /**
+     * Sends notifications on behalf of the dispatcher.
+     */
+    public interface Sender {
+
+        /**
+         * Sends a new notification. The transaction identifier of the request must be set before the request goes out.
+         * 
+         * @param from The address of the endpoint.
+         * @param to The address of the call agent.
+         * @param request The notification.
+         */
+        void send(InetSocketAddress from, InetSocketAddress to, MgcpRequest request);
+
+        /**
+         * Sends a notification again, within its original transaction.
+         * 
+         * @param from The address of the endpoint.
+         * @param to The address of the call agent.
+         * @param request The notification.
+         */
+        void retransmit(InetSocketAddress from, InetSocketAddress to, MgcpRequest request);
+
+    }
+
+    private final ScheduledExecutorService scheduler;
+    private final long window;
+    private final int maxOutstanding;
+    private final long retransmissionTimeout;
+    private final int maxRetransmissions;
+
+    private final ConcurrentHashMap<InetSocketAddress, CallAgent> callAgents;
+    private volatile Sender sender;
+
+    public MgcpNotificationDispatcher(ScheduledExecutorService scheduler, long window, int maxOutstanding, long retransmissionTimeout, int maxRetransmissions, TimeUnit unit) {
+        if (maxOutstanding < 1) {
+            throw new IllegalArgumentException("Maximum outstanding notifications must be positive: " + maxOutstanding);
+        }
+        this.scheduler = scheduler;
+        this.window = unit.toNanos(window);
+        this.maxOutstanding = maxOutstanding;
+        this.retransmissionTimeout = unit.toNanos(retransmissionTimeout);
+        this.maxRetransmissions = maxRetransmissions;
+        this.callAgents = new ConcurrentHashMap<>();
+    }
+
+    public MgcpNotificationDispatcher(ScheduledExecutorService scheduler) {
+        this(scheduler, Long.getLong(WINDOW_PROPERTY, DEFAULT_WINDOW),
+                Integer.getInteger(MAX_OUTSTANDING_PROPERTY, DEFAULT_MAX_OUTSTANDING),
+                Long.getLong(RETRANSMISSION_TIMEOUT_PROPERTY, DEFAULT_RETRANSMISSION_TIMEOUT),
+                Integer.getInteger(MAX_RETRANSMISSIONS_PROPERTY, DEFAULT_MAX_RETRANSMISSIONS), TimeUnit.MILLISECONDS);
+    }
+
+    public void setSender(Sender sender) {
+        this.sender = sender;
+    }
+
+    /**
+     * Gets the number of notifications sent to a call agent that were not answered yet.
+     * 
+     * @param callAgent The address of the call agent.
+     * @return The number of outstanding notifications.
+     */
+    public int getOutstanding(InetSocketAddress callAgent) {
+        final CallAgent agent = this.callAgents.get(callAgent);
+        if (agent == null) {
+            return 0;
+        }
+        synchronized (agent) {
+            return agent.outstanding.size();
+        }
+    }
+
+    /**
+     * Gets the number of notifications that wait for the call agent to answer previous ones.
+     * 
+     * @param callAgent The address of the call agent.
+     * @return The number of queued notifications.
+     */
+    public int getQueued(InetSocketAddress callAgent) {
+        final CallAgent agent = this.callAgents.get(callAgent);
+        if (agent == null) {
+            return 0;
+        }
+        synchronized (agent) {
+            return agent.queue.size();
+        }
+    }
+
+    /**
+     * Delivers a notification raised by an endpoint.
+     * 
+     * @param from The address of the endpoint.
+     * @param to The address of the call agent.
+     * @param request The notification.
+     */
+    public void dispatch(InetSocketAddress from, InetSocketAddress to, MgcpRequest request) {
+        final CallAgent agent = getCallAgent(to);
+        final Notification notification = new Notification(agent, from, to, request);
+
+        if (this.window > 0) {
+            synchronized (agent) {
+                final Notification pending = agent.pending.get(notification.key);
+                if (pending != null) {
+                    // Window is still open: report the event in the notification that is about to be sent
+                    pending.merge(request);
+                    return;
+                }
+                agent.pending.put(notification.key, notification);
+            }
+
+            try {
+                this.scheduler.schedule(new FlushTask(notification), this.window, TimeUnit.NANOSECONDS);
+                return;
+            } catch (RejectedExecutionException e) {
+                log.warn("Could not delay notification to call agent " + to + ". Sending it right away.");
+                synchronized (agent) {
+                    agent.pending.remove(notification.key);
+                }
+            }
+        }
+
+        enqueue(notification);
+    }
+
+    /**
+     * Handles a response received from a call agent, releasing the notification it answers.
+     * 
+     * @param from The address of the call agent.
+     * @param response The response.
+     */
+    public void onResponse(InetSocketAddress from, MgcpResponse response) {
+        final CallAgent agent = this.callAgents.get(from);
+        if (agent == null) {
+            return;
+        }
+
+        final int code = response.getCode();
+        if (code >= 100 && code < 200) {
+            // Provisional response: the call agent got the notification and will answer later
+            return;
+        }
+
+        Notification answered = null;
+        synchronized (agent) {
+            final int transactionId = response.getTransactionId();
+            final Iterator<Notification> iterator = agent.outstanding.iterator();
+            while (iterator.hasNext()) {
+                final Notification notification = iterator.next();
+                if (notification.request.getTransactionId() == transactionId) {
+                    iterator.remove();
+                    answered = notification;
+                    break;
+                }
+            }
+        }
+
+        if (answered != null) {
+            answered.cancelTimeout();
+            drain(agent);
+        }
+    }
+
+    private CallAgent getCallAgent(InetSocketAddress address) {
+        CallAgent agent = this.callAgents.get(address);
+        if (agent == null) {
+            final CallAgent newAgent = new CallAgent();
+            agent = this.callAgents.putIfAbsent(address, newAgent);
+            if (agent == null) {
+                agent = newAgent;
+            }
+        }
+        return agent;
+    }
+
+    private void enqueue(Notification notification) {
+        final CallAgent agent = notification.agent;
+        synchronized (agent) {
+            agent.queue.add(notification);
+        }
+        drain(agent);
+    }
+
+    private void drain(CallAgent agent) {
+        final List<Notification> ready;
+        synchronized (agent) {
+            if (agent.queue.isEmpty() || agent.outstanding.size() >= this.maxOutstanding) {
+                return;
+            }
+            ready = new ArrayList<>(Math.min(agent.queue.size(), this.maxOutstanding - agent.outstanding.size()));
+            while (!agent.queue.isEmpty() && agent.outstanding.size() < this.maxOutstanding) {
+                final Notification notification = agent.queue.poll();
+                // Register before sending, so a quick answer always finds the notification
+                agent.outstanding.add(notification);
+                ready.add(notification);
+            }
+        }
+
+        final Sender sender = this.sender;
+        for (Notification notification : ready) {
+            if (notification.attempts == 0) {
+                sender.send(notification.from, notification.to, notification.request);
+            } else {
+                sender.retransmit(notification.from, notification.to, notification.request);
+            }
+            notification.attempts++;
+            notification.scheduleTimeout();
+        }
+    }
+
+    private void onTimeout(Notification notification) {
+        final CallAgent agent = notification.agent;
+        synchronized (agent) {
+            if (!agent.outstanding.remove(notification)) {
+                // Answered meanwhile
+                return;
+            }
+
+            if (notification.attempts > this.maxRetransmissions) {
+                log.warn("Call agent " + notification.to + " did not answer notification " + notification.request.getTransactionId() + " after " + notification.attempts + " attempts. Dropping it.");
+            } else {
+                // Retransmissions go ahead of notifications that were never sent
+                agent.queue.addFirst(notification);
+            }
+        }
+        drain(agent);
+    }
+
+    /**
+     * State of the notifications sent to a call agent. Guarded by itself.
+     */
+    private static final class CallAgent {
+
+        /** Notifications in their coalescing window, by endpoint and request identifier */
+        private final Map<String, Notification> pending = new HashMap<>();
+        /** Notifications waiting to be sent or retransmitted */
+        private final ArrayDeque<Notification> queue = new ArrayDeque<>();
+        /** Notifications sent and not answered yet */
+        private final List<Notification> outstanding = new ArrayList<>();
+
+    }
+
+    private final class Notification implements Runnable {
+
+        private final CallAgent agent;
+        private final InetSocketAddress from;
+        private final InetSocketAddress to;
+        private final MgcpRequest request;
+        private final String key;
+
+        private int attempts;
+        private volatile ScheduledFuture<?> timeout;
+
+        private Notification(CallAgent agent, InetSocketAddress from, InetSocketAddress to, MgcpRequest request) {
+            this.agent = agent;
+            this.from = from;
+            this.to = to;
+            this.request = request;
+            this.key = request.getEndpointId() + " " + request.getParameter(MgcpParameterType.REQUEST_ID);
+            this.attempts = 0;
+        }
+
+        private void merge(MgcpRequest other) {
+            final String events = this.request.getParameter(MgcpParameterType.OBSERVED_EVENT);
+            final String otherEvents = other.getParameter(MgcpParameterType.OBSERVED_EVENT);
+            if (otherEvents != null) {
+                this.request.addParameter(MgcpParameterType.OBSERVED_EVENT, events == null ? otherEvents : events + "," + otherEvents);
+            }
+        }
+
+        private void scheduleTimeout() {
+            try {
+                this.timeout = scheduler.schedule(this, retransmissionTimeout, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                log.warn("Could not schedule retransmission of notification " + this.request.getTransactionId() + " to call agent " + this.to);
+            }
+        }
+
+        private void cancelTimeout() {
+            final ScheduledFuture<?> timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            onTimeout(this);
+        }
+
+    }
+
+    private final class FlushTask implements Runnable {
+
+        private final Notification notification;
+
+        private FlushTask(Notification notification) {
+            this.notification = notification;
+        }
+
+        @Override
+        public void run() {
+            final CallAgent agent = this.notification.agent;
+            synchronized (agent) {
+                agent.pending.remove(this.notification.key);
+            }
+            enqueue(this.notification);
+        }
+
+    }
+
+}
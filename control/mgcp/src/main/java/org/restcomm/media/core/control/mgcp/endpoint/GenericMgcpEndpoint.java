@@ -48,6 +48,7 @@ import org.restcomm.media.core.control.mgcp.message.MgcpMessageObserver;
 import org.restcomm.media.core.control.mgcp.message.MgcpParameterType;
 import org.restcomm.media.core.control.mgcp.message.MgcpRequest;
 import org.restcomm.media.core.control.mgcp.message.MgcpRequestType;
+import org.restcomm.media.core.control.mgcp.network.MgcpAddressCache;
 import org.restcomm.media.core.control.mgcp.pkg.MgcpEvent;
 import org.restcomm.media.core.control.mgcp.pkg.MgcpRequestedEvent;
 import org.restcomm.media.core.control.mgcp.pkg.MgcpSignal;
@@ -193,21 +194,13 @@ public class GenericMgcpEndpoint implements MgcpEndpoint {
         // Warn child class that connection was deleted
         onConnectionDeleted(connection);
 
-        // Set endpoint state
+        // Unregister from connection and close it if necessary
+        closeConnection(connection);
+
+        // Set endpoint state only after the connection is torn down, as an inactive endpoint may be reused right away
         if (!hasConnections() && isActive()) {
             deactivate();
         }
-        
-        // Unregister from connection and close it if necessary
-        try {
-            connection.forget(this);
-            
-            if(!MgcpConnectionState.CLOSED.equals(connection.getState())) {
-                connection.close();
-            }
-        } catch (MgcpConnectionException e) {
-            log.warn(this.endpointId + " could not close connection " + connection.getHexIdentifier() + " in elegant manner.", e);
-        }
         return connection;
     }
 
@@ -222,6 +215,12 @@ public class GenericMgcpEndpoint implements MgcpEndpoint {
             if(connection.getCallIdentifier() == callId) {
                 MgcpConnection removed = this.connections.remove(connection.getIdentifier());
                 if(removed != null) {
+                    // Warn child class that connection was deleted
+                    onConnectionDeleted(removed);
+
+                    // Unregister from connection and close it if needed
+                    closeConnection(removed);
+
                     deleted.add(removed);
                 }
             }
@@ -253,15 +252,11 @@ public class GenericMgcpEndpoint implements MgcpEndpoint {
         for (Integer key : keys) {
             MgcpConnection connection = this.connections.remove(key);
             if(connection != null) {
+                // Warn child class that connection was deleted
+                onConnectionDeleted(connection);
+
                 // Unregister from connection and close it if needed
-                try {
-                    connection.forget(this);
-                    if(!MgcpConnectionState.CLOSED.equals(connection.getState())) {
-                        connection.close();
-                    }
-                } catch (MgcpConnectionException e) {
-                    log.warn(this.endpointId + " could not close connection " + connection.getHexIdentifier() + " in elegant manner.", e);
-                }
+                closeConnection(connection);
 
                 // Add connection to list of deleted connections
                 deleted.add(connection);
@@ -281,6 +276,20 @@ public class GenericMgcpEndpoint implements MgcpEndpoint {
         return deleted;
     }
     
+    private void closeConnection(MgcpConnection connection) {
+        try {
+            connection.forget(this);
+            if(!MgcpConnectionState.CLOSED.equals(connection.getState())) {
+                connection.close();
+            }
+        } catch (MgcpConnectionException e) {
+            log.warn(this.endpointId + " could not close connection " + connection.getHexIdentifier() + " in elegant manner.", e);
+        }
+
+        // Media components were released by the endpoint, so the media channel can be reused
+        this.connectionProvider.release(connection);
+    }
+
     private String[] getConnectionHexId(Collection<MgcpConnection> connections) {
         String[] hex = new String[connections.size()];
         int index = 0;
@@ -295,6 +304,23 @@ public class GenericMgcpEndpoint implements MgcpEndpoint {
         return this.active.get();
     }
 
+    /**
+     * Clears the state left by the last call, so the endpoint can be registered again.
+     * 
+     * @return <code>true</code> if the endpoint can be reused; <code>false</code> if it is still in use.
+     */
+    synchronized boolean recycle() {
+        if (isActive() || hasConnections()) {
+            return false;
+        }
+
+        this.notifiedEntity = new NotifiedEntity();
+        this.signals.clear();
+        this.requestedEndpointEvents = EMPTY_ENDPOINT_EVENTS;
+        this.requestedConnectionEvents.clear();
+        return true;
+    }
+
     private void activate() throws IllegalStateException {
         if (this.active.get()) {
             throw new IllegalArgumentException("Endpoint " + this.endpointId + " is already active.");
@@ -543,8 +569,8 @@ public class GenericMgcpEndpoint implements MgcpEndpoint {
         if (request != null) {
             // Send notification to call agent
             // TODO hard-coded port in FROM field
-            InetSocketAddress from = new InetSocketAddress(this.endpointId.getDomainName(), 2427);
-            InetSocketAddress to = new InetSocketAddress(this.notifiedEntity.getDomain(), this.notifiedEntity.getPort());
+            InetSocketAddress from = MgcpAddressCache.INSTANCE.resolve(this.endpointId.getDomainName(), 2427);
+            InetSocketAddress to = MgcpAddressCache.INSTANCE.resolve(this.notifiedEntity.getDomain(), this.notifiedEntity.getPort());
             notify(this, from, to, request, MessageDirection.OUTGOING);
         }
     }
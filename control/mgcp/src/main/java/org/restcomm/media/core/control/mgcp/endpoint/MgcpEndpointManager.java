@@ -28,6 +28,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.restcomm.media.core.concurrent.MpmcRingBuffer;
 import org.restcomm.media.core.control.mgcp.endpoint.provider.MgcpEndpointProvider;
 import org.restcomm.media.core.control.mgcp.exception.MgcpEndpointNotFoundException;
 import org.restcomm.media.core.control.mgcp.exception.UnrecognizedMgcpNamespaceException;
@@ -48,18 +49,38 @@ public class MgcpEndpointManager implements MgcpEndpointObserver, MgcpMessageObs
     
     private static final Logger log = LogManager.getLogger(MgcpEndpointManager.class);
 
+    /** Number of idle endpoints kept per namespace. Zero disables pooling. */
+    public static final String POOL_SIZE_PROPERTY = "restcomm.media.mgcp.endpoint-pool";
+
     // Endpoint Management
     private final ConcurrentHashMap<String, MgcpEndpointProvider<?>> providers;
     private final ConcurrentHashMap<String, MgcpEndpoint> endpoints;
 
+    // Endpoint Pooling
+    private final int poolSize;
+    private final ConcurrentHashMap<String, MpmcRingBuffer<MgcpEndpoint>> pools;
+
     // Message Passing
     private final Set<MgcpMessageObserver> observers;
 
     public MgcpEndpointManager() {
+        this(Integer.getInteger(POOL_SIZE_PROPERTY, 0));
+    }
+
+    /**
+     * Creates a manager that keeps idle endpoints for reuse.
+     * 
+     * @param poolSize The number of endpoints created up front and kept idle for each namespace. Zero disables pooling.
+     */
+    public MgcpEndpointManager(int poolSize) {
         // Endpoint Management
         this.endpoints = new ConcurrentHashMap<>(100);
         this.providers = new ConcurrentHashMap<>(5);
 
+        // Endpoint Pooling
+        this.poolSize = Math.max(0, poolSize);
+        this.pools = new ConcurrentHashMap<>(5);
+
         // Message Passing
         this.observers = Sets.newConcurrentHashSet();
     }
@@ -70,6 +91,14 @@ public class MgcpEndpointManager implements MgcpEndpointObserver, MgcpMessageObs
         if (old != null) {
             throw new IllegalArgumentException("Provider for namespace " + provider.getNamespace() + "already exists.");
         } else {
+            if (this.poolSize > 0) {
+                MpmcRingBuffer<MgcpEndpoint> pool = new MpmcRingBuffer<>(Math.max(2, this.poolSize));
+                for (int i = 0; i < this.poolSize; i++) {
+                    pool.offer(provider.provide());
+                }
+                this.pools.put(provider.getNamespace(), pool);
+            }
+
             if (log.isInfoEnabled()) {
                 log.info("Installed MGCP Endpoint Provider for namespace " + provider.getNamespace());
             }
@@ -78,6 +107,7 @@ public class MgcpEndpointManager implements MgcpEndpointObserver, MgcpMessageObs
 
     public void uninstallProvider(String namespace) {
         MgcpEndpointProvider<?> provider = this.providers.remove(namespace);
+        this.pools.remove(namespace);
         if(provider != null) {
             if (log.isInfoEnabled()) {
                 log.info("Uninstalled MGCP Endpoint Provider for namespace " + provider.getNamespace());
@@ -102,8 +132,12 @@ public class MgcpEndpointManager implements MgcpEndpointObserver, MgcpMessageObs
             throw new UnrecognizedMgcpNamespaceException("Namespace " + namespace + " is unrecognized");
         }
 
-        // Create the endpoint and register it
-        MgcpEndpoint endpoint = provider.provide();
+        // Reuse an idle endpoint or create a new one, and register it
+        MpmcRingBuffer<MgcpEndpoint> pool = this.pools.get(namespace);
+        MgcpEndpoint endpoint = (pool == null) ? null : pool.poll();
+        if (endpoint == null) {
+            endpoint = provider.provide();
+        }
         endpoint.observe((MgcpEndpointObserver) this);
         endpoint.observe((MgcpMessageObserver) this);
         this.endpoints.put(endpoint.getEndpointId().toString(), endpoint);
@@ -125,6 +159,17 @@ public class MgcpEndpointManager implements MgcpEndpointObserver, MgcpMessageObs
         return this.endpoints.get(endpointId);
     }
 
+    /**
+     * Gets the number of idle endpoints ready to be registered.
+     * 
+     * @param namespace The namespace of the endpoints.
+     * @return The number of pooled endpoints.
+     */
+    public int getPooledCount(String namespace) {
+        MpmcRingBuffer<MgcpEndpoint> pool = this.pools.get(namespace);
+        return (pool == null) ? 0 : pool.size();
+    }
+
     /**
      * Unregisters an active endpoint.
      * 
@@ -186,10 +231,24 @@ public class MgcpEndpointManager implements MgcpEndpointObserver, MgcpMessageObs
             final String endpointId = endpoint.getEndpointId().toString();
             try {
                 unregisterEndpoint(endpointId);
+                recycle(endpoint);
             } catch (MgcpEndpointNotFoundException e) {
                 log.warn("Could not unregister endpoint " + endpointId +": Not found.");
             }
         }
     }
 
+    private void recycle(MgcpEndpoint endpoint) {
+        if (this.pools.isEmpty() || !(endpoint instanceof GenericMgcpEndpoint)) {
+            return;
+        }
+
+        final String localName = endpoint.getEndpointId().getLocalName();
+        final String namespace = localName.substring(0, localName.lastIndexOf('/') + 1);
+        final MpmcRingBuffer<MgcpEndpoint> pool = this.pools.get(namespace);
+        if (pool != null && pool.size() < this.poolSize && ((GenericMgcpEndpoint) endpoint).recycle()) {
+            pool.offer(endpoint);
+        }
+    }
+
 }
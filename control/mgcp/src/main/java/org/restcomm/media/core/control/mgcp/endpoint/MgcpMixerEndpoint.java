@@ -42,6 +42,9 @@ public class MgcpMixerEndpoint extends GenericMgcpEndpoint {
         super(endpointId, connectionProvider, mediaGroup);
         this.inbandMixer = inbandMixer;
         this.outbandMixer = outbandMixer;
+
+        // Audio and out-of-band media of the endpoint are scheduled together
+        this.outbandMixer.setAffinity(this.inbandMixer.getAffinity());
     }
 
     @Override
@@ -41,6 +41,9 @@ public class MgcpSplitterEndpoint extends GenericMgcpEndpoint {
         super(endpointId, connectionProvider, mediaGroup);
         this.inbandSplitter = inbandSplitter;
         this.outbandSplitter = outbandSplitter;
+
+        // Audio and out-of-band media of the endpoint are scheduled together
+        this.outbandSplitter.setAffinity(this.inbandSplitter.getAffinity());
     }
 
     @Override
@@ -21,6 +21,7 @@
 
 package org.restcomm.media.core.control.mgcp.endpoint.provider;
 
+import org.restcomm.media.core.component.audio.AudioComponent;
 import org.restcomm.media.core.component.audio.AudioSplitter;
 import org.restcomm.media.core.component.oob.OOBSplitter;
 import org.restcomm.media.core.control.mgcp.connection.MgcpConnectionProvider;
@@ -40,18 +41,34 @@ public class MgcpSplitterEndpointProvider extends AbstractMgcpEndpointProvider<M
     private final PriorityQueueScheduler mediaScheduler;
     private final MgcpConnectionProvider connectionProvider;
     private final MediaGroupProvider mediaGroupProvider;
+    private final int sampleRate;
 
-    public MgcpSplitterEndpointProvider(String namespace, String domain, PriorityQueueScheduler mediaScheduler, MgcpConnectionProvider connectionProvider, MediaGroupProvider mediaGroupProvider) {
+    /**
+     * Creates a provider of bridge endpoints.
+     * 
+     * @param namespace The namespace of the endpoints
+     * @param domain The domain of the endpoints
+     * @param mediaScheduler The scheduler that runs the splitters
+     * @param connectionProvider The provider of connections
+     * @param mediaGroupProvider The provider of media groups
+     * @param sampleRate The rate at which the splitters work, in Hertz.
+     */
+    public MgcpSplitterEndpointProvider(String namespace, String domain, PriorityQueueScheduler mediaScheduler, MgcpConnectionProvider connectionProvider, MediaGroupProvider mediaGroupProvider, int sampleRate) {
         super(namespace, domain);
         this.mediaScheduler = mediaScheduler;
         this.connectionProvider = connectionProvider;
         this.mediaGroupProvider = mediaGroupProvider;
+        this.sampleRate = sampleRate;
+    }
+
+    public MgcpSplitterEndpointProvider(String namespace, String domain, PriorityQueueScheduler mediaScheduler, MgcpConnectionProvider connectionProvider, MediaGroupProvider mediaGroupProvider) {
+        this(namespace, domain, mediaScheduler, connectionProvider, mediaGroupProvider, AudioComponent.DEFAULT_SAMPLE_RATE);
     }
 
     @Override
     public MgcpSplitterEndpoint provide() {
         final EndpointIdentifier endpointId = new EndpointIdentifier(generateId(), getDomain());
-        final AudioSplitter audioSplitter = new AudioSplitter(this.mediaScheduler);
+        final AudioSplitter audioSplitter = new AudioSplitter(this.mediaScheduler, this.sampleRate);
         final OOBSplitter oobSplitter = new OOBSplitter(this.mediaScheduler);
         final MediaGroup mediaGroup = this.mediaGroupProvider.provide();
         return new MgcpSplitterEndpoint(endpointId, audioSplitter, oobSplitter, this.connectionProvider, mediaGroup);
@@ -21,7 +21,7 @@
 
 package org.restcomm.media.core.control.mgcp.message;
 
-import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 import org.restcomm.media.core.control.mgcp.util.collections.Parameters;
 
@@ -35,12 +35,13 @@ public abstract class MgcpMessage {
 
     protected int transactionId;
     protected final Parameters<MgcpParameterType> parameters;
-    protected final ByteBuffer data;
+
+    // Session description as received, decoded into the SDP parameter on first read
+    private byte[] sdp;
     
     public MgcpMessage() {
         this.transactionId = -1;
         this.parameters = new Parameters<>();
-        this.data = ByteBuffer.allocate(8192);
     }
     
     public int getTransactionId() {
@@ -52,32 +53,80 @@ public abstract class MgcpMessage {
     }
     
     public boolean isSdpDetected() {
-        return this.parameters.containsKey(MgcpParameterType.SDP);
+        return this.sdp != null || this.parameters.containsKey(MgcpParameterType.SDP);
     }
     
     public Parameters<MgcpParameterType> getParameters() {
+        decodeSdp();
         return parameters.clone();
     }
     
     public String getParameter(MgcpParameterType type) {
+        if (MgcpParameterType.SDP.equals(type)) {
+            decodeSdp();
+        }
         return this.parameters.getString(type).orNull();
     }
     
     public boolean hasParameter(MgcpParameterType type) {
+        if (MgcpParameterType.SDP.equals(type)) {
+            return isSdpDetected();
+        }
         return this.parameters.containsKey(type);
     }
     
     public void addParameter(MgcpParameterType type, String value) {
+        if (MgcpParameterType.SDP.equals(type)) {
+            this.sdp = null;
+        }
         this.parameters.put(type, value);
     }
     
     public void removeParameter(MgcpParameterType type) {
+        if (MgcpParameterType.SDP.equals(type)) {
+            this.sdp = null;
+        }
         this.parameters.remove(type);
     }
     
     public void removeParameters() {
+        this.sdp = null;
         this.parameters.clear();
     }
+
+    /**
+     * Sets the session description as it was received.
+     * <p>
+     * The bytes are only decoded into the {@link MgcpParameterType#SDP} parameter when someone reads it, so messages that
+     * are relayed or dropped never pay for the decoding.
+     * </p>
+     * 
+     * @param sdp The UTF-8 encoded session description. The array is not copied.
+     */
+    public void setSdp(byte[] sdp) {
+        this.parameters.remove(MgcpParameterType.SDP);
+        this.sdp = sdp;
+    }
+
+    /**
+     * Gets the session description in its encoded form, without decoding it.
+     * 
+     * @return The UTF-8 encoded session description, or null if the message has none. The array must not be modified.
+     */
+    byte[] getSdpBytes() {
+        if (this.sdp != null) {
+            return this.sdp;
+        }
+        String description = this.parameters.getString(MgcpParameterType.SDP).orNull();
+        return description == null ? null : description.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void decodeSdp() {
+        if (this.sdp != null) {
+            this.parameters.put(MgcpParameterType.SDP, new String(this.sdp, StandardCharsets.UTF_8));
+            this.sdp = null;
+        }
+    }
     
     public abstract boolean isRequest();
     
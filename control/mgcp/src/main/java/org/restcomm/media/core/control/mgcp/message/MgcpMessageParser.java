@@ -21,16 +21,40 @@
 
 package org.restcomm.media.core.control.mgcp.message;
 
+import java.nio.charset.StandardCharsets;
+
 import org.restcomm.media.core.control.mgcp.exception.MgcpParseException;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
 /**
  * Parses text into MGCP Message objects.
+ * <p>
+ * Messages are parsed in a single pass over the bytes, straight from the buffer they were received in. Lines may end with
+ * LF or CRLF. The session description is copied as raw bytes and only decoded when someone reads it.
+ * </p>
  * 
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  *
  */
 public class MgcpMessageParser {
 
+    private static final byte SP = ' ';
+    private static final byte HT = '\t';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte COLON = ':';
+
+    // Request verbs packed as 32-bit integers, upper case
+    private static final int CRCX = ('C' << 24) | ('R' << 16) | ('C' << 8) | 'X';
+    private static final int MDCX = ('M' << 24) | ('D' << 16) | ('C' << 8) | 'X';
+    private static final int DLCX = ('D' << 24) | ('L' << 16) | ('C' << 8) | 'X';
+    private static final int RQNT = ('R' << 24) | ('Q' << 16) | ('N' << 8) | 'T';
+    private static final int AUCX = ('A' << 24) | ('U' << 16) | ('C' << 8) | 'X';
+    private static final int AUEP = ('A' << 24) | ('U' << 16) | ('E' << 8) | 'P';
+    private static final int NTFY = ('N' << 24) | ('T' << 16) | ('F' << 8) | 'Y';
+
     private final LocalConnectionOptionsParser optionsParser;
     
     public MgcpMessageParser() {
@@ -38,41 +62,55 @@ public class MgcpMessageParser {
     }
 
     public MgcpRequest parseRequest(byte[] data, int offset, int length) throws MgcpParseException {
-        return parseRequest(new String(data, offset, length));
+        return parseRequest(Unpooled.wrappedBuffer(data, offset, length));
     }
 
     public MgcpRequest parseRequest(String message) throws MgcpParseException {
+        return parseRequest(Unpooled.wrappedBuffer(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Parses the readable bytes of a buffer into an MGCP request.
+     * 
+     * @param buffer The buffer holding the request. Its indexes are not modified.
+     * @return The parsed request
+     * @throws MgcpParseException If the bytes are not a valid MGCP request
+     */
+    public MgcpRequest parseRequest(ByteBuf buffer) throws MgcpParseException {
         try {
             MgcpRequest request = new MgcpRequest();
-            parseMgcpRequest(message, request);
+            parseMgcpRequest(buffer, request);
             return request;
         } catch (Exception e) {
             throw new MgcpParseException("Could not parse MGCP request.", e);
         }
     }
 
-    private void parseMgcpRequest(String message, MgcpRequest request) throws Exception {
-        String[] lines = message.split(System.lineSeparator());
-
-        // Analyze request header
-        String header = lines[0];
-        String[] headerParams = header.split(" ");
+    private void parseMgcpRequest(ByteBuf buffer, MgcpRequest request) throws Exception {
+        final int end = buffer.writerIndex();
+        final int eol = lineEnd(buffer, buffer.readerIndex(), end);
+        final int headerEnd = trimEnd(buffer, buffer.readerIndex(), eol);
 
         // Set Request type
-        String command = headerParams[0];
-        MgcpRequestType requestType = MgcpRequestType.valueOf(command.toUpperCase());
-        request.setRequestType(requestType);
+        int index = skipWhitespace(buffer, buffer.readerIndex(), headerEnd);
+        int tokenEnd = tokenEnd(buffer, index, headerEnd);
+        request.setRequestType(parseRequestType(buffer, index, tokenEnd));
 
         // Set transaction ID
-        String transactionId = headerParams[1];
-        request.setTransactionId(Integer.parseInt(transactionId));
+        index = skipWhitespace(buffer, tokenEnd, headerEnd);
+        tokenEnd = tokenEnd(buffer, index, headerEnd);
+        request.setTransactionId(parseInt(buffer, index, tokenEnd));
 
         // Set endpoint ID
-        String endpointId = headerParams[2];
-        request.setEndpointId(endpointId);
+        index = skipWhitespace(buffer, tokenEnd, headerEnd);
+        tokenEnd = tokenEnd(buffer, index, headerEnd);
+        if (index == tokenEnd) {
+            throw new MgcpParseException("Missing endpoint identifier");
+        }
+        request.setEndpointId(string(buffer, index, tokenEnd));
 
         // Set parameters and SDP
-        parseParametersAndSdp(lines, request);
+        parseParametersAndSdp(buffer, eol + 1, end, request);
         
         // Parse Local Connection Options (if present)
         String lcOptions = request.getParameter(MgcpParameterType.LOCAL_CONNECTION_OPTIONS);
@@ -82,74 +120,187 @@ public class MgcpMessageParser {
     }
 
     public MgcpResponse parseResponse(byte[] data, int offset, int length) throws MgcpParseException {
-        return parseResponse(new String(data, offset, length));
+        return parseResponse(Unpooled.wrappedBuffer(data, offset, length));
     }
 
     public MgcpResponse parseResponse(String message) throws MgcpParseException {
+        return parseResponse(Unpooled.wrappedBuffer(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Parses the readable bytes of a buffer into an MGCP response.
+     * 
+     * @param buffer The buffer holding the response. Its indexes are not modified.
+     * @return The parsed response
+     * @throws MgcpParseException If the bytes are not a valid MGCP response
+     */
+    public MgcpResponse parseResponse(ByteBuf buffer) throws MgcpParseException {
         MgcpResponse response = new MgcpResponse();
         try {
-            parseResponse(message, response);
+            parseResponse(buffer, response);
         } catch (Exception e) {
             throw new MgcpParseException("Could not parse MGCP response", e);
         }
         return response;
     }
 
-    private void parseResponse(String message, MgcpResponse response) throws Exception {
-        String[] lines = message.split(System.lineSeparator());
+    private void parseResponse(ByteBuf buffer, MgcpResponse response) throws Exception {
+        final int end = buffer.writerIndex();
+        final int eol = lineEnd(buffer, buffer.readerIndex(), end);
+        final int headerEnd = trimEnd(buffer, buffer.readerIndex(), eol);
 
-        // Analyze request header
-        String header = lines[0];
-
-        // Set Request type
-        int codeSeparator = header.indexOf(" ");
-        String returnCode = header.substring(0, codeSeparator);
-        response.setCode(Integer.parseInt(returnCode));
+        // Set response code
+        int index = skipWhitespace(buffer, buffer.readerIndex(), headerEnd);
+        int tokenEnd = tokenEnd(buffer, index, headerEnd);
+        response.setCode(parseInt(buffer, index, tokenEnd));
 
         // Set transaction ID
-        int transactionIdSeparator = header.indexOf(" ", codeSeparator + 1);
-        String transactionId = header.substring(codeSeparator + 1, transactionIdSeparator);
-        response.setTransactionId(Integer.parseInt(transactionId));
+        index = skipWhitespace(buffer, tokenEnd, headerEnd);
+        tokenEnd = tokenEnd(buffer, index, headerEnd);
+        response.setTransactionId(parseInt(buffer, index, tokenEnd));
 
-        // Set endpoint ID
-        String returnMessage = header.substring(transactionIdSeparator + 1);
-        response.setMessage(returnMessage);
+        // Set response message
+        index = skipWhitespace(buffer, tokenEnd, headerEnd);
+        response.setMessage(string(buffer, index, headerEnd));
 
         // Set parameters and SDP
-        parseParametersAndSdp(lines, response);
-    }
-
-    private void parseParametersAndSdp(String[] lines, MgcpMessage message) throws Exception {
-        // Get MGCP parameters and SDP
-        StringBuilder sdpBuilder = new StringBuilder();
-        boolean sdp = false;
-        int nLines = lines.length;
-        for (int i = 1; i < nLines; i++) {
-            String line = lines[i];
-
-            if (sdp) {
-                // Build SDP description
-                sdpBuilder.append(line);
-                if (i < nLines - 1) {
-                    sdpBuilder.append(System.lineSeparator());
-                }
-            } else {
-                if (line.isEmpty()) {
-                    // Set SDP detected
-                    sdp = true;
-                } else {
-                    // Add parameter
-                    int separatorIndex = line.indexOf(":");
-                    MgcpParameterType type = MgcpParameterType.fromCode(line.substring(0, separatorIndex));
-                    message.addParameter(type, line.substring(separatorIndex + 1).trim());
-                }
+        parseParametersAndSdp(buffer, eol + 1, end, response);
+    }
+
+    private void parseParametersAndSdp(ByteBuf buffer, int index, int end, MgcpMessage message) throws MgcpParseException {
+        while (index < end) {
+            final int eol = lineEnd(buffer, index, end);
+            final int lineEnd = (eol > index && buffer.getByte(eol - 1) == CR) ? eol - 1 : eol;
+
+            if (lineEnd == index) {
+                // Empty line separates parameters from SDP
+                parseSdp(buffer, eol + 1, end, message);
+                return;
+            }
+
+            // Add parameter
+            final int separatorIndex = buffer.indexOf(index, lineEnd, COLON);
+            if (separatorIndex < 0) {
+                throw new MgcpParseException("Malformed parameter line: " + string(buffer, index, lineEnd));
+            }
+            final MgcpParameterType type = parseParameterType(buffer, index, trimEnd(buffer, index, separatorIndex));
+            if (type != null) {
+                final int valueIndex = skipWhitespace(buffer, separatorIndex + 1, lineEnd);
+                message.addParameter(type, string(buffer, valueIndex, trimEnd(buffer, valueIndex, lineEnd)));
+            }
+            index = eol + 1;
+        }
+    }
+
+    private void parseSdp(ByteBuf buffer, int index, int end, MgcpMessage message) {
+        // Trailing line breaks are not part of the description
+        int sdpEnd = end;
+        while (sdpEnd > index && isLineBreak(buffer.getByte(sdpEnd - 1))) {
+            sdpEnd--;
+        }
+
+        if (sdpEnd > index) {
+            byte[] sdp = new byte[sdpEnd - index];
+            buffer.getBytes(index, sdp);
+            message.setSdp(sdp);
+        }
+    }
+
+    private static MgcpRequestType parseRequestType(ByteBuf buffer, int index, int end) throws MgcpParseException {
+        if (end - index == 4) {
+            // Clearing bit 5 of each byte turns letters into upper case
+            final int verb = buffer.getInt(index) & ~0x20202020;
+            switch (verb) {
+                case CRCX:
+                    return MgcpRequestType.CRCX;
+                case MDCX:
+                    return MgcpRequestType.MDCX;
+                case DLCX:
+                    return MgcpRequestType.DLCX;
+                case RQNT:
+                    return MgcpRequestType.RQNT;
+                case AUCX:
+                    return MgcpRequestType.AUCX;
+                case AUEP:
+                    return MgcpRequestType.AUEP;
+                case NTFY:
+                    return MgcpRequestType.NTFY;
+                default:
+                    break;
+            }
+        }
+        throw new MgcpParseException("Unknown MGCP verb: " + string(buffer, index, end));
+    }
+
+    private static MgcpParameterType parseParameterType(ByteBuf buffer, int index, int end) {
+        switch (end - index) {
+            case 1:
+                return MgcpParameterType.fromCode(buffer.getByte(index), -1);
+            case 2:
+                return MgcpParameterType.fromCode(buffer.getByte(index), buffer.getByte(index + 1));
+            case 3:
+                return MgcpParameterType.fromCode(string(buffer, index, end));
+            default:
+                return null;
+        }
+    }
+
+    private static int parseInt(ByteBuf buffer, int index, int end) throws MgcpParseException {
+        if (index == end || end - index > 10) {
+            throw new MgcpParseException("Invalid number: " + string(buffer, index, end));
+        }
+
+        long value = 0;
+        for (int i = index; i < end; i++) {
+            final int digit = buffer.getByte(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new MgcpParseException("Invalid number: " + string(buffer, index, end));
             }
+            value = value * 10 + digit;
         }
 
-        // Set SDP (if present)
-        if (sdp) {
-            message.addParameter(MgcpParameterType.SDP, sdpBuilder.toString());
+        if (value > Integer.MAX_VALUE) {
+            throw new MgcpParseException("Number out of range: " + value);
         }
+        return (int) value;
+    }
+
+    private static int lineEnd(ByteBuf buffer, int index, int end) {
+        final int eol = buffer.indexOf(index, end, LF);
+        return eol < 0 ? end : eol;
+    }
+
+    private static int skipWhitespace(ByteBuf buffer, int index, int end) {
+        while (index < end && isWhitespace(buffer.getByte(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int tokenEnd(ByteBuf buffer, int index, int end) {
+        while (index < end && !isWhitespace(buffer.getByte(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int trimEnd(ByteBuf buffer, int index, int end) {
+        while (end > index && (isWhitespace(buffer.getByte(end - 1)) || buffer.getByte(end - 1) == CR)) {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == SP || b == HT;
+    }
+
+    private static boolean isLineBreak(byte b) {
+        return b == CR || b == LF;
+    }
+
+    private static String string(ByteBuf buffer, int index, int end) {
+        return end > index ? buffer.toString(index, end - index, StandardCharsets.UTF_8) : "";
     }
 
 }
@@ -0,0 +1,160 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.control.mgcp.message;
+
+import java.nio.charset.StandardCharsets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+
+/**
+ * Writes MGCP Message objects into buffers, producing the same text as {@link MgcpMessage#toString()}.
+ * <p>
+ * Text is encoded straight into the buffer, without building an intermediate String. A session description that was
+ * received and never read is written back as the original bytes.
+ * </p>
+ */
+public class MgcpMessageWriter {
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] VERSION = MgcpRequest.VERSION.getBytes(StandardCharsets.US_ASCII);
+
+    private static final int DEFAULT_CAPACITY = 512;
+
+    /**
+     * Writes a message into a buffer taken from an allocator.
+     * 
+     * @param message The message to be written
+     * @param allocator The allocator of the buffer
+     * @return The buffer holding the message. The caller owns it.
+     */
+    public ByteBuf write(MgcpMessage message, ByteBufAllocator allocator) {
+        final ByteBuf buffer = allocator.buffer(DEFAULT_CAPACITY);
+        try {
+            write(message, buffer);
+            return buffer;
+        } catch (RuntimeException e) {
+            buffer.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a message at the writer index of a buffer.
+     * 
+     * @param message The message to be written
+     * @param buffer The buffer to write into
+     */
+    public void write(MgcpMessage message, ByteBuf buffer) {
+        if (message.isRequest()) {
+            writeRequest((MgcpRequest) message, buffer);
+        } else {
+            writeResponse((MgcpResponse) message, buffer);
+        }
+    }
+
+    private void writeRequest(MgcpRequest request, ByteBuf buffer) {
+        // Write header
+        ByteBufUtil.writeAscii(buffer, request.getRequestType().name());
+        buffer.writeByte(' ');
+        writeInt(request.getTransactionId(), buffer);
+        buffer.writeByte(' ');
+        ByteBufUtil.writeUtf8(buffer, String.valueOf(request.getEndpointId()));
+        buffer.writeByte(' ');
+        buffer.writeBytes(VERSION);
+        buffer.writeBytes(LINE_SEPARATOR);
+
+        // Write parameters
+        for (MgcpParameterType key : request.parameters.keySet()) {
+            if (!MgcpParameterType.ENDPOINT_ID.equals(key) && !MgcpParameterType.SDP.equals(key)) {
+                final String value = request.parameters.getString(key).orNull();
+                if (value != null) {
+                    writeParameter(key, value, buffer);
+                    buffer.writeBytes(LINE_SEPARATOR);
+                }
+            }
+        }
+
+        // Write SDP (if any)
+        final byte[] sdp = request.getSdpBytes();
+        if (sdp != null) {
+            buffer.writeBytes(LINE_SEPARATOR);
+            buffer.writeBytes(sdp);
+        }
+    }
+
+    private void writeResponse(MgcpResponse response, ByteBuf buffer) {
+        // Write header
+        writeInt(response.getCode(), buffer);
+        buffer.writeByte(' ');
+        writeInt(response.getTransactionId(), buffer);
+        buffer.writeByte(' ');
+        ByteBufUtil.writeUtf8(buffer, response.getMessage());
+
+        // Write parameters
+        for (MgcpParameterType key : response.parameters.keySet()) {
+            if (!MgcpParameterType.SDP.equals(key)) {
+                final String value = response.parameters.getString(key).orNull();
+                if (value != null) {
+                    buffer.writeBytes(LINE_SEPARATOR);
+                    writeParameter(key, value, buffer);
+                }
+            }
+        }
+
+        // Write SDP last (if available)
+        final byte[] sdp = response.getSdpBytes();
+        if (sdp != null) {
+            buffer.writeBytes(LINE_SEPARATOR);
+            buffer.writeBytes(LINE_SEPARATOR);
+            buffer.writeBytes(sdp);
+        }
+    }
+
+    private static void writeParameter(MgcpParameterType key, String value, ByteBuf buffer) {
+        ByteBufUtil.writeAscii(buffer, key.getCode());
+        buffer.writeByte(':');
+        ByteBufUtil.writeUtf8(buffer, value);
+    }
+
+    private static void writeInt(int value, ByteBuf buffer) {
+        if (value < 0) {
+            buffer.writeByte('-');
+            if (value == Integer.MIN_VALUE) {
+                ByteBufUtil.writeAscii(buffer, "2147483648");
+                return;
+            }
+            value = -value;
+        }
+
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            buffer.writeByte('0' + (value / divisor) % 10);
+            divisor /= 10;
+        }
+    }
+
+}
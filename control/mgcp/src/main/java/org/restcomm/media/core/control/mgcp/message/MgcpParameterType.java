@@ -46,6 +46,7 @@ public enum MgcpParameterType {
     REASON_CODE("E"),
     BARER_INFORMATION("B"),
     REQUESTED_INFO("F"),
+    RESPONSE_ACK("K"),
     REMOTE_CONNECTION_DESCRIPTION("RC"),
     LOCAL_CONNECTION_DESCRIPTION("LC");
     
@@ -60,14 +61,66 @@ public enum MgcpParameterType {
     }
     
     public static final MgcpParameterType fromCode(String code) {
-        if(code != null && !code.isEmpty()) {
-            for (MgcpParameterType type : values()) {
-                if(type.code.equalsIgnoreCase(code)) {
-                    return type;
-                }
+        if (code != null) {
+            switch (code.length()) {
+                case 1:
+                    return fromCode(code.charAt(0), -1);
+                case 2:
+                    return fromCode(code.charAt(0), code.charAt(1));
+                case 3:
+                    return SDP.code.equalsIgnoreCase(code) ? SDP : null;
+                default:
+                    break;
             }
         }
         return null;
     }
+
+    /**
+     * Gets the parameter type of a one or two character code, ignoring case.
+     * <p>
+     * Used by parsers that read the code straight from the wire, without building a String.
+     * </p>
+     * 
+     * @param first The first character of the code
+     * @param second The second character of the code, or -1 if the code has a single character
+     * @return The parameter type, or null if the code is unknown
+     */
+    public static final MgcpParameterType fromCode(int first, int second) {
+        switch (first | 0x20) {
+            case 'c':
+                return second < 0 ? CALL_ID : null;
+            case 'm':
+                return second < 0 ? MODE : null;
+            case 'i':
+                return second < 0 ? CONNECTION_ID : (second == '2' ? CONNECTION_ID2 : null);
+            case 'z':
+                return second < 0 ? ENDPOINT_ID : (second == '2' ? SECOND_ENDPOINT : null);
+            case 'x':
+                return second < 0 ? REQUEST_ID : null;
+            case 'r':
+                return second < 0 ? REQUESTED_EVENTS : ((second | 0x20) == 'c' ? REMOTE_CONNECTION_DESCRIPTION : null);
+            case 's':
+                return second < 0 ? REQUESTED_SIGNALS : null;
+            case 'n':
+                return second < 0 ? NOTIFIED_ENTITY : null;
+            case 'o':
+                return second < 0 ? OBSERVED_EVENT : null;
+            case 'p':
+                return second < 0 ? CONNECTION_PARAMETERS : null;
+            case 'l':
+                return second < 0 ? LOCAL_CONNECTION_OPTIONS : ((second | 0x20) == 'c' ? LOCAL_CONNECTION_DESCRIPTION : null);
+            case 'e':
+                return second < 0 ? REASON_CODE : null;
+            case 'b':
+                return second < 0 ? BARER_INFORMATION : null;
+            case 'f':
+                return second < 0 ? REQUESTED_INFO : null;
+            case 'k':
+                return second < 0 ? RESPONSE_ACK : null;
+            default:
+                return null;
+        }
+    }
     
 }
@@ -0,0 +1,122 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.control.mgcp.network;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the addresses of MGCP peers, so endpoints do not resolve the domain name of their notified entity on every
+ * notification.
+ * <p>
+ * Resolved addresses are kept for a limited time, so a call agent that moves to another host is eventually reached at its
+ * new address. The time to live can be changed with the <code>restcomm.media.mgcp.address-ttl</code> system property. Names
+ * that cannot be resolved are not cached.
+ * </p>
+ */
+public class MgcpAddressCache {
+
+    public static final String TTL_PROPERTY = "restcomm.media.mgcp.address-ttl";
+
+    /** Default time to live of a resolved address, in milliseconds */
+    public static final long DEFAULT_TTL = 60000L;
+
+    /** Cache shared by all endpoints */
+    public static final MgcpAddressCache INSTANCE = new MgcpAddressCache();
+
+    private final long timeToLive;
+    private final ConcurrentHashMap<String, CachedAddress> addresses;
+
+    public MgcpAddressCache(long timeToLive, TimeUnit unit) {
+        this.timeToLive = unit.toNanos(timeToLive);
+        this.addresses = new ConcurrentHashMap<>();
+    }
+
+    public MgcpAddressCache() {
+        this(Long.getLong(TTL_PROPERTY, DEFAULT_TTL), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the socket address of a peer.
+     * 
+     * @param host The host name or literal IP address of the peer.
+     * @param port The port of the peer.
+     * @return The resolved address, or an unresolved address if the host name is unknown.
+     */
+    public InetSocketAddress resolve(String host, int port) {
+        final long now = System.nanoTime();
+        CachedAddress cached = this.addresses.get(host);
+        if (cached == null || now - cached.expiresAt >= 0) {
+            final InetAddress address;
+            try {
+                address = InetAddress.getByName(host);
+            } catch (UnknownHostException e) {
+                this.addresses.remove(host);
+                return InetSocketAddress.createUnresolved(host, port);
+            }
+            cached = new CachedAddress(address, now + this.timeToLive);
+            this.addresses.put(host, cached);
+        }
+        return cached.withPort(port);
+    }
+
+    /**
+     * Forgets the address of a peer, so it is resolved again on next use.
+     * 
+     * @param host The host name of the peer.
+     */
+    public void invalidate(String host) {
+        this.addresses.remove(host);
+    }
+
+    public int size() {
+        return this.addresses.size();
+    }
+
+    private static final class CachedAddress {
+
+        private final InetAddress address;
+        private final long expiresAt;
+
+        /** Last socket address handed out. Peers are almost always reached on the same port */
+        private volatile InetSocketAddress last;
+
+        private CachedAddress(InetAddress address, long expiresAt) {
+            this.address = address;
+            this.expiresAt = expiresAt;
+        }
+
+        private InetSocketAddress withPort(int port) {
+            InetSocketAddress socketAddress = this.last;
+            if (socketAddress == null || socketAddress.getPort() != port) {
+                socketAddress = new InetSocketAddress(this.address, port);
+                this.last = socketAddress;
+            }
+            return socketAddress;
+        }
+
+    }
+
+}
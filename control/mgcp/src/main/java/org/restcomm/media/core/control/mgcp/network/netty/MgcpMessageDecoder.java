@@ -53,12 +53,12 @@ public class MgcpMessageDecoder extends MessageToMessageDecoder<DatagramPacket>
         this.parser = parser;
     }
 
-    private MgcpRequest handleRequest(byte[] packet) throws MgcpParseException {
-        return this.parser.parseRequest(packet, 0, packet.length);
+    private MgcpRequest handleRequest(ByteBuf packet) throws MgcpParseException {
+        return this.parser.parseRequest(packet);
     }
 
-    private MgcpResponse handleResponse(byte[] packet) throws MgcpParseException {
-        return this.parser.parseResponse(packet, 0, packet.length);
+    private MgcpResponse handleResponse(ByteBuf packet) throws MgcpParseException {
+        return this.parser.parseResponse(packet);
     }
 
     @Override
@@ -67,19 +67,15 @@ public class MgcpMessageDecoder extends MessageToMessageDecoder<DatagramPacket>
         final InetSocketAddress recipient = msg.recipient();
         final InetSocketAddress sender = msg.sender();
         
-        // Get data from buffer
-        byte[] payload = new byte[content.readableBytes()];
-        content.getBytes(0, payload);
-
         // Check message type based on first byte
-        byte b = payload[0];
+        byte b = content.getByte(content.readerIndex());
 
-        // Produce message according to type
+        // Produce message according to type, parsing the datagram in place
         MgcpMessage message;
         if (b >= 48 && b <= 57) {
-            message = handleResponse(payload);
+            message = handleResponse(content);
         } else {
-            message = handleRequest(payload);
+            message = handleRequest(content);
         }
         
         if (log.isDebugEnabled()) {
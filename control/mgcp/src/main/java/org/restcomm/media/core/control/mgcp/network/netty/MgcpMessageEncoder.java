@@ -28,9 +28,9 @@ import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.restcomm.media.core.control.mgcp.message.MgcpMessage;
+import org.restcomm.media.core.control.mgcp.message.MgcpMessageWriter;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.DefaultAddressedEnvelope;
 import io.netty.channel.socket.DatagramPacket;
@@ -48,13 +48,22 @@ public class MgcpMessageEncoder extends MessageToMessageEncoder<DefaultAddressed
 
     public static final String PIPELINE_KEY = "mgcp-encoder";
 
+    private final MgcpMessageWriter writer;
+
+    public MgcpMessageEncoder(MgcpMessageWriter writer) {
+        this.writer = writer;
+    }
+
+    public MgcpMessageEncoder() {
+        this(new MgcpMessageWriter());
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, DefaultAddressedEnvelope<MgcpMessage, SocketAddress> msg, List<Object> out)
             throws Exception {
         final InetSocketAddress sender = (InetSocketAddress) msg.sender();
         final InetSocketAddress recipient = (InetSocketAddress) msg.recipient();
-        final byte[] content = msg.content().toString().getBytes();
-        final ByteBuf buffer = Unpooled.buffer(content.length).writeBytes(content);
+        final ByteBuf buffer = this.writer.write(msg.content(), ctx.alloc());
         final DatagramPacket packet = new DatagramPacket(buffer, recipient, sender);
 
         if (log.isDebugEnabled()) {
@@ -0,0 +1,363 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.control.mgcp.transaction;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.restcomm.media.core.concurrent.LatencyHistogram;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
+/**
+ * Executes MGCP commands in a fixed set of serial lanes, one thread each.
+ * <p>
+ * A command is placed on a lane according to the endpoint it targets, so the commands of an endpoint run one at a time
+ * and in the order they were received, while commands of different endpoints run in parallel. Endpoint identifiers with
+ * wildcards, such as the <code>$</code> used to create a new endpoint, do not name a single endpoint and are spread
+ * across lanes in turn.
+ * </p>
+ * <p>
+ * Ordering is therefore only guaranteed between commands that name the same concrete endpoint. A CRCX on
+ * <code>restcomm/bridge/$</code> may run on a different lane than the MDCX and DLCX that later target the endpoint it
+ * created. This is harmless as long as the call agent waits for the CRCX response, which is where it learns the endpoint
+ * name. A command with a <code>*</code> wildcard, such as a DLCX on all endpoints of a namespace, is not ordered against
+ * commands of the concrete endpoints it covers and may run concurrently with them. Wildcards are not routed by
+ * namespace, because that would serialize the creation of all endpoints of a namespace on a single lane and still not
+ * match the lanes of the concrete endpoints.
+ * </p>
+ * <p>
+ * Each lane keeps its queue depth and latency histograms, so a lane that serves busy endpoints stands out. The number of
+ * lanes defaults to the number of available processors and can be changed with the
+ * <code>restcomm.media.mgcp.command-lanes</code> system property.
+ * </p>
+ */
+public class EndpointLaneExecutor implements EndpointLaneExecutorMBean {
+
+    public static final String LANES_PROPERTY = "restcomm.media.mgcp.command-lanes";
+    public static final String DOMAIN = "org.restcomm.media.core";
+
+    private static final Logger logger = LogManager.getLogger(EndpointLaneExecutor.class);
+
+    private final Lane[] lanes;
+    private final AtomicInteger nextLane;
+
+    private ObjectName objectName;
+
+    public EndpointLaneExecutor(int laneCount) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("Lane count must be positive: " + laneCount);
+        }
+
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            this.lanes[i] = new Lane("mgcp-lane-" + i);
+        }
+        this.nextLane = new AtomicInteger(0);
+    }
+
+    public EndpointLaneExecutor() {
+        this(Integer.getInteger(LANES_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+
+    @Override
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Gets the lane that runs the commands of an endpoint.
+     * 
+     * @param endpointId the endpoint identifier, with or without the domain name
+     * @return the index of the lane, or -1 if the identifier does not name a single endpoint
+     */
+    public int getLane(String endpointId) {
+        if (endpointId == null) {
+            return -1;
+        }
+
+        // Hash the local name only, ignoring case, as the domain name may be written differently by call agents
+        int hash = 0;
+        final int length = endpointId.length();
+        for (int i = 0; i < length; i++) {
+            final char c = endpointId.charAt(i);
+            if (c == '@') {
+                break;
+            }
+            if (c == '$' || c == '*') {
+                return -1;
+            }
+            hash = 31 * hash + Character.toLowerCase(c);
+        }
+
+        // spread identifiers that only differ in a trailing counter
+        hash *= 0x9E3779B9;
+        hash ^= hash >>> 16;
+        return (hash & Integer.MAX_VALUE) % lanes.length;
+    }
+
+    /**
+     * Submits a command to the lane of its endpoint.
+     * 
+     * @param endpointId the identifier of the endpoint targeted by the command
+     * @param command the command to execute
+     * @return the future result of the command
+     * @throws RejectedExecutionException if the executor was shut down
+     */
+    public <T> ListenableFuture<T> submit(String endpointId, Callable<T> command) throws RejectedExecutionException {
+        int index = getLane(endpointId);
+        if (index < 0) {
+            index = (nextLane.getAndIncrement() & Integer.MAX_VALUE) % lanes.length;
+        }
+        return lanes[index].submit(command);
+    }
+
+    /**
+     * Stops accepting commands. Commands already queued are still executed.
+     */
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.executor.shutdown();
+        }
+    }
+
+    /**
+     * Waits until all lanes finished executing their commands after a shutdown.
+     * 
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return <code>true</code> if all lanes terminated
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Lane lane : lanes) {
+            if (!lane.executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public LatencyHistogram getWait(int lane) {
+        return lanes[lane].wait;
+    }
+
+    public LatencyHistogram getLatency(int lane) {
+        return lanes[lane].latency;
+    }
+
+    @Override
+    public int[] getQueueDepths() {
+        final int[] result = new int[lanes.length];
+        for (int i = 0; i < lanes.length; i++) {
+            result[i] = lanes[i].depth.get();
+        }
+        return result;
+    }
+
+    @Override
+    public int[] getMaxQueueDepths() {
+        final int[] result = new int[lanes.length];
+        for (int i = 0; i < lanes.length; i++) {
+            result[i] = lanes[i].maxDepth.get();
+        }
+        return result;
+    }
+
+    @Override
+    public long[] getCompletedCommands() {
+        final long[] result = new long[lanes.length];
+        for (int i = 0; i < lanes.length; i++) {
+            result[i] = lanes[i].latency.getCount();
+        }
+        return result;
+    }
+
+    @Override
+    public long[] getWait99PercentileMicros() {
+        final long[] result = new long[lanes.length];
+        for (int i = 0; i < lanes.length; i++) {
+            result[i] = toMicros(lanes[i].wait.getValueAtPercentile(99.0));
+        }
+        return result;
+    }
+
+    @Override
+    public long[] getLatency99PercentileMicros() {
+        final long[] result = new long[lanes.length];
+        for (int i = 0; i < lanes.length; i++) {
+            result[i] = toMicros(lanes[i].latency.getValueAtPercentile(99.0));
+        }
+        return result;
+    }
+
+    @Override
+    public long[] getLatencyMaxMicros() {
+        final long[] result = new long[lanes.length];
+        for (int i = 0; i < lanes.length; i++) {
+            result[i] = toMicros(lanes[i].latency.getMax());
+        }
+        return result;
+    }
+
+    @Override
+    public int getHottestLane() {
+        int hottest = -1;
+        long worst = -1;
+        for (int i = 0; i < lanes.length; i++) {
+            if (lanes[i].wait.getCount() > 0) {
+                final long wait = lanes[i].wait.getValueAtPercentile(99.0);
+                if (wait > worst) {
+                    worst = wait;
+                    hottest = i;
+                }
+            }
+        }
+        return hottest;
+    }
+
+    @Override
+    public void reset() {
+        for (Lane lane : lanes) {
+            lane.maxDepth.set(lane.depth.get());
+            lane.wait.reset();
+            lane.latency.reset();
+        }
+    }
+
+    /**
+     * Exposes the metrics through the platform MBean server.
+     * 
+     * @param name the name of the executor
+     */
+    public synchronized void register(String name) {
+        if (objectName != null) {
+            return;
+        }
+        try {
+            final ObjectName objectName = new ObjectName(DOMAIN + ":type=MgcpCommandLanes,name=" + ObjectName.quote(name));
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                logger.warn("MGCP command lane metrics " + objectName + " are already registered by another executor");
+                return;
+            }
+            server.registerMBean(this, objectName);
+            this.objectName = objectName;
+        } catch (JMException e) {
+            logger.warn("Could not register MGCP command lane metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server.
+     */
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            logger.warn("Could not unregister MGCP command lane metrics: " + e.getMessage());
+        }
+        objectName = null;
+    }
+
+    private static long toMicros(long nanos) {
+        return nanos / 1000L;
+    }
+
+    /**
+     * Single threaded queue of commands.
+     */
+    private static final class Lane {
+
+        private final ThreadPoolExecutor executor;
+        private final AtomicInteger depth;
+        private final AtomicInteger maxDepth;
+        private final LatencyHistogram wait;
+        private final LatencyHistogram latency;
+
+        private Lane(final String name) {
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    final Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.depth = new AtomicInteger(0);
+            this.maxDepth = new AtomicInteger(0);
+            this.wait = new LatencyHistogram();
+            this.latency = new LatencyHistogram();
+        }
+
+        private <T> ListenableFuture<T> submit(Callable<T> command) {
+            final ListenableFutureTask<T> future = ListenableFutureTask.create(command);
+            final long submitted = System.nanoTime();
+
+            final int current = depth.incrementAndGet();
+            int max = maxDepth.get();
+            while (current > max && !maxDepth.compareAndSet(max, current)) {
+                max = maxDepth.get();
+            }
+
+            try {
+                executor.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        wait.record(System.nanoTime() - submitted);
+                        try {
+                            future.run();
+                        } finally {
+                            depth.decrementAndGet();
+                            latency.record(System.nanoTime() - submitted);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                depth.decrementAndGet();
+                throw e;
+            }
+            return future;
+        }
+
+    }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.control.mgcp.transaction;
+
+/**
+ * Management interface of the MGCP command lanes.
+ * <p>
+ * Array attributes hold one value per lane, indexed by lane number.
+ * </p>
+ */
+public interface EndpointLaneExecutorMBean {
+
+    int getLaneCount();
+
+    /**
+     * Gets the number of commands waiting or running in each lane.
+     * 
+     * @return the current queue depth of each lane
+     */
+    int[] getQueueDepths();
+
+    /**
+     * Gets the deepest queue seen in each lane since the last reset.
+     * 
+     * @return the maximum queue depth of each lane
+     */
+    int[] getMaxQueueDepths();
+
+    long[] getCompletedCommands();
+
+    /**
+     * Gets the time commands spent queued behind other commands of the same lane.
+     * 
+     * @return the 99th percentile of the queueing time of each lane
+     */
+    long[] getWait99PercentileMicros();
+
+    /**
+     * Gets the time between the submission of a command and the end of its execution.
+     * 
+     * @return the 99th percentile of the latency of each lane
+     */
+    long[] getLatency99PercentileMicros();
+
+    long[] getLatencyMaxMicros();
+
+    /**
+     * Gets the lane whose commands wait the longest, which points to the endpoints that receive the most commands.
+     * 
+     * @return the lane number, or -1 if no command was executed yet
+     */
+    int getHottestLane();
+
+    /**
+     * Clears all metrics, except the current queue depths.
+     */
+    void reset();
+
+}
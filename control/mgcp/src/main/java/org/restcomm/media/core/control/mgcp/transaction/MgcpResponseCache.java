@@ -0,0 +1,233 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.control.mgcp.transaction;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.restcomm.media.core.control.mgcp.message.MgcpResponse;
+
+import com.google.common.base.Ticker;
+
+/**
+ * Keeps the responses sent to a call agent over the last T-HIST, as required by RFC 3435 section 3.5.
+ * <p>
+ * The transaction identifiers of incoming commands are compared against the cached responses. On a match the command is
+ * not executed again and the cached response is repeated instead, which gives at-most-once execution for retransmitted
+ * commands.
+ * </p>
+ * <p>
+ * Entries leave the cache when they are older than T-HIST, when the call agent acknowledges them (<code>K</code> parameter
+ * or <code>000</code> response) or when the cache is full, in which case the oldest response is dropped.
+ * </p>
+ */
+public class MgcpResponseCache {
+
+    public static final String T_HIST_PROPERTY = "restcomm.media.mgcp.t-hist";
+    public static final String CAPACITY_PROPERTY = "restcomm.media.mgcp.response-cache-size";
+
+    /** Default T-HIST, in milliseconds */
+    public static final long DEFAULT_T_HIST = 30000L;
+    public static final int DEFAULT_CAPACITY = 5000;
+
+    private final Ticker ticker;
+    private final long timeToLive;
+    private final int capacity;
+
+    /** Responses ordered by the time they were cached, so the oldest ones are always at the head */
+    private final LinkedHashMap<Integer, CachedResponse> responses;
+
+    public MgcpResponseCache(long timeToLive, TimeUnit unit, int capacity, Ticker ticker) {
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("Time to live must be positive: " + timeToLive);
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.ticker = ticker;
+        this.timeToLive = unit.toNanos(timeToLive);
+        this.capacity = capacity;
+        this.responses = new LinkedHashMap<>(Math.min(capacity, 512));
+    }
+
+    public MgcpResponseCache(long timeToLive, TimeUnit unit, int capacity) {
+        this(timeToLive, unit, capacity, Ticker.systemTicker());
+    }
+
+    public MgcpResponseCache() {
+        this(Long.getLong(T_HIST_PROPERTY, DEFAULT_T_HIST), TimeUnit.MILLISECONDS,
+                Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Caches the final response of a transaction.
+     * 
+     * @param response The response sent to the call agent.
+     */
+    public synchronized void put(MgcpResponse response) {
+        final long now = this.ticker.read();
+        purge(now);
+
+        final Integer transactionId = response.getTransactionId();
+        // Re-insert so the entry moves to the tail and keeps the map ordered by age
+        this.responses.remove(transactionId);
+        this.responses.put(transactionId, new CachedResponse(response, now + this.timeToLive));
+
+        if (this.responses.size() > this.capacity) {
+            Iterator<CachedResponse> iterator = this.responses.values().iterator();
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Gets the response that was sent to a transaction.
+     * 
+     * @param transactionId The transaction identifier.
+     * @return The cached response, or <code>null</code> if there is none or if it already expired.
+     */
+    public synchronized MgcpResponse get(int transactionId) {
+        final long now = this.ticker.read();
+        purge(now);
+
+        final CachedResponse cached = this.responses.get(transactionId);
+        return cached == null ? null : cached.response;
+    }
+
+    /**
+     * Removes the response of a transaction.
+     * 
+     * @param transactionId The transaction identifier.
+     * @return <code>true</code> if a response was cached for the transaction.
+     */
+    public synchronized boolean remove(int transactionId) {
+        return this.responses.remove(transactionId) != null;
+    }
+
+    /**
+     * Removes the responses acknowledged by the call agent.
+     * 
+     * @param ranges The value of the <code>K</code> parameter, a comma separated list of transaction identifiers or ranges
+     *        of identifiers. For example <code>6234-6255, 6257, 19030-19044</code>.
+     * @return The number of responses that were removed.
+     * @throws IllegalArgumentException If the ranges are malformed.
+     */
+    public synchronized int acknowledge(String ranges) throws IllegalArgumentException {
+        int removed = 0;
+        if (ranges == null || ranges.isEmpty() || this.responses.isEmpty()) {
+            return removed;
+        }
+
+        int index = 0;
+        final int length = ranges.length();
+        while (index < length) {
+            int end = ranges.indexOf(',', index);
+            if (end < 0) {
+                end = length;
+            }
+
+            final String range = ranges.substring(index, end).trim();
+            index = end + 1;
+            if (range.isEmpty()) {
+                continue;
+            }
+
+            final int separator = range.indexOf('-');
+            try {
+                if (separator < 0) {
+                    if (remove(Integer.parseInt(range))) {
+                        removed++;
+                    }
+                } else {
+                    final int first = Integer.parseInt(range.substring(0, separator).trim());
+                    final int last = Integer.parseInt(range.substring(separator + 1).trim());
+                    if (last < first) {
+                        throw new IllegalArgumentException("Invalid transaction range: " + range);
+                    }
+                    removed += removeRange(first, last);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid transaction range: " + range, e);
+            }
+        }
+        return removed;
+    }
+
+    private int removeRange(int first, int last) {
+        int removed = 0;
+        if ((long) last - first < this.responses.size()) {
+            for (int transactionId = first; transactionId <= last && transactionId >= first; transactionId++) {
+                if (remove(transactionId)) {
+                    removed++;
+                }
+            }
+        } else {
+            // Range is wider than the cache, so walk the cache instead
+            Iterator<Integer> iterator = this.responses.keySet().iterator();
+            while (iterator.hasNext()) {
+                final int transactionId = iterator.next();
+                if (transactionId >= first && transactionId <= last) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Gets the number of cached responses, including the ones that expired but were not purged yet.
+     * 
+     * @return The number of cached responses.
+     */
+    public synchronized int size() {
+        return this.responses.size();
+    }
+
+    public synchronized void clear() {
+        this.responses.clear();
+    }
+
+    private void purge(long now) {
+        Iterator<CachedResponse> iterator = this.responses.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt - now > 0) {
+                break;
+            }
+            iterator.remove();
+        }
+    }
+
+    private static final class CachedResponse {
+
+        private final MgcpResponse response;
+        private final long expiresAt;
+
+        private CachedResponse(MgcpResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+}
@@ -21,6 +21,8 @@
 
 package org.restcomm.media.core.control.mgcp.transaction;
 
+import org.restcomm.media.core.scheduler.WheelTimer;
+
 /**
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  *
@@ -30,6 +32,8 @@ public class MgcpTransaction {
     // MGCP Transaction State
     private final int id;
     private final String hexId;
+    private volatile boolean provisional;
+    private volatile WheelTimer provisionalTimer;
 
     public MgcpTransaction(int id) {
         // MGCP Transaction State
@@ -45,4 +49,33 @@ public class MgcpTransaction {
         return hexId;
     }
 
+    /**
+     * Gets whether a provisional response was sent while the transaction was executing.
+     * <p>
+     * In that case the final response must ask the call agent for a response acknowledgement.
+     * </p>
+     * 
+     * @return <code>true</code> if a provisional response was sent.
+     */
+    public boolean isProvisional() {
+        return provisional;
+    }
+
+    public void setProvisional(boolean provisional) {
+        this.provisional = provisional;
+    }
+
+    /**
+     * Gets the timer that sends a provisional response if the transaction is still executing when it expires.
+     * 
+     * @return The timer, or <code>null</code> if no provisional response is scheduled.
+     */
+    public WheelTimer getProvisionalTimer() {
+        return provisionalTimer;
+    }
+
+    public void setProvisionalTimer(WheelTimer provisionalTimer) {
+        this.provisionalTimer = provisionalTimer;
+    }
+
 }
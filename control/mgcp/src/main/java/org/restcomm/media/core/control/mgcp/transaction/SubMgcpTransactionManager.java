@@ -25,6 +25,8 @@ import java.net.InetSocketAddress;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -40,6 +42,8 @@ import org.restcomm.media.core.control.mgcp.message.MgcpRequest;
 import org.restcomm.media.core.control.mgcp.message.MgcpResponse;
 import org.restcomm.media.core.control.mgcp.message.MgcpResponseCode;
 import org.restcomm.media.core.control.mgcp.util.collections.Parameters;
+import org.restcomm.media.core.scheduler.TimingWheel;
+import org.restcomm.media.core.scheduler.WheelTimer;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.Sets;
@@ -50,6 +54,12 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 
 /**
  * Manages a group of MGCP transactions.
+ * <p>
+ * When given a {@link TimingWheel}, the manager sends a provisional 100 response for every command still executing after
+ * the provisional delay, so the call agent stops retransmitting it. The delay defaults to 100ms, below the initial
+ * retransmission timer of call agents, and can be changed with the <code>restcomm.media.mgcp.provisional-delay</code>
+ * system property. Without a wheel, provisional responses are only sent when a retransmission arrives.
+ * </p>
  * 
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  *
@@ -58,39 +68,79 @@ public class SubMgcpTransactionManager implements MgcpTransactionManager {
 
     private static final Logger log = LogManager.getLogger(SubMgcpTransactionManager.class);
 
+    public static final String PROVISIONAL_DELAY_PROPERTY = "restcomm.media.mgcp.provisional-delay";
+    public static final long DEFAULT_PROVISIONAL_DELAY = 100L;
+
     // Concurrency Components
     private final ListeningExecutorService executor;
+    private final EndpointLaneExecutor lanes;
+    private final TimingWheel wheel;
+    private final long provisionalDelay;
 
     // MGCP Components
     private final MgcpTransactionNumberspace numberspace;
 
     // MGCP Transaction Manager (per call agent)
     private final ConcurrentHashMap<Integer, MgcpTransaction> transactions;
-    /*
-     * TODO MGCP entities MUST keep in memory a list of the responses that they sent to recent transactions, i.e., a list of all
-     * the responses they sent over the last T-HIST seconds.
-     * 
-     * The transaction identifiers of incoming commands are compared to the transaction identifiers of the recent responses. If
-     * a match is found, the MGCP entity does not execute the transaction, but simply repeats the response.
-     */
+    private final MgcpResponseCache responses;
 
     // Observers
     private final Set<MgcpMessageObserver> observers;
 
-    public SubMgcpTransactionManager(MgcpTransactionNumberspace numberspace, ListeningExecutorService executor) {
+    private SubMgcpTransactionManager(MgcpTransactionNumberspace numberspace, ListeningExecutorService executor, EndpointLaneExecutor lanes, MgcpResponseCache responses, TimingWheel wheel) {
         // Concurrency Components
         this.executor = executor;
+        this.lanes = lanes;
+        this.wheel = wheel;
+        this.provisionalDelay = Long.getLong(PROVISIONAL_DELAY_PROPERTY, DEFAULT_PROVISIONAL_DELAY);
 
         // MGCP Components
         this.numberspace = numberspace;
 
         // MGCP Transaction Manager
         this.transactions = new ConcurrentHashMap<>(500);
+        this.responses = responses;
 
         // Observers
         this.observers = Sets.newConcurrentHashSet();
     }
 
+    public SubMgcpTransactionManager(MgcpTransactionNumberspace numberspace, ListeningExecutorService executor, MgcpResponseCache responses) {
+        this(numberspace, executor, null, responses, null);
+    }
+
+    public SubMgcpTransactionManager(MgcpTransactionNumberspace numberspace, ListeningExecutorService executor) {
+        this(numberspace, executor, null, new MgcpResponseCache(), null);
+    }
+
+    /**
+     * Creates a transaction manager that executes the commands of each endpoint in order, in the lane of the endpoint.
+     * 
+     * @param numberspace The numberspace of local transactions.
+     * @param lanes The executor of MGCP commands.
+     * @param responses The cache of responses sent to the call agent.
+     */
+    public SubMgcpTransactionManager(MgcpTransactionNumberspace numberspace, EndpointLaneExecutor lanes, MgcpResponseCache responses) {
+        this(numberspace, null, lanes, responses, null);
+    }
+
+    public SubMgcpTransactionManager(MgcpTransactionNumberspace numberspace, EndpointLaneExecutor lanes) {
+        this(numberspace, null, lanes, new MgcpResponseCache(), null);
+    }
+
+    /**
+     * Creates a transaction manager that executes the commands of each endpoint in order, and answers commands that take
+     * longer than the provisional delay with a provisional response.
+     * 
+     * @param numberspace The numberspace of local transactions.
+     * @param lanes The executor of MGCP commands.
+     * @param responses The cache of responses sent to the call agent.
+     * @param wheel The timing wheel that schedules provisional responses.
+     */
+    public SubMgcpTransactionManager(MgcpTransactionNumberspace numberspace, EndpointLaneExecutor lanes, MgcpResponseCache responses, TimingWheel wheel) {
+        this(numberspace, null, lanes, responses, wheel);
+    }
+
     private MgcpTransaction createTransaction(MgcpRequest request) throws DuplicateMgcpTransactionException {
         int transactionId = request.getTransactionId();
         final boolean local = (transactionId == 0);
@@ -115,6 +165,8 @@ public class SubMgcpTransactionManager implements MgcpTransactionManager {
 
         // Ensure transaction is not duplicate
         if (old != null) {
+            // Caller will send a provisional response, so the final one must be acknowledged by the call agent
+            old.setProvisional(true);
             throw new DuplicateMgcpTransactionException("Transaction " + transactionId + " already exists.");
         }
 
@@ -125,10 +177,37 @@ public class SubMgcpTransactionManager implements MgcpTransactionManager {
         return this.transactions.containsKey(transactionId);
     }
 
+    MgcpResponseCache getResponses() {
+        return responses;
+    }
+
     @Override
     public void process(InetSocketAddress from, InetSocketAddress to, MgcpRequest request, MgcpCommand command, MessageDirection direction) throws DuplicateMgcpTransactionException {
-        // TODO check message direction
-        createTransaction(request);
+        if (MessageDirection.INCOMING.equals(direction)) {
+            // Free responses the call agent already received
+            String acknowledged = request.getParameter(MgcpParameterType.RESPONSE_ACK);
+            if (acknowledged != null) {
+                try {
+                    this.responses.acknowledge(acknowledged);
+                } catch (IllegalArgumentException e) {
+                    log.warn("Ignoring response acknowledgement of transaction " + request.getTransactionId() + ": " + e.getMessage());
+                }
+            }
+
+            // Retransmission of a command that was already executed: repeat the response instead of executing it again
+            if (repeatResponse(from, to, request)) {
+                return;
+            }
+        }
+
+        final MgcpTransaction transaction = createTransaction(request);
+
+        // The original transaction may have completed between the cache lookup and the registration above.
+        // Final responses are cached before their transaction is removed, so looking again cannot miss it.
+        if (MessageDirection.INCOMING.equals(direction) && repeatResponse(from, to, request)) {
+            this.transactions.remove(transaction.getId(), transaction);
+            return;
+        }
         
         if (log.isDebugEnabled()) {
             String callAgent = MessageDirection.INCOMING.equals(direction) ? from.toString() : to.toString();
@@ -136,25 +215,104 @@ public class SubMgcpTransactionManager implements MgcpTransactionManager {
         }
         
         if (command != null) {
-            ListenableFuture<MgcpCommandResult> future = this.executor.submit(command);
+            if (this.wheel != null && MessageDirection.INCOMING.equals(direction)) {
+                scheduleProvisionalResponse(from, to, transaction);
+            }
+
+            final ListenableFuture<MgcpCommandResult> future;
+            if (this.lanes == null) {
+                future = this.executor.submit(command);
+            } else {
+                future = this.lanes.submit(request.getEndpointId(), command);
+            }
             Futures.addCallback(future, new MgcpCommandCallback(from, to, request.getTransactionId()));
         }
     }
 
     @Override
     public void process(InetSocketAddress from, InetSocketAddress to, MgcpResponse response, MessageDirection direction) throws MgcpTransactionNotFoundException {
-     // TODO check message direction
-        MgcpTransaction transaction = this.transactions.remove(response.getTransactionId());
+        final int transactionId = response.getTransactionId();
+        final int code = response.getCode();
+
+        // Provisional responses do not close the transaction
+        if (isProvisional(code)) {
+            if (!this.transactions.containsKey(transactionId)) {
+                throw new MgcpTransactionNotFoundException("Could not find transaction " + transactionId);
+            }
+            return;
+        }
+
+        MgcpTransaction transaction = this.transactions.get(transactionId);
         if (transaction == null) {
-            throw new MgcpTransactionNotFoundException("Could not find transaction " + response.getTransactionId());
+            if (MessageDirection.OUTGOING.equals(direction)) {
+                // Repetition of a cached response
+                if (this.responses.get(transactionId) == response) {
+                    return;
+                }
+            } else if (code == MgcpResponseCode.ACKNOWLEDGEMENT.code()) {
+                // Response acknowledgement (000) sent by call agent
+                if (this.responses.remove(transactionId)) {
+                    return;
+                }
+            }
+            throw new MgcpTransactionNotFoundException("Could not find transaction " + transactionId);
         } else {
+            // Serialized with the provisional response timer, which sends its response only while the transaction is open
+            synchronized (transaction) {
+                final WheelTimer provisionalTimer = transaction.getProvisionalTimer();
+                if (provisionalTimer != null) {
+                    provisionalTimer.cancel();
+                }
+
+                if (MessageDirection.OUTGOING.equals(direction)) {
+                    if (transaction.isProvisional()) {
+                        // Call agent must acknowledge final responses that follow a provisional one
+                        response.addParameter(MgcpParameterType.RESPONSE_ACK, "");
+                    }
+                    // Cache the response before closing the transaction, so a retransmission always finds one of them
+                    this.responses.put(response);
+                }
+
+                if (!this.transactions.remove(transactionId, transaction)) {
+                    throw new MgcpTransactionNotFoundException("Could not find transaction " + transactionId);
+                }
+            }
+
             if (log.isDebugEnabled()) {
                 String callAgent = MessageDirection.INCOMING.equals(direction) ? from.toString() : to.toString();
-                log.debug("Closed transaction " + response.getTransactionId() + " for call agent " + callAgent + " with code " + response.getCode());
+                log.debug("Closed transaction " + transactionId + " for call agent " + callAgent + " with code " + code);
             }
         }
     }
 
+    private void scheduleProvisionalResponse(InetSocketAddress from, InetSocketAddress to, MgcpTransaction transaction) {
+        final WheelTimer timer = this.wheel.newTimer(new ProvisionalResponseTask(from, to, transaction));
+        transaction.setProvisionalTimer(timer);
+        try {
+            timer.schedule(this.provisionalDelay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            transaction.setProvisionalTimer(null);
+            log.warn("Could not schedule provisional response of transaction " + transaction.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private boolean repeatResponse(InetSocketAddress from, InetSocketAddress to, MgcpRequest request) {
+        MgcpResponse cached = this.responses.get(request.getTransactionId());
+        if (cached == null) {
+            return false;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Received retransmission of transaction " + request.getTransactionId() + " from call agent " + from.toString() + ". Repeating response with code " + cached.getCode());
+        }
+        notify(this, to, from, cached, MessageDirection.OUTGOING);
+        return true;
+    }
+
+    private static boolean isProvisional(int code) {
+        return code >= 100 && code < 200;
+    }
+
     @Override
     public void observe(MgcpMessageObserver observer) {
         this.observers.add(observer);
@@ -182,6 +340,46 @@ public class SubMgcpTransactionManager implements MgcpTransactionManager {
         }
     }
 
+    /**
+     * Sends a provisional response for a command that is still executing.
+     */
+    private final class ProvisionalResponseTask implements Runnable {
+
+        private final InetSocketAddress from;
+        private final InetSocketAddress to;
+        private final MgcpTransaction transaction;
+
+        public ProvisionalResponseTask(InetSocketAddress from, InetSocketAddress to, MgcpTransaction transaction) {
+            this.from = from;
+            this.to = to;
+            this.transaction = transaction;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this.transaction) {
+                // The final response was already sent
+                if (transactions.get(this.transaction.getId()) != this.transaction) {
+                    return;
+                }
+
+                this.transaction.setProvisional(true);
+
+                MgcpResponseCode code = MgcpResponseCode.TRANSACTION_BEING_EXECUTED;
+                MgcpResponse response = new MgcpResponse();
+                response.setCode(code.code());
+                response.setMessage(code.message());
+                response.setTransactionId(this.transaction.getId());
+
+                if (log.isDebugEnabled()) {
+                    log.debug("Transaction " + this.transaction.getId() + " is still executing. Sending provisional response with code " + code.code());
+                }
+                SubMgcpTransactionManager.this.notify(SubMgcpTransactionManager.this, this.to, this.from, response, MessageDirection.OUTGOING);
+            }
+        }
+
+    }
+
     /**
      * Handles MGCP command responses after their execution.
      * 
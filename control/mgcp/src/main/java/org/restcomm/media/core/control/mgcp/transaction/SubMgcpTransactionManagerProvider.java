@@ -21,6 +21,8 @@
 
 package org.restcomm.media.core.control.mgcp.transaction;
 
+import org.restcomm.media.core.scheduler.TimingWheel;
+
 import com.google.common.util.concurrent.ListeningExecutorService;
 
 /**
@@ -31,15 +33,37 @@ public class SubMgcpTransactionManagerProvider implements MgcpTransactionManager
 
     private final MgcpTransactionNumberspace numberspace;
     private final ListeningExecutorService executor;
+    private final EndpointLaneExecutor lanes;
+    private final TimingWheel wheel;
 
     public SubMgcpTransactionManagerProvider(MgcpTransactionNumberspace numberspace, ListeningExecutorService executor) {
         this.numberspace = numberspace;
         this.executor = executor;
+        this.lanes = null;
+        this.wheel = null;
+    }
+
+    public SubMgcpTransactionManagerProvider(MgcpTransactionNumberspace numberspace, EndpointLaneExecutor lanes) {
+        this(numberspace, lanes, null);
+    }
+
+    /**
+     * @param wheel The timing wheel that schedules provisional responses for long running commands. May be null.
+     */
+    public SubMgcpTransactionManagerProvider(MgcpTransactionNumberspace numberspace, EndpointLaneExecutor lanes, TimingWheel wheel) {
+        this.numberspace = numberspace;
+        this.executor = null;
+        this.lanes = lanes;
+        this.wheel = wheel;
     }
 
     @Override
     public MgcpTransactionManager provide() {
-        return new SubMgcpTransactionManager(this.numberspace, this.executor);
+        if (this.lanes == null) {
+            return new SubMgcpTransactionManager(this.numberspace, this.executor, new MgcpResponseCache());
+        }
+        // Lanes are shared by all call agents, as they may drive the same endpoints
+        return new SubMgcpTransactionManager(this.numberspace, this.lanes, new MgcpResponseCache(), this.wheel);
     }
 
 }
@@ -31,7 +31,9 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -47,6 +49,8 @@ import org.restcomm.media.core.rtp.ChannelsManager;
 import org.restcomm.media.core.rtp.LocalDataChannel;
 import org.restcomm.media.core.rtp.channels.AudioChannel;
 import org.restcomm.media.core.rtp.channels.MediaChannelProvider;
+import org.restcomm.media.core.scheduler.TimingWheel;
+import org.restcomm.media.core.scheduler.WheelScheduledExecutor;
 import org.restcomm.media.core.sdp.format.AVProfile;
 
 import com.google.common.util.concurrent.ListeningScheduledExecutorService;
@@ -70,6 +74,40 @@ public class MgcpLocalConnectionTest {
         this.executor = null;
     }
     
+    @Test
+    public void testMaxDurationTimerOnTimingWheel() throws MgcpConnectionException, InterruptedException {
+        // given
+        final ExecutorService pool = Executors.newFixedThreadPool(1);
+        final TimingWheel wheel = new TimingWheel(10, TimeUnit.MILLISECONDS, 64, pool);
+        final ListeningScheduledExecutorService wheelExecutor = MoreExecutors.listeningDecorator(new WheelScheduledExecutor(wheel, pool));
+        final int halfOpenTimeout = 1;
+        final int openTimeout = 2;
+        final MgcpEventObserver observer = mock(MgcpEventObserver.class);
+        final ArgumentCaptor<RtpTimeoutEvent> timeoutCaptor = ArgumentCaptor.forClass(RtpTimeoutEvent.class);
+        final LocalDataChannel dataChannel = mock(LocalDataChannel.class);
+        final MgcpEventProvider eventProvider = mock(MgcpEventProvider.class);
+        final ChannelsManager channelProvider = mock(ChannelsManager.class);
+
+        // when
+        when(channelProvider.getLocalChannel()).thenReturn(dataChannel);
+        wheel.start();
+
+        try {
+            final MgcpLocalConnection connection = new MgcpLocalConnection(1, 1, halfOpenTimeout, openTimeout, eventProvider, channelProvider, wheelExecutor);
+            connection.observe(observer);
+            connection.halfOpen(new LocalConnectionOptions());
+            Thread.sleep(halfOpenTimeout * 1000 + 200);
+
+            // then
+            assertEquals(MgcpConnectionState.CLOSED, connection.state);
+            verify(observer, only()).onEvent(eq(connection), timeoutCaptor.capture());
+            assertEquals(halfOpenTimeout, timeoutCaptor.getValue().getTimeout());
+        } finally {
+            wheel.stop();
+            pool.shutdownNow();
+        }
+    }
+
     @Test
     public void testMaxDurationTimerWhenHalfOpen() throws MgcpConnectionException, InterruptedException {
         // given
@@ -251,4 +251,37 @@ public class MgcpRemoteConnectionTest {
         verify(observer, never()).onEvent(eq(connection2), timeoutCaptor.capture());
     }
 
+    @Test
+    public void testRtpInactivityRaisesRtpTimeout() throws MgcpConnectionException {
+        // given
+        final int callId = 1;
+        final int halfOpenTimeout = 0;
+        final int openTimeout = 0;
+        final MgcpEventObserver observer = mock(MgcpEventObserver.class);
+        final ArgumentCaptor<RtpTimeoutEvent> timeoutCaptor = ArgumentCaptor.forClass(RtpTimeoutEvent.class);
+        final AudioChannel audioChannel = mock(AudioChannel.class);
+        final MgcpEventProvider eventProvider = mock(MgcpEventProvider.class);
+        final MediaChannelProvider channelProvider = mock(MediaChannelProvider.class);
+
+        // when
+        when(channelProvider.provideAudioChannel()).thenReturn(audioChannel);
+        when(audioChannel.getFormats()).thenReturn(AVProfile.audio);
+        when(audioChannel.getMediaType()).thenReturn(AudioChannel.MEDIA_TYPE);
+
+        final MgcpRemoteConnection connection = new MgcpRemoteConnection(1, callId, halfOpenTimeout, openTimeout, eventProvider, channelProvider, this.executor);
+        connection.observe(observer);
+        connection.halfOpen(new LocalConnectionOptions());
+
+        // then - the connection listens to its RTP channel
+        verify(audioChannel).setRtpListener(connection);
+
+        // when - the inactivity sweeper reports the RTP channel
+        connection.onRtpFailure("RTP timeout! Elapsed time since last heartbeat: 5000");
+
+        // then
+        assertEquals(MgcpConnectionState.CLOSED, connection.state);
+        verify(observer, only()).onEvent(eq(connection), timeoutCaptor.capture());
+        assertEquals(halfOpenTimeout, timeoutCaptor.getValue().getTimeout());
+    }
+
 }
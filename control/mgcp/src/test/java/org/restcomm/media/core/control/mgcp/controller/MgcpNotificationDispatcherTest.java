@@ -0,0 +1,196 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.control.mgcp.controller;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.restcomm.media.core.control.mgcp.message.MgcpParameterType;
+import org.restcomm.media.core.control.mgcp.message.MgcpRequest;
+import org.restcomm.media.core.control.mgcp.message.MgcpRequestType;
+import org.restcomm.media.core.control.mgcp.message.MgcpResponse;
+import org.restcomm.media.core.control.mgcp.message.MgcpResponseCode;
+
+public class MgcpNotificationDispatcherTest {
+
+    private static final InetSocketAddress ENDPOINT = new InetSocketAddress("127.0.0.1", 2427);
+    private static final InetSocketAddress CALL_AGENT = new InetSocketAddress("127.0.0.1", 2727);
+
+    private ScheduledExecutorService scheduler;
+    private MgcpNotificationDispatcher.Sender sender;
+
+    @Before
+    public void before() {
+        scheduler = new ScheduledThreadPoolExecutor(1);
+        sender = mock(MgcpNotificationDispatcher.Sender.class);
+
+        // Transaction manager assigns the transaction identifier when the request is sent
+        final AtomicInteger transactionIds = new AtomicInteger(1);
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ((MgcpRequest) invocation.getArguments()[2]).setTransactionId(transactionIds.getAndIncrement());
+                return null;
+            }
+        }).when(sender).send(any(InetSocketAddress.class), any(InetSocketAddress.class), any(MgcpRequest.class));
+    }
+
+    @After
+    public void after() {
+        scheduler.shutdownNow();
+    }
+
+    private static MgcpRequest notify(String endpointId, String requestId, String event) {
+        final MgcpRequest request = new MgcpRequest();
+        request.setRequestType(MgcpRequestType.NTFY);
+        request.setTransactionId(0);
+        request.setEndpointId(endpointId);
+        request.addParameter(MgcpParameterType.OBSERVED_EVENT, event);
+        request.addParameter(MgcpParameterType.REQUEST_ID, requestId);
+        return request;
+    }
+
+    private static MgcpResponse response(int transactionId) {
+        final MgcpResponse response = new MgcpResponse();
+        response.setTransactionId(transactionId);
+        response.setCode(MgcpResponseCode.TRANSACTION_WAS_EXECUTED.code());
+        response.setMessage("OK");
+        return response;
+    }
+
+    @Test
+    public void testEventsOfSameRequestAreCoalesced() {
+        // given
+        final MgcpNotificationDispatcher dispatcher = new MgcpNotificationDispatcher(scheduler, 100, 8, 5000, 3, TimeUnit.MILLISECONDS);
+        dispatcher.setSender(sender);
+        final MgcpRequest first = notify("restcomm/ivr/1@127.0.0.1:2427", "1", "AU/oc(rc=100)");
+        final MgcpRequest second = notify("restcomm/ivr/1@127.0.0.1:2427", "1", "D/1");
+        final MgcpRequest other = notify("restcomm/ivr/2@127.0.0.1:2427", "1", "D/2");
+
+        // when
+        dispatcher.dispatch(ENDPOINT, CALL_AGENT, first);
+        dispatcher.dispatch(ENDPOINT, CALL_AGENT, second);
+        dispatcher.dispatch(ENDPOINT, CALL_AGENT, other);
+
+        // then
+        verify(sender, never()).send(any(InetSocketAddress.class), any(InetSocketAddress.class), any(MgcpRequest.class));
+
+        final ArgumentCaptor<MgcpRequest> captor = ArgumentCaptor.forClass(MgcpRequest.class);
+        verify(sender, timeout(1000).times(2)).send(eq(ENDPOINT), eq(CALL_AGENT), captor.capture());
+        assertSame(first, captor.getAllValues().get(0));
+        assertEquals("AU/oc(rc=100),D/1", first.getParameter(MgcpParameterType.OBSERVED_EVENT));
+        assertSame(other, captor.getAllValues().get(1));
+        assertEquals("D/2", other.getParameter(MgcpParameterType.OBSERVED_EVENT));
+    }
+
+    @Test
+    public void testOutstandingNotificationsAreCapped() {
+        // given
+        final MgcpNotificationDispatcher dispatcher = new MgcpNotificationDispatcher(scheduler, 0, 2, 5000, 3, TimeUnit.MILLISECONDS);
+        dispatcher.setSender(sender);
+        final MgcpRequest third = notify("restcomm/ivr/3", "1", "D/3");
+
+        // when
+        dispatcher.dispatch(ENDPOINT, CALL_AGENT, notify("restcomm/ivr/1", "1", "D/1"));
+        dispatcher.dispatch(ENDPOINT, CALL_AGENT, notify("restcomm/ivr/2", "1", "D/2"));
+        dispatcher.dispatch(ENDPOINT, CALL_AGENT, third);
+
+        // then
+        verify(sender, times(2)).send(any(InetSocketAddress.class), any(InetSocketAddress.class), any(MgcpRequest.class));
+        assertEquals(2, dispatcher.getOutstanding(CALL_AGENT));
+        assertEquals(1, dispatcher.getQueued(CALL_AGENT));
+
+        // when
+        dispatcher.onResponse(CALL_AGENT, response(1));
+
+        // then
+        verify(sender).send(ENDPOINT, CALL_AGENT, third);
+        assertEquals(2, dispatcher.getOutstanding(CALL_AGENT));
+        assertEquals(0, dispatcher.getQueued(CALL_AGENT));
+
+        // when
+        dispatcher.onResponse(CALL_AGENT, response(2));
+        dispatcher.onResponse(CALL_AGENT, response(3));
+
+        // then
+        assertEquals(0, dispatcher.getOutstanding(CALL_AGENT));
+    }
+
+    @Test
+    public void testUnansweredNotificationIsRetransmitted() throws InterruptedException {
+        // given
+        final MgcpNotificationDispatcher dispatcher = new MgcpNotificationDispatcher(scheduler, 0, 2, 50, 2, TimeUnit.MILLISECONDS);
+        dispatcher.setSender(sender);
+        final MgcpRequest request = notify("restcomm/ivr/1", "1", "D/1");
+
+        // when
+        dispatcher.dispatch(ENDPOINT, CALL_AGENT, request);
+
+        // then
+        verify(sender).send(ENDPOINT, CALL_AGENT, request);
+        verify(sender, timeout(1000).times(2)).retransmit(ENDPOINT, CALL_AGENT, request);
+
+        // when - last retransmission is not answered either
+        Thread.sleep(200);
+
+        // then
+        verify(sender, times(2)).retransmit(ENDPOINT, CALL_AGENT, request);
+        assertEquals(0, dispatcher.getOutstanding(CALL_AGENT));
+    }
+
+    @Test
+    public void testProvisionalResponseKeepsNotificationOutstanding() {
+        // given
+        final MgcpNotificationDispatcher dispatcher = new MgcpNotificationDispatcher(scheduler, 0, 1, 5000, 3, TimeUnit.MILLISECONDS);
+        dispatcher.setSender(sender);
+        final MgcpResponse provisional = response(1);
+        provisional.setCode(MgcpResponseCode.TRANSACTION_BEING_EXECUTED.code());
+
+        // when
+        dispatcher.dispatch(ENDPOINT, CALL_AGENT, notify("restcomm/ivr/1", "1", "D/1"));
+        dispatcher.onResponse(CALL_AGENT, provisional);
+
+        // then
+        assertEquals(1, dispatcher.getOutstanding(CALL_AGENT));
+
+        // when
+        dispatcher.onResponse(CALL_AGENT, response(1));
+
+        // then
+        assertEquals(0, dispatcher.getOutstanding(CALL_AGENT));
+    }
+
+}
@@ -28,6 +28,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.timeout;
@@ -42,6 +43,7 @@ import java.util.Map;
 
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.restcomm.media.core.control.mgcp.command.NotificationRequest;
 import org.restcomm.media.core.control.mgcp.command.param.NotifiedEntity;
 import org.restcomm.media.core.control.mgcp.connection.MgcpConnection;
@@ -136,6 +138,8 @@ public class GenericMgcpEndpointTest {
         assertTrue(endpoint.hasConnections());
         assertEquals(connection2, deleted);
         assertEquals(connection1, existing);
+        verify(connectionProvider, times(1)).release(connection2);
+        verify(connectionProvider, never()).release(connection1);
     }
 
     @Test(expected = MgcpCallNotFoundException.class)
@@ -219,6 +223,39 @@ public class GenericMgcpEndpointTest {
         assertTrue(deleted.contains(connection2));
         assertTrue(deleted.contains(connection3));
         assertEquals(connection1, existing);
+        verify(connection2, times(1)).close();
+        verify(connection3, times(1)).close();
+        verify(connectionProvider, times(1)).release(connection2);
+        verify(connectionProvider, times(1)).release(connection3);
+        verify(connectionProvider, never()).release(connection1);
+    }
+
+    @Test
+    public void testDeactivateAfterLastConnectionIsReleased() throws Exception {
+        // given
+        final int callId = 1;
+        final int connectionId = 3;
+        final MgcpConnectionProvider connectionProvider = mock(MgcpConnectionProvider.class);
+        final MgcpRemoteConnection connection = mock(MgcpRemoteConnection.class);
+        final MediaGroup mediaGroup = mock(MediaGroup.class);
+        final MgcpEndpointObserver observer = mock(MgcpEndpointObserver.class);
+        final EndpointIdentifier endpointId = new EndpointIdentifier("mobicents/endpoint/1", "127.0.0.1");
+        final GenericMgcpEndpoint endpoint = new GenericMgcpEndpoint(endpointId, connectionProvider, mediaGroup);
+
+        // when
+        when(connectionProvider.provideRemote(callId)).thenReturn(connection);
+        when(connection.getIdentifier()).thenReturn(connectionId);
+        when(connection.getCallIdentifier()).thenReturn(callId);
+
+        endpoint.observe(observer);
+        endpoint.createConnection(callId, false);
+        endpoint.deleteConnection(callId, connectionId);
+
+        // then
+        final InOrder inOrder = inOrder(connection, connectionProvider, observer);
+        inOrder.verify(connection).close();
+        inOrder.verify(connectionProvider).release(connection);
+        inOrder.verify(observer).onEndpointStateChanged(endpoint, MgcpEndpointState.INACTIVE);
     }
 
     @Test
@@ -259,6 +296,9 @@ public class GenericMgcpEndpointTest {
         assertTrue(deleted.contains(connection1));
         assertTrue(deleted.contains(connection2));
         assertTrue(deleted.contains(connection3));
+        verify(connectionProvider, times(1)).release(connection1);
+        verify(connectionProvider, times(1)).release(connection2);
+        verify(connectionProvider, times(1)).release(connection3);
     }
 
     @Test
@@ -135,6 +135,44 @@ public class MgcpEndpointManagerTest {
 //        verify(bridgeEndpoint, times(1)).forget(endpointManager);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReuseInactiveEndpoint() throws UnrecognizedMgcpNamespaceException {
+        // given
+        MgcpEndpointManager endpointManager = new MgcpEndpointManager(1);
+        GenericMgcpEndpoint bridgeEndpoint = mock(GenericMgcpEndpoint.class);
+        EndpointIdentifier endpointId = new EndpointIdentifier("mobicents/bridge/1", "127.0.0.1:2427");
+        AbstractMgcpEndpointProvider<MgcpEndpoint> bridgeProvider = mock(AbstractMgcpEndpointProvider.class);
+
+        // when - provider is installed
+        when(bridgeProvider.getNamespace()).thenReturn(NAMESPACE_BRIDGE);
+        when(bridgeProvider.provide()).thenReturn(bridgeEndpoint);
+        when(bridgeEndpoint.getEndpointId()).thenReturn(endpointId);
+        when(bridgeEndpoint.recycle()).thenReturn(true);
+
+        endpointManager.installProvider(bridgeProvider);
+
+        // then - endpoint is warmed up
+        verify(bridgeProvider, times(1)).provide();
+        assertEquals(1, endpointManager.getPooledCount(NAMESPACE_BRIDGE));
+
+        // when - endpoint is registered
+        MgcpEndpoint endpoint = endpointManager.registerEndpoint(NAMESPACE_BRIDGE);
+
+        // then
+        assertEquals(bridgeEndpoint, endpoint);
+        assertEquals(0, endpointManager.getPooledCount(NAMESPACE_BRIDGE));
+
+        // when - endpoint goes idle and is registered again
+        endpointManager.onEndpointStateChanged(bridgeEndpoint, MgcpEndpointState.INACTIVE);
+
+        // then
+        assertNull(endpointManager.getEndpoint(endpointId.toString()));
+        assertEquals(1, endpointManager.getPooledCount(NAMESPACE_BRIDGE));
+        assertEquals(bridgeEndpoint, endpointManager.registerEndpoint(NAMESPACE_BRIDGE));
+        verify(bridgeProvider, times(1)).provide();
+    }
+
     @Test(expected = UnrecognizedMgcpNamespaceException.class)
     public void testRegisterUnknownEndpoint() throws UnrecognizedMgcpNamespaceException {
         // given
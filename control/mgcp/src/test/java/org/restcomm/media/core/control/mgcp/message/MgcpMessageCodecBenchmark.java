@@ -0,0 +1,162 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.control.mgcp.message;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.restcomm.media.core.control.mgcp.exception.MgcpParseException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Measures how fast {@link MgcpMessageParser} parses and {@link MgcpMessageWriter} encodes typical call agent traffic,
+ * against encoding through {@link MgcpMessage#toString()}.
+ * <p>
+ * Run with <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.restcomm.media.core.control.mgcp.message.MgcpMessageCodecBenchmark</code> or from the IDE.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MgcpMessageCodecBenchmark {
+
+    private static final String EOL = "\r\n";
+
+    private static final String SDP = "v=0" + EOL
+            + "o=- 1461941902737 1 IN IP4 127.0.0.1" + EOL
+            + "s=Talk" + EOL
+            + "c=IN IP4 127.0.0.1" + EOL
+            + "t=0 0" + EOL
+            + "m=audio 7070 RTP/AVP 8 0 101" + EOL
+            + "a=rtpmap:8 pcma/8000" + EOL
+            + "a=rtpmap:0 pcmu/8000" + EOL
+            + "a=rtpmap:101 telephone-event/8000" + EOL
+            + "a=fmtp:101 0-15" + EOL
+            + "a=ptime:20" + EOL
+            + "a=sendrecv";
+
+    private static final String CRCX = "CRCX 147483653 mobicents/bridge/$@127.0.0.1:2427 MGCP 1.0" + EOL
+            + "C:1" + EOL
+            + "M:sendrecv" + EOL
+            + "N:restcomm@127.0.0.1:2727" + EOL
+            + "L:webrtc:false" + EOL
+            + EOL
+            + SDP;
+
+    private static final String MDCX = "MDCX 147483654 mobicents/ivr/1@127.0.0.1:2427 MGCP 1.0" + EOL
+            + "C:1" + EOL
+            + "I:10" + EOL
+            + "M:sendrecv" + EOL;
+
+    private static final String RQNT = "RQNT 147483656 mobicents/ivr/1@127.0.0.1:2427 MGCP 1.0" + EOL
+            + "N:restcomm@127.0.0.1:2727" + EOL
+            + "X:1" + EOL
+            + "S:AU/pa(an=http://localhost:8080/restcomm/cache/ACae6e420f425248d6a26948c17a9e2acf/35ea210b.wav it=1)" + EOL
+            + "R:AU/oc(N),AU/of(N)" + EOL;
+
+    private static final String NTFY = "NTFY 2 mobicents/ivr/1@127.0.0.1:2427 MGCP 1.0" + EOL
+            + "N:restcomm@127.0.0.1:2727" + EOL
+            + "O:AU/oc(rc=100)" + EOL
+            + "X:1" + EOL;
+
+    @Param({ "CRCX", "MDCX", "RQNT", "NTFY" })
+    public String type;
+
+    private MgcpMessageParser parser;
+    private MgcpMessageWriter writer;
+    private ByteBuf datagram;
+    private ByteBuf output;
+    private MgcpRequest request;
+
+    @Setup
+    public void setup() throws MgcpParseException {
+        final String text;
+        switch (type) {
+            case "CRCX":
+                text = CRCX;
+                break;
+            case "MDCX":
+                text = MDCX;
+                break;
+            case "RQNT":
+                text = RQNT;
+                break;
+            default:
+                text = NTFY;
+                break;
+        }
+
+        this.parser = new MgcpMessageParser();
+        this.writer = new MgcpMessageWriter();
+        this.datagram = Unpooled.directBuffer(text.length()).writeBytes(text.getBytes(StandardCharsets.US_ASCII));
+        this.output = Unpooled.directBuffer(2048);
+        this.request = this.parser.parseRequest(this.datagram);
+        // Encoding benchmarks work on a decoded message, as built by the media server
+        this.request.getParameter(MgcpParameterType.SDP);
+    }
+
+    @Benchmark
+    public MgcpRequest parse() throws MgcpParseException {
+        return this.parser.parseRequest(this.datagram);
+    }
+
+    @Benchmark
+    public ByteBuf encode() {
+        this.output.clear();
+        this.writer.write(this.request, this.output);
+        return this.output;
+    }
+
+    @Benchmark
+    public ByteBuf encodeToString() {
+        this.output.clear();
+        this.output.writeBytes(this.request.toString().getBytes());
+        return this.output;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(MgcpMessageCodecBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+
+}
@@ -23,6 +23,8 @@ package org.restcomm.media.core.control.mgcp.message;
 
 import static org.junit.Assert.*;
 
+import java.nio.charset.StandardCharsets;
+
 import org.junit.Test;
 import org.restcomm.media.core.control.mgcp.exception.MgcpParseException;
 import org.restcomm.media.core.control.mgcp.message.MgcpMessageParser;
@@ -31,6 +33,9 @@ import org.restcomm.media.core.control.mgcp.message.MgcpRequest;
 import org.restcomm.media.core.control.mgcp.message.MgcpRequestType;
 import org.restcomm.media.core.control.mgcp.message.MgcpResponse;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
 /**
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  *
@@ -254,4 +259,55 @@ public class MgcpMessageParserTest {
         assertEquals(builderSdp.toString(), response.getParameter(MgcpParameterType.SDP));
     }
 
+    @Test
+    public void testParseRequestWithCrlfFromBuffer() throws MgcpParseException {
+        // given
+        final String sdp = "v=0\r\no=- 1 1 IN IP4 127.0.0.1\r\ns=-\r\nm=audio 7070 RTP/AVP 0";
+        final String message = "crcx 10 mobicents/bridge/$@127.0.0.1:2427 MGCP 1.0\r\nC: 1\r\nm:sendrecv \r\nXYZ:unknown\r\n\r\n" + sdp + "\r\n";
+        final ByteBuf buffer = Unpooled.buffer();
+        buffer.writeBytes("garbage".getBytes(StandardCharsets.US_ASCII));
+        buffer.readerIndex(buffer.writerIndex());
+        buffer.writeBytes(message.getBytes(StandardCharsets.US_ASCII));
+        final int readerIndex = buffer.readerIndex();
+        MgcpMessageParser parser = new MgcpMessageParser();
+
+        // when
+        MgcpRequest request = parser.parseRequest(buffer);
+
+        // then
+        assertEquals(readerIndex, buffer.readerIndex());
+        assertEquals(MgcpRequestType.CRCX, request.getRequestType());
+        assertEquals(10, request.getTransactionId());
+        assertEquals("mobicents/bridge/$@127.0.0.1:2427", request.getEndpointId());
+        assertEquals("1", request.getParameter(MgcpParameterType.CALL_ID));
+        assertEquals("sendrecv", request.getParameter(MgcpParameterType.MODE));
+        assertTrue(request.isSdpDetected());
+        assertTrue(request.hasParameter(MgcpParameterType.SDP));
+        assertEquals(sdp, request.getParameter(MgcpParameterType.SDP));
+        assertEquals(sdp, request.getParameters().getString(MgcpParameterType.SDP).get());
+    }
+
+    @Test(expected = MgcpParseException.class)
+    public void testParseRequestWithUnknownVerb() throws MgcpParseException {
+        new MgcpMessageParser().parseRequest("CRCY 1 mobicents/bridge/$@127.0.0.1:2427 MGCP 1.0");
+    }
+
+    @Test(expected = MgcpParseException.class)
+    public void testParseRequestWithInvalidTransactionId() throws MgcpParseException {
+        new MgcpMessageParser().parseRequest("CRCX 12a mobicents/bridge/$@127.0.0.1:2427 MGCP 1.0");
+    }
+
+    @Test
+    public void testParameterTypeFromCode() {
+        for (MgcpParameterType type : MgcpParameterType.values()) {
+            assertEquals(type, MgcpParameterType.fromCode(type.getCode()));
+            assertEquals(type, MgcpParameterType.fromCode(type.getCode().toLowerCase()));
+        }
+        assertEquals(MgcpParameterType.RESPONSE_ACK, MgcpParameterType.fromCode("k"));
+        assertNull(MgcpParameterType.fromCode("Q"));
+        assertNull(MgcpParameterType.fromCode("I3"));
+        assertNull(MgcpParameterType.fromCode(""));
+        assertNull(MgcpParameterType.fromCode((String) null));
+    }
+
 }
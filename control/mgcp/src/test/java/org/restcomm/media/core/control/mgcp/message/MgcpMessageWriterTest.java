@@ -0,0 +1,96 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.control.mgcp.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+import org.restcomm.media.core.control.mgcp.exception.MgcpParseException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+public class MgcpMessageWriterTest {
+
+    private static final String SDP = "v=0" + System.lineSeparator() + "o=- 1 1 IN IP4 127.0.0.1" + System.lineSeparator()
+            + "s=-" + System.lineSeparator() + "m=audio 7070 RTP/AVP 0";
+
+    @Test
+    public void testWriteRequest() {
+        // given
+        MgcpRequest request = new MgcpRequest();
+        request.setRequestType(MgcpRequestType.CRCX);
+        request.setTransactionId(147483653);
+        request.setEndpointId("mobicents/bridge/$@127.0.0.1:2427");
+        request.addParameter(MgcpParameterType.CALL_ID, "1");
+        request.addParameter(MgcpParameterType.MODE, "sendrecv");
+        request.addParameter(MgcpParameterType.SDP, SDP);
+        ByteBuf buffer = Unpooled.buffer();
+
+        // when
+        new MgcpMessageWriter().write(request, buffer);
+
+        // then
+        assertEquals(request.toString(), buffer.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWriteResponse() {
+        // given
+        MgcpResponse response = new MgcpResponse();
+        response.setCode(200);
+        response.setTransactionId(0);
+        response.setMessage("Successful Transaction");
+        response.addParameter(MgcpParameterType.CONNECTION_ID, "1f");
+        response.addParameter(MgcpParameterType.SDP, SDP);
+
+        // when
+        ByteBuf buffer = new MgcpMessageWriter().write(response, UnpooledByteBufAllocator.DEFAULT);
+
+        // then
+        assertEquals(response.toString(), buffer.toString(StandardCharsets.UTF_8));
+        buffer.release();
+    }
+
+    @Test
+    public void testParsedMessageIsWrittenBackWithoutDecodingSdp() throws MgcpParseException {
+        // given
+        final String text = "200 7 OK" + System.lineSeparator() + "I:1f" + System.lineSeparator() + System.lineSeparator() + SDP;
+        final MgcpMessageParser parser = new MgcpMessageParser();
+        final MgcpResponse response = parser.parseResponse(text);
+        final byte[] sdp = response.getSdpBytes();
+        final ByteBuf buffer = Unpooled.buffer();
+
+        // when
+        new MgcpMessageWriter().write(response, buffer);
+
+        // then
+        assertSame(sdp, response.getSdpBytes());
+        assertEquals(text, buffer.toString(StandardCharsets.UTF_8));
+        assertEquals(SDP, response.getParameter(MgcpParameterType.SDP));
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.control.mgcp.network;
+
+import static org.junit.Assert.*;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class MgcpAddressCacheTest {
+
+    @Test
+    public void testResolvedAddressIsReused() {
+        // given
+        final MgcpAddressCache cache = new MgcpAddressCache(1, TimeUnit.MINUTES);
+
+        // when
+        final InetSocketAddress first = cache.resolve("127.0.0.1", 2727);
+        final InetSocketAddress second = cache.resolve("127.0.0.1", 2727);
+        final InetSocketAddress otherPort = cache.resolve("127.0.0.1", 2427);
+
+        // then
+        assertFalse(first.isUnresolved());
+        assertEquals(new InetSocketAddress("127.0.0.1", 2727), first);
+        assertSame(first, second);
+        assertEquals(2427, otherPort.getPort());
+        assertSame(first.getAddress(), otherPort.getAddress());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testExpiredAddressIsResolvedAgain() {
+        // given
+        final MgcpAddressCache cache = new MgcpAddressCache(0, TimeUnit.MILLISECONDS);
+
+        // when
+        final InetSocketAddress first = cache.resolve("127.0.0.1", 2727);
+        final InetSocketAddress second = cache.resolve("127.0.0.1", 2727);
+
+        // then
+        assertEquals(first, second);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void testUnknownHostIsNotCached() {
+        // given
+        final MgcpAddressCache cache = new MgcpAddressCache(1, TimeUnit.MINUTES);
+
+        // when
+        final InetSocketAddress address = cache.resolve("unknown.host.invalid", 2727);
+
+        // then
+        assertTrue(address.isUnresolved());
+        assertEquals(0, cache.size());
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.control.mgcp.transaction;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+public class EndpointLaneExecutorTest {
+
+    private EndpointLaneExecutor executor;
+
+    @After
+    public void after() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testEndpointIsBoundToOneLane() {
+        // given
+        executor = new EndpointLaneExecutor(4);
+
+        // when
+        final int lane = executor.getLane("restcomm/bridge/1@127.0.0.1:2427");
+
+        // then
+        assertTrue(lane >= 0 && lane < 4);
+        assertEquals(lane, executor.getLane("restcomm/bridge/1"));
+        assertEquals(lane, executor.getLane("RESTCOMM/bridge/1@mediaserver"));
+        assertEquals(-1, executor.getLane("restcomm/bridge/$@127.0.0.1:2427"));
+        assertEquals(-1, executor.getLane("restcomm/ivr/*"));
+        assertEquals(-1, executor.getLane(null));
+    }
+
+    @Test
+    public void testCommandsOfEndpointRunInOrder() throws Exception {
+        // given
+        executor = new EndpointLaneExecutor(4);
+        final List<Integer> executed = Collections.synchronizedList(new ArrayList<Integer>());
+        final List<ListenableFuture<Integer>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            final int order = i;
+            futures.add(executor.submit("restcomm/ivr/7@127.0.0.1:2427", new Callable<Integer>() {
+
+                @Override
+                public Integer call() throws Exception {
+                    executed.add(order);
+                    return order;
+                }
+            }));
+        }
+
+        // then
+        assertEquals(Integer.valueOf(99), futures.get(99).get(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i), executed.get(i));
+        }
+
+        // when
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        // then
+        final int lane = executor.getLane("restcomm/ivr/7");
+        assertEquals(100, executor.getCompletedCommands()[lane]);
+        assertEquals(0, executor.getQueueDepths()[lane]);
+        assertTrue(executor.getMaxQueueDepths()[lane] >= 1);
+        assertEquals(lane, executor.getHottestLane());
+    }
+
+    @Test
+    public void testBlockedEndpointDoesNotDelayOtherLanes() throws Exception {
+        // given
+        executor = new EndpointLaneExecutor(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        String blocked = "restcomm/bridge/1";
+        String other = null;
+        for (int i = 2; other == null; i++) {
+            if (executor.getLane("restcomm/bridge/" + i) != executor.getLane(blocked)) {
+                other = "restcomm/bridge/" + i;
+            }
+        }
+
+        // when
+        final ListenableFuture<Boolean> slow = executor.submit(blocked, new Callable<Boolean>() {
+
+            @Override
+            public Boolean call() throws Exception {
+                return release.await(5, TimeUnit.SECONDS);
+            }
+        });
+        final ListenableFuture<Boolean> fast = executor.submit(other, new Callable<Boolean>() {
+
+            @Override
+            public Boolean call() throws Exception {
+                return true;
+            }
+        });
+
+        // then
+        assertTrue(fast.get(1, TimeUnit.SECONDS));
+        assertFalse(slow.isDone());
+        assertEquals(1, executor.getQueueDepths()[executor.getLane(blocked)]);
+
+        // when
+        release.countDown();
+
+        // then
+        assertTrue(slow.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testWildcardsAreSpreadAcrossLanes() throws Exception {
+        // given
+        executor = new EndpointLaneExecutor(4);
+        final Callable<Boolean> command = new Callable<Boolean>() {
+
+            @Override
+            public Boolean call() throws Exception {
+                return true;
+            }
+        };
+
+        // when
+        ListenableFuture<Boolean> last = null;
+        for (int i = 0; i < 8; i++) {
+            last = executor.submit("restcomm/bridge/$@127.0.0.1:2427", command);
+        }
+        last.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        // then
+        for (long completed : executor.getCompletedCommands()) {
+            assertEquals(2, completed);
+        }
+    }
+
+}
@@ -41,6 +41,7 @@ import org.mockito.stubbing.Answer;
 import org.restcomm.media.core.control.mgcp.command.MgcpCommand;
 import org.restcomm.media.core.control.mgcp.command.MgcpCommandProvider;
 import org.restcomm.media.core.control.mgcp.controller.MgcpController;
+import org.restcomm.media.core.control.mgcp.controller.MgcpNotificationDispatcher;
 import org.restcomm.media.core.control.mgcp.endpoint.MgcpEndpointManager;
 import org.restcomm.media.core.control.mgcp.exception.DuplicateMgcpTransactionException;
 import org.restcomm.media.core.control.mgcp.exception.MgcpTransactionNotFoundException;
@@ -266,4 +267,44 @@ public class MgcpControllerTest {
         verify(channel, never()).send(eq(response), eq(to), any(FutureCallback.class));
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testOutgoingNotificationGoesThroughDispatcher() throws DuplicateMgcpTransactionException, MgcpTransactionNotFoundException {
+        // given
+        final String address = "127.0.0.1";
+        final int port = 2427;
+        final int transactionId = 147483653;
+        final InetSocketAddress local = new InetSocketAddress("127.0.0.1", 2427);
+        final InetSocketAddress remote = new InetSocketAddress("127.0.0.1", 2727);
+        final MgcpRequest request = mock(MgcpRequest.class);
+        final MgcpResponse response = mock(MgcpResponse.class);
+        final MgcpCommandProvider commands = mock(MgcpCommandProvider.class);
+        final AsyncMgcpChannel channel = mock(AsyncMgcpChannel.class);
+        final MgcpTransactionManager transactions = mock(MgcpTransactionManager.class);
+        final MgcpEndpointManager endpoints = mock(MgcpEndpointManager.class);
+        final MgcpNotificationDispatcher notifications = mock(MgcpNotificationDispatcher.class);
+        final MgcpController controller = new MgcpController(address, port, channel, transactions, endpoints, commands, notifications);
+
+        // when
+        when(request.isRequest()).thenReturn(true);
+        when(request.getRequestType()).thenReturn(MgcpRequestType.NTFY);
+        when(response.isRequest()).thenReturn(false);
+        when(response.getTransactionId()).thenReturn(transactionId);
+
+        controller.onMessage(local, remote, request, MessageDirection.OUTGOING);
+
+        // then
+        verify(notifications, times(1)).setSender(any(MgcpNotificationDispatcher.Sender.class));
+        verify(notifications, times(1)).dispatch(local, remote, request);
+        verify(transactions, never()).process(local, remote, request, null, MessageDirection.OUTGOING);
+        verify(channel, never()).send(any(MgcpRequest.class), any(InetSocketAddress.class), any(FutureCallback.class));
+
+        // when
+        controller.onMessage(remote, local, response, MessageDirection.INCOMING);
+
+        // then
+        verify(notifications, times(1)).onResponse(remote, response);
+        verify(transactions, times(1)).process(remote, local, response, MessageDirection.INCOMING);
+    }
+
 }
@@ -0,0 +1,135 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.control.mgcp.transaction;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.restcomm.media.core.control.mgcp.message.MgcpResponse;
+
+import com.google.common.base.Ticker;
+
+public class MgcpResponseCacheTest {
+
+    private static MgcpResponse response(int transactionId) {
+        final MgcpResponse response = new MgcpResponse();
+        response.setTransactionId(transactionId);
+        response.setCode(200);
+        response.setMessage("OK");
+        return response;
+    }
+
+    @Test
+    public void testResponseExpiresAfterTimeToLive() {
+        // given
+        final ManualTicker ticker = new ManualTicker();
+        final MgcpResponseCache cache = new MgcpResponseCache(30, TimeUnit.SECONDS, 10, ticker);
+        final MgcpResponse response = response(1);
+
+        // when
+        cache.put(response);
+        ticker.advance(29, TimeUnit.SECONDS);
+
+        // then
+        assertSame(response, cache.get(1));
+
+        // when
+        ticker.advance(1, TimeUnit.SECONDS);
+
+        // then
+        assertNull(cache.get(1));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testOldestResponseIsEvictedWhenFull() {
+        // given
+        final MgcpResponseCache cache = new MgcpResponseCache(30, TimeUnit.SECONDS, 2, new ManualTicker());
+
+        // when
+        cache.put(response(1));
+        cache.put(response(2));
+        cache.put(response(3));
+
+        // then
+        assertEquals(2, cache.size());
+        assertNull(cache.get(1));
+        assertNotNull(cache.get(2));
+        assertNotNull(cache.get(3));
+    }
+
+    @Test
+    public void testAcknowledgeRanges() {
+        // given
+        final MgcpResponseCache cache = new MgcpResponseCache(30, TimeUnit.SECONDS, 100, new ManualTicker());
+        for (int i = 6230; i < 6260; i++) {
+            cache.put(response(i));
+        }
+
+        // when
+        final int removed = cache.acknowledge("6234-6255, 6257");
+
+        // then
+        assertEquals(23, removed);
+        assertEquals(7, cache.size());
+        assertNotNull(cache.get(6233));
+        assertNull(cache.get(6234));
+        assertNull(cache.get(6255));
+        assertNotNull(cache.get(6256));
+        assertNull(cache.get(6257));
+
+        // when
+        final int removedAll = cache.acknowledge("0-2147483647");
+
+        // then
+        assertEquals(7, removedAll);
+        assertEquals(0, cache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAcknowledgeMalformedRange() {
+        // given
+        final MgcpResponseCache cache = new MgcpResponseCache(30, TimeUnit.SECONDS, 100, new ManualTicker());
+        cache.put(response(1));
+
+        // when
+        cache.acknowledge("1-x");
+    }
+
+    private static final class ManualTicker extends Ticker {
+
+        private long time = 0;
+
+        @Override
+        public long read() {
+            return time;
+        }
+
+        void advance(long duration, TimeUnit unit) {
+            this.time += unit.toNanos(duration);
+        }
+
+    }
+
+}
@@ -27,8 +27,13 @@ import static org.mockito.Mockito.*;
 import java.net.InetSocketAddress;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.mockito.internal.util.reflection.Whitebox;
 import org.restcomm.media.core.control.mgcp.command.MgcpCommand;
 import org.restcomm.media.core.control.mgcp.command.MgcpCommandResult;
@@ -36,12 +41,16 @@ import org.restcomm.media.core.control.mgcp.exception.DuplicateMgcpTransactionEx
 import org.restcomm.media.core.control.mgcp.exception.MgcpTransactionNotFoundException;
 import org.restcomm.media.core.control.mgcp.message.MessageDirection;
 import org.restcomm.media.core.control.mgcp.message.MgcpMessageObserver;
+import org.restcomm.media.core.control.mgcp.message.MgcpParameterType;
 import org.restcomm.media.core.control.mgcp.message.MgcpRequest;
 import org.restcomm.media.core.control.mgcp.message.MgcpRequestType;
 import org.restcomm.media.core.control.mgcp.message.MgcpResponse;
+import org.restcomm.media.core.control.mgcp.message.MgcpResponseCode;
+import org.restcomm.media.core.control.mgcp.util.collections.Parameters;
 import org.restcomm.media.core.control.mgcp.transaction.MgcpTransaction;
 import org.restcomm.media.core.control.mgcp.transaction.MgcpTransactionNumberspace;
 import org.restcomm.media.core.control.mgcp.transaction.SubMgcpTransactionManager;
+import org.restcomm.media.core.scheduler.TimingWheel;
 
 import com.google.common.util.concurrent.AbstractFuture;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -291,4 +300,292 @@ public class SubMgcpTransactionManagerTest {
         assertTrue(transactions.isEmpty());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRetransmissionIsAnsweredFromResponseCache() throws DuplicateMgcpTransactionException, MgcpTransactionNotFoundException {
+        // given
+        final int transactionId = 12345;
+        final InetSocketAddress remote = new InetSocketAddress("127.0.0.1", 2727);
+        final InetSocketAddress local = new InetSocketAddress("127.0.0.1", 2427);
+        final MgcpRequest request = mock(MgcpRequest.class);
+        final MgcpResponse response = new MgcpResponse();
+        final MgcpCommand command = mock(MgcpCommand.class);
+        final MgcpMessageObserver observer = mock(MgcpMessageObserver.class);
+        final MgcpTransactionNumberspace numberspace = mock(MgcpTransactionNumberspace.class);
+        final ListeningExecutorService executor = mock(ListeningExecutorService.class);
+        final SubMgcpTransactionManager transactionManager = new SubMgcpTransactionManager(numberspace, executor);
+
+        // when
+        when(executor.submit(command)).thenReturn(mock(ListenableFuture.class));
+        when(request.getTransactionId()).thenReturn(transactionId);
+        response.setTransactionId(transactionId);
+        response.setCode(MgcpResponseCode.TRANSACTION_WAS_EXECUTED.code());
+
+        transactionManager.observe(observer);
+        transactionManager.process(remote, local, request, command, MessageDirection.INCOMING);
+        transactionManager.process(local, remote, response, MessageDirection.OUTGOING);
+
+        // then
+        assertFalse(transactionManager.contains(transactionId));
+        assertSame(response, transactionManager.getResponses().get(transactionId));
+
+        // when - retransmission
+        transactionManager.process(remote, local, request, command, MessageDirection.INCOMING);
+
+        // then
+        verify(executor, times(1)).submit(command);
+        verify(observer, only()).onMessage(local, remote, response, MessageDirection.OUTGOING);
+        assertFalse(transactionManager.contains(transactionId));
+
+        // when - cached response goes out again
+        transactionManager.process(local, remote, response, MessageDirection.OUTGOING);
+
+        // then
+        assertFalse(response.hasParameter(MgcpParameterType.RESPONSE_ACK));
+    }
+
+    @Test
+    public void testRetransmissionRacingFinalResponseIsNotExecuted() throws DuplicateMgcpTransactionException {
+        // given
+        final int transactionId = 12345;
+        final InetSocketAddress remote = new InetSocketAddress("127.0.0.1", 2727);
+        final InetSocketAddress local = new InetSocketAddress("127.0.0.1", 2427);
+        final MgcpRequest request = mock(MgcpRequest.class);
+        final MgcpResponse response = new MgcpResponse();
+        final MgcpCommand command = mock(MgcpCommand.class);
+        final MgcpMessageObserver observer = mock(MgcpMessageObserver.class);
+        final MgcpTransactionNumberspace numberspace = mock(MgcpTransactionNumberspace.class);
+        final ListeningExecutorService executor = mock(ListeningExecutorService.class);
+        final MgcpResponseCache responses = mock(MgcpResponseCache.class);
+        final SubMgcpTransactionManager transactionManager = new SubMgcpTransactionManager(numberspace, executor, responses);
+
+        // when - original transaction completes right after the first cache lookup
+        when(request.getTransactionId()).thenReturn(transactionId);
+        when(responses.get(transactionId)).thenReturn(null, response);
+        response.setTransactionId(transactionId);
+        response.setCode(MgcpResponseCode.TRANSACTION_WAS_EXECUTED.code());
+
+        transactionManager.observe(observer);
+        transactionManager.process(remote, local, request, command, MessageDirection.INCOMING);
+
+        // then
+        verify(executor, never()).submit(command);
+        verify(observer, only()).onMessage(local, remote, response, MessageDirection.OUTGOING);
+        assertFalse(transactionManager.contains(transactionId));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testProvisionalTransactionRequestsAcknowledgement() throws MgcpTransactionNotFoundException, DuplicateMgcpTransactionException {
+        // given
+        final int transactionId = 12345;
+        final InetSocketAddress remote = new InetSocketAddress("127.0.0.1", 2727);
+        final InetSocketAddress local = new InetSocketAddress("127.0.0.1", 2427);
+        final MgcpRequest request = mock(MgcpRequest.class);
+        final MgcpResponse response = new MgcpResponse();
+        final MgcpResponse acknowledgement = new MgcpResponse();
+        final MgcpCommand command = mock(MgcpCommand.class);
+        final MgcpTransactionNumberspace numberspace = mock(MgcpTransactionNumberspace.class);
+        final ListeningExecutorService executor = mock(ListeningExecutorService.class);
+        final SubMgcpTransactionManager transactionManager = new SubMgcpTransactionManager(numberspace, executor);
+
+        // when - retransmission while command executes
+        when(executor.submit(command)).thenReturn(mock(ListenableFuture.class));
+        when(request.getTransactionId()).thenReturn(transactionId);
+        transactionManager.process(remote, local, request, command, MessageDirection.INCOMING);
+        try {
+            transactionManager.process(remote, local, request, command, MessageDirection.INCOMING);
+            fail("Expected duplicate transaction");
+        } catch (DuplicateMgcpTransactionException e) {
+            // expected
+        }
+
+        // when - final response
+        response.setTransactionId(transactionId);
+        response.setCode(MgcpResponseCode.TRANSACTION_WAS_EXECUTED.code());
+        transactionManager.process(local, remote, response, MessageDirection.OUTGOING);
+
+        // then
+        assertTrue(response.hasParameter(MgcpParameterType.RESPONSE_ACK));
+        assertEquals(1, transactionManager.getResponses().size());
+
+        // when - call agent acknowledges response
+        acknowledgement.setTransactionId(transactionId);
+        acknowledgement.setCode(MgcpResponseCode.ACKNOWLEDGEMENT.code());
+        transactionManager.process(remote, local, acknowledgement, MessageDirection.INCOMING);
+
+        // then
+        assertEquals(0, transactionManager.getResponses().size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testResponseAckParameterReleasesCachedResponses() throws DuplicateMgcpTransactionException, MgcpTransactionNotFoundException {
+        // given
+        final InetSocketAddress remote = new InetSocketAddress("127.0.0.1", 2727);
+        final InetSocketAddress local = new InetSocketAddress("127.0.0.1", 2427);
+        final MgcpRequest request = mock(MgcpRequest.class);
+        final MgcpCommand command = mock(MgcpCommand.class);
+        final MgcpTransactionNumberspace numberspace = mock(MgcpTransactionNumberspace.class);
+        final ListeningExecutorService executor = mock(ListeningExecutorService.class);
+        final SubMgcpTransactionManager transactionManager = new SubMgcpTransactionManager(numberspace, executor);
+
+        when(executor.submit(command)).thenReturn(mock(ListenableFuture.class));
+        for (int transactionId = 10; transactionId < 15; transactionId++) {
+            final MgcpResponse response = new MgcpResponse();
+            response.setTransactionId(transactionId);
+            response.setCode(MgcpResponseCode.TRANSACTION_WAS_EXECUTED.code());
+            when(request.getTransactionId()).thenReturn(transactionId);
+            transactionManager.process(remote, local, request, command, MessageDirection.INCOMING);
+            transactionManager.process(local, remote, response, MessageDirection.OUTGOING);
+        }
+
+        // when
+        when(request.getTransactionId()).thenReturn(20);
+        when(request.getParameter(MgcpParameterType.RESPONSE_ACK)).thenReturn("10-12, 14");
+        transactionManager.process(remote, local, request, command, MessageDirection.INCOMING);
+
+        // then
+        assertEquals(1, transactionManager.getResponses().size());
+        assertNotNull(transactionManager.getResponses().get(13));
+        assertTrue(transactionManager.contains(20));
+    }
+
+    @Test
+    public void testCommandsRunInEndpointLane() throws Exception {
+        // given
+        final int transactionId = 12345;
+        final InetSocketAddress remote = new InetSocketAddress("127.0.0.1", 2727);
+        final InetSocketAddress local = new InetSocketAddress("127.0.0.1", 2427);
+        final MgcpRequest request = mock(MgcpRequest.class);
+        final MgcpCommand command = mock(MgcpCommand.class);
+        final MgcpMessageObserver observer = mock(MgcpMessageObserver.class);
+        final MgcpTransactionNumberspace numberspace = mock(MgcpTransactionNumberspace.class);
+        final EndpointLaneExecutor lanes = new EndpointLaneExecutor(2);
+        final SubMgcpTransactionManager transactionManager = new SubMgcpTransactionManager(numberspace, lanes);
+
+        try {
+            // when
+            when(request.getTransactionId()).thenReturn(transactionId);
+            when(request.getEndpointId()).thenReturn("restcomm/bridge/1@127.0.0.1:2427");
+            when(command.call()).thenReturn(new MgcpCommandResult(transactionId, MgcpResponseCode.TRANSACTION_WAS_EXECUTED.code(), "OK", new Parameters<MgcpParameterType>()));
+
+            transactionManager.observe(observer);
+            transactionManager.process(remote, local, request, command, MessageDirection.INCOMING);
+
+            // then
+            verify(observer, timeout(1000)).onMessage(eq(local), eq(remote), any(MgcpResponse.class), eq(MessageDirection.OUTGOING));
+            lanes.shutdown();
+            lanes.awaitTermination(1, TimeUnit.SECONDS);
+            assertEquals(1, lanes.getCompletedCommands()[lanes.getLane("restcomm/bridge/1")]);
+        } finally {
+            lanes.shutdown();
+        }
+    }
+
+    @Test
+    public void testLongRunningCommandGetsProvisionalResponse() throws Exception {
+        // given
+        final int transactionId = 12345;
+        final InetSocketAddress remote = new InetSocketAddress("127.0.0.1", 2727);
+        final InetSocketAddress local = new InetSocketAddress("127.0.0.1", 2427);
+        final MgcpRequest request = mock(MgcpRequest.class);
+        final MgcpCommand command = mock(MgcpCommand.class);
+        final MgcpMessageObserver observer = mock(MgcpMessageObserver.class);
+        final MgcpTransactionNumberspace numberspace = mock(MgcpTransactionNumberspace.class);
+        final EndpointLaneExecutor lanes = new EndpointLaneExecutor(1);
+        final TimingWheel wheel = new TimingWheel(5, TimeUnit.MILLISECONDS, 64, null);
+        final SubMgcpTransactionManager transactionManager = new SubMgcpTransactionManager(numberspace, lanes, new MgcpResponseCache(), wheel);
+        final CountDownLatch release = new CountDownLatch(1);
+        final MgcpCommandResult result = new MgcpCommandResult(transactionId, MgcpResponseCode.TRANSACTION_WAS_EXECUTED.code(), "OK", new Parameters<MgcpParameterType>());
+
+        wheel.start();
+        try {
+            // when - command outlives the provisional delay
+            when(request.getTransactionId()).thenReturn(transactionId);
+            when(request.getEndpointId()).thenReturn("restcomm/bridge/1@127.0.0.1:2427");
+            when(command.call()).thenAnswer(new Answer<MgcpCommandResult>() {
+
+                @Override
+                public MgcpCommandResult answer(InvocationOnMock invocation) throws Throwable {
+                    release.await();
+                    return result;
+                }
+            });
+
+            transactionManager.observe(observer);
+            transactionManager.process(remote, local, request, command, MessageDirection.INCOMING);
+
+            // then
+            final ArgumentCaptor<MgcpResponse> provisional = ArgumentCaptor.forClass(MgcpResponse.class);
+            verify(observer, timeout(1000)).onMessage(eq(local), eq(remote), provisional.capture(), eq(MessageDirection.OUTGOING));
+            assertEquals(MgcpResponseCode.TRANSACTION_BEING_EXECUTED.code(), provisional.getValue().getCode());
+            assertTrue(transactionManager.contains(transactionId));
+
+            // when - command completes
+            release.countDown();
+
+            // then
+            final ArgumentCaptor<MgcpResponse> responses = ArgumentCaptor.forClass(MgcpResponse.class);
+            verify(observer, timeout(1000).times(2)).onMessage(eq(local), eq(remote), responses.capture(), eq(MessageDirection.OUTGOING));
+            final MgcpResponse response = responses.getAllValues().get(1);
+            assertEquals(MgcpResponseCode.TRANSACTION_WAS_EXECUTED.code(), response.getCode());
+
+            transactionManager.process(local, remote, response, MessageDirection.OUTGOING);
+            assertTrue(response.hasParameter(MgcpParameterType.RESPONSE_ACK));
+        } finally {
+            release.countDown();
+            lanes.shutdown();
+            wheel.stop();
+        }
+    }
+
+    @Test
+    public void testClosedTransactionGetsNoProvisionalResponse() throws Exception {
+        // given
+        final int transactionId = 12345;
+        final InetSocketAddress remote = new InetSocketAddress("127.0.0.1", 2727);
+        final InetSocketAddress local = new InetSocketAddress("127.0.0.1", 2427);
+        final MgcpRequest request = mock(MgcpRequest.class);
+        final MgcpResponse response = new MgcpResponse();
+        final MgcpCommand command = mock(MgcpCommand.class);
+        final MgcpMessageObserver observer = mock(MgcpMessageObserver.class);
+        final MgcpTransactionNumberspace numberspace = mock(MgcpTransactionNumberspace.class);
+        final EndpointLaneExecutor lanes = new EndpointLaneExecutor(1);
+        final TimingWheel wheel = new TimingWheel(5, TimeUnit.MILLISECONDS, 64, null);
+        final SubMgcpTransactionManager transactionManager = new SubMgcpTransactionManager(numberspace, lanes, new MgcpResponseCache(), wheel);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        wheel.start();
+        try {
+            // when - final response goes out before the provisional delay
+            when(request.getTransactionId()).thenReturn(transactionId);
+            when(request.getEndpointId()).thenReturn("restcomm/bridge/1@127.0.0.1:2427");
+            when(command.call()).thenAnswer(new Answer<MgcpCommandResult>() {
+
+                @Override
+                public MgcpCommandResult answer(InvocationOnMock invocation) throws Throwable {
+                    release.await();
+                    return null;
+                }
+            });
+
+            transactionManager.observe(observer);
+            transactionManager.process(remote, local, request, command, MessageDirection.INCOMING);
+
+            response.setTransactionId(transactionId);
+            response.setCode(MgcpResponseCode.TRANSACTION_WAS_EXECUTED.code());
+            transactionManager.process(local, remote, response, MessageDirection.OUTGOING);
+            Thread.sleep(2 * SubMgcpTransactionManager.DEFAULT_PROVISIONAL_DELAY);
+
+            // then
+            verify(observer, never()).onMessage(any(InetSocketAddress.class), any(InetSocketAddress.class), any(MgcpResponse.class), any(MessageDirection.class));
+            assertFalse(response.hasParameter(MgcpParameterType.RESPONSE_ACK));
+        } finally {
+            release.countDown();
+            lanes.shutdown();
+            wheel.stop();
+        }
+    }
+
 }
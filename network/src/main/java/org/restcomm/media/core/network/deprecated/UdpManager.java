@@ -24,6 +24,7 @@ package org.restcomm.media.core.network.deprecated;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
@@ -40,13 +41,20 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.restcomm.media.core.network.deprecated.channel.Channel;
 import org.restcomm.media.core.network.deprecated.channel.NetworkChannel;
+import org.restcomm.media.core.scheduler.InactivitySweeper;
 import org.restcomm.media.core.scheduler.Scheduler;
 import org.restcomm.media.core.scheduler.ServiceScheduler;
+import org.restcomm.media.core.scheduler.TimingWheel;
 
 /**
  * Manager responsible for scheduling I/O operations over UDP.
  * 
  * Important! Any CPU-bound action here are illegal!
+ * <p>
+ * Selectors are either polled by the service scheduler or served by threads blocking on them, see {@link UdpPollMode}.
+ * The mode defaults to the value of {@value #POLL_MODE_PROPERTY} and can be changed with {@link #setPollMode(UdpPollMode)}
+ * while the manager is stopped.
+ * </p>
  * 
  * @author yulian oifa
  * @author Henrique Rosa (henrique.rosa@telestax.com)
@@ -65,6 +73,12 @@ public class UdpManager {
     private static final String INET_UNKNOWN = "unknown";
     private static final String LOCALHOST = "127.0.0.1";
 
+    public static final String POLL_MODE_PROPERTY = "restcomm.media.network.poll-mode";
+    
+    // Packets read from one socket before moving on to the next ready one
+    public static final String READ_BATCH_PROPERTY = "restcomm.media.network.read-batch";
+    private static final int DEFAULT_READ_BATCH = 16;
+
     private String inet;
     private String bindAddress;
     private String localBindAddress;
@@ -79,14 +93,22 @@ public class UdpManager {
 
     private Boolean useSbc;
     private int rtpTimeout; // in seconds!
+    private volatile InactivitySweeper inactivitySweeper;
     private volatile boolean active;
 
+    private volatile UdpPollMode pollMode;
+    private final int readBatch;
+
     private final Object LOCK;
     private final List<Selector> selectors;
     private List<PollTask> pollTasks;
     private List<Future<?>> pollTaskFutures;
+    private final List<Thread> selectThreads;
     private AtomicInteger currSelectorIndex;
 
+    // Held while registering channels, so select threads cannot go back to sleep in the middle of it
+    private final Object registrationGate;
+
     public UdpManager(Scheduler scheduler, PortManager portManager, PortManager localPortManager) {
         // Core elements
         this.portManager = portManager;
@@ -102,13 +124,18 @@ public class UdpManager {
         this.rtpTimeout = 0;
         this.active = false;
 
+        this.pollMode = UdpPollMode.fromName(System.getProperty(POLL_MODE_PROPERTY), UdpPollMode.POLL);
+        this.readBatch = Math.max(1, Integer.getInteger(READ_BATCH_PROPERTY, DEFAULT_READ_BATCH));
+
         this.LOCK = new Object();
+        this.registrationGate = new Object();
 
         // UDP manager tasks
         this.scheduler = scheduler;
         this.selectors = new ArrayList<Selector>(ServiceScheduler.POOL_SIZE);
         this.pollTasks = new ArrayList<PollTask>(ServiceScheduler.POOL_SIZE);
         this.pollTaskFutures = new ArrayList<Future<?>>(ServiceScheduler.POOL_SIZE);
+        this.selectThreads = new ArrayList<Thread>(ServiceScheduler.POOL_SIZE);
         this.currSelectorIndex = new AtomicInteger(0);
     }
 
@@ -134,6 +161,30 @@ public class UdpManager {
         return bindAddress;
     }
 
+    /**
+     * Gets how the selectors are served.
+     * 
+     * @return the poll mode
+     */
+    public UdpPollMode getPollMode() {
+        return pollMode;
+    }
+
+    /**
+     * Changes how the selectors are served.
+     * 
+     * @param pollMode the poll mode
+     * @throws IllegalStateException if the manager is running
+     */
+    public void setPollMode(UdpPollMode pollMode) {
+        synchronized (LOCK) {
+            if (this.active) {
+                throw new IllegalStateException("Poll mode cannot be changed while the UDP Manager is running");
+            }
+            this.pollMode = pollMode;
+        }
+    }
+
     /**
      * Modify bind address.
      * 
@@ -178,6 +229,29 @@ public class UdpManager {
         return this.rtpTimeout;
     }
 
+    /**
+     * Gets the sweeper that detects RTP inactivity of all channels in a single pass, driven by the timing wheel of the
+     * scheduler.
+     * 
+     * @return The sweeper, or null if the scheduler has no timing wheel.
+     */
+    public InactivitySweeper getInactivitySweeper() {
+        InactivitySweeper sweeper = this.inactivitySweeper;
+        if (sweeper == null) {
+            synchronized (LOCK) {
+                sweeper = this.inactivitySweeper;
+                if (sweeper == null && this.scheduler != null) {
+                    final TimingWheel wheel = this.scheduler.getTimingWheel();
+                    if (wheel != null) {
+                        sweeper = new InactivitySweeper(wheel);
+                        this.inactivitySweeper = sweeper;
+                    }
+                }
+            }
+        }
+        return sweeper;
+    }
+
     /**
      * Set the local network address
      * 
@@ -255,14 +329,35 @@ public class UdpManager {
         synchronized (LOCK) {
             if (!this.selectors.contains(selector)) {
                 this.selectors.add(selector);
-                PollTask pollTask = new PollTask(selector);
-                this.pollTasks.add(pollTask);
-                ScheduledFuture<?> future = this.scheduler.scheduleWithFixedDelay(pollTask, 0L, 2L, TimeUnit.MILLISECONDS);
-                this.pollTaskFutures.add(future);
+                serve(selector);
             }
         }
     }
 
+    private void serve(Selector selector) {
+        if (this.pollMode == UdpPollMode.SELECT) {
+            Thread thread = new Thread(new SelectTask(selector), "udp-select-" + this.selectThreads.size());
+            thread.setDaemon(true);
+            this.selectThreads.add(thread);
+            thread.start();
+        } else {
+            PollTask pollTask = new PollTask(selector);
+            this.pollTasks.add(pollTask);
+            ScheduledFuture<?> future = this.scheduler.scheduleWithFixedDelay(pollTask, 0L, 2L, TimeUnit.MILLISECONDS);
+            this.pollTaskFutures.add(future);
+        }
+    }
+
+    private Selector nextSelector() {
+        int index = this.currSelectorIndex.getAndIncrement();
+        Selector selector = this.selectors.get(index % this.selectors.size());
+        if (this.pollMode == UdpPollMode.SELECT) {
+            // Registering blocks while another thread is sleeping in select()
+            selector.wakeup();
+        }
+        return selector;
+    }
+
     public boolean connectImmediately(InetSocketAddress address) {
         if (!useSbc) {
             return true;
@@ -295,9 +390,10 @@ public class UdpManager {
     public DatagramChannel open(ProtocolHandler handler) throws IOException {
         DatagramChannel channel = DatagramChannel.open();
         channel.configureBlocking(false);
-        int index = currSelectorIndex.getAndIncrement();
-        SelectionKey key = channel.register(selectors.get(index % selectors.size()), SelectionKey.OP_READ);
-        key.attach(handler);
+        SelectionKey key;
+        synchronized (registrationGate) {
+            key = channel.register(nextSelector(), SelectionKey.OP_READ, handler);
+        }
         handler.setKey(key);
         return channel;
     }
@@ -305,38 +401,32 @@ public class UdpManager {
     public SelectionKey open(Channel channel) throws IOException {
         DatagramChannel dataChannel = DatagramChannel.open();
         dataChannel.configureBlocking(false);
-        int index = currSelectorIndex.getAndIncrement();
-        SelectionKey key = dataChannel.register(selectors.get(index % selectors.size()), SelectionKey.OP_READ);
-        key.attach(channel);
-        return key;
+        synchronized (registrationGate) {
+            return dataChannel.register(nextSelector(), SelectionKey.OP_READ, channel);
+        }
     }
     
     public void register(NetworkChannel channel) throws IOException {
-        int index = this.currSelectorIndex.getAndIncrement();
-        channel.register(this.selectors.get(index % this.selectors.size()), SelectionKey.OP_READ);
+        synchronized (registrationGate) {
+            channel.register(nextSelector(), SelectionKey.OP_READ);
+        }
     }
 
     @Deprecated
     public SelectionKey open(DatagramChannel dataChannel, Channel channel) throws IOException {
-        // Get a selector
-        int index = currSelectorIndex.getAndIncrement();
-        Selector selector = selectors.get(index % selectors.size());
-        // Register the channel under the chosen selector
-        SelectionKey key = dataChannel.register(selector, SelectionKey.OP_READ);
-        // Attach the multiplexer to the key
-        key.attach(channel);
-        return key;
+        // Register the channel under the chosen selector and attach the multiplexer to the key
+        synchronized (registrationGate) {
+            return dataChannel.register(nextSelector(), SelectionKey.OP_READ, channel);
+        }
     }
 
     @Deprecated
     public void open(DatagramChannel channel, ProtocolHandler handler) throws IOException {
-        // Get a selector
-        int index = currSelectorIndex.getAndIncrement();
-        Selector selector = selectors.get(index % selectors.size());
-        // Register the channel under the chosen selector
-        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
-        // Attach the protocol handler to the key
-        key.attach(handler);
+        // Register the channel under the chosen selector and attach the protocol handler to the key
+        SelectionKey key;
+        synchronized (registrationGate) {
+            key = channel.register(nextSelector(), SelectionKey.OP_READ, handler);
+        }
         handler.setKey(key);
     }
 
@@ -415,10 +505,7 @@ public class UdpManager {
     private void generateTasks() throws IOException {
         for (int i = 0; i < ServiceScheduler.POOL_SIZE; i++) {
             this.selectors.add(SelectorProvider.provider().openSelector());
-            PollTask pollTask = new PollTask(this.selectors.get(i));
-            this.pollTasks.add(pollTask);
-            ScheduledFuture<?> future = this.scheduler.scheduleWithFixedDelay(pollTask, 0L, 2L, TimeUnit.MILLISECONDS);
-            this.pollTaskFutures.add(future);
+            serve(this.selectors.get(i));
         }
     }
 
@@ -427,6 +514,12 @@ public class UdpManager {
             future.cancel(false);
         }
         this.pollTaskFutures.clear();
+        
+        // Select threads leave once they see the manager is inactive or their selector closed
+        for (Selector selector : this.selectors) {
+            selector.wakeup();
+        }
+        this.selectThreads.clear();
     }
 
     private void closeSelectors() {
@@ -457,7 +550,7 @@ public class UdpManager {
                 logger.info("Starting UDP Manager");
                 try {
                     generateTasks();
-                    logger.info("Initialized UDP interface[" + inet + "]: bind address=" + bindAddress);
+                    logger.info("Initialized UDP interface[" + inet + "]: bind address=" + bindAddress + ", poll mode=" + pollMode);
                 } catch (IOException e) {
                     logger.error("An error occurred while initializing the polling tasks", e);
                     stop();
@@ -506,71 +599,111 @@ public class UdpManager {
                     logger.error("Could not select channels from Selector!");
                 }
 
-                // Iterate over selected channels
-                Iterator<SelectionKey> it = localSelector.selectedKeys().iterator();
-                while (it.hasNext() && active) {
-                    SelectionKey key = it.next();
-                    it.remove();
+                processSelectedKeys(localSelector, 1);
+            }
+        }
+    }
 
-                    // Get references to channel and associated RTP socket
-                    DatagramChannel udpChannel = (DatagramChannel) key.channel();
-                    Object attachment = key.attachment();
+    /**
+     * Thread body that sleeps on a selector until some of its channels are ready.
+     */
+    private class SelectTask implements Runnable {
 
-                    if (attachment == null) {
-                        continue;
+        private final Selector localSelector;
+
+        public SelectTask(Selector selector) {
+            this.localSelector = selector;
+        }
+
+        @Override
+        public void run() {
+            while (active && localSelector.isOpen()) {
+                try {
+                    // Let pending registrations finish before going back to sleep
+                    synchronized (registrationGate) {
                     }
 
-                    try {
-                        if (attachment instanceof ProtocolHandler) {
-                            // Legacy - MGCP channel
-                            ProtocolHandler handler = (ProtocolHandler) key.attachment();
+                    int selected = localSelector.select();
+                    if (selected > 0) {
+                        processSelectedKeys(localSelector, readBatch);
+                    }
+                } catch (ClosedSelectorException e) {
+                    break;
+                } catch (IOException e) {
+                    logger.error("Could not select channels from Selector!");
+                }
+            }
+        }
+    }
 
-                            if (!udpChannel.isOpen()) {
-                                handler.onClosed();
-                                continue;
-                            }
+    private void processSelectedKeys(Selector selector, int batch) {
+        // Iterate over selected channels
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext() && active) {
+            SelectionKey key = it.next();
+            it.remove();
 
-                            // do read
-                            if (key.isReadable()) {
-                                handler.receive(udpChannel);
-                            }
+            // Get references to channel and associated RTP socket
+            DatagramChannel udpChannel = (DatagramChannel) key.channel();
+            Object attachment = key.attachment();
 
-                        } else if (attachment instanceof Channel) {
-                            Channel channel = (Channel) attachment;
+            if (attachment == null) {
+                continue;
+            }
 
-                            // Perform an operation only if channel is open and key is valid
-                            if (udpChannel.isOpen()) {
-                                if (key.isValid()) {
-                                    channel.receive();
+            try {
+                if (attachment instanceof ProtocolHandler) {
+                    // Legacy - MGCP channel
+                    ProtocolHandler handler = (ProtocolHandler) key.attachment();
 
-                                    if (channel.hasPendingData()) {
-                                        channel.send();
-                                    }
-                                }
+                    if (!udpChannel.isOpen()) {
+                        handler.onClosed();
+                        continue;
+                    }
+
+                    // do read
+                    if (key.isReadable()) {
+                        handler.receive(udpChannel);
+                    }
+
+                } else if (attachment instanceof Channel) {
+                    Channel channel = (Channel) attachment;
+
+                    // Perform an operation only if channel is open and key is valid
+                    if (udpChannel.isOpen()) {
+                        if (key.isValid()) {
+                            if (batch > 1) {
+                                channel.receive(batch);
                             } else {
-                                // Close data channel if datagram channel is closed
-                                channel.close();
+                                channel.receive();
                             }
-                        } else if (attachment instanceof NetworkChannel) {
-                            NetworkChannel channel = (NetworkChannel) attachment;
-                         
-                            // Perform an operation only if channel is open and key is valid
-                            if (udpChannel.isOpen()) {
-                                if (key.isValid()) {
-                                    channel.receive();
-                                }
-                            } else {
-                                // Close data channel if datagram channel is closed
-                                channel.close();
+
+                            if (channel.hasPendingData()) {
+                                channel.send();
                             }
                         }
-                    } catch (Exception e) {
-                        logger.error("An unexpected problem occurred while reading from channel.", e);
+                    } else {
+                        // Close data channel if datagram channel is closed
+                        channel.close();
+                    }
+                } else if (attachment instanceof NetworkChannel) {
+                    NetworkChannel channel = (NetworkChannel) attachment;
+                 
+                    // Perform an operation only if channel is open and key is valid
+                    if (udpChannel.isOpen()) {
+                        if (key.isValid()) {
+                            channel.receive();
+                        }
+                    } else {
+                        // Close data channel if datagram channel is closed
+                        channel.close();
                     }
                 }
-                localSelector.selectedKeys().clear();
+            } catch (Exception e) {
+                logger.error("An unexpected problem occurred while reading from channel.", e);
             }
         }
+        selector.selectedKeys().clear();
     }
 
-}
\ No newline at end of file
+}
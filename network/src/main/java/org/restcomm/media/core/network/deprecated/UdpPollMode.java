@@ -0,0 +1,64 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.network.deprecated;
+
+/**
+ * Strategies the {@link UdpManager} can use to wait for incoming packets.
+ */
+public enum UdpPollMode {
+
+    /**
+     * Every selector is polled with <code>selectNow()</code> by a task that the service scheduler runs every 2ms.
+     * <p>
+     * Idle servers keep waking up and packets wait up to a full period before they are read.
+     * </p>
+     */
+    POLL,
+
+    /**
+     * Every selector gets a dedicated thread that blocks in <code>select()</code> and drains each ready socket in
+     * batches.
+     * <p>
+     * Threads sleep while there is no traffic and packets are read as soon as they arrive.
+     * </p>
+     */
+    SELECT;
+
+    /**
+     * Gets the mode with the given name, ignoring case.
+     * 
+     * @param name the name of the mode
+     * @param defaultMode the mode to return when the name is null or unknown
+     * @return the matching mode
+     */
+    public static UdpPollMode fromName(String name, UdpPollMode defaultMode) {
+        if (name != null) {
+            for (UdpPollMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(name.trim())) {
+                    return mode;
+                }
+            }
+        }
+        return defaultMode;
+    }
+
+}
@@ -58,6 +58,21 @@ public interface Channel {
 	 */
 	void receive() throws IOException;
 
+	/**
+	 * Reads the packets that are already waiting on the channel, up to a limit.
+	 * <p>
+	 * By default a single packet is read.
+	 * </p>
+	 * 
+	 * @param maxPackets the maximum number of packets to read
+	 * @return the number of packets read
+	 * @throws IOException if the channel cannot be read
+	 */
+	default int receive(int maxPackets) throws IOException {
+		receive();
+		return 1;
+	}
+
 	/**
 	 * Send data through the channel
 	 * 
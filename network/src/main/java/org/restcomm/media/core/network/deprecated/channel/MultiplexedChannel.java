@@ -31,6 +31,8 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.restcomm.media.core.spi.memory.Frame;
+import org.restcomm.media.core.spi.memory.Memory;
 
 /**
  * Data channel that supports multiplexing.
@@ -50,10 +52,15 @@ public class MultiplexedChannel implements Channel {
 	// Registered protocol handlers. Used for multiplexing.
 	protected final PacketHandlerPipeline handlers;
 
-	// The buffer into which we will read data when it's available
+	// The buffer used to flush the channel
 	private static final int BUFFER_SIZE = 8192;
 	private final ByteBuffer receiveBuffer;
 	
+	// Size of the pooled frames into which incoming packets are read
+	public static final String RECEIVE_BUFFER_SIZE_PROPERTY = "restcomm.media.network.receive-buffer-size";
+	public static final int DEFAULT_RECEIVE_BUFFER_SIZE = 2048;
+	private static final int RECEIVE_BUFFER_SIZE = Integer.getInteger(RECEIVE_BUFFER_SIZE_PROPERTY, DEFAULT_RECEIVE_BUFFER_SIZE);
+	
 	// Data that is pending for writing
 	private final Queue<byte[]> pendingData;
 
@@ -156,57 +163,88 @@ public class MultiplexedChannel implements Channel {
         }
     }
 	
+	/**
+	 * Reads one packet from the channel into a pooled frame and hands the frame to the matching handler.
+	 * <p>
+	 * The packet is not copied on the way: handlers parse it in place and {@link Frame#retain()} the frame if they keep
+	 * it. The channel releases its own reference once the handler returns.
+	 * </p>
+	 */
 	@Override
 	public void receive() throws IOException {
-		// Get buffer ready to read new data
-		this.receiveBuffer.clear();
+		receivePacket();
+	}
 
-		// Read data from channel
-		int dataLength = 0;
+	/**
+	 * Reads packets until the socket has no more data or the limit is reached.
+	 */
+	@Override
+	public int receive(int maxPackets) throws IOException {
+		int count = 0;
+		while (count < maxPackets && receivePacket() > 0) {
+			count++;
+		}
+		return count;
+	}
+
+	private int receivePacket() throws IOException {
+		final Frame frame = Memory.allocate(RECEIVE_BUFFER_SIZE);
 		try {
-			SocketAddress remotePeer = dataChannel.receive(this.receiveBuffer);
-			if (!isConnected() && remotePeer != null) {
-				connect(remotePeer);
+			// Get buffer ready to read new data
+			final ByteBuffer buffer = frame.getBuffer();
+			buffer.clear();
+
+			// Read data from channel
+			int dataLength = 0;
+			try {
+				SocketAddress remotePeer = dataChannel.receive(buffer);
+				if (!isConnected() && remotePeer != null) {
+					connect(remotePeer);
+				}
+				dataLength = buffer.position();
+			} catch (IOException e) {
+				dataLength = -1;
 			}
-			dataLength = this.receiveBuffer.position();
-		} catch (IOException e) {
-			dataLength = -1;
-		}
 
-		// Stop if socket was shutdown or error occurred
-		if (dataLength == -1) {
-			close();
-			return;
-		} else if (dataLength > 0) {
-			// Copy data from buffer so we don't mess with original
-			byte[] dataCopy = new byte[dataLength];
-			this.receiveBuffer.rewind();
-			this.receiveBuffer.get(dataCopy, 0, dataLength);
-			
-			// Delegate work to the proper handler
-			PacketHandler handler = this.handlers.getHandler(dataCopy);
-			if (handler != null) {
-				try {
-					// Let the handler process the incoming packet.
-					// A response MAY be provided as result.
-					byte[] response = handler.handle(dataCopy, dataLength, 0, (InetSocketAddress) dataChannel.getLocalAddress(), (InetSocketAddress) dataChannel.getRemoteAddress());
-					
-					/*
-					 * If handler intends to send a response to the remote peer,
-					 * queue the data to send it on writing cycle. Only allowed if
-					 * Selection Key is writable!
-					 */
-					if (response != null && response.length > 0) {
-						queueData(response);
+			// Stop if socket was shutdown or error occurred
+			if (dataLength == -1) {
+				close();
+				return -1;
+			} else if (dataLength > 0) {
+				if (dataLength == buffer.capacity() && logger.isDebugEnabled()) {
+					logger.debug("Incoming packet filled the whole receive buffer and may have been truncated. Consider raising " + RECEIVE_BUFFER_SIZE_PROPERTY);
+				}
+				frame.setOffset(0);
+				frame.setLength(dataLength);
+
+				// Delegate work to the proper handler
+				PacketHandler handler = this.handlers.getHandler(frame.getData(), dataLength, 0);
+				if (handler != null) {
+					try {
+						// Let the handler process the incoming packet.
+						// A response MAY be provided as result.
+						byte[] response = handler.handle(frame, (InetSocketAddress) dataChannel.getLocalAddress(), (InetSocketAddress) dataChannel.getRemoteAddress());
+
+						/*
+						 * If handler intends to send a response to the remote peer,
+						 * queue the data to send it on writing cycle. Only allowed if
+						 * Selection Key is writable!
+						 */
+						if (response != null && response.length > 0) {
+							queueData(response);
+						}
+					} catch (PacketHandlerException e) {
+						logger.error("Could not handle incoming packet: " + e.getMessage());
+					}
+				} else {
+					if (logger.isDebugEnabled()) {
+						logger.debug("No protocol handler was found to process an incoming packet. Packet will be dropped.");
 					}
-				} catch (PacketHandlerException e) {
-					logger.error("Could not handle incoming packet: " + e.getMessage());
 				}
-			} else {
-                if (logger.isDebugEnabled()) {
-                    logger.debug("No protocol handler was found to process an incoming packet. Packet will be dropped.");
-                }
 			}
+			return dataLength;
+		} finally {
+			frame.recycle();
 		}
 	}
 
@@ -301,6 +339,9 @@ public class MultiplexedChannel implements Channel {
 				this.selectionKey.cancel();
 				this.dataChannel.socket().close();
 				this.dataChannel.close();
+				
+				// Selectors served by a blocking thread only release the socket once they wake up
+				this.selectionKey.selector().wakeup();
 			} catch (IOException e) {
 				logger.error(e.getMessage(), e);
 			}
@@ -22,6 +22,8 @@ package org.restcomm.media.core.network.deprecated.channel;
 
 import java.net.InetSocketAddress;
 
+import org.restcomm.media.core.spi.memory.Frame;
+
 /**
  * 
  * @author Henrique Rosa (henrique.rosa@telestax.com)
@@ -77,6 +79,31 @@ public interface PacketHandler extends Comparable<PacketHandler> {
 	 */
 	byte[] handle(byte[] packet, int dataLength, int offset, InetSocketAddress localPeer, InetSocketAddress remotePeer) throws PacketHandlerException;
 
+	/**
+	 * Processes a packet held in a pooled frame and provides a suitable answer.
+	 * <p>
+	 * The caller keeps its reference to the frame and recycles it once this method returns. Handlers that need the data
+	 * afterwards must {@link Frame#retain()} the frame. By default the packet is copied into an array of its own, so
+	 * handlers that only implement the array based methods may keep that array.
+	 * </p>
+	 * 
+	 * @param packet
+	 *            The frame holding the packet, between its offset and length.
+	 * @param localPeer
+	 *            The local peer who received the packet
+	 * @param remotePeer
+	 *            The remote peer who sent the packet
+	 * @return The answer to be sent to the remote peer as response to the
+	 *         incoming packet.
+	 * @throws PacketHandlerException
+	 *             When the handler cannot process the packet.
+	 */
+	default byte[] handle(Frame packet, InetSocketAddress localPeer, InetSocketAddress remotePeer) throws PacketHandlerException {
+		byte[] data = new byte[packet.getLength()];
+		System.arraycopy(packet.getData(), packet.getOffset(), data, 0, data.length);
+		return handle(data, data.length, 0, localPeer, remotePeer);
+	}
+
 	/**
 	 * Gets the priority of the handler in the pipeline.<br>
 	 * The priority affects the place of the handler in the pipeline. This can
@@ -128,6 +128,20 @@ public class PacketHandlerPipeline {
         }
     }
 
+    public PacketHandler getHandler(byte[] packet, int dataLength, int offset) {
+        synchronized (this.handlers) {
+            // Search for the first handler capable of processing the packet
+            for (PacketHandler protocolHandler : this.handlers) {
+                if (protocolHandler.canHandle(packet, dataLength, offset)) {
+                    return protocolHandler;
+                }
+            }
+
+            // Return null in case no handler is capable of decoding the packet
+            return null;
+        }
+    }
+
     /**
      * Gets a <b>copy</b> of the handlers registered in the pipeline.
      * 
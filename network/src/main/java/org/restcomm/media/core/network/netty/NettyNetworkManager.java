@@ -34,8 +34,6 @@ import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioDatagramChannel;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GenericFutureListener;
 
@@ -62,7 +60,17 @@ public class NettyNetworkManager implements SynchronousNetworkManager<Channel>,
     }
 
     public NettyNetworkManager(int threadCount) {
-        this(new Bootstrap().channel(NioDatagramChannel.class).group(new NioEventLoopGroup(threadCount)));
+        this(NettyTransport.configured(), threadCount);
+    }
+
+    /**
+     * Creates a Network Manager running on a specific transport.
+     * 
+     * @param transport The datagram transport. Falls back to NIO if the native transport is unavailable.
+     * @param threadCount The number of event loop threads.
+     */
+    public NettyNetworkManager(NettyTransport transport, int threadCount) {
+        this(transport.bootstrap(threadCount));
     }
 
     public NettyNetworkManager(Bootstrap bootstrap) {
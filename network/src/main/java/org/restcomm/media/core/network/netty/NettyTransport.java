@@ -0,0 +1,144 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.network.netty;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+
+/**
+ * Datagram transports the Netty network stack can run on.
+ * <p>
+ * {@link #EPOLL} uses the Linux-native transport. It writes every datagram queued on a channel between two flushes with a
+ * single <code>sendmmsg</code> call and lets several channels bind the same port with <code>SO_REUSEPORT</code>. When the
+ * native library cannot be loaded (other operating systems, missing <code>libnetty-transport-native-epoll</code>) the
+ * transport falls back to {@link #NIO}.
+ * </p>
+ * <p>
+ * The transport is selected with the <code>restcomm.media.network.transport</code> system property:
+ * <code>nio</code> (default), <code>epoll</code> or <code>auto</code>, which picks the native transport whenever it is
+ * available.
+ * </p>
+ * 
+ * @see NettyNetworkManager
+ */
+public enum NettyTransport {
+
+    NIO, EPOLL;
+
+    private static final Logger log = LogManager.getLogger(NettyTransport.class);
+
+    public static final String TRANSPORT_PROPERTY = "restcomm.media.network.transport";
+    public static final String REUSE_PORT_PROPERTY = "restcomm.media.network.reuse-port";
+
+    /**
+     * Checks whether the Linux-native transport can be used in this JVM.
+     * 
+     * @return <code>true</code> if the native transport was loaded; <code>false</code> otherwise.
+     */
+    public static boolean isNativeAvailable() {
+        try {
+            return Epoll.isAvailable();
+        } catch (Throwable e) {
+            // netty-transport-native-epoll is not on the class path
+            return false;
+        }
+    }
+
+    /**
+     * Gets the transport configured with the <code>restcomm.media.network.transport</code> system property.
+     * 
+     * @return The configured transport, after falling back to {@link #NIO} if the native transport is unavailable.
+     */
+    public static NettyTransport configured() {
+        final String name = System.getProperty(TRANSPORT_PROPERTY, "nio").trim();
+        if ("auto".equalsIgnoreCase(name)) {
+            return isNativeAvailable() ? EPOLL : NIO;
+        }
+
+        NettyTransport transport;
+        try {
+            transport = valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown network transport " + name + ". Using " + NIO);
+            transport = NIO;
+        }
+        return transport.orFallback();
+    }
+
+    /**
+     * Gets this transport if it can be used, or {@link #NIO} otherwise.
+     * 
+     * @return The transport to be used.
+     */
+    public NettyTransport orFallback() {
+        if (this == EPOLL && !isNativeAvailable()) {
+            log.warn("Native epoll transport is unavailable. Falling back to " + NIO + ". Cause: " + unavailabilityCause());
+            return NIO;
+        }
+        return this;
+    }
+
+    /**
+     * Builds a datagram bootstrap on a new event loop group of this transport.
+     * <p>
+     * Channels opened by a native bootstrap set <code>SO_REUSEPORT</code> unless the
+     * <code>restcomm.media.network.reuse-port</code> system property is <code>false</code>.
+     * </p>
+     * 
+     * @param threadCount The number of event loop threads.
+     * @return The bootstrap, without handler.
+     */
+    public Bootstrap bootstrap(int threadCount) {
+        final NettyTransport transport = orFallback();
+        final Bootstrap bootstrap = new Bootstrap().group(transport.newEventLoopGroup(threadCount));
+        if (transport == EPOLL) {
+            final boolean reusePort = Boolean.parseBoolean(System.getProperty(REUSE_PORT_PROPERTY, "true"));
+            bootstrap.channel(EpollDatagramChannel.class).option(EpollChannelOption.SO_REUSEPORT, reusePort);
+        } else {
+            bootstrap.channel(NioDatagramChannel.class);
+        }
+        return bootstrap;
+    }
+
+    private EventLoopGroup newEventLoopGroup(int threadCount) {
+        return this == EPOLL ? new EpollEventLoopGroup(threadCount) : new NioEventLoopGroup(threadCount);
+    }
+
+    private static String unavailabilityCause() {
+        try {
+            final Throwable cause = Epoll.unavailabilityCause();
+            return cause == null ? "unknown" : cause.toString();
+        } catch (Throwable e) {
+            return e.toString();
+        }
+    }
+
+}
@@ -22,18 +22,29 @@
 package org.restcomm.media.core.network.netty.channel;
 
 import java.net.SocketAddress;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.restcomm.media.core.network.api.AsynchronousNetworkChannel;
 import org.restcomm.media.core.network.netty.NettyNetworkManager;
 
 import com.google.common.util.concurrent.FutureCallback;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.DefaultAddressedEnvelope;
 
 /**
  * Asynchronous network channel powered by Netty.
+ * <p>
+ * By default every message is written and flushed on its own. With batched writes enabled, messages sent while the event
+ * loop is busy are queued and written together, followed by a single flush. On the native epoll transport the queued
+ * datagrams then leave in one <code>sendmmsg</code> call instead of one <code>sendto</code> per message. Batched writes
+ * are enabled with {@link #setBatchWrites(boolean)} or the <code>restcomm.media.network.batch-writes</code> system
+ * property.
+ * </p>
  * 
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  *
@@ -41,10 +52,17 @@ import io.netty.channel.DefaultAddressedEnvelope;
 public class AsyncNettyNetworkChannel<M> implements AsynchronousNetworkChannel<M> {
 
     public static final int N_THREADS = 1;
+    public static final String BATCH_WRITES_PROPERTY = "restcomm.media.network.batch-writes";
 
     private final NettyNetworkChannelGlobalContext context;
     private final NettyNetworkChannelFsm fsm;
 
+    // Batched writes
+    private volatile boolean batchWrites;
+    private final Queue<PendingWrite> pendingWrites;
+    private final AtomicBoolean flushScheduled;
+    private final Runnable flushTask;
+
     public AsyncNettyNetworkChannel(NettyNetworkManager networkManager) {
         this(new NettyNetworkChannelGlobalContext(networkManager));
     }
@@ -53,6 +71,34 @@ public class AsyncNettyNetworkChannel<M> implements AsynchronousNetworkChannel<M
         this.context = context;
         this.fsm = NettyNetworkChannelFsmBuilder.INSTANCE.build(this.context);
         this.fsm.start();
+
+        this.batchWrites = Boolean.getBoolean(BATCH_WRITES_PROPERTY);
+        this.pendingWrites = new ConcurrentLinkedQueue<>();
+        this.flushScheduled = new AtomicBoolean(false);
+        this.flushTask = new Runnable() {
+
+            @Override
+            public void run() {
+                flushPendingWrites();
+            }
+
+        };
+    }
+
+    public boolean isBatchWrites() {
+        return batchWrites;
+    }
+
+    /**
+     * Enables or disables batched writes.
+     * <p>
+     * Messages already queued are still written by the pending flush.
+     * </p>
+     * 
+     * @param batchWrites Whether sent messages are coalesced into a single flush.
+     */
+    public void setBatchWrites(boolean batchWrites) {
+        this.batchWrites = batchWrites;
     }
 
     @Override
@@ -166,8 +212,7 @@ public class AsyncNettyNetworkChannel<M> implements AsynchronousNetworkChannel<M
     @Override
     public void send(M message, FutureCallback<Void> callback) {
         if (isConnected()) {
-            final ChannelFuture future = this.context.getChannel().writeAndFlush(message);
-            future.addListener(new NettyNetworkChannelVoidCallbackListener(callback));
+            write(message, callback);
         } else {
             callback.onFailure(new IllegalStateException("Channel is not connected."));
         }
@@ -180,14 +225,61 @@ public class AsyncNettyNetworkChannel<M> implements AsynchronousNetworkChannel<M
                 callback.onFailure(new IllegalStateException("Channel is connected. Cannot send traffic to another peer."));
             } else {
                 DefaultAddressedEnvelope<M, SocketAddress> envelope = new DefaultAddressedEnvelope<>(message, remoteAddress);
-                final ChannelFuture future = this.context.getChannel().writeAndFlush(envelope);
-                future.addListener(new NettyNetworkChannelVoidCallbackListener(callback));
+                write(envelope, callback);
             }
         } else {
             callback.onFailure(new IllegalStateException("Channel is not bound."));
         }
     }
 
+    private void write(Object message, FutureCallback<Void> callback) {
+        final Channel channel = this.context.getChannel();
+        if (this.batchWrites) {
+            this.pendingWrites.offer(new PendingWrite(channel, message, callback));
+            // Writes queued before the flush task clears the flag are drained by that task
+            if (this.flushScheduled.compareAndSet(false, true)) {
+                channel.eventLoop().execute(this.flushTask);
+            }
+        } else {
+            final ChannelFuture future = channel.writeAndFlush(message);
+            future.addListener(new NettyNetworkChannelVoidCallbackListener(callback));
+        }
+    }
+
+    private void flushPendingWrites() {
+        this.flushScheduled.set(false);
+
+        Channel flushed = null;
+        PendingWrite pending;
+        while ((pending = this.pendingWrites.poll()) != null) {
+            if (flushed != null && flushed != pending.channel) {
+                // Channel was reopened since the previous write was queued
+                flushed.flush();
+            }
+            final ChannelFuture future = pending.channel.write(pending.message);
+            future.addListener(new NettyNetworkChannelVoidCallbackListener(pending.callback));
+            flushed = pending.channel;
+        }
+
+        if (flushed != null) {
+            flushed.flush();
+        }
+    }
+
+    private static final class PendingWrite {
+
+        private final Channel channel;
+        private final Object message;
+        private final FutureCallback<Void> callback;
+
+        private PendingWrite(Channel channel, Object message, FutureCallback<Void> callback) {
+            this.channel = channel;
+            this.message = message;
+            this.callback = callback;
+        }
+
+    }
+
     static final class NettyNetworkChannelVoidCallbackListener implements ChannelFutureListener {
 
         private final FutureCallback<Void> observer;
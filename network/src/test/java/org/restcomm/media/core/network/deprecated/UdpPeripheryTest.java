@@ -27,12 +27,15 @@
 
 package org.restcomm.media.core.network.deprecated;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.SelectionKey;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
@@ -43,6 +46,9 @@ import org.junit.Test;
 import org.restcomm.media.core.network.deprecated.ProtocolHandler;
 import org.restcomm.media.core.network.deprecated.RtpPortManager;
 import org.restcomm.media.core.network.deprecated.UdpManager;
+import org.restcomm.media.core.network.deprecated.channel.MultiplexedChannel;
+import org.restcomm.media.core.network.deprecated.channel.PacketHandler;
+import org.restcomm.media.core.network.deprecated.channel.PacketHandlerException;
 import org.restcomm.media.core.scheduler.Scheduler;
 import org.restcomm.media.core.scheduler.ServiceScheduler;
 
@@ -100,6 +106,90 @@ public class UdpPeripheryTest {
         channel.socket().close();
     }
 
+    @Test
+    public void testSelectModeReceive() throws Exception {
+        // given
+        final int packets = 5;
+        final CountDownLatch received = new CountDownLatch(packets);
+        udpPeriphery.stop();
+        udpPeriphery.setPollMode(UdpPollMode.SELECT);
+        udpPeriphery.start();
+
+        CountingChannel channel = new CountingChannel(received);
+        channel.attach(udpPeriphery.open(channel));
+        channel.bind(new InetSocketAddress("127.0.0.1", 0));
+
+        // when
+        DatagramChannel sender = DatagramChannel.open();
+        try {
+            // Connecting on the first packet would flush the ones queued behind it
+            sender.bind(new InetSocketAddress("127.0.0.1", 0));
+            channel.connect(sender.getLocalAddress());
+
+            for (int i = 0; i < packets; i++) {
+                sender.send(ByteBuffer.wrap(new byte[] { (byte) i }), channel.getLocalAddress());
+            }
+
+            // then
+            assertTrue("Expected all packets to be received", received.await(2, TimeUnit.SECONDS));
+            assertEquals(UdpPollMode.SELECT, udpPeriphery.getPollMode());
+        } finally {
+            sender.close();
+            channel.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testChangePollModeWhileRunning() {
+        udpPeriphery.setPollMode(UdpPollMode.SELECT);
+    }
+
+    private class CountingChannel extends MultiplexedChannel {
+
+        public CountingChannel(final CountDownLatch received) {
+            this.handlers.addHandler(new PacketHandler() {
+
+                @Override
+                public int compareTo(PacketHandler o) {
+                    return 0;
+                }
+
+                @Override
+                public boolean canHandle(byte[] packet) {
+                    return true;
+                }
+
+                @Override
+                public boolean canHandle(byte[] packet, int dataLength, int offset) {
+                    return true;
+                }
+
+                @Override
+                public byte[] handle(byte[] packet, InetSocketAddress localPeer, InetSocketAddress remotePeer)
+                        throws PacketHandlerException {
+                    return handle(packet, packet.length, 0, localPeer, remotePeer);
+                }
+
+                @Override
+                public byte[] handle(byte[] packet, int dataLength, int offset, InetSocketAddress localPeer,
+                        InetSocketAddress remotePeer) throws PacketHandlerException {
+                    received.countDown();
+                    return null;
+                }
+
+                @Override
+                public int getPipelinePriority() {
+                    return 0;
+                }
+            });
+        }
+
+        public void attach(SelectionKey key) {
+            this.selectionKey = key;
+            this.dataChannel = (DatagramChannel) key.channel();
+        }
+    }
+
     private class TestHandler implements ProtocolHandler {
 
         public void receive(DatagramChannel channel) {
@@ -0,0 +1,251 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.network.deprecated;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.restcomm.media.core.network.deprecated.channel.MultiplexedChannel;
+import org.restcomm.media.core.network.deprecated.channel.PacketHandler;
+import org.restcomm.media.core.network.deprecated.channel.PacketHandlerException;
+import org.restcomm.media.core.scheduler.ServiceScheduler;
+
+/**
+ * Compares the idle CPU usage and the receive latency of the {@link UdpManager} poll modes.
+ * <p>
+ * Each run registers a number of RTP-like channels. It first measures the CPU used with no traffic at all, then sends one
+ * 172 byte packet to every channel each 20ms and records how long each packet waited between <code>send()</code> and its
+ * handler. Sender and receiver share the process, so the latency includes the loopback round and the scheduling of the
+ * sender thread.
+ * </p>
+ * <p>
+ * Usage: <code>UdpPollerBenchmark [seconds] [channels...]</code>
+ * </p>
+ * <p>
+ * <code>mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.restcomm.media.core.network.deprecated.UdpPollerBenchmark</code>
+ * </p>
+ */
+public class UdpPollerBenchmark {
+
+    private static final long PACKET_INTERVAL = 20000000L;
+    private static final int PACKET_SIZE = 172;
+
+    /** Latency histogram resolution and range */
+    private static final long BUCKET_NANOS = 10000L;
+    private static final int BUCKETS = 5000;
+
+    public static void main(String[] args) throws Exception {
+        final int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        final int[] channels;
+        if (args.length > 1) {
+            channels = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                channels[i - 1] = Integer.parseInt(args[i]);
+            }
+        } else {
+            channels = new int[] { 10, 100, 500 };
+        }
+
+        System.out.println(String.format(Locale.US, "%-7s %8s %9s %9s %9s %9s %9s", "mode", "channels", "idle(%)",
+                "load(%)", "p50(ms)", "p99(ms)", "max(ms)"));
+        for (int i = 0; i < channels.length; i++) {
+            for (UdpPollMode mode : UdpPollMode.values()) {
+                run(mode, channels[i], seconds);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void run(UdpPollMode mode, int count, int seconds) throws Exception {
+        final ServiceScheduler scheduler = new ServiceScheduler();
+        final UdpManager udpManager = new UdpManager(scheduler, new RtpPortManager(), new RtpPortManager());
+        udpManager.setPollMode(mode);
+        scheduler.start();
+        udpManager.start();
+
+        final AtomicLongArray latency = new AtomicLongArray(BUCKETS);
+        final LatencyChannel[] channels = new LatencyChannel[count];
+        final SocketAddress[] addresses = new SocketAddress[count];
+        for (int i = 0; i < count; i++) {
+            channels[i] = new LatencyChannel(latency);
+            channels[i].attach(udpManager.open(channels[i]));
+            channels[i].bind(new InetSocketAddress("127.0.0.1", 0));
+            addresses[i] = channels[i].getLocalAddress();
+        }
+
+        // idle
+        Thread.sleep(1000);
+        long cpuStart = processCpuTime();
+        long wallStart = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        final double idle = 100.0 * (processCpuTime() - cpuStart) / (System.nanoTime() - wallStart);
+
+        // load
+        final Sender sender = new Sender(addresses);
+        final Thread senderThread = new Thread(sender, "benchmark-sender");
+        senderThread.start();
+        Thread.sleep(1000);
+        for (int i = 0; i < BUCKETS; i++) {
+            latency.set(i, 0);
+        }
+        cpuStart = processCpuTime();
+        wallStart = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        final double load = 100.0 * (processCpuTime() - cpuStart) / (System.nanoTime() - wallStart);
+        sender.stop();
+        senderThread.join();
+
+        for (int i = 0; i < count; i++) {
+            channels[i].close();
+        }
+        udpManager.stop();
+        scheduler.stop();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+
+        System.out.println(String.format(Locale.US, "%-7s %8d %9.1f %9.1f %9.2f %9.2f %9.2f", mode, count, idle, load,
+                percentile(latency, 0.5), percentile(latency, 0.99), percentile(latency, 1.0)));
+    }
+
+    private static double percentile(AtomicLongArray histogram, double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += histogram.get(i);
+        }
+        final long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram.get(i);
+            if (seen >= rank && seen > 0) {
+                return (i + 1) * BUCKET_NANOS / 1000000.0;
+            }
+        }
+        return 0;
+    }
+
+    private static long processCpuTime() {
+        java.lang.management.OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) bean).getProcessCpuTime();
+        }
+        return 0;
+    }
+
+    /**
+     * Sends one packet to every channel each 20ms, stamped with the time it was sent.
+     */
+    private static class Sender implements Runnable {
+
+        private final SocketAddress[] addresses;
+        private volatile boolean running = true;
+
+        public Sender(SocketAddress[] addresses) {
+            this.addresses = addresses;
+        }
+
+        public void stop() {
+            this.running = false;
+        }
+
+        @Override
+        public void run() {
+            try {
+                final DatagramChannel channel = DatagramChannel.open();
+                final ByteBuffer buffer = ByteBuffer.allocateDirect(PACKET_SIZE);
+                long next = System.nanoTime();
+                while (running) {
+                    for (int i = 0; i < addresses.length; i++) {
+                        buffer.clear();
+                        buffer.putLong(0, System.nanoTime());
+                        channel.send(buffer, addresses[i]);
+                    }
+                    next += PACKET_INTERVAL;
+                    final long wait = next - System.nanoTime();
+                    if (wait > 0) {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    }
+                }
+                channel.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Channel that records how long its packets took to arrive.
+     */
+    private static class LatencyChannel extends MultiplexedChannel {
+
+        public LatencyChannel(final AtomicLongArray latency) {
+            this.handlers.addHandler(new PacketHandler() {
+
+                @Override
+                public int compareTo(PacketHandler o) {
+                    return 0;
+                }
+
+                @Override
+                public boolean canHandle(byte[] packet) {
+                    return true;
+                }
+
+                @Override
+                public boolean canHandle(byte[] packet, int dataLength, int offset) {
+                    return dataLength >= 8;
+                }
+
+                @Override
+                public byte[] handle(byte[] packet, InetSocketAddress localPeer, InetSocketAddress remotePeer)
+                        throws PacketHandlerException {
+                    return handle(packet, packet.length, 0, localPeer, remotePeer);
+                }
+
+                @Override
+                public byte[] handle(byte[] packet, int dataLength, int offset, InetSocketAddress localPeer,
+                        InetSocketAddress remotePeer) throws PacketHandlerException {
+                    final long sent = ByteBuffer.wrap(packet, offset, dataLength).getLong(offset);
+                    final long bucket = (System.nanoTime() - sent) / BUCKET_NANOS;
+                    latency.incrementAndGet((int) Math.min(bucket, BUCKETS - 1));
+                    return null;
+                }
+
+                @Override
+                public int getPipelinePriority() {
+                    return 0;
+                }
+            });
+        }
+
+        public void attach(SelectionKey key) {
+            this.selectionKey = key;
+            this.dataChannel = (DatagramChannel) key.channel();
+        }
+    }
+
+}
@@ -20,7 +20,9 @@
 
 package org.restcomm.media.core.network.deprecated.channel;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
@@ -35,6 +37,7 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.restcomm.media.core.network.deprecated.channel.MultiplexedChannel;
+import org.restcomm.media.core.spi.memory.Frame;
 
 /**
  * Tests for {@link MultiplexedChannel}
@@ -131,6 +134,37 @@ public class MultiplexedChannelTest {
 		Assert.assertEquals("received "+msg, new String(sentData));
 	}
 	
+	@Test
+	public void testReceiveIntoRetainedFrame() throws IOException {
+		// given
+		final Frame[] retained = new Frame[1];
+		MultiplexedChannel channel = new MultiplexedChannel();
+		PacketHandlerMock handler = new LowPriorityPacketHandlerMock() {
+			@Override
+			public byte[] handle(Frame packet, InetSocketAddress localPeer, InetSocketAddress remotePeer) throws PacketHandlerException {
+				retained[0] = packet.retain();
+				return null;
+			}
+		};
+		channel.handlers.addHandler(handler);
+		channel.setTransport(localChannel);
+		byte[] data = LowPriorityPacketHandlerMock.DATA.getBytes();
+
+		// when
+		remoteChannel.send(ByteBuffer.wrap(data), localChannel.getLocalAddress());
+		channel.receive();
+
+		// then
+		Frame frame = retained[0];
+		assertNotNull(frame);
+		assertEquals(1, frame.refCnt());
+		assertEquals(0, frame.getOffset());
+		assertEquals(data.length, frame.getLength());
+		assertEquals(LowPriorityPacketHandlerMock.DATA, new String(frame.getData(), 0, frame.getLength()));
+		assertFalse(channel.hasPendingData());
+		frame.recycle();
+	}
+
 	/*
 	 * Test Setup
 	 */
@@ -0,0 +1,111 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.network.netty;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+
+public class NettyTransportTest {
+
+    private Bootstrap bootstrap;
+
+    @After
+    public void after() {
+        System.clearProperty(NettyTransport.TRANSPORT_PROPERTY);
+        if (this.bootstrap != null) {
+            this.bootstrap.group().shutdownGracefully(0L, 0L, TimeUnit.MILLISECONDS);
+            this.bootstrap = null;
+        }
+    }
+
+    @Test
+    public void testDefaultTransport() {
+        // given
+        System.clearProperty(NettyTransport.TRANSPORT_PROPERTY);
+
+        // when
+        final NettyTransport transport = NettyTransport.configured();
+
+        // then
+        assertEquals(NettyTransport.NIO, transport);
+    }
+
+    @Test
+    public void testUnknownTransportFallsBackToNio() {
+        // given
+        System.setProperty(NettyTransport.TRANSPORT_PROPERTY, "iouring");
+
+        // when
+        final NettyTransport transport = NettyTransport.configured();
+
+        // then
+        assertEquals(NettyTransport.NIO, transport);
+    }
+
+    @Test
+    public void testAutoTransport() {
+        // given
+        System.setProperty(NettyTransport.TRANSPORT_PROPERTY, "auto");
+
+        // when
+        final NettyTransport transport = NettyTransport.configured();
+
+        // then
+        assertEquals(NettyTransport.isNativeAvailable() ? NettyTransport.EPOLL : NettyTransport.NIO, transport);
+        assertEquals(transport, NettyTransport.EPOLL.orFallback());
+    }
+
+    @Test
+    public void testNativeBootstrapSharesPort() throws Exception {
+        // given
+        this.bootstrap = NettyTransport.EPOLL.bootstrap(1);
+        final InetSocketAddress address = new InetSocketAddress("127.0.0.1", 2427);
+
+        // when
+        final Channel first = this.bootstrap.clone().handler(new ChannelInboundHandlerAdapter()).bind(address).sync().channel();
+        final Channel second = NettyTransport.isNativeAvailable()
+                ? this.bootstrap.clone().handler(new ChannelInboundHandlerAdapter()).bind(address).sync().channel() : null;
+
+        // then
+        if (NettyTransport.isNativeAvailable()) {
+            assertTrue(first instanceof EpollDatagramChannel);
+            assertTrue(second.isActive());
+            second.close().sync();
+        } else {
+            assertTrue(first instanceof NioDatagramChannel);
+        }
+        first.close().sync();
+    }
+
+}
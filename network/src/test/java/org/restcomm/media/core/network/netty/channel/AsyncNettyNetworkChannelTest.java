@@ -267,6 +267,67 @@ public class AsyncNettyNetworkChannelTest {
         assertEquals(message, new String(data));
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBatchedSendConnected() throws Exception {
+        // given
+        final int count = 5;
+        final ByteBuffer dataBuffer = ByteBuffer.allocate(64);
+
+        final SocketAddress localAddress = new InetSocketAddress("127.0.0.1", 2427);
+        final SocketAddress remoteAddress = new InetSocketAddress("127.0.0.1", 2727);
+
+        final ChannelHandler channelHandler = new ObjectChannelHandler();
+        this.eventGroup = new NioEventLoopGroup();
+        final Bootstrap bootstrap = new Bootstrap().group(eventGroup).handler(channelHandler).channel(NioDatagramChannel.class);
+        final NettyNetworkManager networkManager = new NettyNetworkManager(bootstrap);
+        final AsyncNettyNetworkChannel<Object> networkChannel = new AsyncNettyNetworkChannel<>(networkManager);
+        networkChannel.setBatchWrites(true);
+
+        final FutureCallback<Void> openCallback = mock(FutureCallback.class);
+        final FutureCallback<Void> bindCallback = mock(FutureCallback.class);
+        final FutureCallback<Void> connectCallback = mock(FutureCallback.class);
+        final FutureCallback<Void> sendCallback = mock(FutureCallback.class);
+        final FutureCallback<Void> closeCallback = mock(FutureCallback.class);
+
+        // when
+        this.remotePeer = DatagramChannel.open();
+        this.remotePeer.bind(remoteAddress);
+
+        networkChannel.open(openCallback);
+        verify(openCallback, timeout(100)).onSuccess(null);
+
+        networkChannel.bind(localAddress, bindCallback);
+        verify(bindCallback, timeout(100)).onSuccess(null);
+
+        networkChannel.connect(remoteAddress, connectCallback);
+        verify(connectCallback, timeout(100)).onSuccess(null);
+
+        for (int i = 0; i < count; i++) {
+            networkChannel.send(Unpooled.copiedBuffer(("hello" + i).getBytes()), sendCallback);
+        }
+        verify(sendCallback, timeout(100).times(count)).onSuccess(null);
+
+        final String[] received = new String[count];
+        for (int i = 0; i < count; i++) {
+            dataBuffer.clear();
+            this.remotePeer.receive(dataBuffer);
+            dataBuffer.flip();
+            final byte[] data = new byte[dataBuffer.remaining()];
+            dataBuffer.get(data);
+            received[i] = new String(data);
+        }
+
+        this.remotePeer.close();
+        networkChannel.close(closeCallback);
+
+        // then
+        assertTrue(networkChannel.isBatchWrites());
+        for (int i = 0; i < count; i++) {
+            assertEquals("hello" + i, received[i]);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void testReceive() throws Exception {
@@ -0,0 +1,144 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtcp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * RTCP Extended Report (XR) packet.
+ * <p>
+ * Only VoIP Metrics report blocks are interpreted. Blocks of other types are skipped while decoding.
+ * </p>
+ * 
+ * <pre>
+ *  0                   1                   2                   3
+ *  0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |V=2|P|reserved |   PT=XR=207   |             length            |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |                              SSRC                             |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * :                         report blocks                         :
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * </pre>
+ * 
+ * @see <a href="https://tools.ietf.org/html/rfc3611">RFC 3611 - RTP Control Protocol Extended Reports</a>
+ */
+public class RtcpExtendedReport extends RtcpHeader {
+
+    private long ssrc;
+    private final List<RtcpVoipMetrics> voipMetrics;
+
+    protected RtcpExtendedReport() {
+        this.voipMetrics = new ArrayList<>(1);
+    }
+
+    public RtcpExtendedReport(boolean padding, long ssrc) {
+        super(padding, RtcpHeader.RTCP_XR);
+        this.ssrc = ssrc;
+        this.voipMetrics = new ArrayList<>(1);
+    }
+
+    @Override
+    protected int decode(byte[] rawData, int offSet) {
+        int startPosition = offSet;
+        offSet = super.decode(rawData, offSet);
+        int endPosition = Math.min(startPosition + this.length, rawData.length);
+
+        this.ssrc |= rawData[offSet++] & 0xFF;
+        this.ssrc <<= 8;
+        this.ssrc |= rawData[offSet++] & 0xFF;
+        this.ssrc <<= 8;
+        this.ssrc |= rawData[offSet++] & 0xFF;
+        this.ssrc <<= 8;
+        this.ssrc |= rawData[offSet++] & 0xFF;
+
+        while (offSet + 4 <= endPosition) {
+            int blockType = rawData[offSet] & 0xFF;
+            int blockLength = (((rawData[offSet + 2] & 0xFF) << 8) | (rawData[offSet + 3] & 0xFF)) * 4;
+            int next = offSet + 4 + blockLength;
+            if (next > endPosition) {
+                break;
+            }
+
+            if (blockType == RtcpVoipMetrics.BLOCK_TYPE && blockLength + 4 == RtcpVoipMetrics.SIZE) {
+                RtcpVoipMetrics metrics = new RtcpVoipMetrics();
+                metrics.decode(rawData, offSet + 4);
+                this.voipMetrics.add(metrics);
+            }
+            offSet = next;
+        }
+        return endPosition;
+    }
+
+    @Override
+    protected int encode(byte[] rawData, int offSet) {
+        int startPosition = offSet;
+        offSet = super.encode(rawData, offSet);
+
+        rawData[offSet++] = ((byte) ((this.ssrc & 0xFF000000) >> 24));
+        rawData[offSet++] = ((byte) ((this.ssrc & 0x00FF0000) >> 16));
+        rawData[offSet++] = ((byte) ((this.ssrc & 0x0000FF00) >> 8));
+        rawData[offSet++] = ((byte) ((this.ssrc & 0x000000FF)));
+
+        for (RtcpVoipMetrics metrics : this.voipMetrics) {
+            offSet = metrics.encode(rawData, offSet);
+        }
+
+        /* Reduce 4 octets of header and length is in terms 32bits word */
+        this.length = (offSet - startPosition - 4) / 4;
+
+        rawData[startPosition + 2] = ((byte) ((this.length & 0xFF00) >> 8));
+        rawData[startPosition + 3] = ((byte) (this.length & 0x00FF));
+
+        return offSet;
+    }
+
+    public long getSsrc() {
+        return ssrc;
+    }
+
+    public void addVoipMetrics(RtcpVoipMetrics metrics) {
+        this.voipMetrics.add(metrics);
+    }
+
+    public List<RtcpVoipMetrics> getVoipMetrics() {
+        return Collections.unmodifiableList(this.voipMetrics);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("XR:\n");
+        builder.append("version= ").append(this.version).append(", ");
+        builder.append("padding= ").append(this.padding).append(", ");
+        builder.append("packet type=").append(this.packetType).append(", ");
+        builder.append("length=").append(this.length).append(", ");
+        builder.append("ssrc=").append(this.ssrc).append("\n");
+        for (RtcpVoipMetrics metrics : this.voipMetrics) {
+            builder.append(metrics.toString());
+        }
+        return builder.toString();
+    }
+
+}
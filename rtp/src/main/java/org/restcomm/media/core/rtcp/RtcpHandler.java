@@ -24,7 +24,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
-import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -34,8 +34,13 @@ import org.restcomm.media.core.network.deprecated.channel.PacketHandler;
 import org.restcomm.media.core.network.deprecated.channel.PacketHandlerException;
 import org.restcomm.media.core.rtp.RtpPacket;
 import org.restcomm.media.core.rtp.secure.DtlsHandler;
+import org.restcomm.media.core.rtp.statistics.CallQualityReport;
+import org.restcomm.media.core.rtp.statistics.CallQualitySink;
+import org.restcomm.media.core.rtp.statistics.RtpMember;
 import org.restcomm.media.core.rtp.statistics.RtpStatistics;
 import org.restcomm.media.core.scheduler.Scheduler;
+import org.restcomm.media.core.scheduler.TimingWheel;
+import org.restcomm.media.core.scheduler.WheelTimer;
 
 /**
  * 
@@ -49,6 +54,9 @@ public class RtcpHandler implements PacketHandler {
     /** Time (in ms) between SSRC Task executions */
     private static final long SSRC_TASK_DELAY = 7000;
 
+    /** Sink given to every new handler */
+    private static volatile CallQualitySink defaultQualitySink;
+
     /* Core elements */
     private DatagramChannel channel;
     private ByteBuffer byteBuffer;
@@ -56,10 +64,12 @@ public class RtcpHandler implements PacketHandler {
     
     /* Scheduler */
     private final Scheduler scheduler;
+    private final TxTask reportTask;
+    private final TxTask byeTask;
     private TxTask scheduledTask;
-    private Future<?> reportTaskFuture;
+    private WheelTimer reportTimer;
     private final SsrcTask ssrcTask;
-    private Future<?> ssrcTaskFuture;
+    private WheelTimer ssrcTimer;
 
     /* RTCP elements */
     private final RtpStatistics statistics;
@@ -82,9 +92,14 @@ public class RtcpHandler implements PacketHandler {
     /** Handles the DTLS handshake and encodes/decodes secured packets. For WebRTC calls only. */
     private DtlsHandler dtlsHandler;
 
+    /* Call quality */
+    private volatile CallQualitySink qualitySink;
+
     public RtcpHandler(final Scheduler scheduler, final RtpStatistics statistics) {
         // Scheduler
         this.scheduler = scheduler;
+        this.reportTask = new TxTask(RtcpPacketType.RTCP_REPORT);
+        this.byeTask = new TxTask(RtcpPacketType.RTCP_BYE);
         this.ssrcTask = new SsrcTask();
 
         // core stuff
@@ -102,6 +117,39 @@ public class RtcpHandler implements PacketHandler {
         // webrtc
         this.secure = false;
         this.dtlsHandler = null;
+
+        // call quality
+        this.qualitySink = defaultQualitySink;
+    }
+
+    /**
+     * Sets the sink given to handlers created from now on.
+     * 
+     * @param sink The call quality sink. Use null to stop exporting call quality.
+     */
+    public static void setDefaultQualitySink(CallQualitySink sink) {
+        defaultQualitySink = sink;
+    }
+
+    public static CallQualitySink getDefaultQualitySink() {
+        return defaultQualitySink;
+    }
+
+    public CallQualitySink getQualitySink() {
+        return qualitySink;
+    }
+
+    /**
+     * Sets the sink that receives the quality summaries of this RTP session.
+     * <p>
+     * A local summary is pushed for every received stream each time a report is sent, and a remote summary for every VoIP
+     * Metrics block received from the peer.
+     * </p>
+     * 
+     * @param qualitySink The call quality sink. May be null.
+     */
+    public void setQualitySink(CallQualitySink qualitySink) {
+        this.qualitySink = qualitySink;
     }
 
     @Override
@@ -160,13 +208,24 @@ public class RtcpHandler implements PacketHandler {
      */
     public void joinRtpSession() {
         if (!this.joined.get()) {
+            // Timers are created once and re-armed for every report
+            if (this.reportTimer == null) {
+                TimingWheel timingWheel = this.scheduler.getTimingWheel();
+                this.reportTimer = timingWheel.newTimer(this.reportTask);
+                this.ssrcTimer = timingWheel.newTimer(this.ssrcTask);
+            }
+
             // Schedule first RTCP packet
             long t = this.statistics.rtcpInterval(this.initial.get());
             this.tn = this.statistics.getCurrentTime() + t;
-            scheduleRtcp(this.tn, RtcpPacketType.RTCP_REPORT);
+            scheduleRtcp(this.tn);
 
             // Start SSRC timeout timer
-            this.ssrcTaskFuture = this.scheduler.scheduleWithFixedDelay(ssrcTask, SSRC_TASK_DELAY, SSRC_TASK_DELAY, TimeUnit.MILLISECONDS);
+            try {
+                this.ssrcTimer.schedule(SSRC_TASK_DELAY, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.warn("RTCP timer already canceled. SSRC timeouts will not be checked.");
+            }
             this.joined.set(true);
         }
     }
@@ -193,14 +252,13 @@ public class RtcpHandler implements PacketHandler {
             // this.scheduleRtcp(this.tn, RtcpPacketType.RTCP_BYE);
 
             // cancel scheduled task and schedule BYE now
-            if(this.reportTaskFuture != null) {
-                this.reportTaskFuture.cancel(true);
-            }
+            this.reportTimer.cancel();
+            this.ssrcTimer.cancel();
             
             // Send BYE
             // Do not run in separate thread so channel can be properly closed by the owner of this handler
             this.statistics.setRtcpPacketType(RtcpPacketType.RTCP_BYE);
-            this.scheduledTask = new TxTask(RtcpPacketType.RTCP_BYE);
+            this.scheduledTask = this.byeTask;
             this.scheduledTask.run();
         }
     }
@@ -217,50 +275,33 @@ public class RtcpHandler implements PacketHandler {
     }
 
     /**
-     * Schedules an event to occur at a certain time.
+     * Schedules the next RTCP report.
      * 
-     * @param timestamp The time (in milliseconds) when the event should be fired
-     * @param packet The RTCP packet to be sent when the timer expires
+     * @param timestamp The time (in milliseconds) when the report should be sent
      */
-    private void scheduleRtcp(long timestamp, RtcpPacketType packetType) {
-        // Create the task and schedule it
+    private void scheduleRtcp(long timestamp) {
         long interval = resolveInterval(timestamp);
-        this.scheduledTask = new TxTask(packetType);
-
-        try {
-            this.reportTaskFuture = this.scheduler.schedule(this.scheduledTask, interval, TimeUnit.MILLISECONDS);
-            // Let the RTP handler know what is the type of scheduled packet
-            this.statistics.setRtcpPacketType(packetType);
-        } catch (IllegalStateException e) {
-            logger.warn("RTCP timer already canceled. No more reports will be scheduled.");
-        }
-    }
+        this.scheduledTask = this.reportTask;
 
-    private void scheduleNow(RtcpPacketType packetType) {
-        this.scheduledTask = new TxTask(packetType);
         try {
-            this.reportTaskFuture = this.scheduler.submit(this.scheduledTask);
+            this.reportTimer.schedule(interval, TimeUnit.MILLISECONDS);
             // Let the RTP handler know what is the type of scheduled packet
-            this.statistics.setRtcpPacketType(packetType);
-        } catch (IllegalStateException e) {
+            this.statistics.setRtcpPacketType(RtcpPacketType.RTCP_REPORT);
+        } catch (RejectedExecutionException e) {
             logger.warn("RTCP timer already canceled. No more reports will be scheduled.");
         }
     }
 
     /**
-     * Re-schedules a previously scheduled event.
+     * Re-schedules the next RTCP report. The pending report timer is moved, not canceled and re-created.
      * 
      * @param timestamp The time stamp (in milliseconds) of the rescheduled event
      */
-    private void rescheduleRtcp(TxTask task, long timestamp) {
-        // Cancel current execution of the task
-        this.reportTaskFuture.cancel(true);
-        
-        // Re-schedule task execution
+    private void rescheduleRtcp(long timestamp) {
         long interval = resolveInterval(timestamp);
         try {
-            this.reportTaskFuture = this.scheduler.schedule(task, interval, TimeUnit.MILLISECONDS);
-        } catch (IllegalStateException e) {
+            this.reportTimer.schedule(interval, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
             logger.warn("RTCP timer already canceled. Scheduled report was canceled and cannot be re-scheduled.");
         }
     }
@@ -369,6 +410,16 @@ public class RtcpHandler implements PacketHandler {
         // Upgrade RTCP statistics
         this.statistics.onRtcpReceive(rtcpPacket);
 
+        // Export the quality measured by the remote peer
+        final CallQualitySink sink = this.qualitySink;
+        final RtcpExtendedReport extendedReport = rtcpPacket.getExtendedReport();
+        if (sink != null && extendedReport != null) {
+            long now = this.statistics.getCurrentTime();
+            for (RtcpVoipMetrics metrics : extendedReport.getVoipMetrics()) {
+                publishQuality(sink, new CallQualityReport(this.statistics.getCname(), true, now, metrics));
+            }
+        }
+
         if (RtcpPacketType.RTCP_BYE.equals(rtcpPacket.getPacketType())) {
             if (RtcpPacketType.RTCP_REPORT.equals(this.scheduledTask.getPacketType())) {
                 /*
@@ -382,7 +433,7 @@ public class RtcpHandler implements PacketHandler {
                     this.tp = tc - (this.statistics.getMembers() / this.statistics.getPmembers()) * (tc - this.tp);
 
                     // Reschedule the next report for time tn
-                    rescheduleRtcp(this.scheduledTask, this.tn);
+                    rescheduleRtcp(this.tn);
                     this.statistics.confirmMembers();
                 }
             }
@@ -451,21 +502,54 @@ public class RtcpHandler implements PacketHandler {
         }
     }
 
+    /**
+     * Pushes the quality of the streams received in this session to the quality sink, if any.
+     * 
+     * @param packet The RTCP packet that was just sent. Its VoIP Metrics are reused when present.
+     */
+    private void exportQuality(RtcpPacket packet) {
+        final CallQualitySink sink = this.qualitySink;
+        if (sink == null) {
+            return;
+        }
+
+        final String cname = this.statistics.getCname();
+        final long now = this.statistics.getCurrentTime();
+        final RtcpExtendedReport extendedReport = packet.getExtendedReport();
+        if (extendedReport != null) {
+            for (RtcpVoipMetrics metrics : extendedReport.getVoipMetrics()) {
+                publishQuality(sink, new CallQualityReport(cname, false, now, metrics));
+            }
+        } else {
+            final long ssrc = this.statistics.getSsrc();
+            for (long memberSsrc : this.statistics.getMemberSsrcs()) {
+                RtpMember member = this.statistics.getMember(memberSsrc);
+                if (memberSsrc != ssrc && member != null) {
+                    RtcpVoipMetrics metrics = member.getVoipMetrics(this.statistics.getJitterBuffer());
+                    publishQuality(sink, new CallQualityReport(cname, false, now, metrics));
+                }
+            }
+        }
+    }
+
+    private void publishQuality(CallQualitySink sink, CallQualityReport report) {
+        try {
+            sink.onQualityReport(report);
+        } catch (RuntimeException e) {
+            logger.warn("Call quality sink failed to handle " + report, e);
+        }
+    }
+
     public synchronized void reset() {
         if (joined.get()) {
             throw new IllegalStateException("Cannot reset handler while is part of active RTP session.");
         }
 
-        if (this.reportTaskFuture != null) {
-            this.reportTaskFuture.cancel(false);
-            this.reportTaskFuture = null;
-            this.scheduledTask = null;
-        }
-
-        if (this.ssrcTaskFuture != null) {
-            this.ssrcTaskFuture.cancel(false);
-            this.ssrcTaskFuture = null;
+        if (this.reportTimer != null) {
+            this.reportTimer.cancel();
+            this.ssrcTimer.cancel();
         }
+        this.scheduledTask = null;
 
         this.tp = 0;
         this.tn = -1;
@@ -556,6 +640,7 @@ public class RtcpHandler implements PacketHandler {
                             // Send currently scheduled packet and update statistics
                             RtcpPacket report = RtcpPacketFactory.buildReport(statistics);
                             sendRtcpPacket(report);
+                            exportQuality(report);
 
                             tp = tc;
 
@@ -569,7 +654,7 @@ public class RtcpHandler implements PacketHandler {
                         }
 
                         // schedule next packet (only if still in RTP session)
-                        scheduleRtcp(tn, RtcpPacketType.RTCP_REPORT);
+                        scheduleRtcp(tn);
                         statistics.confirmMembers();
                     }
                     break;
@@ -592,6 +677,7 @@ public class RtcpHandler implements PacketHandler {
 
                     // Send the BYE and close channel
                     sendRtcpPacket(bye);
+                    exportQuality(bye);
                     break;
 
                 default:
@@ -610,6 +696,15 @@ public class RtcpHandler implements PacketHandler {
         @Override
         public void run() {
             statistics.isSenderTimeout();
+
+            // the timer is re-armed after each check to keep a fixed delay between them
+            if (joined.get()) {
+                try {
+                    ssrcTimer.schedule(SSRC_TASK_DELAY, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    logger.warn("RTCP timer already canceled. SSRC timeouts will not be checked.");
+                }
+            }
         }
 
     }
@@ -37,6 +37,7 @@ public abstract class RtcpHeader {
 	public static final int RTCP_SDES = 202;
 	public static final int RTCP_BYE = 203;
 	public static final int RTCP_APP = 204;
+	public static final int RTCP_XR = 207;
 
 	/**
 	 * protocol version
@@ -48,6 +48,7 @@ public class RtcpPacket implements Serializable {
 	private RtcpSdes sdes = null;
 	private RtcpBye bye = null;
 	private RtcpAppDefined appDefined = null;
+	private RtcpExtendedReport extendedReport = null;
 	
 	private int packetCount = 0;
 	private int size = 0;
@@ -108,6 +109,12 @@ public class RtcpPacket implements Serializable {
 				offSet = this.appDefined.decode(rawData, offSet);
 				this.size += this.appDefined.length;
 				break;
+			case RtcpHeader.RTCP_XR:
+				packetCount++;
+				this.extendedReport = new RtcpExtendedReport();
+				offSet = this.extendedReport.decode(rawData, offSet);
+				this.size += this.extendedReport.length;
+				break;
 			case RtcpHeader.RTCP_BYE:
 				packetCount++;
 				this.bye = new RtcpBye();
@@ -141,6 +148,10 @@ public class RtcpPacket implements Serializable {
 			packetCount++;
 			offSet = this.appDefined.encode(rawData, offSet);
 		}
+		if (this.extendedReport != null) {
+			packetCount++;
+			offSet = this.extendedReport.encode(rawData, offSet);
+		}
 		if (this.bye != null) {
 			packetCount++;
 			offSet = this.bye.encode(rawData, offSet);
@@ -191,6 +202,14 @@ public class RtcpPacket implements Serializable {
 		return appDefined;
 	}
 
+	public RtcpExtendedReport getExtendedReport() {
+		return extendedReport;
+	}
+
+	public void setExtendedReport(RtcpExtendedReport extendedReport) {
+		this.extendedReport = extendedReport;
+	}
+
 	public int getPacketCount() {
 		return packetCount;
 	}
@@ -212,6 +231,10 @@ public class RtcpPacket implements Serializable {
 		if(this.sdes != null) {
 			builder.append(this.sdes.toString());
 		}
+		// Print XR if exists
+		if(this.extendedReport != null) {
+			builder.append(this.extendedReport.toString());
+		}
 		// Print BYE if exists
 		if(this.bye != null) {
 			builder.append(bye.toString());
@@ -21,7 +21,6 @@
 package org.restcomm.media.core.rtcp;
 
 import java.util.Date;
-import java.util.List;
 
 import org.apache.commons.net.ntp.TimeStamp;
 import org.apache.logging.log4j.LogManager;
@@ -39,6 +38,11 @@ public class RtcpPacketFactory {
 	
 	public static final Logger logger = LogManager.getLogger(RtcpPacketFactory.class);
 
+	/** System property that enables RTCP XR VoIP Metrics in the reports sent by the server */
+	public static final String XR_ENABLED_PROPERTY = "restcomm.media.rtcp.xr-enabled";
+
+	private static final boolean XR_ENABLED = Boolean.getBoolean(XR_ENABLED_PROPERTY);
+
 	/**
 	 * Builds a packet containing an RTCP Sender Report.
 	 * 
@@ -97,12 +101,13 @@ public class RtcpPacketFactory {
 		RtcpSenderReport senderReport = new RtcpSenderReport(padding, ssrc, ntpSec, ntpFrac, rtpTs, psent, osent);
 		
 		// Add receiver reports for each registered member
-		List<Long> members = statistics.getMembersList();
-		for (Long memberSsrc : members) {
+		for (long memberSsrc : statistics.getMemberSsrcs()) {
 			if (ssrc != memberSsrc) {
-				RtpMember memberStats = statistics.getMember(memberSsrc.longValue());
-				RtcpReportBlock rcvrReport = buildSubReceiverReport(memberStats);
-				senderReport.addReceiverReport(rcvrReport);
+				RtpMember memberStats = statistics.getMember(memberSsrc);
+				// the member may have left since the snapshot was taken
+				if (memberStats != null) {
+					senderReport.addReceiverReport(memberStats.getReportBlock());
+				}
 			}
 		}
 		return senderReport;
@@ -120,12 +125,13 @@ public class RtcpPacketFactory {
 		long ssrc = statistics.getSsrc();
 		
 		// Add receiver reports for each registered member
-		List<Long> members = statistics.getMembersList();
-		for (Long memberSsrc : members) {
+		for (long memberSsrc : statistics.getMemberSsrcs()) {
 			if (ssrc != memberSsrc) {
-				RtpMember memberStats = statistics.getMember(memberSsrc.longValue());
-				RtcpReportBlock rcvrReport = buildSubReceiverReport(memberStats);
-				report.addReceiverReport(rcvrReport);
+				RtpMember memberStats = statistics.getMember(memberSsrc);
+				// the member may have left since the snapshot was taken
+				if (memberStats != null) {
+					report.addReceiverReport(memberStats.getReportBlock());
+				}
 			}
 		}
 		return report;
@@ -143,19 +149,32 @@ public class RtcpPacketFactory {
 		return sdes;
 	}
 	
-	private static RtcpReportBlock buildSubReceiverReport(RtpMember statistics) {
+	/**
+	 * Builds an RTCP Extended Report with a VoIP Metrics block for each registered member.
+	 * 
+	 * @param statistics
+	 *            The statistics of the RTP session
+	 * @return The extended report, or null if no member has been heard
+	 */
+	private static RtcpExtendedReport buildExtendedReport(RtpStatistics statistics, boolean padding) {
+		RtcpExtendedReport report = null;
 		long ssrc = statistics.getSsrc();
-		int fraction = (int) statistics.getFractionLost();
-		int lost = (int) statistics.getPacketsLost();
-		int seqNumCycle = statistics.getSequenceCycle();
-		long lastSeq = statistics.getExtHighSequence();
-		int jitter = (int) statistics.getJitter();
-		long lsr = statistics.getLastSR();
-		long dlsr = statistics.getLastSRdelay();
 		
-		return new RtcpReportBlock(ssrc, fraction, lost, seqNumCycle, lastSeq, jitter, lsr, dlsr);
+		for (long memberSsrc : statistics.getMemberSsrcs()) {
+			if (ssrc != memberSsrc) {
+				RtpMember memberStats = statistics.getMember(memberSsrc);
+				// the member may have left since the snapshot was taken
+				if (memberStats != null) {
+					if (report == null) {
+						report = new RtcpExtendedReport(padding, ssrc);
+					}
+					report.addVoipMetrics(memberStats.getVoipMetrics(statistics.getJitterBuffer()));
+				}
+			}
+		}
+		return report;
 	}
-
+	
 	/**
 	 * Builds a packet containing an RTCP Report.
 	 * 
@@ -190,6 +209,20 @@ public class RtcpPacketFactory {
 	 * @return The RTCP packet containing the RTCP Report (SS or RR).
 	 */
 	public static RtcpPacket buildReport(RtpStatistics statistics) {
+		return buildReport(statistics, XR_ENABLED);
+	}
+
+	/**
+	 * Builds a packet containing an RTCP Report.
+	 * 
+	 * @param statistics
+	 *            The statistics of the RTP session
+	 * @param extendedReport
+	 *            Whether an RTCP XR with VoIP Metrics should be appended to the report
+	 * @return The RTCP packet containing the RTCP Report (SS or RR).
+	 * @see #buildReport(RtpStatistics)
+	 */
+	public static RtcpPacket buildReport(RtpStatistics statistics, boolean extendedReport) {
 		// TODO Validate padding
 		boolean padding = false;
 		
@@ -205,7 +238,11 @@ public class RtcpPacketFactory {
 		RtcpSdes sdes = buildSdes(statistics, padding);
 		
 		// Build the compound packet
-		return new RtcpPacket(report, sdes);
+		RtcpPacket packet = new RtcpPacket(report, sdes);
+		if (extendedReport) {
+			packet.setExtendedReport(buildExtendedReport(statistics, padding));
+		}
+		return packet;
 	}
 
 	/**
@@ -216,6 +253,19 @@ public class RtcpPacketFactory {
 	 * @return The RTCP packet
 	 */
 	public static RtcpPacket buildBye(RtpStatistics statistics) {
+		return buildBye(statistics, XR_ENABLED);
+	}
+
+	/**
+	 * Builds a packet containing an RTCP BYE message.
+	 * 
+	 * @param statistics
+	 *            The statistics of the RTP session
+	 * @param extendedReport
+	 *            Whether an RTCP XR with the final VoIP Metrics should be sent along with the BYE
+	 * @return The RTCP packet
+	 */
+	public static RtcpPacket buildBye(RtpStatistics statistics, boolean extendedReport) {
 		// TODO Validate padding
 		boolean padding = false;
 		
@@ -235,7 +285,11 @@ public class RtcpPacketFactory {
 		bye.addSsrc(statistics.getSsrc());
 		
 		// Build the compound packet
-		return new RtcpPacket(report, sdes, bye);
+		RtcpPacket packet = new RtcpPacket(report, sdes, bye);
+		if (extendedReport) {
+			packet.setExtendedReport(buildExtendedReport(statistics, padding));
+		}
+		return packet;
 	}
 	
 	public static RtcpPacket buildPacket(RtcpPacketType packetType, RtpStatistics statistics) {
@@ -0,0 +1,431 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtcp;
+
+/**
+ * VoIP Metrics report block of an RTCP Extended Report.
+ * <p>
+ * Describes the quality of the stream received from one source: loss and discard rates, the burst/gap loss pattern,
+ * delays, the jitter buffer and call quality estimates.
+ * </p>
+ * 
+ * <pre>
+ *  0                   1                   2                   3
+ *  0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |     BT=7      |   reserved    |       block length = 8        |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |                        SSRC of source                         |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |   loss rate   | discard rate  | burst density |  gap density  |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |       burst duration          |         gap duration          |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |     round trip delay          |       end system delay        |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * | signal level  |  noise level  |     RERL      |     Gmin      |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |   R factor    | ext. R factor |    MOS-LQ     |    MOS-CQ     |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |   RX config   |   reserved    |          JB nominal           |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |          JB maximum           |          JB abs max           |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * </pre>
+ * 
+ * @see <a href="https://tools.ietf.org/html/rfc3611#section-4.7">RFC 3611 - 4.7 VoIP Metrics Report Block</a>
+ */
+public class RtcpVoipMetrics {
+
+    public static final int BLOCK_TYPE = 7;
+
+    /** Size of the block, in octets */
+    public static final int SIZE = 36;
+
+    /** Value of the 8-bit level, R factor and MOS fields when the metric is not available */
+    public static final int UNAVAILABLE = 127;
+
+    /** Jitter buffer adaptive field of the receiver configuration */
+    public static final int JB_NON_ADAPTIVE = 2;
+    public static final int JB_ADAPTIVE = 3;
+
+    private long ssrc;
+    private int lossRate;
+    private int discardRate;
+    private int burstDensity;
+    private int gapDensity;
+    private int burstDuration;
+    private int gapDuration;
+    private int roundTripDelay;
+    private int endSystemDelay;
+    private int signalLevel = UNAVAILABLE;
+    private int noiseLevel = UNAVAILABLE;
+    private int rerl = UNAVAILABLE;
+    private int gmin;
+    private int rFactor = UNAVAILABLE;
+    private int extRFactor = UNAVAILABLE;
+    private int mosLq = UNAVAILABLE;
+    private int mosCq = UNAVAILABLE;
+    private int rxConfig;
+    private int jbNominal;
+    private int jbMaximum;
+    private int jbAbsMax;
+
+    protected RtcpVoipMetrics() {
+
+    }
+
+    public RtcpVoipMetrics(long ssrc) {
+        this.ssrc = ssrc;
+    }
+
+    protected int decode(byte[] rawData, int offSet) {
+        // block type, reserved and length were read by the extended report
+        this.ssrc = readInt(rawData, offSet) & 0xFFFFFFFFL;
+        offSet += 4;
+
+        this.lossRate = rawData[offSet++] & 0xFF;
+        this.discardRate = rawData[offSet++] & 0xFF;
+        this.burstDensity = rawData[offSet++] & 0xFF;
+        this.gapDensity = rawData[offSet++] & 0xFF;
+        this.burstDuration = readShort(rawData, offSet);
+        this.gapDuration = readShort(rawData, offSet + 2);
+        this.roundTripDelay = readShort(rawData, offSet + 4);
+        this.endSystemDelay = readShort(rawData, offSet + 6);
+        offSet += 8;
+
+        // levels are signed dBm0 values
+        this.signalLevel = rawData[offSet++];
+        this.noiseLevel = rawData[offSet++];
+        this.rerl = rawData[offSet++] & 0xFF;
+        this.gmin = rawData[offSet++] & 0xFF;
+
+        this.rFactor = rawData[offSet++] & 0xFF;
+        this.extRFactor = rawData[offSet++] & 0xFF;
+        this.mosLq = rawData[offSet++] & 0xFF;
+        this.mosCq = rawData[offSet++] & 0xFF;
+
+        this.rxConfig = rawData[offSet++] & 0xFF;
+        offSet++;
+        this.jbNominal = readShort(rawData, offSet);
+        this.jbMaximum = readShort(rawData, offSet + 2);
+        this.jbAbsMax = readShort(rawData, offSet + 4);
+        offSet += 6;
+
+        return offSet;
+    }
+
+    protected int encode(byte[] rawData, int offSet) {
+        rawData[offSet++] = (byte) BLOCK_TYPE;
+        rawData[offSet++] = 0;
+        offSet = writeShort(rawData, offSet, (SIZE / 4) - 1);
+
+        rawData[offSet++] = (byte) ((this.ssrc & 0xFF000000) >> 24);
+        rawData[offSet++] = (byte) ((this.ssrc & 0x00FF0000) >> 16);
+        rawData[offSet++] = (byte) ((this.ssrc & 0x0000FF00) >> 8);
+        rawData[offSet++] = (byte) (this.ssrc & 0x000000FF);
+
+        rawData[offSet++] = (byte) this.lossRate;
+        rawData[offSet++] = (byte) this.discardRate;
+        rawData[offSet++] = (byte) this.burstDensity;
+        rawData[offSet++] = (byte) this.gapDensity;
+        offSet = writeShort(rawData, offSet, this.burstDuration);
+        offSet = writeShort(rawData, offSet, this.gapDuration);
+        offSet = writeShort(rawData, offSet, this.roundTripDelay);
+        offSet = writeShort(rawData, offSet, this.endSystemDelay);
+
+        rawData[offSet++] = (byte) this.signalLevel;
+        rawData[offSet++] = (byte) this.noiseLevel;
+        rawData[offSet++] = (byte) this.rerl;
+        rawData[offSet++] = (byte) this.gmin;
+
+        rawData[offSet++] = (byte) this.rFactor;
+        rawData[offSet++] = (byte) this.extRFactor;
+        rawData[offSet++] = (byte) this.mosLq;
+        rawData[offSet++] = (byte) this.mosCq;
+
+        rawData[offSet++] = (byte) this.rxConfig;
+        rawData[offSet++] = 0;
+        offSet = writeShort(rawData, offSet, this.jbNominal);
+        offSet = writeShort(rawData, offSet, this.jbMaximum);
+        offSet = writeShort(rawData, offSet, this.jbAbsMax);
+
+        return offSet;
+    }
+
+    private static int readInt(byte[] rawData, int offSet) {
+        return ((rawData[offSet] & 0xFF) << 24) | ((rawData[offSet + 1] & 0xFF) << 16) | ((rawData[offSet + 2] & 0xFF) << 8)
+                | (rawData[offSet + 3] & 0xFF);
+    }
+
+    private static int readShort(byte[] rawData, int offSet) {
+        return ((rawData[offSet] & 0xFF) << 8) | (rawData[offSet + 1] & 0xFF);
+    }
+
+    private static int writeShort(byte[] rawData, int offSet, int value) {
+        rawData[offSet++] = (byte) ((value & 0xFF00) >> 8);
+        rawData[offSet++] = (byte) (value & 0x00FF);
+        return offSet;
+    }
+
+    private static int toByte(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    private static int toShort(int value) {
+        return Math.max(0, Math.min(0xFFFF, value));
+    }
+
+    public long getSsrc() {
+        return ssrc;
+    }
+
+    /**
+     * Gets the fraction of packets lost since the beginning of reception.
+     * 
+     * @return the fraction, in units of 1/256
+     */
+    public int getLossRate() {
+        return lossRate;
+    }
+
+    public void setLossRate(int lossRate) {
+        this.lossRate = toByte(lossRate);
+    }
+
+    /**
+     * Gets the fraction of packets discarded by the jitter buffer since the beginning of reception.
+     * 
+     * @return the fraction, in units of 1/256
+     */
+    public int getDiscardRate() {
+        return discardRate;
+    }
+
+    public void setDiscardRate(int discardRate) {
+        this.discardRate = toByte(discardRate);
+    }
+
+    /**
+     * Gets the fraction of packets lost or discarded within bursts.
+     * 
+     * @return the fraction, in units of 1/256
+     */
+    public int getBurstDensity() {
+        return burstDensity;
+    }
+
+    public void setBurstDensity(int burstDensity) {
+        this.burstDensity = toByte(burstDensity);
+    }
+
+    /**
+     * Gets the fraction of packets lost or discarded within gaps between bursts.
+     * 
+     * @return the fraction, in units of 1/256
+     */
+    public int getGapDensity() {
+        return gapDensity;
+    }
+
+    public void setGapDensity(int gapDensity) {
+        this.gapDensity = toByte(gapDensity);
+    }
+
+    /**
+     * Gets the mean duration of the bursts.
+     * 
+     * @return the duration, in milliseconds
+     */
+    public int getBurstDuration() {
+        return burstDuration;
+    }
+
+    public void setBurstDuration(int burstDuration) {
+        this.burstDuration = toShort(burstDuration);
+    }
+
+    /**
+     * Gets the mean duration of the gaps between bursts.
+     * 
+     * @return the duration, in milliseconds
+     */
+    public int getGapDuration() {
+        return gapDuration;
+    }
+
+    public void setGapDuration(int gapDuration) {
+        this.gapDuration = toShort(gapDuration);
+    }
+
+    /**
+     * Gets the most recent round trip delay between RTP interfaces.
+     * 
+     * @return the delay, in milliseconds
+     */
+    public int getRoundTripDelay() {
+        return roundTripDelay;
+    }
+
+    public void setRoundTripDelay(int roundTripDelay) {
+        this.roundTripDelay = toShort(roundTripDelay);
+    }
+
+    /**
+     * Gets the delay added by the receiving end system: jitter buffer and packetization.
+     * 
+     * @return the delay, in milliseconds
+     */
+    public int getEndSystemDelay() {
+        return endSystemDelay;
+    }
+
+    public void setEndSystemDelay(int endSystemDelay) {
+        this.endSystemDelay = toShort(endSystemDelay);
+    }
+
+    public int getSignalLevel() {
+        return signalLevel;
+    }
+
+    public int getNoiseLevel() {
+        return noiseLevel;
+    }
+
+    public int getRerl() {
+        return rerl;
+    }
+
+    /**
+     * Gets the gap threshold: the number of received packets needed to end a burst.
+     * 
+     * @return the threshold, in packets
+     */
+    public int getGmin() {
+        return gmin;
+    }
+
+    public void setGmin(int gmin) {
+        this.gmin = toByte(gmin);
+    }
+
+    /**
+     * Gets the conversational R factor (ITU-T G.107).
+     * 
+     * @return the R factor from 0 to 100, or {@link #UNAVAILABLE}
+     */
+    public int getRFactor() {
+        return rFactor;
+    }
+
+    public void setRFactor(int rFactor) {
+        this.rFactor = toByte(rFactor);
+    }
+
+    public int getExtRFactor() {
+        return extRFactor;
+    }
+
+    /**
+     * Gets the estimated listening quality, which ignores delay.
+     * 
+     * @return the MOS multiplied by 10, from 10 to 50, or {@link #UNAVAILABLE}
+     */
+    public int getMosLq() {
+        return mosLq;
+    }
+
+    public void setMosLq(int mosLq) {
+        this.mosLq = toByte(mosLq);
+    }
+
+    /**
+     * Gets the estimated conversational quality, which accounts for delay.
+     * 
+     * @return the MOS multiplied by 10, from 10 to 50, or {@link #UNAVAILABLE}
+     */
+    public int getMosCq() {
+        return mosCq;
+    }
+
+    public void setMosCq(int mosCq) {
+        this.mosCq = toByte(mosCq);
+    }
+
+    public int getRxConfig() {
+        return rxConfig;
+    }
+
+    /**
+     * Tells whether the receiver uses an adaptive jitter buffer.
+     * 
+     * @return <code>true</code> if the jitter buffer is adaptive
+     */
+    public boolean isJitterBufferAdaptive() {
+        return ((rxConfig >> 4) & 0x03) == JB_ADAPTIVE;
+    }
+
+    public void setJitterBufferAdaptive(boolean adaptive) {
+        this.rxConfig = (this.rxConfig & ~0x30) | ((adaptive ? JB_ADAPTIVE : JB_NON_ADAPTIVE) << 4);
+    }
+
+    public int getJbNominal() {
+        return jbNominal;
+    }
+
+    public void setJbNominal(int jbNominal) {
+        this.jbNominal = toShort(jbNominal);
+    }
+
+    public int getJbMaximum() {
+        return jbMaximum;
+    }
+
+    public void setJbMaximum(int jbMaximum) {
+        this.jbMaximum = toShort(jbMaximum);
+    }
+
+    public int getJbAbsMax() {
+        return jbAbsMax;
+    }
+
+    public void setJbAbsMax(int jbAbsMax) {
+        this.jbAbsMax = toShort(jbAbsMax);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("VOIP METRICS: \n");
+        builder.append("ssrc=").append(this.ssrc).append(", ");
+        builder.append("loss rate=").append(this.lossRate).append(", ");
+        builder.append("discard rate=").append(this.discardRate).append(", ");
+        builder.append("burst density=").append(this.burstDensity).append(", ");
+        builder.append("gap density=").append(this.gapDensity).append(", ");
+        builder.append("round trip delay=").append(this.roundTripDelay).append(", ");
+        builder.append("end system delay=").append(this.endSystemDelay).append(", ");
+        builder.append("R factor=").append(this.rFactor).append(", ");
+        builder.append("MOS-LQ=").append(this.mosLq).append(", ");
+        builder.append("MOS-CQ=").append(this.mosCq).append("\n");
+        return builder.toString();
+    }
+
+}
@@ -29,6 +29,7 @@ import org.restcomm.media.core.network.deprecated.UdpManager;
 import org.restcomm.media.core.rtcp.RtcpChannel;
 import org.restcomm.media.core.rtp.channels.AudioChannel;
 import org.restcomm.media.core.rtp.crypto.DtlsSrtpServerProvider;
+import org.restcomm.media.core.rtp.jitter.JitterBufferType;
 import org.restcomm.media.core.rtp.statistics.RtpStatistics;
 import org.restcomm.media.core.scheduler.Clock;
 import org.restcomm.media.core.scheduler.PriorityQueueScheduler;
@@ -54,6 +55,9 @@ public class ChannelsManager {
     
     private int jitterBufferSize=50;
     
+    public static final String JITTER_BUFFER_PROPERTY = "restcomm.media.rtp.jitter-buffer";
+    private JitterBufferType jitterBufferType = JitterBufferType.fromName(System.getProperty(JITTER_BUFFER_PROPERTY), JitterBufferType.FIXED);
+    
     //channel id generator
     private AtomicInteger channelIndex = new AtomicInteger(100);
     
@@ -132,6 +136,19 @@ public class ChannelsManager {
     	this.jitterBufferSize=jitterBufferSize;
     }        
     
+    public JitterBufferType getJitterBufferType() {
+    	return this.jitterBufferType;
+    }
+    
+    /**
+     * Sets the type of jitter buffer new RTP channels are created with.
+     * 
+     * @param jitterBufferType The jitter buffer type
+     */
+    public void setJitterBufferType(JitterBufferType jitterBufferType) {
+    	this.jitterBufferType=jitterBufferType;
+    }
+    
     public UdpManager getUdpManager() {
     	return this.udpManager;
     }    
@@ -142,7 +159,9 @@ public class ChannelsManager {
     }
     
     public RtpChannel getRtpChannel(RtpStatistics statistics, RtpClock clock, RtpClock oobClock) {
-    	return new RtpChannel(channelIndex.incrementAndGet(), jitterBufferSize, statistics, clock, oobClock, scheduler, udpManager, dtlsServerProvider);
+    	RtpChannel channel = new RtpChannel(channelIndex.incrementAndGet(), jitterBufferSize, statistics, clock, oobClock, scheduler, udpManager, dtlsServerProvider);
+    	channel.setJitterBufferType(jitterBufferType);
+    	return channel;
     }
 
     public RtcpChannel getRtcpChannel(RtpStatistics statistics) {
@@ -64,6 +64,8 @@ public class LocalDataChannel {
 		audioComponent = new AudioComponent(channelId);
 		input = new AudioInput(1, packetSize);
 		output = new AudioOutput(channelsManager.getScheduler(), 2);
+		// the other endpoint resamples if its mixer works at another rate
+		output.setSampleRate(AudioOutput.ANY_RATE);
 		audioComponent.addInput(input);
 		audioComponent.addOutput(output);
 
@@ -32,6 +32,7 @@ import org.restcomm.media.core.spi.dsp.Processor;
 import org.restcomm.media.core.spi.format.AudioFormat;
 import org.restcomm.media.core.spi.format.FormatFactory;
 import org.restcomm.media.core.spi.memory.Frame;
+import org.restcomm.media.core.spi.memory.Memory;
 /**
  *
  * @author Oifa Yulian
@@ -71,6 +72,15 @@ public class RTPInput extends AbstractSource implements BufferListener {
         this.connect(input);        
     }
 
+    /**
+     * Replaces the jitter buffer frames are read from.
+     *
+     * @param jitterBuffer the jitter buffer
+     */
+    public void setJitterBuffer(JitterBuffer jitterBuffer) {
+        this.rxBuffer=jitterBuffer;
+    }
+
     public AudioInput getAudioInput()
     {
     	return this.input;
@@ -115,6 +125,11 @@ public class RTPInput extends AbstractSource implements BufferListener {
         	if (dsp != null) {
         		try
         		{
+        			//decode straight to the rate of the mixer, wideband codecs then skip the narrowband hop
+        			int sampleRate=input.getSampleRate();
+        			if(format.getSampleRate()!=sampleRate)
+        				format=FormatFactory.createAudioFormat("LINEAR", sampleRate, 16, 1);
+        			
         			currFrame = dsp.process(currFrame,currFrame.getFormat(),format);
         		}
         		catch(Exception e)
@@ -124,11 +139,29 @@ public class RTPInput extends AbstractSource implements BufferListener {
         		}
         	}
         	
+        	//received frames hold the whole packet, consumers expect the media to fill the frame
+        	if(currFrame.getOffset()!=0 || currFrame.getLength()!=currFrame.getData().length)
+        		currFrame=compact(currFrame);
         }
     	
     	return currFrame; 
     }    
     
+    private Frame compact(Frame frame) {
+    	Frame res=Memory.allocate(frame.getLength());
+    	System.arraycopy(frame.getData(), frame.getOffset(), res.getData(), 0, frame.getLength());
+    	res.setOffset(0);
+    	res.setLength(frame.getLength());
+    	res.setTimestamp(frame.getTimestamp());
+    	res.setDuration(frame.getDuration());
+    	res.setSequenceNumber(frame.getSequenceNumber());
+    	res.setEOM(frame.isEOM());
+    	res.setFormat(frame.getFormat());
+    	res.setHeader(frame.getHeader());
+    	frame.recycle();
+    	return res;
+    }
+    
     /**
      * RX buffer's call back method.
      * 
@@ -32,6 +32,7 @@ import org.restcomm.media.core.scheduler.PriorityQueueScheduler;
 import org.restcomm.media.core.spi.FormatNotSupportedException;
 import org.restcomm.media.core.spi.dsp.Processor;
 import org.restcomm.media.core.spi.format.AudioFormat;
+import org.restcomm.media.core.spi.format.Format;
 import org.restcomm.media.core.spi.format.FormatFactory;
 import org.restcomm.media.core.spi.format.Formats;
 import org.restcomm.media.core.spi.memory.Frame;
@@ -70,6 +71,7 @@ public class RTPOutput extends AbstractSink {
 		super("Output");
 		this.channel = channel;
 		output = new AudioOutput(scheduler, 1);
+		output.setSampleRate(AudioOutput.ANY_RATE);
 		output.join(this);
 	}
 
@@ -77,6 +79,7 @@ public class RTPOutput extends AbstractSink {
 		super("Output");
 		this.transmitter = transmitter;
 		output = new AudioOutput(scheduler, 1);
+		output.setSampleRate(AudioOutput.ANY_RATE);
 		output.join(this);
 	}
 
@@ -129,7 +132,9 @@ public class RTPOutput extends AbstractSink {
 		// do transcoding
 		if (dsp != null && formats != null && !formats.isEmpty()) {
 			try {
-				frame = dsp.process(frame, format, formats.get(0));
+				// the mixer may hand over wideband audio, which is encoded without going through 8 kHz when the codec allows
+				Format source = frame.getFormat() == null ? format : frame.getFormat();
+				frame = dsp.process(frame, source, formats.get(0));
 			} catch (Exception e) {
 				// transcoding error , print error and try to move to next frame
 				logger.error(e.getMessage(), e);
@@ -25,6 +25,7 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.SocketException;
 import java.nio.channels.DatagramChannel;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -39,11 +40,12 @@ import org.restcomm.media.core.network.deprecated.UdpManager;
 import org.restcomm.media.core.network.deprecated.channel.MultiplexedChannel;
 import org.restcomm.media.core.rtcp.RtcpHandler;
 import org.restcomm.media.core.rtp.crypto.DtlsSrtpServerProvider;
+import org.restcomm.media.core.rtp.jitter.JitterBufferType;
 import org.restcomm.media.core.rtp.secure.DtlsHandler;
 import org.restcomm.media.core.rtp.secure.DtlsListener;
 import org.restcomm.media.core.rtp.statistics.RtpStatistics;
+import org.restcomm.media.core.scheduler.InactivitySweeper;
 import org.restcomm.media.core.scheduler.PriorityQueueScheduler;
-import org.restcomm.media.core.scheduler.Task;
 import org.restcomm.media.core.sdp.format.RTPFormats;
 import org.restcomm.media.core.spi.ConnectionMode;
 import org.restcomm.media.core.spi.FormatNotSupportedException;
@@ -78,8 +80,10 @@ public class RtpChannel extends MultiplexedChannel implements DtlsListener, IceE
     private final RtpClock oobClock;
     private final int jitterBufferSize;
 
-    // Heart beat
-    private final HeartBeat heartBeat;
+    // RTP inactivity
+    private final InactivitySweeper inactivitySweeper;
+    private final Inactivity inactivity;
+    private volatile InactivitySweeper.Watch inactivityWatch;
 
     // Remote peer
     private SocketAddress remotePeer;
@@ -157,8 +161,12 @@ public class RtpChannel extends MultiplexedChannel implements DtlsListener, IceE
         this.secure = false;
         this.rtcpMux = false;
 
-        // Heartbeat
-        this.heartBeat = new HeartBeat();
+        // RTP inactivity
+        this.inactivitySweeper = udpManager.getInactivitySweeper();
+        this.inactivity = new Inactivity();
+        if (this.inactivitySweeper != null) {
+            this.rtpHandler.setHeartbeatClock(this.inactivitySweeper.getClock());
+        }
     }
 
     public RtpTransmitter getTransmitter() {
@@ -205,6 +213,24 @@ public class RtpChannel extends MultiplexedChannel implements DtlsListener, IceE
         return this.statistics.getRtpPacketsSent();
     }
 
+    /**
+     * Gets the type of jitter buffer used by this channel.
+     * 
+     * @return The type of jitter buffer
+     */
+    public JitterBufferType getJitterBufferType() {
+        return this.rtpHandler.getJitterBufferType();
+    }
+
+    /**
+     * Selects the jitter buffer used by this channel. Should be set before the channel is bound.
+     * 
+     * @param jitterBufferType The type of jitter buffer
+     */
+    public void setJitterBufferType(JitterBufferType jitterBufferType) {
+        this.rtpHandler.setJitterBufferType(jitterBufferType);
+    }
+
     /**
      * Modifies the map between format and RTP payload number
      * 
@@ -280,10 +306,9 @@ public class RtpChannel extends MultiplexedChannel implements DtlsListener, IceE
 
         if (udpManager.getRtpTimeout() > 0 && this.remotePeer != null && !connectImmediately) {
             if (this.rtpHandler.isReceivable()) {
-                this.statistics.setLastHeartbeat(scheduler.getClock().getTime());
-                scheduler.submitHeatbeat(heartBeat);
+                watchInactivity();
             } else {
-                heartBeat.cancel();
+                unwatchInactivity();
             }
         }
     }
@@ -397,10 +422,9 @@ public class RtpChannel extends MultiplexedChannel implements DtlsListener, IceE
 
         if (udpManager.getRtpTimeout() > 0 && !connectImmediately) {
             if (this.rtpHandler.isReceivable()) {
-                this.statistics.setLastHeartbeat(scheduler.getClock().getTime());
-                scheduler.submitHeatbeat(heartBeat);
+                watchInactivity();
             } else {
-                heartBeat.cancel();
+                unwatchInactivity();
             }
         }
     }
@@ -515,8 +539,8 @@ public class RtpChannel extends MultiplexedChannel implements DtlsListener, IceE
     }
 
     private void reset() {
-        // Heartbeat reset
-        heartBeat.cancel();
+        // RTP inactivity reset
+        unwatchInactivity();
 
         // RTP reset
         this.handlers.removeHandler(this.rtpHandler);
@@ -555,23 +579,41 @@ public class RtpChannel extends MultiplexedChannel implements DtlsListener, IceE
         }
     }
 
-    private class HeartBeat extends Task {
+    private void watchInactivity() {
+        if (this.inactivitySweeper == null) {
+            logger.warn("RTP timeout cannot be monitored on channel " + this.channelId + " because the scheduler has no timing wheel.");
+            return;
+        }
+
+        this.statistics.setLastHeartbeat(this.inactivitySweeper.getClock().getTime());
+        if (this.inactivityWatch == null || !this.inactivityWatch.isActive()) {
+            this.inactivityWatch = this.inactivitySweeper.watch(this.inactivity, udpManager.getRtpTimeout(), TimeUnit.SECONDS, this.inactivity);
+        }
+    }
+
+    private void unwatchInactivity() {
+        final InactivitySweeper.Watch watch = this.inactivityWatch;
+        if (watch != null) {
+            watch.cancel();
+            this.inactivityWatch = null;
+        }
+    }
+
+    /**
+     * Exposes the last heartbeat of the channel to the inactivity sweeper, which checks all channels once per second.
+     */
+    private class Inactivity implements InactivitySweeper.Activity, InactivitySweeper.Listener {
 
-        public int getQueueNumber() {
-            return PriorityQueueScheduler.HEARTBEAT_QUEUE;
+        @Override
+        public long getLastActivity() {
+            return statistics.getLastHeartbeat();
         }
 
         @Override
-        public long perform() {
-            long elapsedTime = scheduler.getClock().getTime() - statistics.getLastHeartbeat();
-            if (elapsedTime > udpManager.getRtpTimeout() * 1000000000L) {
-                if (rtpListener != null) {
-                    rtpListener.onRtpFailure("RTP timeout! Elapsed time since last heartbeat: " + elapsedTime);
-                }
-            } else {
-                scheduler.submitHeatbeat(this);
+        public void onInactive(long idle) {
+            if (rtpListener != null) {
+                rtpListener.onRtpFailure("RTP timeout! Elapsed time since last heartbeat: " + idle);
             }
-            return 0;
         }
     }
     
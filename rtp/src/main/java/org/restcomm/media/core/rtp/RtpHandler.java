@@ -28,14 +28,17 @@ import org.apache.logging.log4j.Logger;
 import org.restcomm.media.core.network.deprecated.channel.PacketHandler;
 import org.restcomm.media.core.network.deprecated.channel.PacketHandlerException;
 import org.restcomm.media.core.rtcp.RtcpHeader;
-import org.restcomm.media.core.rtp.jitter.FixedJitterBuffer;
 import org.restcomm.media.core.rtp.jitter.JitterBuffer;
+import org.restcomm.media.core.rtp.jitter.JitterBufferType;
 import org.restcomm.media.core.rtp.rfc2833.DtmfInput;
 import org.restcomm.media.core.rtp.secure.DtlsHandler;
 import org.restcomm.media.core.rtp.statistics.RtpStatistics;
+import org.restcomm.media.core.scheduler.Clock;
+import org.restcomm.media.core.scheduler.CoarseClock;
 import org.restcomm.media.core.scheduler.PriorityQueueScheduler;
 import org.restcomm.media.core.sdp.format.RTPFormat;
 import org.restcomm.media.core.sdp.format.RTPFormats;
+import org.restcomm.media.core.spi.memory.Frame;
 
 /**
  * Handles incoming RTP packets.
@@ -53,8 +56,10 @@ public class RtpHandler implements PacketHandler {
 	private RTPFormats rtpFormats;
 	private final RtpClock rtpClock;
 	private final RtpClock oobClock;
+	private Clock heartbeatClock;
 	
 	private JitterBuffer jitterBuffer;
+	private JitterBufferType jitterBufferType;
 	private int jitterBufferSize;
 	private final RTPInput rtpInput;
 	private final DtmfInput dtmfInput;
@@ -70,13 +75,19 @@ public class RtpHandler implements PacketHandler {
 	private DtlsHandler dtlsHandler;
 	
 	public RtpHandler(PriorityQueueScheduler scheduler, RtpClock clock, RtpClock oobClock, int jitterBufferSize, RtpStatistics statistics) {
+		this(scheduler, clock, oobClock, JitterBufferType.FIXED, jitterBufferSize, statistics);
+	}
+	
+	public RtpHandler(PriorityQueueScheduler scheduler, RtpClock clock, RtpClock oobClock, JitterBufferType jitterBufferType, int jitterBufferSize, RtpStatistics statistics) {
 		this.pipelinePriority = 0;
 		
 		this.rtpClock = clock;
 		this.oobClock = oobClock;
+		this.heartbeatClock = clock.getWallClock();
 		
+		this.jitterBufferType = jitterBufferType;
 		this.jitterBufferSize = jitterBufferSize;
-		this.jitterBuffer = new FixedJitterBuffer(this.rtpClock, this.jitterBufferSize);
+		this.jitterBuffer = jitterBufferType.newJitterBuffer(this.rtpClock, this.jitterBufferSize);
 		
 		this.rtpInput = new RTPInput(scheduler, jitterBuffer);
 		this.jitterBuffer.setListener(this.rtpInput);
@@ -84,6 +95,7 @@ public class RtpHandler implements PacketHandler {
 		
 		this.rtpFormats = new RTPFormats();
 		this.statistics = statistics;
+		this.statistics.setJitterBuffer(this.jitterBuffer);
 		this.rtpPacket = new RtpPacket(RtpPacket.RTP_PACKET_MAX_SIZE, true);
 		this.receivable = false;
 		this.loopable = false;
@@ -123,10 +135,47 @@ public class RtpHandler implements PacketHandler {
 		this.receivable = receivable;
 	}
 	
+	/**
+	 * Sets the clock used to stamp the arrival of packets for RTP keep-alive purposes.
+	 * <p>
+	 * The clock is read once per packet, so a cached clock such as the {@link CoarseClock} of a timing wheel avoids a system
+	 * call on the packet path. Defaults to the wall clock of the RTP clock.
+	 * </p>
+	 * 
+	 * @param heartbeatClock the clock, in nanoseconds
+	 */
+	public void setHeartbeatClock(Clock heartbeatClock) {
+		this.heartbeatClock = heartbeatClock;
+	}
+	
 	public void useJitterBuffer(boolean useBuffer) {
 		this.jitterBuffer.setInUse(useBuffer);
 	}
 	
+	public JitterBufferType getJitterBufferType() {
+		return jitterBufferType;
+	}
+	
+	/**
+	 * Replaces the jitter buffer with one of another type.
+	 * <p>
+	 * Must only be called while the handler is not receiving traffic, for example before the channel is bound.
+	 * </p>
+	 * 
+	 * @param jitterBufferType the type of the new jitter buffer
+	 */
+	public void setJitterBufferType(JitterBufferType jitterBufferType) {
+		if (this.jitterBufferType != jitterBufferType) {
+			final JitterBuffer previous = this.jitterBuffer;
+			this.jitterBuffer = jitterBufferType.newJitterBuffer(this.rtpClock, this.jitterBufferSize);
+			this.jitterBuffer.setListener(this.rtpInput);
+			this.rtpInput.setJitterBuffer(this.jitterBuffer);
+			this.statistics.setJitterBuffer(this.jitterBuffer);
+			this.jitterBufferType = jitterBufferType;
+			previous.restart();
+		}
+	}
+	
 	/**
 	 * Modifies the map between format and RTP payload number
 	 * 
@@ -252,29 +301,46 @@ public class RtpHandler implements PacketHandler {
 			return null;
 		}
 		
-		if(this.secure) {
-			// Decode SRTP packet into RTP. WebRTC calls only.
-			byte[] decoded = this.dtlsHandler.decodeRTP(packet, offset, dataLength);
-			if(decoded == null || decoded.length == 0) {
-				logger.warn("SRTP packet is not valid! Dropping packet.");
-				return null;
-			} else {
-				// Transform incoming data directly into an RTP Packet
-				ByteBuffer buffer = this.rtpPacket.getBuffer();
-				buffer.clear();
-				buffer.put(decoded);
-				buffer.flip();
-			}
-		} else {
-			// Transform incoming data directly into an RTP Packet
-			ByteBuffer buffer = this.rtpPacket.getBuffer();
-			buffer.clear();
-			buffer.put(packet, offset, dataLength);
-			buffer.flip();
+		// Transform incoming data directly into an RTP Packet
+		ByteBuffer buffer = this.rtpPacket.getBuffer();
+		buffer.clear();
+		buffer.put(packet, offset, dataLength);
+		buffer.flip();
+
+		// Decode SRTP packet into RTP in place. WebRTC calls only.
+		if(this.secure && !this.dtlsHandler.decodeRTP(buffer)) {
+			logger.warn("SRTP packet is not valid! Dropping packet.");
+			return null;
 		}
 		
+		return process(packet);
+	}
+
+	/**
+	 * Processes an RTP packet straight from the frame it was received in.
+	 * <p>
+	 * Plain RTP is parsed in place and the jitter buffer keeps a reference to the frame, so the payload is never copied
+	 * on its way to the decoder. SRTP is copied into the packet buffer and decoded there, so the frame keeps the
+	 * secured packet.
+	 * </p>
+	 */
+	@Override
+	public byte[] handle(Frame packet, InetSocketAddress localPeer, InetSocketAddress remotePeer) throws PacketHandlerException {
+		if (this.secure) {
+			return handle(packet.getData(), packet.getLength(), packet.getOffset(), localPeer, remotePeer);
+		}
+
+		this.rtpPacket.wrap(packet);
+		try {
+			return process(null);
+		} finally {
+			this.rtpPacket.unwrap();
+		}
+	}
+
+	private byte[] process(byte[] packet) {
 		// For RTP keep-alive purposes
-		this.statistics.setLastHeartbeat(this.rtpClock.getWallClock().getTime());
+		this.statistics.setLastHeartbeat(this.heartbeatClock.getTime());
 		
 		// RTP v0 packets are used in some applications. Discarded since we do not handle them.
 		if (rtpPacket.getVersion() != 0 && (receivable || loopable)) {
@@ -285,7 +351,7 @@ public class RtpHandler implements PacketHandler {
 					this.statistics.onRtpReceive(rtpPacket);
 					this.statistics.onRtpSent(rtpPacket);
 					// Return same packet (looping) so it can be transmitted
-					return packet;
+					return packet == null ? rtpPacket.getRawData() : packet;
 				} else {
 					// Update statistics for RTCP
 					this.statistics.onRtpReceive(rtpPacket);
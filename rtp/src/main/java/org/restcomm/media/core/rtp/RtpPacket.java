@@ -25,6 +25,8 @@ package org.restcomm.media.core.rtp;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 
+import org.restcomm.media.core.spi.memory.Frame;
+
 /**
  * A data packet consisting of the fixed RTP header, a possibly empty list of
  * contributing sources, and the payload data. Some underlying protocols may
@@ -63,6 +65,12 @@ public class RtpPacket implements Serializable {
     
     //underlying byte buffer
     private ByteBuffer buffer;
+    
+    //buffer owned by this packet, used unless a frame is wrapped
+    private final ByteBuffer ownBuffer;
+    
+    //received frame the packet is parsed from
+    private transient Frame frame;
 
     /**
      * Creates new instance of RTP packet.
@@ -72,7 +80,8 @@ public class RtpPacket implements Serializable {
      * raw data and if true a direct OS buffer will be allocated
      */
     public RtpPacket(int capacity, boolean allocateDirect) {
-    	this.buffer = allocateDirect ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    	this.ownBuffer = allocateDirect ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    	this.buffer = this.ownBuffer;
     }
     
     public RtpPacket(boolean allocateDirect) {
@@ -90,6 +99,42 @@ public class RtpPacket implements Serializable {
         return buffer;
     }
     
+    /**
+     * Parses the packet in place from a received frame, without copying it.
+     * <p>
+     * The packet does not take a reference to the frame. Callers keep theirs until they are done
+     * with the packet and then call {@link #unwrap()}.
+     * </p>
+     *
+     * @param frame the frame holding the packet between its offset and length
+     */
+    public void wrap(Frame frame) {
+        ByteBuffer view = frame.getBuffer();
+        view.clear();
+        view.position(frame.getOffset());
+        view.limit(frame.getOffset() + frame.getLength());
+        this.buffer = frame.getOffset() == 0 ? view : view.slice();
+        this.buffer.rewind();
+        this.frame = frame;
+    }
+    
+    /**
+     * Releases the wrapped frame, if any, and goes back to the buffer of this packet.
+     */
+    public void unwrap() {
+        this.frame = null;
+        this.buffer = this.ownBuffer;
+    }
+    
+    /**
+     * Gets the frame the packet is parsed from.
+     *
+     * @return the wrapped frame, or null if the packet holds its data in its own buffer
+     */
+    public Frame getFrame() {
+        return frame;
+    }
+    
     public byte[] getRawData() {
         byte[] data = new byte[getLength()];
         this.buffer.rewind();
@@ -311,6 +356,7 @@ public class RtpPacket implements Serializable {
     }
     
     public void wrap(byte[] data) {
+        unwrap();
         this.buffer.clear();
         this.buffer.put(data);
         this.buffer.flip();
@@ -329,6 +375,7 @@ public class RtpPacket implements Serializable {
      * @param len the number of bytes
      */
     public void wrap(boolean mark, int payloadType, int seqNumber, long timestamp, long ssrc, byte[] data, int offset, int len) {
+        unwrap();
         buffer.clear();
         buffer.rewind();
 
@@ -155,19 +155,11 @@ public class RtpTransmitter {
 		
 		// Secure RTP packet. WebRTC calls only. 
 		// SRTP handler returns null if an error occurs
+		// The packet is secured in place, the buffer has room for the authentication tag
 		ByteBuffer buffer = packet.getBuffer();
-		if (this.secure) {
-			byte[] rtpData = new byte[buffer.limit()];
-			buffer.get(rtpData, 0, rtpData.length);
-			byte[] srtpData = this.dtlsHandler.encodeRTP(rtpData, 0, rtpData.length);
-			if(srtpData == null || srtpData.length == 0) {
-				LOGGER.warn("Could not secure RTP packet! Packet dropped.");
-				return;
-			} else {
-				buffer.clear();
-				buffer.put(srtpData);
-				buffer.flip();
-			}
+		if (this.secure && !this.dtlsHandler.encodeRTP(buffer)) {
+			LOGGER.warn("Could not secure RTP packet! Packet dropped.");
+			return;
 		}
 		
 		if(packet != null) {
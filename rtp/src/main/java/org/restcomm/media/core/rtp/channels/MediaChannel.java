@@ -26,6 +26,7 @@ import org.restcomm.media.core.ice.IceAuthenticatorImpl;
 import org.restcomm.media.core.rtcp.RtcpChannel;
 import org.restcomm.media.core.rtp.ChannelsManager;
 import org.restcomm.media.core.rtp.RtpChannel;
+import org.restcomm.media.core.rtp.RtpListener;
 import org.restcomm.media.core.rtp.RtpClock;
 import org.restcomm.media.core.rtp.SsrcGenerator;
 import org.restcomm.media.core.rtp.statistics.RtpStatistics;
@@ -179,6 +180,17 @@ public abstract class MediaChannel {
 		this.cname = cname;
 		this.statistics.setCname(cname);
 	}
+
+	/**
+	 * Sets the listener warned about failures of the RTP and RTCP channels,
+	 * such as an RTP timeout or a failed DTLS handshake.
+	 * 
+	 * @param listener The listener, or <code>null</code> to stop warning
+	 */
+	public void setRtpListener(RtpListener listener) {
+		this.rtpChannel.setRtpListener(listener);
+		this.rtcpChannel.setRtpListener(listener);
+	}
 	
     public String getExternalAddress() {
         if (this.rtpChannel.isBound()) {
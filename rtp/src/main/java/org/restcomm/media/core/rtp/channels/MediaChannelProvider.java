@@ -21,6 +21,7 @@
 
 package org.restcomm.media.core.rtp.channels;
 
+import org.restcomm.media.core.concurrent.MpmcRingBuffer;
 import org.restcomm.media.core.rtp.ChannelsManager;
 import org.restcomm.media.core.spi.dsp.DspFactory;
 
@@ -31,18 +32,95 @@ import org.restcomm.media.core.spi.dsp.DspFactory;
  *
  */
 public class MediaChannelProvider {
-    
+
+    /** Number of closed audio channels kept for reuse. 0 disables pooling */
+    public static final String POOL_SIZE_PROPERTY = "restcomm.media.audio-channel-pool";
+
     // Core Components
     private final ChannelsManager channelsManager;
     private final DspFactory dspFactory;
-    
-    public MediaChannelProvider(ChannelsManager channelsManager, DspFactory dspFactory) {
+
+    // Closed channels, with their RTP/RTCP channels, statistics and DSPs ready to be opened again
+    private final int poolSize;
+    private final MpmcRingBuffer<AudioChannel> pool;
+
+    public MediaChannelProvider(ChannelsManager channelsManager, DspFactory dspFactory, int poolSize) {
         // Core Components
         this.channelsManager = channelsManager;
         this.dspFactory = dspFactory;
+
+        // Pooling
+        this.poolSize = Math.max(0, poolSize);
+        this.pool = (this.poolSize > 0) ? new MpmcRingBuffer<AudioChannel>(Math.max(2, this.poolSize)) : null;
+        warmUp();
     }
-    
+
+    public MediaChannelProvider(ChannelsManager channelsManager, DspFactory dspFactory) {
+        this(channelsManager, dspFactory, Integer.getInteger(POOL_SIZE_PROPERTY, 0));
+    }
+
+    /**
+     * Fills the pool with new audio channels, so the first calls do not pay for building them.
+     * <p>
+     * The pool is filled when the provider is created. Calling this method again tops it up after a burst of calls.
+     * </p>
+     * 
+     * @return The number of channels that were added to the pool.
+     */
+    public int warmUp() {
+        int added = 0;
+        while (this.pool != null && this.pool.size() < this.poolSize) {
+            if (!this.pool.offer(newAudioChannel())) {
+                break;
+            }
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Provides an audio channel, taken from the pool when possible.
+     * 
+     * @return A closed audio channel.
+     */
     public AudioChannel provideAudioChannel() {
+        if (this.pool != null) {
+            AudioChannel audioChannel = this.pool.poll();
+            if (audioChannel != null) {
+                return audioChannel;
+            }
+        }
+        return newAudioChannel();
+    }
+
+    /**
+     * Gives back an audio channel that is no longer used, so it can be provided again.
+     * <p>
+     * The channel must be closed and must not be referenced by any media component anymore.
+     * </p>
+     * 
+     * @param audioChannel The audio channel to release.
+     * @return <code>true</code> if the channel was pooled; <code>false</code> if it was discarded.
+     */
+    public boolean release(AudioChannel audioChannel) {
+        if (this.pool == null || audioChannel.isOpen() || this.pool.size() >= this.poolSize) {
+            return false;
+        }
+        // The channel must not warn its previous owner anymore
+        audioChannel.setRtpListener(null);
+        return this.pool.offer(audioChannel);
+    }
+
+    /**
+     * Gets the number of audio channels available in the pool.
+     * 
+     * @return The number of pooled channels.
+     */
+    public int getPooledCount() {
+        return (this.pool == null) ? 0 : this.pool.size();
+    }
+
+    private AudioChannel newAudioChannel() {
         AudioChannel audioChannel = new AudioChannel(channelsManager.getClock(), channelsManager);
         try {
             audioChannel.setInputDsp(dspFactory.newProcessor());
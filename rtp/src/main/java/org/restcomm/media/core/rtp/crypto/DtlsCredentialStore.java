@@ -0,0 +1,219 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.crypto;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.crypto.tls.Certificate;
+
+/**
+ * Parsed DTLS certificate chain and private key, shared by every {@link DtlsSrtpServer} that uses the same files.
+ * <p>
+ * The PEM files are parsed once and the fingerprint of the certificate is computed once for each supported hash function,
+ * so handshakes and SDP generation do no disk I/O.
+ * </p>
+ * <p>
+ * If <code>restcomm.media.dtls.credentials-reload-interval</code> is set to a positive number of milliseconds, the store
+ * checks at most once per interval whether the files changed on disk and parses them again if they did. Handshakes in
+ * progress keep the credentials they started with.
+ * </p>
+ */
+public class DtlsCredentialStore {
+
+    private static final Logger log = LogManager.getLogger(DtlsCredentialStore.class);
+
+    public static final String RELOAD_INTERVAL_PROPERTY = "restcomm.media.dtls.credentials-reload-interval";
+
+    /** Hot reload is disabled unless configured */
+    public static final long DEFAULT_RELOAD_INTERVAL = 0L;
+
+    private static final String[] HASH_FUNCTIONS = { "sha-1", "sha-256", "sha-512" };
+    private static final String DEFAULT_HASH_FUNCTION = "sha-256";
+
+    private static final ConcurrentMap<String, DtlsCredentialStore> STORES = new ConcurrentHashMap<>();
+
+    private final String[] certificatePaths;
+    private final String keyPath;
+    private final long reloadInterval;
+
+    private volatile Credentials credentials;
+    private volatile long lastCheck;
+
+    DtlsCredentialStore(String[] certificatePaths, String keyPath, long reloadInterval) {
+        this.certificatePaths = certificatePaths.clone();
+        this.keyPath = keyPath;
+        this.reloadInterval = reloadInterval;
+        this.credentials = null;
+        this.lastCheck = 0L;
+    }
+
+    /**
+     * Gets the store for a set of credential files, creating and loading it on first use.
+     * 
+     * @param certificatePaths The paths of the PEM certificates, starting with the server certificate
+     * @param keyPath The path of the PEM private key
+     * @return The store shared by all callers using the same files
+     */
+    public static DtlsCredentialStore getInstance(String[] certificatePaths, String keyPath) {
+        final String storeKey = Arrays.toString(certificatePaths) + "|" + keyPath;
+        DtlsCredentialStore store = STORES.get(storeKey);
+        if (store == null) {
+            DtlsCredentialStore newStore = new DtlsCredentialStore(certificatePaths, keyPath,
+                    Long.getLong(RELOAD_INTERVAL_PROPERTY, DEFAULT_RELOAD_INTERVAL));
+            store = STORES.putIfAbsent(storeKey, newStore);
+            if (store == null) {
+                store = newStore;
+                store.preload();
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Loads the credentials so the first handshake does not have to. Failures are logged and loading is retried on the
+     * next access.
+     */
+    void preload() {
+        try {
+            get();
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not load DTLS credentials from " + Arrays.toString(this.certificatePaths) + " and " + this.keyPath
+                    + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the current credentials, parsing the files if they were not loaded yet or changed on disk.
+     * 
+     * @return The parsed credentials
+     * @throws IOException If the files cannot be read or parsed
+     */
+    public Credentials get() throws IOException {
+        Credentials current = this.credentials;
+        if (current == null) {
+            return load(null);
+        }
+
+        if (this.reloadInterval > 0) {
+            long now = System.currentTimeMillis();
+            if (now - this.lastCheck >= this.reloadInterval) {
+                this.lastCheck = now;
+                if (current.lastModified != lastModified()) {
+                    try {
+                        return load(current);
+                    } catch (IOException | RuntimeException e) {
+                        log.error("Could not reload DTLS credentials, keeping the previous ones.", e);
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    private synchronized Credentials load(Credentials expected) throws IOException {
+        // Another thread may have loaded the files while this one was waiting
+        Credentials current = this.credentials;
+        if (current != null && current != expected) {
+            return current;
+        }
+
+        long lastModified = lastModified();
+        Certificate chain = TlsUtils.loadCertificateChain(this.certificatePaths);
+        AsymmetricKeyParameter privateKey = TlsUtils.loadPrivateKeyResource(this.keyPath);
+
+        Map<String, String> fingerprints = new HashMap<>(HASH_FUNCTIONS.length);
+        if (!chain.isEmpty()) {
+            for (String hashFunction : HASH_FUNCTIONS) {
+                fingerprints.put(hashFunction, TlsUtils.fingerprint(hashFunction, chain.getCertificateAt(0)));
+            }
+        }
+
+        current = new Credentials(chain, privateKey, fingerprints, lastModified);
+        this.credentials = current;
+        this.lastCheck = System.currentTimeMillis();
+        if (log.isInfoEnabled()) {
+            log.info("Loaded DTLS credentials from " + Arrays.toString(this.certificatePaths) + " and " + this.keyPath);
+        }
+        return current;
+    }
+
+    private long lastModified() {
+        long lastModified = new File(this.keyPath).lastModified();
+        for (String certificatePath : this.certificatePaths) {
+            lastModified = Math.max(lastModified, new File(certificatePath).lastModified());
+        }
+        return lastModified;
+    }
+
+    /**
+     * Immutable snapshot of the parsed credential files.
+     */
+    public static final class Credentials {
+
+        private final Certificate certificateChain;
+        private final AsymmetricKeyParameter privateKey;
+        private final Map<String, String> fingerprints;
+        private final long lastModified;
+
+        private Credentials(Certificate certificateChain, AsymmetricKeyParameter privateKey, Map<String, String> fingerprints,
+                long lastModified) {
+            this.certificateChain = certificateChain;
+            this.privateKey = privateKey;
+            this.fingerprints = fingerprints;
+            this.lastModified = lastModified;
+        }
+
+        public Certificate getCertificateChain() {
+            return certificateChain;
+        }
+
+        public AsymmetricKeyParameter getPrivateKey() {
+            return privateKey;
+        }
+
+        /**
+         * Gets the fingerprint of the server certificate.
+         * 
+         * @param hashFunction The hash function, for example <code>sha-256</code>. Unsupported functions fall back to
+         *        <code>sha-256</code>.
+         * @return The fingerprint prefixed by the hash function, or an empty String if there is no certificate.
+         */
+        public String getFingerprint(String hashFunction) {
+            String fingerprint = this.fingerprints.get(hashFunction.toLowerCase());
+            if (fingerprint == null) {
+                fingerprint = this.fingerprints.get(DEFAULT_HASH_FUNCTION);
+            }
+            return fingerprint == null ? "" : fingerprint;
+        }
+
+    }
+
+}
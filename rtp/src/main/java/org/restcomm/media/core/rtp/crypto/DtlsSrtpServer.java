@@ -31,7 +31,9 @@ import org.bouncycastle.asn1.x509.Certificate;
 import org.bouncycastle.crypto.tls.AlertDescription;
 import org.bouncycastle.crypto.tls.AlertLevel;
 import org.bouncycastle.crypto.tls.CertificateRequest;
+import org.bouncycastle.crypto.tls.DefaultTlsEncryptionCredentials;
 import org.bouncycastle.crypto.tls.DefaultTlsServer;
+import org.bouncycastle.crypto.tls.DefaultTlsSignerCredentials;
 import org.bouncycastle.crypto.tls.ExporterLabel;
 import org.bouncycastle.crypto.tls.HashAlgorithm;
 import org.bouncycastle.crypto.tls.ProtocolVersion;
@@ -62,9 +64,8 @@ public class DtlsSrtpServer extends DefaultTlsServer {
 	
     private static final Logger LOGGER = LogManager.getLogger(DtlsSrtpServer.class);
 
-    // Certificate resources
-    private final String[] certificateResources;
-    private final String keyResource;
+    // Certificate resources, parsed once and shared between servers
+    private final DtlsCredentialStore credentialStore;
     private final AlgorithmCertificate algorithmCertificate;
 
 	private String hashFunction = "";
@@ -89,11 +90,16 @@ public class DtlsSrtpServer extends DefaultTlsServer {
 
     public DtlsSrtpServer(ProtocolVersion minVersion, ProtocolVersion maxVersion, CipherSuite[] cipherSuites,
             String[] certificatesPath, String keyPath, AlgorithmCertificate algorithmCertificate) {
+        this(minVersion, maxVersion, cipherSuites, DtlsCredentialStore.getInstance(certificatesPath, keyPath),
+                algorithmCertificate);
+    }
+
+    public DtlsSrtpServer(ProtocolVersion minVersion, ProtocolVersion maxVersion, CipherSuite[] cipherSuites,
+            DtlsCredentialStore credentialStore, AlgorithmCertificate algorithmCertificate) {
         this.minVersion = minVersion;
         this.maxVersion = maxVersion;
         this.cipherSuites = cipherSuites;
-        this.certificateResources = certificatesPath;
-        this.keyResource = keyPath;
+        this.credentialStore = credentialStore;
         this.algorithmCertificate = algorithmCertificate;
     }
 
@@ -172,12 +178,15 @@ public class DtlsSrtpServer extends DefaultTlsServer {
     
     @Override
     protected TlsSignerCredentials getECDSASignerCredentials() throws IOException {
-        return TlsUtils.loadSignerCredentials(context, certificateResources, keyResource, new SignatureAndHashAlgorithm(HashAlgorithm.sha256, SignatureAlgorithm.ecdsa));
+        DtlsCredentialStore.Credentials credentials = this.credentialStore.get();
+        return new DefaultTlsSignerCredentials(context, credentials.getCertificateChain(), credentials.getPrivateKey(),
+                new SignatureAndHashAlgorithm(HashAlgorithm.sha256, SignatureAlgorithm.ecdsa));
     }
     
     @Override
     protected TlsEncryptionCredentials getRSAEncryptionCredentials() throws IOException {
-        return TlsUtils.loadEncryptionCredentials(context, certificateResources, keyResource);
+        DtlsCredentialStore.Credentials credentials = this.credentialStore.get();
+        return new DefaultTlsEncryptionCredentials(context, credentials.getCertificateChain(), credentials.getPrivateKey());
     }
 
     @SuppressWarnings("unchecked")
@@ -201,7 +210,9 @@ public class DtlsSrtpServer extends DefaultTlsServer {
                 return null;
             }
         }
-        return TlsUtils.loadSignerCredentials(context, certificateResources, keyResource, signatureAndHashAlgorithm);
+        DtlsCredentialStore.Credentials credentials = this.credentialStore.get();
+        return new DefaultTlsSignerCredentials(context, credentials.getCertificateChain(), credentials.getPrivateKey(),
+                signatureAndHashAlgorithm);
     }
     
     @SuppressWarnings("unchecked")
@@ -224,15 +235,26 @@ public class DtlsSrtpServer extends DefaultTlsServer {
     	
     	// set to some reasonable default value
     	int chosenProfile = SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80;
+    	boolean aeadChosen = false;
     	UseSRTPData clientSrtpData = TlsSRTPUtils.getUseSRTPExtension(newClientExtensions);
     	
     	for (int profile : clientSrtpData.getProtectionProfiles()) {
     		switch (profile) {
+    			case SRTPParameters.AEAD_AES_128_GCM:
+    			case SRTPParameters.AEAD_AES_256_GCM:
+    				// AES-GCM encrypts and authenticates in a single pass, so it wins in the order offered by the client
+    				if (!aeadChosen) {
+    					chosenProfile = profile;
+    					aeadChosen = true;
+    				}
+    				break;
     			case SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_32:
     			case SRTPProtectionProfile.SRTP_AES128_CM_HMAC_SHA1_80:
     			case SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_32:
     			case SRTPProtectionProfile.SRTP_NULL_HMAC_SHA1_80:
-    				chosenProfile  = profile;
+    				if (!aeadChosen) {
+    					chosenProfile  = profile;
+    				}
     				break;
     			default:
     		}
@@ -337,9 +359,7 @@ public class DtlsSrtpServer extends DefaultTlsServer {
 	public String generateFingerprint(String hashFunction) {
 		try {
 			this.hashFunction = hashFunction;
-			org.bouncycastle.crypto.tls.Certificate chain = TlsUtils.loadCertificateChain(certificateResources);
-			Certificate certificate = chain.getCertificateAt(0);
-			return TlsUtils.fingerprint(this.hashFunction, certificate);
+			return this.credentialStore.get().getFingerprint(this.hashFunction);
 		} catch (IOException e) {
 			LOGGER.error("Could not get local fingerprint: "+ e.getMessage());
 			return "";
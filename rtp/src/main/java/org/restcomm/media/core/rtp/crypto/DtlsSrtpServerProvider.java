@@ -31,8 +31,7 @@ public class DtlsSrtpServerProvider {
     private ProtocolVersion minVersion;
     private ProtocolVersion maxVersion;
     private CipherSuite[] cipherSuites;
-    private String[] certificatePaths;
-    private String keyPath;
+    private DtlsCredentialStore credentialStore;
     private AlgorithmCertificate algorithmCertificate;
 
     public DtlsSrtpServerProvider(ProtocolVersion minVersion, ProtocolVersion maxVersion, CipherSuite[] cipherSuites,
@@ -40,13 +39,13 @@ public class DtlsSrtpServerProvider {
         this.minVersion = minVersion;
         this.maxVersion = maxVersion;
         this.cipherSuites = cipherSuites;
-        this.certificatePaths = new String[] { certificatePath };
-        this.keyPath = keyPath;
+        // Parse the key and certificate now, so call setup does not have to
+        this.credentialStore = DtlsCredentialStore.getInstance(new String[] { certificatePath }, keyPath);
         this.algorithmCertificate = algorithmCertificate;
     }
 
     public DtlsSrtpServer provide() {
-        DtlsSrtpServer server = new DtlsSrtpServer(minVersion, maxVersion, cipherSuites, certificatePaths, keyPath,
+        DtlsSrtpServer server = new DtlsSrtpServer(minVersion, maxVersion, cipherSuites, credentialStore,
                 algorithmCertificate);
         return server;
     }
@@ -0,0 +1,132 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.crypto;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * AES Counter Mode and HMAC-SHA1 for SRTP and SRTCP crypto contexts, backed by JCE.
+ * <p>
+ * AES-CM as defined by RFC 3711 section 4.1.1 is AES in counter mode with a 16-bit block counter appended to the IV, so it
+ * matches <code>AES/CTR/NoPadding</code> for any packet shorter than 2^16 blocks.
+ * </p>
+ * <p>
+ * The cipher and MAC instances are created once per crypto context and reused for every packet. Instances are not thread
+ * safe, same as the crypto contexts that own them.
+ * </p>
+ */
+class JceSRTPEngine {
+
+    private final Cipher cipher;
+    private final Mac mac;
+    private SecretKeySpec encKey;
+
+    /**
+     * Creates the engines required by a policy.
+     * 
+     * @param encrypt Whether AES Counter Mode is needed
+     * @param authenticate Whether HMAC-SHA1 is needed
+     * @throws IllegalStateException If the JVM does not provide the algorithms
+     */
+    JceSRTPEngine(boolean encrypt, boolean authenticate) {
+        try {
+            this.cipher = encrypt ? Cipher.getInstance("AES/CTR/NoPadding") : null;
+            this.mac = authenticate ? Mac.getInstance("HmacSHA1") : null;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("JCE does not support SRTP algorithms", e);
+        }
+    }
+
+    boolean hasCipher() {
+        return this.cipher != null;
+    }
+
+    boolean hasMac() {
+        return this.mac != null;
+    }
+
+    /**
+     * Sets the session encryption key. The key is copied, so the caller may clear it afterwards.
+     */
+    void initCipher(byte[] key) {
+        this.encKey = new SecretKeySpec(key, "AES");
+    }
+
+    /**
+     * Sets the session authentication key. The key is copied, so the caller may clear it afterwards.
+     */
+    void initMac(byte[] key) {
+        try {
+            this.mac.init(new SecretKeySpec(key, "HmacSHA1"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not initialize SRTP authentication", e);
+        }
+    }
+
+    /**
+     * Encrypts or decrypts a region of a packet in place.
+     * 
+     * @param data The packet
+     * @param off The offset of the region
+     * @param len The length of the region
+     * @param iv The 16-byte counter block, with the last two bytes set to zero
+     */
+    void process(ByteBuffer data, int off, int len, byte[] iv) {
+        // Cipher rejects the same buffer object as input and output, but accepts two views over the same bytes
+        final ByteBuffer input = data.duplicate();
+        input.limit(off + len).position(off);
+        final ByteBuffer output = data.duplicate();
+        output.limit(off + len).position(off);
+        try {
+            this.cipher.init(Cipher.ENCRYPT_MODE, this.encKey, new IvParameterSpec(iv));
+            this.cipher.doFinal(input, output);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not process SRTP packet", e);
+        }
+    }
+
+    /**
+     * Computes the HMAC-SHA1 of a whole packet followed by a 4-byte trailer.
+     * 
+     * @param data The packet, from its start to its limit
+     * @param trailer The roll-over counter or SRTCP index, in network order
+     * @param tag Receives the 20-byte tag
+     */
+    void authenticate(ByteBuffer data, byte[] trailer, byte[] tag) {
+        data.rewind();
+
+        try {
+            this.mac.update(data);
+            this.mac.update(trailer, 0, trailer.length);
+            this.mac.doFinal(tag, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not authenticate SRTP packet", e);
+        }
+    }
+
+}
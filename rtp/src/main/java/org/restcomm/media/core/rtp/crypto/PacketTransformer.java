@@ -7,6 +7,7 @@
  */
 package org.restcomm.media.core.rtp.crypto;
 
+import java.nio.ByteBuffer;
 
 /**
  * Encapsulate the concept of packet transformation. Given a packet,
@@ -18,6 +19,13 @@ package org.restcomm.media.core.rtp.crypto;
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  */
 public interface PacketTransformer {
+
+	/**
+	 * Room, in bytes, that callers of the in place methods must leave after
+	 * the packet for the authentication tag and the SRTCP index.
+	 */
+	public static final int MAX_TRAILER_LENGTH = 24;
+
 	/**
 	 * Transforms a non-secure packet.
 	 * 
@@ -65,6 +73,28 @@ public interface PacketTransformer {
 	 */
 	public byte[] reverseTransform(byte[] pkt, int offset, int length);
 
+	/**
+	 * Transforms a non-secure packet in place, without allocating memory.
+	 * 
+	 * @param pkt
+	 *            the packet, between the position and the limit of the buffer.
+	 *            The buffer capacity must leave {@link #MAX_TRAILER_LENGTH}
+	 *            bytes of room after the limit.
+	 * @return Whether the packet was transformed. If so, the limit of the
+	 *         buffer is moved to the end of the secured packet.
+	 */
+	public boolean transform(ByteBuffer pkt);
+
+	/**
+	 * Reverse-transforms a packet in place, without allocating memory.
+	 * 
+	 * @param pkt
+	 *            the packet, between the position and the limit of the buffer
+	 * @return Whether the packet was restored. If so, the limit of the buffer
+	 *         is moved to the end of the restored packet.
+	 */
+	public boolean reverseTransform(ByteBuffer pkt);
+
 	/**
 	 * Close the transformer and underlying transform engine.
 	 * 
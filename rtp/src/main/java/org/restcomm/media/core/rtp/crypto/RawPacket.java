@@ -6,6 +6,7 @@
  */
 package org.restcomm.media.core.rtp.crypto;
 
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 
 import org.restcomm.media.core.rtp.RtpPacket;
@@ -45,6 +46,11 @@ public class RawPacket {
      */
     private ByteBuffer buffer;
 
+    /**
+     * Buffer owned by this packet, kept aside while wrapping an external one
+     */
+    private ByteBuffer ownBuffer;
+
     /**
      * Initializes a new empty <tt>RawPacket</tt> instance.
      */
@@ -76,6 +82,39 @@ public class RawPacket {
     	this.buffer.rewind();
     }
     
+    /**
+     * Makes this packet a view over the bytes between the position and the
+     * limit of an external buffer, so it is transformed in place. The bytes
+     * after the limit, up to the capacity, are room for the packet to grow.
+     *
+     * @param data the buffer holding the packet
+     */
+    public void wrap(ByteBuffer data) {
+        if (this.ownBuffer == null) {
+            this.ownBuffer = this.buffer;
+        }
+        ByteBuffer view = data.duplicate();
+        view.limit(view.capacity());
+        view = view.slice();
+        view.limit(data.remaining());
+        this.buffer = view;
+    }
+
+    /**
+     * Stops wrapping an external buffer and moves its limit to the end of the
+     * packet.
+     *
+     * @param data the buffer given to {@link #wrap(ByteBuffer)}, or null to
+     *            leave its limit untouched
+     */
+    public void unwrap(ByteBuffer data) {
+        if (data != null) {
+            data.limit(data.position() + this.buffer.limit());
+        }
+        this.buffer = this.ownBuffer;
+        this.ownBuffer = null;
+    }
+
     public byte[] getData() {
     	this.buffer.rewind();
     	byte[] data = new byte[this.buffer.limit()];
@@ -285,6 +324,9 @@ public class RawPacket {
 			// there is more room in the underlying reserved buffer memory
 			buffer.limit(newLen);
 			return;
+		} else if (ownBuffer != null) {
+			// an external buffer cannot be replaced, the caller did not leave enough room
+			throw new BufferOverflowException();
 		} else {
 			// create a new bigger buffer
 			ByteBuffer newBuffer = buffer.isDirect() ? ByteBuffer.allocateDirect(newLen) : ByteBuffer.allocate(newLen);
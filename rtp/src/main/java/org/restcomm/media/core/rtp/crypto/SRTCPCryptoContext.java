@@ -94,11 +94,18 @@ public class SRTCPCryptoContext {
     // implements the counter cipher mode for RTP according to RFC 3711
     private final SRTPCipherCTR cipherCtr = new SRTPCipherCTR();
 
+    // JCE engines, used instead of the BouncyCastle ones when the policy asks for them
+    private JceSRTPEngine jce;
+
+    // AES-GCM engine, used by AEAD policies instead of the cipher and the HMAC
+    private SRTPCipherGCM cipherGcm;
+
     // Here some fields that a allocated here or in constructor. The methods
     // use these fields to avoid too many new operations
     
     private final byte[] tagStore;
     private final byte[] ivStore = new byte[16];
+    private final byte[] aeadIvStore = new byte[SRTPCipherGCM.IV_LENGTH];
     private final byte[] rbStore = new byte[4];
     
     // this is some working store, used by some methods to avoid new operations
@@ -148,7 +155,8 @@ public class SRTCPCryptoContext {
         policy = policyIn;
         masterKey = new byte[policy.getEncKeyLength()];
         System.arraycopy(masterK, 0, masterKey, 0, masterK.length);
-        masterSalt = new byte[policy.getSaltKeyLength()];
+        // AEAD salts are padded with zeros for the key derivation (RFC 7714, section 11)
+        masterSalt = new byte[policy.isAead() ? 14 : policy.getSaltKeyLength()];
         System.arraycopy(masterS, 0, masterSalt, 0, masterS.length);
 
         switch (policy.getEncType()) {
@@ -174,6 +182,14 @@ public class SRTCPCryptoContext {
             encKey = new byte[this.policy.getEncKeyLength()];
             saltKey = new byte[this.policy.getSaltKeyLength()];
             break;
+
+        case SRTPPolicy.AESGCM_ENCRYPTION:
+            // the block cipher is still needed by the key derivation
+            cipher = new AESFastEngine();
+            cipherGcm = new SRTPCipherGCM(policy.getCryptoProvider());
+            encKey = new byte[this.policy.getEncKeyLength()];
+            saltKey = new byte[this.policy.getSaltKeyLength()];
+            break;
         }
         
         switch (policy.getAuthType()) {
@@ -196,6 +212,14 @@ public class SRTCPCryptoContext {
         default:
             tagStore = null;
         }
+
+        if (policy.getCryptoProvider() == SRTPCryptoProvider.JCE) {
+            boolean encrypt = policy.getEncType() == SRTPPolicy.AESCM_ENCRYPTION;
+            boolean authenticate = policy.getAuthType() == SRTPPolicy.HMACSHA1_AUTHENTICATION;
+            if (encrypt || authenticate) {
+                jce = new JceSRTPEngine(encrypt, authenticate);
+            }
+        }
     }
 
     /**
@@ -262,6 +286,14 @@ public class SRTCPCryptoContext {
      * @param pkt the RTP packet that is going to be sent out
      */
     public void transformPacket(RawPacket pkt) {
+        if (policy.isAead()) {
+            // Encrypt and authenticate the packet in a single pass
+            processPacketAESGCM(pkt, sentIndex | 0x80000000, true);
+            sentIndex++;
+            sentIndex &= ~0x80000000;       // clear possible overflow
+            return;
+        }
+
         boolean encrypt = false;
         // Encrypt the packet using Counter Mode encryption
         if (policy.getEncType() == SRTPPolicy.AESCM_ENCRYPTION || policy.getEncType() == SRTPPolicy.TWOFISH_ENCRYPTION) {
@@ -280,9 +312,6 @@ public class SRTCPCryptoContext {
             index = sentIndex | 0x80000000;
         }
         
-        // Grow packet storage in one step
-        pkt.grow(4 + policy.getAuthTagLength());
-
         // Authenticate the packet
         // The authenticate method gets the index via parameter and stores
         // it in network order in rbStore variable. 
@@ -314,6 +343,17 @@ public class SRTCPCryptoContext {
      *         false if authentication or replay check failed 
      */
     public boolean reverseTransformPacket(RawPacket pkt) {
+        if (policy.isAead()) {
+            // The AEAD tag precedes the index
+            int indexEflag = pkt.getSRTCPIndex(0);
+            int index = indexEflag & ~0x80000000;
+            if (!checkReplay(index) || !processPacketAESGCM(pkt, indexEflag, false)) {
+                return false;
+            }
+            update(index);
+            return true;
+        }
+
         boolean decrypt = false;
         int tagLength = policy.getAuthTagLength();
         int indexEflag = pkt.getSRTCPIndex(tagLength);
@@ -405,7 +445,11 @@ public class SRTCPCryptoContext {
         // Encrypted part excludes fixed header (8 bytes)  
         final int payloadOffset = 8;
         final int payloadLength = pkt.getLength() - payloadOffset;
-        cipherCtr.process(cipher, pkt.getBuffer(), payloadOffset, payloadLength, ivStore);
+        if (jce != null && jce.hasCipher()) {
+            jce.process(pkt.getBuffer(), payloadOffset, payloadLength, ivStore);
+        } else {
+            cipherCtr.process(cipher, pkt.getBuffer(), payloadOffset, payloadLength, ivStore);
+        }
     }
 
     /**
@@ -444,6 +488,64 @@ public class SRTCPCryptoContext {
         SRTPCipherF8.process(cipher, pkt.getBuffer(), payloadOffset, payloadLength, ivStore, cipherF8);
     }
 
+    /**
+     * Perform AES-GCM encryption and authentication, or authentication check
+     * and decryption. The tag and the index are appended to or removed from
+     * the packet.
+     *
+     * @param pkt the RTCP packet to be encrypted / decrypted
+     * @param indexEflag the SRTCP index, with the encryption flag
+     * @param encrypt whether to encrypt or decrypt the packet
+     * @return false if the authentication check failed
+     */
+    private boolean processPacketAESGCM(RawPacket pkt, int indexEflag, boolean encrypt) {
+        final int ssrc = pkt.getRTCPSSRC();
+        final int index = indexEflag & ~0x80000000;
+
+        // IV = (00 00 || SSRC || 00 00 || index) XOR salt, see RFC 7714 section 9.1
+        aeadIvStore[0] = saltKey[0];
+        aeadIvStore[1] = saltKey[1];
+        aeadIvStore[2] = (byte) ((ssrc >> 24) ^ saltKey[2]);
+        aeadIvStore[3] = (byte) ((ssrc >> 16) ^ saltKey[3]);
+        aeadIvStore[4] = (byte) ((ssrc >> 8) ^ saltKey[4]);
+        aeadIvStore[5] = (byte) (ssrc ^ saltKey[5]);
+        aeadIvStore[6] = saltKey[6];
+        aeadIvStore[7] = saltKey[7];
+        aeadIvStore[8] = (byte) ((index >> 24) ^ saltKey[8]);
+        aeadIvStore[9] = (byte) ((index >> 16) ^ saltKey[9]);
+        aeadIvStore[10] = (byte) ((index >> 8) ^ saltKey[10]);
+        aeadIvStore[11] = (byte) (index ^ saltKey[11]);
+
+        // E flag and index, in network order, are authenticated after the header
+        rbStore[0] = (byte) (indexEflag >> 24);
+        rbStore[1] = (byte) (indexEflag >> 16);
+        rbStore[2] = (byte) (indexEflag >> 8);
+        rbStore[3] = (byte) indexEflag;
+
+        // Encrypted part excludes fixed header (8 bytes)
+        final int payloadOffset = 8;
+        if (encrypt) {
+            final int payloadLength = pkt.getLength() - payloadOffset;
+            pkt.grow(SRTPCipherGCM.TAG_LENGTH);
+            cipherGcm.encrypt(pkt.getBuffer(), payloadOffset, rbStore, payloadLength, aeadIvStore);
+            pkt.append(rbStore, 4);
+            return true;
+        }
+
+        pkt.shrink(4);
+        final int length = pkt.getLength();
+        if ((indexEflag & 0x80000000) == 0) {
+            // Unencrypted packets authenticate the whole RTCP packet, see RFC 7714 section 9.2
+            if (!cipherGcm.decrypt(pkt.getBuffer(), length - SRTPCipherGCM.TAG_LENGTH, rbStore, SRTPCipherGCM.TAG_LENGTH, aeadIvStore)) {
+                return false;
+            }
+        } else if (!cipherGcm.decrypt(pkt.getBuffer(), payloadOffset, rbStore, length - payloadOffset, aeadIvStore)) {
+            return false;
+        }
+        pkt.shrink(SRTPCipherGCM.TAG_LENGTH);
+        return true;
+    }
+
     byte[] tempBuffer = new byte[RtpPacket.RTP_PACKET_MAX_SIZE];
     
     /**
@@ -454,15 +556,20 @@ public class SRTCPCryptoContext {
      * @param pkt the RTP packet to be authenticated
      */
     private void authenticatePacket(RawPacket pkt, int index) {
+        rbStore[0] = (byte) (index >> 24);
+        rbStore[1] = (byte) (index >> 16);
+        rbStore[2] = (byte) (index >> 8);
+        rbStore[3] = (byte) index;
+        if (jce != null && jce.hasMac()) {
+            jce.authenticate(pkt.getBuffer(), rbStore, tagStore);
+            return;
+        }
+
     	ByteBuffer buf = pkt.getBuffer();
     	buf.rewind();
     	int len = buf.remaining();
     	buf.get(tempBuffer, 0, len);
         mac.update(tempBuffer, 0, len);
-        rbStore[0] = (byte) (index >> 24);
-        rbStore[1] = (byte) (index >> 16);
-        rbStore[2] = (byte) (index >> 8);
-        rbStore[3] = (byte) index;
         mac.update(rbStore, 0, rbStore.length);
         mac.doFinal(tagStore, 0);
     }
@@ -542,13 +649,16 @@ public class SRTCPCryptoContext {
 	            case SRTPPolicy.HMACSHA1_AUTHENTICATION:
 	                KeyParameter key =  new KeyParameter(authKey);
 	                mac.init(key);
+	                if (jce != null && jce.hasMac()) {
+	                    jce.initMac(authKey);
+	                }
 	                break;
 	
 	            default:
 	                break;
             }
+            Arrays.fill(authKey, (byte)0);
         }
-        Arrays.fill(authKey, (byte)0);
 
         // compute the session salt
         label = 5;
@@ -562,6 +672,12 @@ public class SRTCPCryptoContext {
         }
         encryptionKey = new KeyParameter(encKey);
         cipher.init(true, encryptionKey);
+        if (jce != null && jce.hasCipher()) {
+            jce.initCipher(encKey);
+        }
+        if (cipherGcm != null) {
+            cipherGcm.init(encKey);
+        }
         Arrays.fill(encKey, (byte)0);
     }
 
@@ -7,6 +7,8 @@
  */
 package org.restcomm.media.core.rtp.crypto;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
@@ -68,6 +70,24 @@ public class SRTCPTransformer implements PacketTransformer {
     	// Wrap the data into raw packet for readable format
     	this.packet.wrap(pkt, offset, length);
     	
+        // Secure packet into SRTCP format
+        getForwardContext().transformPacket(packet);
+        return packet.getData();
+    }
+
+    public boolean transform(ByteBuffer pkt) {
+        this.packet.wrap(pkt);
+        try {
+            getForwardContext().transformPacket(packet);
+        } catch (BufferOverflowException e) {
+            return false;
+        } finally {
+            this.packet.unwrap(pkt);
+        }
+        return true;
+    }
+
+    private SRTCPCryptoContext getForwardContext() {
     	// Associate the packet with its encryption context
         long ssrc = this.packet.getRTCPSSRC();
         SRTCPCryptoContext context = contexts.get(ssrc);
@@ -77,10 +97,7 @@ public class SRTCPTransformer implements PacketTransformer {
             context.deriveSrtcpKeys();
             contexts.put(ssrc, context);
         }
-        
-        // Secure packet into SRTCP format
-        context.transformPacket(packet);
-        return packet.getData();
+        return context;
     }
 
     public byte[] reverseTransform(byte[] pkt) {
@@ -91,6 +108,26 @@ public class SRTCPTransformer implements PacketTransformer {
     	// wrap data into raw packet for readable format
     	this.packet.wrap(pkt, offset, length);
     	
+        // Decode packet to RTCP format
+        boolean reversed = getReverseContext().reverseTransformPacket(packet);
+        if(reversed) {
+        	return packet.getData();
+        }
+        return null;
+    }
+
+    public boolean reverseTransform(ByteBuffer pkt) {
+        this.packet.wrap(pkt);
+        boolean reversed = false;
+        try {
+            reversed = getReverseContext().reverseTransformPacket(packet);
+        } finally {
+            this.packet.unwrap(reversed ? pkt : null);
+        }
+        return reversed;
+    }
+
+    private SRTCPCryptoContext getReverseContext() {
     	// Associate the packet with its encryption context
         long ssrc = this.packet.getRTCPSSRC();
         SRTCPCryptoContext context = this.contexts.get(ssrc);
@@ -100,13 +137,7 @@ public class SRTCPTransformer implements PacketTransformer {
             context.deriveSrtcpKeys();
             contexts.put(new Long(ssrc), context);
         }
-        
-        // Decode packet to RTCP format
-        boolean reversed = context.reverseTransformPacket(packet);
-        if(reversed) {
-        	return packet.getData();
-        }
-        return null;
+        return context;
     }
 
     /**
@@ -0,0 +1,213 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.crypto;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESFastEngine;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.restcomm.media.core.rtp.RtpPacket;
+
+/**
+ * SRTPCipherGCM implements the AEAD_AES_128_GCM and AEAD_AES_256_GCM transforms for SRTP and SRTCP, as defined by RFC 7714.
+ * <p>
+ * Encryption and authentication are done in a single pass. The packet header, plus the SRTCP index for SRTCP, is the
+ * associated data. The payload is encrypted in place and the 16-byte tag is written right after it.
+ * </p>
+ * <p>
+ * The cipher is keyed once per crypto context and only the 12-byte IV changes per packet. Instances are not thread safe,
+ * same as the crypto contexts that own them.
+ * </p>
+ */
+class SRTPCipherGCM {
+
+    /** Length of the authentication tag, in bytes */
+    static final int TAG_LENGTH = 16;
+
+    /** Length of the IV, in bytes */
+    static final int IV_LENGTH = 12;
+
+    private final GCMBlockCipher bcCipher;
+    private final Cipher jceCipher;
+    private SecretKeySpec jceKey;
+
+    /** Working copy of the packet for BouncyCastle, which only processes byte arrays */
+    private byte[] work;
+
+    /**
+     * Creates the engine.
+     * 
+     * @param provider The library that does the AES-GCM computation
+     * @throws IllegalStateException If the JVM does not provide AES-GCM
+     */
+    SRTPCipherGCM(SRTPCryptoProvider provider) {
+        if (provider == SRTPCryptoProvider.JCE) {
+            this.bcCipher = null;
+            try {
+                this.jceCipher = Cipher.getInstance("AES/GCM/NoPadding");
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("JCE does not support AES-GCM", e);
+            }
+        } else {
+            this.bcCipher = new GCMBlockCipher(new AESFastEngine());
+            this.jceCipher = null;
+            this.work = new byte[RtpPacket.RTP_PACKET_MAX_SIZE];
+        }
+    }
+
+    /**
+     * Sets the session encryption key. The key is copied, so the caller may clear it afterwards.
+     * 
+     * @param key The 16 or 32-byte session key
+     */
+    void init(byte[] key) {
+        if (this.jceCipher != null) {
+            this.jceKey = new SecretKeySpec(key, "AES");
+        } else {
+            // Keys the cipher and computes the hash subkey, later calls only change the IV
+            this.bcCipher.init(true, new AEADParameters(new KeyParameter(key), TAG_LENGTH * 8, new byte[IV_LENGTH]));
+        }
+    }
+
+    /**
+     * Encrypts a packet in place and writes the tag right after the payload.
+     * 
+     * @param data The packet. Its limit must leave room for the tag.
+     * @param aadLength The length of the header, which is authenticated but not encrypted
+     * @param aadTrailer Extra associated data authenticated after the header. May be null.
+     * @param length The length of the payload that follows the header
+     * @param iv The 12-byte IV
+     */
+    void encrypt(ByteBuffer data, int aadLength, byte[] aadTrailer, int length, byte[] iv) {
+        if (this.jceCipher != null) {
+            try {
+                this.jceCipher.init(Cipher.ENCRYPT_MODE, this.jceKey, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+                this.jceCipher.updateAAD(view(data, 0, aadLength));
+                if (aadTrailer != null) {
+                    this.jceCipher.updateAAD(aadTrailer);
+                }
+                this.jceCipher.doFinal(view(data, aadLength, length), view(data, aadLength, length + TAG_LENGTH));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Could not encrypt SRTP packet", e);
+            }
+            return;
+        }
+
+        final byte[] work = load(data, aadLength + length, TAG_LENGTH);
+        try {
+            this.bcCipher.init(true, new AEADParameters(null, TAG_LENGTH * 8, iv));
+            this.bcCipher.processAADBytes(work, 0, aadLength);
+            if (aadTrailer != null) {
+                this.bcCipher.processAADBytes(aadTrailer, 0, aadTrailer.length);
+            }
+            final int written = this.bcCipher.processBytes(work, aadLength, length, work, aadLength);
+            this.bcCipher.doFinal(work, aadLength + written);
+        } catch (InvalidCipherTextException e) {
+            throw new IllegalStateException("Could not encrypt SRTP packet", e);
+        }
+        store(data, aadLength, length + TAG_LENGTH);
+    }
+
+    /**
+     * Verifies and decrypts a packet in place. The tag is left after the payload, callers shrink the packet afterwards.
+     * 
+     * @param data The packet
+     * @param aadLength The length of the header, which is authenticated but not encrypted
+     * @param aadTrailer Extra associated data authenticated after the header. May be null.
+     * @param length The length of the encrypted payload plus the tag
+     * @param iv The 12-byte IV
+     * @return <code>true</code> if the tag is valid; <code>false</code> otherwise, in which case the payload is left
+     *         untouched.
+     */
+    boolean decrypt(ByteBuffer data, int aadLength, byte[] aadTrailer, int length, byte[] iv) {
+        if (length < TAG_LENGTH) {
+            return false;
+        }
+
+        if (this.jceCipher != null) {
+            try {
+                this.jceCipher.init(Cipher.DECRYPT_MODE, this.jceKey, new GCMParameterSpec(TAG_LENGTH * 8, iv));
+                this.jceCipher.updateAAD(view(data, 0, aadLength));
+                if (aadTrailer != null) {
+                    this.jceCipher.updateAAD(aadTrailer);
+                }
+                // The tag is verified before any plaintext is written
+                this.jceCipher.doFinal(view(data, aadLength, length), view(data, aadLength, length));
+            } catch (AEADBadTagException e) {
+                return false;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Could not decrypt SRTP packet", e);
+            }
+            return true;
+        }
+
+        final byte[] work = load(data, aadLength + length, 0);
+        try {
+            this.bcCipher.init(false, new AEADParameters(null, TAG_LENGTH * 8, iv));
+            this.bcCipher.processAADBytes(work, 0, aadLength);
+            if (aadTrailer != null) {
+                this.bcCipher.processAADBytes(aadTrailer, 0, aadTrailer.length);
+            }
+            final int written = this.bcCipher.processBytes(work, aadLength, length, work, aadLength);
+            this.bcCipher.doFinal(work, aadLength + written);
+        } catch (InvalidCipherTextException e) {
+            return false;
+        }
+        store(data, aadLength, length - TAG_LENGTH);
+        return true;
+    }
+
+    /**
+     * Gets a view over a region of the packet. Cipher rejects the same buffer object as input and output, but accepts two
+     * views over the same bytes.
+     */
+    private static ByteBuffer view(ByteBuffer data, int offset, int length) {
+        final ByteBuffer view = data.duplicate();
+        view.limit(offset + length).position(offset);
+        return view;
+    }
+
+    private byte[] load(ByteBuffer data, int length, int room) {
+        if (this.work.length < length + room) {
+            this.work = new byte[length + room];
+        }
+        data.rewind();
+        data.get(this.work, 0, length);
+        return this.work;
+    }
+
+    private void store(ByteBuffer data, int offset, int length) {
+        data.position(offset);
+        data.put(this.work, offset, length);
+        data.rewind();
+    }
+
+}
@@ -139,6 +139,17 @@ public class SRTPCryptoContext {
 	 */
 	private final SRTPCipherCTR cipherCtr = new SRTPCipherCTR();
 
+	/**
+	 * JCE engines, used instead of the BouncyCastle ones when the policy asks
+	 * for them
+	 */
+	private JceSRTPEngine jce;
+
+	/**
+	 * AES-GCM engine, used by AEAD policies instead of the cipher and the HMAC
+	 */
+	private SRTPCipherGCM cipherGcm;
+
 	/**
 	 * Temp store.
 	 */
@@ -149,6 +160,11 @@ public class SRTPCryptoContext {
 	 */
 	private final byte[] ivStore = new byte[16];
 
+	/**
+	 * Temp store.
+	 */
+	private final byte[] aeadIvStore = new byte[SRTPCipherGCM.IV_LENGTH];
+
 	/**
 	 * Temp store.
 	 */
@@ -225,7 +241,9 @@ public class SRTPCryptoContext {
 		masterKey = new byte[policy.getEncKeyLength()];
 		System.arraycopy(masterK, 0, masterKey, 0, masterK.length);
 
-		masterSalt = new byte[policy.getSaltKeyLength()];
+		// AEAD salts are 96 bit long and the key derivation pads them with
+		// zeros to the 112 bits of the AES-CM PRF (RFC 7714, section 11)
+		masterSalt = new byte[policy.isAead() ? 14 : policy.getSaltKeyLength()];
 		System.arraycopy(masterS, 0, masterSalt, 0, masterS.length);
 
 		mac = new HMac(new SHA1Digest());
@@ -254,6 +272,14 @@ public class SRTPCryptoContext {
 			encKey = new byte[this.policy.getEncKeyLength()];
 			saltKey = new byte[this.policy.getSaltKeyLength()];
 			break;
+
+		case SRTPPolicy.AESGCM_ENCRYPTION:
+			// the block cipher is still needed by the key derivation
+			cipher = new AESFastEngine();
+			cipherGcm = new SRTPCipherGCM(policy.getCryptoProvider());
+			encKey = new byte[policy.getEncKeyLength()];
+			saltKey = new byte[policy.getSaltKeyLength()];
+			break;
 		}
 
 		switch (policy.getAuthType()) {
@@ -271,6 +297,14 @@ public class SRTPCryptoContext {
 		default:
 			tagStore = null;
 		}
+
+		if (policy.getCryptoProvider() == SRTPCryptoProvider.JCE) {
+			boolean encrypt = policy.getEncType() == SRTPPolicy.AESCM_ENCRYPTION;
+			boolean authenticate = policy.getAuthType() == SRTPPolicy.HMACSHA1_AUTHENTICATION;
+			if (encrypt || authenticate) {
+				jce = new JceSRTPEngine(encrypt, authenticate);
+			}
+		}
 	}
 
 	/**
@@ -354,8 +388,10 @@ public class SRTPCryptoContext {
 	 *            the RTP packet that is going to be sent out
 	 */
 	public void transformPacket(RawPacket pkt) {
-		/* Encrypt the packet using Counter Mode encryption */
-		if (policy.getEncType() == SRTPPolicy.AESCM_ENCRYPTION || policy.getEncType() == SRTPPolicy.TWOFISH_ENCRYPTION) {
+		if (policy.isAead()) {
+			/* Encrypt and authenticate the packet in a single pass */
+			processPacketAESGCM(pkt, roc, true);
+		} else if (policy.getEncType() == SRTPPolicy.AESCM_ENCRYPTION || policy.getEncType() == SRTPPolicy.TWOFISH_ENCRYPTION) {
 			processPacketAESCM(pkt);
 		} else if (policy.getEncType() == SRTPPolicy.AESF8_ENCRYPTION || policy.getEncType() == SRTPPolicy.TWOFISHF8_ENCRYPTION) {
 			/* Encrypt the packet using F8 Mode encryption */
@@ -411,6 +447,15 @@ public class SRTPCryptoContext {
 			return false;
 		}
 		
+		// Authenticate and decrypt AEAD packet
+		if (policy.isAead()) {
+			if (!processPacketAESGCM(pkt, guessedROC, false)) {
+				return false;
+			}
+			update(seqNo, guessedIndex);
+			return true;
+		}
+
 		// Authenticate packet
 		if (policy.getAuthType() != SRTPPolicy.NULL_AUTHENTICATION) {
 			int tagLength = policy.getAuthTagLength();
@@ -480,7 +525,11 @@ public class SRTPCryptoContext {
 		final int payloadOffset = pkt.getHeaderLength();
 		final int payloadLength = pkt.getPayloadLength();
 
-		cipherCtr.process(cipher, pkt.getBuffer(), payloadOffset, payloadLength, ivStore);
+		if (jce != null && jce.hasCipher()) {
+			jce.process(pkt.getBuffer(), payloadOffset, payloadLength, ivStore);
+		} else {
+			cipherCtr.process(cipher, pkt.getBuffer(), payloadOffset, payloadLength, ivStore);
+		}
 	}
 
 	/**
@@ -509,6 +558,51 @@ public class SRTPCryptoContext {
 		SRTPCipherF8.process(cipher, pkt.getBuffer(), payloadOffset, payloadLength, ivStore, cipherF8);
 	}
 
+	/**
+	 * Perform AES-GCM encryption and authentication, or authentication check
+	 * and decryption. The tag is appended to or removed from the packet.
+	 * 
+	 * @param pkt
+	 *            the RTP packet to be encrypted / decrypted
+	 * @param rocIn
+	 *            Roll-Over-Counter
+	 * @param encrypt
+	 *            whether to encrypt or decrypt the packet
+	 * @return false if the authentication check failed
+	 */
+	private boolean processPacketAESGCM(RawPacket pkt, int rocIn, boolean encrypt) {
+		final int ssrc = pkt.getSSRC();
+		final int seqNo = pkt.getSequenceNumber();
+		final int headerLength = pkt.getHeaderLength();
+		final int payloadLength = pkt.getLength() - headerLength;
+
+		// IV = (00 00 || SSRC || ROC || SEQ) XOR salt, see RFC 7714 section 8.1
+		aeadIvStore[0] = saltKey[0];
+		aeadIvStore[1] = saltKey[1];
+		aeadIvStore[2] = (byte) ((ssrc >> 24) ^ saltKey[2]);
+		aeadIvStore[3] = (byte) ((ssrc >> 16) ^ saltKey[3]);
+		aeadIvStore[4] = (byte) ((ssrc >> 8) ^ saltKey[4]);
+		aeadIvStore[5] = (byte) (ssrc ^ saltKey[5]);
+		aeadIvStore[6] = (byte) ((rocIn >> 24) ^ saltKey[6]);
+		aeadIvStore[7] = (byte) ((rocIn >> 16) ^ saltKey[7]);
+		aeadIvStore[8] = (byte) ((rocIn >> 8) ^ saltKey[8]);
+		aeadIvStore[9] = (byte) (rocIn ^ saltKey[9]);
+		aeadIvStore[10] = (byte) ((seqNo >> 8) ^ saltKey[10]);
+		aeadIvStore[11] = (byte) (seqNo ^ saltKey[11]);
+
+		if (encrypt) {
+			pkt.grow(SRTPCipherGCM.TAG_LENGTH);
+			cipherGcm.encrypt(pkt.getBuffer(), headerLength, null, payloadLength, aeadIvStore);
+			return true;
+		}
+
+		if (!cipherGcm.decrypt(pkt.getBuffer(), headerLength, null, payloadLength, aeadIvStore)) {
+			return false;
+		}
+		pkt.shrink(SRTPCipherGCM.TAG_LENGTH);
+		return true;
+	}
+
 	byte[] tempBuffer = new byte[RtpPacket.RTP_PACKET_MAX_SIZE];
 
 	/**
@@ -520,15 +614,20 @@ public class SRTPCryptoContext {
 	 *            Roll-Over-Counter
 	 */
 	private void authenticatePacketHMCSHA1(RawPacket pkt, int rocIn) {
+		rbStore[0] = (byte) (rocIn >> 24);
+		rbStore[1] = (byte) (rocIn >> 16);
+		rbStore[2] = (byte) (rocIn >> 8);
+		rbStore[3] = (byte) rocIn;
+		if (jce != null && jce.hasMac()) {
+			jce.authenticate(pkt.getBuffer(), rbStore, tagStore);
+			return;
+		}
+
 		ByteBuffer buf = pkt.getBuffer();
 		buf.rewind();
 		int len = buf.remaining();
 		buf.get(tempBuffer, 0, len);
 		mac.update(tempBuffer, 0, len);
-		rbStore[0] = (byte) (rocIn >> 24);
-		rbStore[1] = (byte) (rocIn >> 16);
-		rbStore[2] = (byte) (rocIn >> 8);
-		rbStore[3] = (byte) rocIn;
 		mac.update(rbStore, 0, rbStore.length);
 		mac.doFinal(tagStore, 0);
 	}
@@ -628,13 +727,16 @@ public class SRTPCryptoContext {
 			case SRTPPolicy.HMACSHA1_AUTHENTICATION:
 				KeyParameter key = new KeyParameter(authKey);
 				mac.init(key);
+				if (jce != null && jce.hasMac()) {
+					jce.initMac(authKey);
+				}
 				break;
 
 			default:
 				break;
 			}
+			Arrays.fill(authKey, (byte) 0);
 		}
-		Arrays.fill(authKey, (byte) 0);
 
 		// compute the session salt
 		label = 0x02;
@@ -648,6 +750,12 @@ public class SRTPCryptoContext {
 		}
 		encryptionKey = new KeyParameter(encKey);
 		cipher.init(true, encryptionKey);
+		if (jce != null && jce.hasCipher()) {
+			jce.initCipher(encKey);
+		}
+		if (cipherGcm != null) {
+			cipherGcm.init(encKey);
+		}
 		Arrays.fill(encKey, (byte) 0);
 	}
 
@@ -0,0 +1,65 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.crypto;
+
+/**
+ * Cryptographic engines an {@link SRTPPolicy} can be processed with.
+ * <p>
+ * The default provider is read from the <code>restcomm.media.srtp.crypto-provider</code> system property.
+ * </p>
+ */
+public enum SRTPCryptoProvider {
+
+    /**
+     * BouncyCastle lightweight engines, written in pure Java.
+     */
+    BOUNCYCASTLE,
+
+    /**
+     * JCE <code>AES/CTR/NoPadding</code> and <code>HmacSHA1</code>, which the JVM can run on AES-NI and SHA extensions.
+     * <p>
+     * Only AES Counter Mode encryption and HMAC-SHA1 authentication use JCE. F8 mode and TwoFish keep running on
+     * BouncyCastle.
+     * </p>
+     */
+    JCE;
+
+    public static final String PROVIDER_PROPERTY = "restcomm.media.srtp.crypto-provider";
+
+    /**
+     * Gets the provider configured with the <code>restcomm.media.srtp.crypto-provider</code> system property.
+     * 
+     * @return The configured provider, {@link #BOUNCYCASTLE} if none or an unknown one is set.
+     */
+    public static SRTPCryptoProvider getDefault() {
+        final String name = System.getProperty(PROVIDER_PROPERTY);
+        if (name != null) {
+            for (SRTPCryptoProvider provider : values()) {
+                if (provider.name().equalsIgnoreCase(name.trim())) {
+                    return provider;
+                }
+            }
+        }
+        return BOUNCYCASTLE;
+    }
+
+}
@@ -39,6 +39,13 @@ public class SRTPPolicy
      * F8 Mode TwoFish Cipher
      */
     public final static int TWOFISHF8_ENCRYPTION = 4;
+
+    /**
+     * Galois/Counter Mode AES Cipher, defined in RFC 7714. It authenticates
+     * the packet too, so no separate authentication is used with it.
+     */
+    public final static int AESGCM_ENCRYPTION = 5;
+
     /**
      * Null Authentication, no authentication
      */
@@ -84,6 +91,11 @@ public class SRTPPolicy
      */
     private int saltKeyLength;
 
+    /**
+     * Engines used to encrypt and authenticate packets
+     */
+    private SRTPCryptoProvider cryptoProvider;
+
     /**
      * Construct a SRTPPolicy object based on given parameters.
      * This class acts as a storage class, so all the parameters are passed in
@@ -109,6 +121,7 @@ public class SRTPPolicy
         this.authKeyLength = authKeyLength;
         this.authTagLength = authTagLength;
         this.saltKeyLength = saltKeyLength;
+        this.cryptoProvider = SRTPCryptoProvider.getDefault();
     }
 
     /**
@@ -230,4 +243,33 @@ public class SRTPPolicy
     {
         this.saltKeyLength = keyLength;
     }
+
+    /**
+     * Whether the encryption also authenticates packets (AEAD), in which case
+     * the authentication tag length is the length of the AEAD tag
+     *
+     * @return true for AES-GCM
+     */
+    public boolean isAead()
+    {
+        return this.encType == AESGCM_ENCRYPTION;
+    }
+
+    /**
+     * Get the engines used to encrypt and authenticate packets
+     * @return the crypto provider
+     */
+    public SRTPCryptoProvider getCryptoProvider()
+    {
+        return this.cryptoProvider;
+    }
+
+    /**
+     * Set the engines used to encrypt and authenticate packets
+     * @param cryptoProvider the crypto provider
+     */
+    public void setCryptoProvider(SRTPCryptoProvider cryptoProvider)
+    {
+        this.cryptoProvider = cryptoProvider;
+    }
 }
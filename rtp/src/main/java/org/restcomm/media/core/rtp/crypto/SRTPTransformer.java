@@ -7,6 +7,8 @@
  */
 package org.restcomm.media.core.rtp.crypto;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.Hashtable;
 
 import org.apache.logging.log4j.LogManager;
@@ -39,6 +41,12 @@ public class SRTPTransformer implements PacketTransformer {
 	 */
 	private Hashtable<Long, SRTPCryptoContext> contexts;
 
+	/**
+	 * Context of the last packet, so a stream of packets does not box its SSRC
+	 * on every lookup
+	 */
+	private SRTPCryptoContext lastContext;
+
 	/**
 	 * Constructs a SRTPTransformer object.
 	 * 
@@ -75,19 +83,39 @@ public class SRTPTransformer implements PacketTransformer {
 		// Updates the contents of raw packet with new incoming packet 
 		this.rawPacket.wrap(pkt, offset, length);
 		
+		// Transform RTP packet into SRTP
+		getForwardContext().transformPacket(this.rawPacket);
+		return this.rawPacket.getData();
+	}
+
+	public boolean transform(ByteBuffer pkt) {
+		this.rawPacket.wrap(pkt);
+		try {
+			getForwardContext().transformPacket(this.rawPacket);
+		} catch (BufferOverflowException e) {
+			logger.warn("No room left in buffer for the SRTP authentication tag");
+			return false;
+		} finally {
+			this.rawPacket.unwrap(pkt);
+		}
+		return true;
+	}
+
+	private SRTPCryptoContext getForwardContext() {
 		// Associate packet to a crypto context
 		long ssrc = rawPacket.getSSRC();
-		SRTPCryptoContext context = contexts.get(ssrc);
+		if (this.lastContext != null && this.lastContext.getSSRC() == ssrc) {
+			return this.lastContext;
+		}
 
+		SRTPCryptoContext context = contexts.get(ssrc);
 		if (context == null) {
 			context = forwardEngine.getDefaultContext().deriveContext(ssrc, 0, 0);
 			context.deriveSrtpKeys(0);
 			contexts.put(ssrc, context);
 		}
-
-		// Transform RTP packet into SRTP
-		context.transformPacket(this.rawPacket);
-		return this.rawPacket.getData();
+		this.lastContext = context;
+		return context;
 	}
 
 	/**
@@ -106,20 +134,39 @@ public class SRTPTransformer implements PacketTransformer {
 		// Wrap data into the raw packet for readable format
 		this.rawPacket.wrap(pkt, offset, length);
 		
+		boolean reversed = getReverseContext().reverseTransformPacket(this.rawPacket);
+		if(reversed) {
+			return this.rawPacket.getData();
+		}
+		return null;
+	}
+
+	public boolean reverseTransform(ByteBuffer pkt) {
+		this.rawPacket.wrap(pkt);
+		boolean reversed = false;
+		try {
+			reversed = getReverseContext().reverseTransformPacket(this.rawPacket);
+		} finally {
+			this.rawPacket.unwrap(reversed ? pkt : null);
+		}
+		return reversed;
+	}
+
+	private SRTPCryptoContext getReverseContext() {
 		// Associate packet to a crypto context
 		long ssrc = this.rawPacket.getSSRC();
+		if (this.lastContext != null && this.lastContext.getSSRC() == ssrc) {
+			return this.lastContext;
+		}
+
 		SRTPCryptoContext context = this.contexts.get(ssrc);
 		if (context == null) {
 			context = this.reverseEngine.getDefaultContext().deriveContext(ssrc, 0, 0);
 			context.deriveSrtpKeys(this.rawPacket.getSequenceNumber());
 			contexts.put(ssrc, context);
 		}
-
-		boolean reversed = context.reverseTransformPacket(this.rawPacket);
-		if(reversed) {
-			return this.rawPacket.getData();
-		}
-		return null;
+		this.lastContext = context;
+		return context;
 	}
 
 	/**
@@ -129,6 +176,7 @@ public class SRTPTransformer implements PacketTransformer {
 	 * data and forces a cleanup of the crypto contexts.
 	 */
 	public void close() {
+		lastContext = null;
 		forwardEngine.close();
 		if (forwardEngine != reverseEngine) {
 			reverseEngine.close();
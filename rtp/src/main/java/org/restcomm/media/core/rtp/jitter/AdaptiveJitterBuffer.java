@@ -0,0 +1,601 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.jitter;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.restcomm.media.core.rtp.BufferListener;
+import org.restcomm.media.core.rtp.RtpClock;
+import org.restcomm.media.core.rtp.RtpPacket;
+import org.restcomm.media.core.sdp.format.RTPFormat;
+import org.restcomm.media.core.spi.format.EncodingName;
+import org.restcomm.media.core.spi.memory.Frame;
+import org.restcomm.media.core.spi.memory.Memory;
+
+/**
+ * Jitter buffer that sizes its playout delay from the network jitter.
+ * <p>
+ * The interarrival jitter is estimated as specified in RFC 3550 and the target delay is kept at
+ * <code>3 * jitter + packetization time</code>, bounded by {@link #getMinDelay()} and {@link #getMaxDelay()}. Until enough
+ * packets were received to trust the estimate, the configured jitter buffer size is used as target.
+ * </p>
+ * <p>
+ * Frames are stored in a ring indexed by sequence number, so reordered packets are put in place in constant time. A missing
+ * frame is given up as lost once the frames behind it are due for playout.
+ * </p>
+ * <p>
+ * The delay follows the target by time-stretching during silence: a silent frame is dropped when the buffer holds too much
+ * audio and repeated when it is running out. Speech is never stretched.
+ * </p>
+ */
+public class AdaptiveJitterBuffer implements JitterBuffer, Serializable {
+
+    private static final long serialVersionUID = 2981350284512371874L;
+
+    private static final Logger logger = LogManager.getLogger(AdaptiveJitterBuffer.class);
+
+    /** Number of frames the ring can hold. Must be a power of two. */
+    static final int RING_SIZE = 64;
+    private static final int RING_MASK = RING_SIZE - 1;
+
+    /** Default bounds of the playout delay, in milliseconds */
+    public static final int DEFAULT_MIN_DELAY = 20;
+    public static final int DEFAULT_MAX_DELAY = 200;
+
+    /** Packets received before the jitter estimate drives the playout delay */
+    private static final int WARMUP_PACKETS = 16;
+
+    /** Frames played out between two time-stretch operations */
+    private static final int STRETCH_INTERVAL = 4;
+
+    /** Packetization time assumed until two consecutive frames are received, in milliseconds */
+    private static final long DEFAULT_FRAME_DURATION = 20;
+
+    private static final EncodingName PCMU = new EncodingName("pcmu");
+    private static final EncodingName PCMA = new EncodingName("pcma");
+    private static final EncodingName CN = new EncodingName("cn");
+
+    // The underlying ring, indexed by extended sequence number
+    private final Frame[] ring = new Frame[RING_SIZE];
+    // Extended sequence number of the next frame to be played out
+    private long head = -1;
+    // Highest extended sequence number received
+    private long highest = -1;
+    // Number of frames in the ring
+    private int count;
+    // Whether a frame was played out since the last restart
+    private boolean playing;
+
+    // RTP clock
+    private final RtpClock rtpClock;
+    // currently used format
+    private RTPFormat format;
+
+    // playout delay, in milliseconds
+    private final int initialDelay;
+    private volatile int minDelay = DEFAULT_MIN_DELAY;
+    private volatile int maxDelay = DEFAULT_MAX_DELAY;
+    private volatile long targetDelay;
+    private long frameDuration = DEFAULT_FRAME_DURATION;
+
+    // RFC 3550 jitter estimate
+    private long currentTransit;
+    private long currentJitter;
+    private long received;
+
+    // statistics
+    private volatile int dropCount;
+    private volatile int lostCount;
+    private volatile int stretchCount;
+    private int framesSinceStretch;
+
+    // buffer's monitor
+    private BufferListener listener;
+    private final AtomicBoolean ready;
+    private volatile boolean useBuffer = true;
+
+    private final Lock lock = new ReentrantLock();
+
+    /**
+     * Creates new instance of jitter.
+     * 
+     * @param clock the rtp clock.
+     * @param jitterBufferSize the playout delay used until the jitter estimate settles, in milliseconds.
+     */
+    public AdaptiveJitterBuffer(RtpClock clock, int jitterBufferSize) {
+        this.rtpClock = clock;
+        this.initialDelay = jitterBufferSize;
+        this.targetDelay = clamp(jitterBufferSize);
+        this.ready = new AtomicBoolean(false);
+    }
+
+    public int getMinDelay() {
+        return minDelay;
+    }
+
+    /**
+     * Sets the lowest playout delay the buffer may adapt to.
+     * 
+     * @param minDelay the delay, in milliseconds.
+     */
+    public void setMinDelay(int minDelay) {
+        this.minDelay = minDelay;
+    }
+
+    @Override
+    public int getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * Sets the highest playout delay the buffer may adapt to.
+     * 
+     * @param maxDelay the delay, in milliseconds.
+     */
+    public void setMaxDelay(int maxDelay) {
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Gets the playout delay the buffer is currently aiming for.
+     * 
+     * @return the delay, in milliseconds.
+     */
+    public long getTargetDelay() {
+        return targetDelay;
+    }
+
+    /**
+     * 
+     * @return the current value of the network RTP jitter. The value is in normalized form as specified in RFC 3550
+     *         http://tools.ietf.org/html/rfc3550#appendix-A.8
+     */
+    public long getEstimatedJitter() {
+        return currentJitter >> 4;
+    }
+
+    /**
+     * Get the number of packets dropped because they arrived too late or the buffer overflowed.
+     * 
+     * @return the number of dropped packets.
+     */
+    @Override
+    public int getDropped() {
+        return dropCount;
+    }
+
+    @Override
+    public int getNominalDelay() {
+        return (int) targetDelay;
+    }
+
+    @Override
+    public boolean isAdaptive() {
+        return true;
+    }
+
+    /**
+     * Gets the number of frames that were skipped because they never arrived in time.
+     * 
+     * @return the number of lost frames.
+     */
+    public int getLost() {
+        return lostCount;
+    }
+
+    /**
+     * Gets the number of silent frames dropped or repeated to adapt the playout delay.
+     * 
+     * @return the number of time-stretch operations.
+     */
+    public int getStretched() {
+        return stretchCount;
+    }
+
+    public boolean bufferInUse() {
+        return this.useBuffer;
+    }
+
+    @Override
+    public void setInUse(boolean useBuffer) {
+        this.useBuffer = useBuffer;
+    }
+
+    @Override
+    public void setListener(BufferListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void write(RtpPacket packet, RTPFormat format) {
+        // checking format
+        if (format == null) {
+            if (logger.isTraceEnabled()) {
+                logger.trace("No format specified. Packet dropped!");
+            }
+            return;
+        }
+
+        boolean filled;
+        this.lock.lock();
+        try {
+            filled = safeWrite(packet, format);
+        } finally {
+            this.lock.unlock();
+        }
+
+        if (filled && this.listener != null) {
+            this.listener.onFill();
+        }
+    }
+
+    private boolean safeWrite(RtpPacket packet, RTPFormat format) {
+        if (this.format == null || this.format.getID() != format.getID()) {
+            this.format = format;
+            if (logger.isDebugEnabled()) {
+                logger.debug("Format changed! [" + this.format.toString() + "]");
+            }
+        }
+
+        // if this is first packet then synchronize clock
+        final long seq;
+        if (this.highest == -1) {
+            this.rtpClock.synchronize(packet.getTimestamp());
+            this.currentTransit = this.rtpClock.getLocalRtpTime() - packet.getTimestamp();
+            seq = packet.getSeqNumber();
+            this.head = seq;
+            this.highest = seq;
+        } else {
+            estimateJitter(packet);
+            seq = extend(packet.getSeqNumber());
+        }
+        this.received++;
+
+        // update clock rate
+        this.rtpClock.setClockRate(this.format.getClockRate());
+
+        if (seq < this.head) {
+            if (this.playing || this.highest - seq >= RING_SIZE) {
+                // packet is due for playout already
+                if (logger.isTraceEnabled()) {
+                    logger.trace("drop packet: head=" + this.head + ", seq=" + packet.getSeqNumber());
+                }
+                this.dropCount++;
+                return false;
+            }
+            // reordered before playout started
+            this.head = seq;
+        }
+
+        // overflow? make room by giving up the oldest frames
+        while (seq - this.head >= RING_SIZE) {
+            if (discard(this.head)) {
+                this.dropCount++;
+            }
+            this.head++;
+        }
+
+        final int index = (int) (seq & RING_MASK);
+        if (this.ring[index] != null) {
+            // duplicate packet
+            return false;
+        }
+
+        Frame f;
+        final Frame frame = packet.getFrame();
+        if (frame != null) {
+            // keep the frame the packet was received in, the payload is used in place
+            f = frame.retain();
+            f.setOffset(frame.getOffset() + packet.getHeaderLength());
+            f.setLength(packet.getPayloadLength());
+        } else {
+            f = Memory.allocate(packet.getPayloadLength());
+            f.setOffset(0);
+            f.setLength(packet.getPayloadLength());
+            packet.getPayload(f.getData(), 0);
+        }
+        f.setHeader(null);
+        f.setSequenceNumber(packet.getSeqNumber());
+        // here time is in milliseconds
+        f.setTimestamp(this.rtpClock.convertToAbsoluteTime(packet.getTimestamp()));
+        f.setFormat(this.format.getFormat());
+
+        this.ring[index] = f;
+        this.count++;
+
+        // learn packetization time from consecutive frames
+        final Frame previous = this.ring[(int) ((seq - 1) & RING_MASK)];
+        if (previous != null && seq - 1 >= this.head) {
+            final long d = f.getTimestamp() - previous.getTimestamp();
+            if (d > 0) {
+                this.frameDuration = d;
+            }
+        }
+        if (seq > this.highest) {
+            this.highest = seq;
+        }
+
+        adaptTargetDelay();
+
+        // check if this buffer already full
+        final boolean readyTest = !this.useBuffer || bufferedDuration() >= this.targetDelay;
+        if (readyTest && this.ready.compareAndSet(false, true)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Jitter Buffer is ready! [duration=" + bufferedDuration() + "ms, target=" + this.targetDelay
+                        + "ms, frames=" + this.count + "]");
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Calculates the current network jitter, which is an estimate of the statistical variance of the RTP data packet
+     * interarrival time: http://tools.ietf.org/html/rfc3550#appendix-A.8
+     */
+    private void estimateJitter(RtpPacket newPacket) {
+        long transit = this.rtpClock.getLocalRtpTime() - newPacket.getTimestamp();
+        long d = transit - this.currentTransit;
+        if (d < 0) {
+            d = -d;
+        }
+        this.currentTransit = transit;
+        this.currentJitter += d - ((this.currentJitter + 8) >> 4);
+    }
+
+    private void adaptTargetDelay() {
+        if (this.received < WARMUP_PACKETS) {
+            this.targetDelay = clamp(this.initialDelay);
+            return;
+        }
+
+        final int clockRate = this.rtpClock.getClockRate();
+        final long jitter = clockRate > 0 ? getEstimatedJitter() * 1000 / clockRate : 0;
+        this.targetDelay = clamp(3 * jitter + this.frameDuration);
+    }
+
+    private long clamp(long delay) {
+        return Math.max(this.minDelay, Math.min(this.maxDelay, delay));
+    }
+
+    /**
+     * Maps a 16-bit sequence number to the extended sequence number closest to the highest one received.
+     */
+    private long extend(int seq) {
+        final short delta = (short) (seq - (int) (this.highest & 0xFFFF));
+        return this.highest + delta;
+    }
+
+    private long bufferedDuration() {
+        return this.count == 0 ? 0 : (this.highest - this.head + 1) * this.frameDuration;
+    }
+
+    private boolean discard(long seq) {
+        final int index = (int) (seq & RING_MASK);
+        final Frame frame = this.ring[index];
+        if (frame != null) {
+            this.ring[index] = null;
+            this.count--;
+            frame.recycle();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Polls the next frame due for playout.
+     *
+     * @param timestamp the media time measured by reader
+     * @return the media frame.
+     */
+    @Override
+    public Frame read(long timestamp) {
+        this.lock.lock();
+        try {
+            return safeRead();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private Frame safeRead() {
+        Frame frame = poll();
+        if (frame == null) {
+            this.ready.set(false);
+            if (logger.isTraceEnabled()) {
+                logger.trace("Jitter Buffer is empty. Consumer will wait until buffer is filled.");
+            }
+            return null;
+        }
+        this.playing = true;
+
+        long duration = durationOf(frame);
+        if (this.useBuffer && ++this.framesSinceStretch >= STRETCH_INTERVAL && this.count > 0 && isSilence(frame)) {
+            final long buffered = bufferedDuration();
+            if (buffered > this.targetDelay + this.frameDuration) {
+                // too much latency, skip the silent frame
+                frame.recycle();
+                frame = poll();
+                duration = durationOf(frame);
+                this.framesSinceStretch = 0;
+                this.stretchCount++;
+            } else if (buffered + this.frameDuration < this.targetDelay) {
+                // running out of frames, play the silent frame twice
+                this.head--;
+                this.ring[(int) (this.head & RING_MASK)] = frame;
+                this.count++;
+                frame = copy(frame);
+                duration = this.frameDuration;
+                this.framesSinceStretch = 0;
+                this.stretchCount++;
+            }
+        }
+
+        // buffer empty now? - change ready flag.
+        if (this.count == 0) {
+            this.ready.set(false);
+            if (logger.isTraceEnabled()) {
+                logger.trace("Read last packet from Jitter Buffer.");
+            }
+            // set it as 1 ms since otherwise will be dropped by pipe
+            duration = 1;
+        }
+
+        // convert duration to nanoseconds
+        frame.setDuration(duration * 1000000L);
+        frame.setTimestamp(frame.getTimestamp() * 1000000L);
+        return frame;
+    }
+
+    /**
+     * Takes the frame at the head of the ring, skipping frames that never arrived.
+     */
+    private Frame poll() {
+        while (this.count > 0) {
+            final int index = (int) (this.head & RING_MASK);
+            final Frame frame = this.ring[index];
+            this.head++;
+            if (frame != null) {
+                this.ring[index] = null;
+                this.count--;
+                return frame;
+            }
+            this.lostCount++;
+        }
+        return null;
+    }
+
+    private long durationOf(Frame frame) {
+        if (this.count > 0) {
+            final Frame next = this.ring[(int) (this.head & RING_MASK)];
+            if (next != null) {
+                // duration measured by wall clock, in case of RFC2833 event timestamp remains same
+                final long d = next.getTimestamp() - frame.getTimestamp();
+                return d > 0 ? d : 0;
+            }
+        }
+        return this.frameDuration;
+    }
+
+    private Frame copy(Frame frame) {
+        final Frame copy = Memory.allocate(frame.getLength());
+        System.arraycopy(frame.getData(), frame.getOffset(), copy.getData(), 0, frame.getLength());
+        copy.setOffset(0);
+        copy.setLength(frame.getLength());
+        copy.setHeader(null);
+        copy.setSequenceNumber(frame.getSequenceNumber());
+        copy.setTimestamp(frame.getTimestamp());
+        copy.setFormat(frame.getFormat());
+        return copy;
+    }
+
+    /**
+     * Checks whether a frame carries silence.
+     * <p>
+     * Comfort noise and payloads of at most two bytes (discontinuous transmission) are silent. G.711 frames are silent when
+     * no sample exceeds the second segment of the companding curve, around -40 dBov.
+     * </p>
+     */
+    static boolean isSilence(Frame frame) {
+        if (frame.getLength() <= 2) {
+            return true;
+        }
+
+        if (frame.getFormat() == null) {
+            return false;
+        }
+
+        final EncodingName name = frame.getFormat().getName();
+        final int mask;
+        if (CN.equals(name)) {
+            return true;
+        } else if (PCMU.equals(name)) {
+            mask = 0xFF;
+        } else if (PCMA.equals(name)) {
+            mask = 0x55;
+        } else {
+            return false;
+        }
+
+        final byte[] data = frame.getData();
+        final int end = frame.getOffset() + frame.getLength();
+        for (int i = frame.getOffset(); i < end; i++) {
+            final int segment = ((data[i] ^ mask) >> 4) & 0x07;
+            if (segment > 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Resets buffer.
+     */
+    public void reset() {
+        this.lock.lock();
+        try {
+            for (int i = 0; i < RING_SIZE; i++) {
+                if (this.ring[i] != null) {
+                    this.ring[i].recycle();
+                    this.ring[i] = null;
+                }
+            }
+            this.count = 0;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void restart() {
+        this.lock.lock();
+        try {
+            reset();
+            this.ready.set(false);
+            this.head = -1;
+            this.highest = -1;
+            this.playing = false;
+            this.format = null;
+            this.received = 0;
+            this.currentJitter = 0;
+            this.currentTransit = 0;
+            this.frameDuration = DEFAULT_FRAME_DURATION;
+            this.targetDelay = clamp(this.initialDelay);
+            this.framesSinceStretch = 0;
+            this.dropCount = 0;
+            this.lostCount = 0;
+            this.stretchCount = 0;
+        } finally {
+            this.lock.unlock();
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Restarted jitter buffer.");
+        }
+    }
+
+}
@@ -178,10 +178,26 @@ public class FixedJitterBuffer implements JitterBuffer, Serializable {
      * 
      * @return the number of dropped packets.
      */
+    @Override
     public int getDropped() {
         return dropCount;
     }
 
+    @Override
+    public int getNominalDelay() {
+        return (int) jitterBufferSize;
+    }
+
+    @Override
+    public int getMaxDelay() {
+        return (int) jitterBufferSize;
+    }
+
+    @Override
+    public boolean isAdaptive() {
+        return false;
+    }
+
     public boolean bufferInUse() {
         return this.useBuffer;
     }
@@ -241,15 +257,24 @@ public class FixedJitterBuffer implements JitterBuffer, Serializable {
             }
         }
 
-        Frame f = Memory.allocate(packet.getPayloadLength());
+        Frame f;
+        final Frame received = packet.getFrame();
+        if (received != null) {
+            // keep the frame the packet was received in, the payload is used in place
+            f = received.retain();
+            f.setOffset(received.getOffset() + packet.getHeaderLength());
+            f.setLength(packet.getPayloadLength());
+        } else {
+            f = Memory.allocate(packet.getPayloadLength());
+            f.setOffset(0);
+            f.setLength(packet.getPayloadLength());
+            packet.getPayload(f.getData(), 0);
+        }
         // put packet into buffer irrespective of its sequence number
         f.setHeader(null);
         f.setSequenceNumber(packet.getSeqNumber());
         // here time is in milliseconds
         f.setTimestamp(rtpClock.convertToAbsoluteTime(packet.getTimestamp()));
-        f.setOffset(0);
-        f.setLength(packet.getPayloadLength());
-        packet.getPayload(f.getData(), 0);
 
         // set format
         f.setFormat(this.format.getFormat());
@@ -268,6 +293,7 @@ public class FixedJitterBuffer implements JitterBuffer, Serializable {
 
             // check for duplicate packet
             if (currIndex >= 0 && queue.get(currIndex).getSequenceNumber() == f.getSequenceNumber()) {
+                f.recycle();
                 return;
             }
 
@@ -80,4 +80,32 @@ public interface JitterBuffer {
      */
     void restart();
 
+    /**
+     * Gets the number of packets discarded because they arrived too late or did not fit in the buffer.
+     * 
+     * @return the number of discarded packets.
+     */
+    int getDropped();
+
+    /**
+     * Gets the playout delay currently applied to arriving packets.
+     * 
+     * @return the delay, in milliseconds.
+     */
+    int getNominalDelay();
+
+    /**
+     * Gets the highest playout delay the buffer may apply.
+     * 
+     * @return the delay, in milliseconds.
+     */
+    int getMaxDelay();
+
+    /**
+     * Tells whether the buffer adapts its playout delay to the network jitter.
+     * 
+     * @return <code>true</code> for an adaptive buffer, <code>false</code> for a fixed one.
+     */
+    boolean isAdaptive();
+
 }
@@ -0,0 +1,80 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.jitter;
+
+import org.restcomm.media.core.rtp.RtpClock;
+
+/**
+ * Jitter buffer implementations an RTP connection can be configured with.
+ */
+public enum JitterBufferType {
+
+    /**
+     * Plays out after a fixed delay.
+     * 
+     * @see FixedJitterBuffer
+     */
+    FIXED,
+
+    /**
+     * Sizes the playout delay from the measured network jitter.
+     * 
+     * @see AdaptiveJitterBuffer
+     */
+    ADAPTIVE;
+
+    /**
+     * Creates a jitter buffer of this type.
+     * 
+     * @param clock The RTP clock of the connection
+     * @param jitterBufferSize The playout delay, in milliseconds. Used as the initial delay by adaptive buffers.
+     * @return A new jitter buffer
+     */
+    public JitterBuffer newJitterBuffer(RtpClock clock, int jitterBufferSize) {
+        switch (this) {
+            case ADAPTIVE:
+                return new AdaptiveJitterBuffer(clock, jitterBufferSize);
+
+            default:
+                return new FixedJitterBuffer(clock, jitterBufferSize);
+        }
+    }
+
+    /**
+     * Gets the type that matches a name, ignoring case.
+     * 
+     * @param name The name of the type
+     * @param defaultType The type to return if name does not match any type
+     * @return The matching type or the default one
+     */
+    public static JitterBufferType fromName(String name, JitterBufferType defaultType) {
+        if (name != null) {
+            for (JitterBufferType type : values()) {
+                if (type.name().equalsIgnoreCase(name.trim())) {
+                    return type;
+                }
+            }
+        }
+        return defaultType;
+    }
+
+}
@@ -25,6 +25,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.restcomm.media.core.rtp.RTPInput;
 import org.restcomm.media.core.rtp.RtpPacket;
+import org.restcomm.media.core.rtp.jitter.JitterBuffer;
+import org.restcomm.media.core.rtp.jitter.JitterBufferType;
 import org.restcomm.media.core.rtp.rfc2833.DtmfInput;
 import org.restcomm.media.core.sdp.format.RTPFormats;
 import org.restcomm.media.core.spi.ConnectionMode;
@@ -105,6 +107,15 @@ public class RtpInboundHandler extends SimpleChannelInboundHandler<RtpPacket> {
         this.context.getJitterBuffer().setInUse(use);
     }
 
+    /**
+     * Replaces the jitter buffer of the connection. Should only be called while the handler is deactivated.
+     * 
+     * @param jitterBuffer The jitter buffer, for example one created by {@link JitterBufferType#newJitterBuffer}
+     */
+    public void setJitterBuffer(JitterBuffer jitterBuffer) {
+        this.context.setJitterBuffer(jitterBuffer);
+    }
+
     public RTPInput getRtpInput() {
         return context.getRtpInput();
     }
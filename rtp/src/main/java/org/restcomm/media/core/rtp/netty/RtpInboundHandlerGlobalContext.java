@@ -42,7 +42,7 @@ public class RtpInboundHandlerGlobalContext {
     // RTP Components
     private final Clock clock;
     private final RtpStatistics statistics;
-    private final JitterBuffer jitterBuffer;
+    private final AtomicReference<JitterBuffer> jitterBuffer;
     private final RTPInput rtpInput;
     private final DtmfInput dtmfInput;
 
@@ -57,8 +57,9 @@ public class RtpInboundHandlerGlobalContext {
         this.statistics = statistics;
         this.rtpInput = rtpInput;
         this.dtmfInput = dtmfInput;
-        this.jitterBuffer = jitterBuffer;
-        this.jitterBuffer.setListener(this.rtpInput);
+        this.jitterBuffer = new AtomicReference<>(jitterBuffer);
+        jitterBuffer.setListener(this.rtpInput);
+        statistics.setJitterBuffer(jitterBuffer);
 
         // Handler Context
         this.formats = new AtomicReference<RTPFormats>(new RTPFormats());
@@ -75,7 +76,14 @@ public class RtpInboundHandlerGlobalContext {
     }
 
     JitterBuffer getJitterBuffer() {
-        return jitterBuffer;
+        return jitterBuffer.get();
+    }
+
+    void setJitterBuffer(JitterBuffer jitterBuffer) {
+        jitterBuffer.setListener(this.rtpInput);
+        this.rtpInput.setJitterBuffer(jitterBuffer);
+        this.statistics.setJitterBuffer(jitterBuffer);
+        this.jitterBuffer.getAndSet(jitterBuffer).restart();
     }
 
     RTPInput getRtpInput() {
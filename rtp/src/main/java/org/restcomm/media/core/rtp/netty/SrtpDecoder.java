@@ -21,6 +21,7 @@
 
 package org.restcomm.media.core.rtp.netty;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import org.apache.logging.log4j.LogManager;
@@ -49,17 +50,14 @@ public class SrtpDecoder extends MessageToMessageDecoder<SrtpPacket> {
 
     @Override
     protected void decode(ChannelHandlerContext ctx, SrtpPacket msg, List<Object> out) throws Exception {
-        // Decode payload
-        byte[] rawData = msg.getRawData();
-        byte[] decoded = this.decoder.reverseTransform(rawData, 0, rawData.length);
+        // Decode payload in place
+        final ByteBuffer buffer = msg.getBuffer();
+        buffer.rewind();
         
-        if(decoded == null || decoded.length == 0) {
+        if(!this.decoder.reverseTransform(buffer)) {
             // Failed to decode data. Drop packet.
             log.warn("Channel " + ctx.channel().localAddress() + " could not decode incoming SRTP packet.");
         } else {
-            // Data decoded successfully
-            msg.wrap(decoded);
-            
             // Pass decoded RTP packet to next handler
             out.add((RtpPacket) msg);
         }
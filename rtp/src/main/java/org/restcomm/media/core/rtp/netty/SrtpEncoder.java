@@ -21,6 +21,8 @@
 
 package org.restcomm.media.core.rtp.netty;
 
+import java.nio.ByteBuffer;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.restcomm.media.core.rtp.RtpPacket;
@@ -47,16 +49,34 @@ public class SrtpEncoder extends MessageToByteEncoder<RtpPacket> {
 
     @Override
     protected void encode(ChannelHandlerContext ctx, RtpPacket msg, ByteBuf out) throws Exception {
-        // Encode RTP packet
-        final byte[] rawData = msg.getRawData();
-        final byte[] encoded = this.encoder.transform(rawData);
+        final ByteBuffer packet = msg.getBuffer().duplicate();
+        packet.rewind();
+        final int length = packet.limit();
+        out.ensureWritable(length + PacketTransformer.MAX_TRAILER_LENGTH);
 
-        if (encoded == null || encoded.length == 0) {
+        final boolean encoded;
+        if (out.nioBufferCount() == 1) {
+            // Copy RTP packet into the outgoing buffer, leaving room for the authentication tag, and encode it in place
+            final int start = out.writerIndex();
+            out.setBytes(start, packet);
+            final ByteBuffer view = out.nioBuffer(start, length + PacketTransformer.MAX_TRAILER_LENGTH);
+            view.limit(length);
+            encoded = this.encoder.transform(view);
+            if (encoded) {
+                out.writerIndex(start + view.limit());
+            }
+        } else {
+            // Composite buffers cannot be viewed as a single NIO buffer, so encode a copy of the packet
+            final byte[] encodedData = this.encoder.transform(msg.getRawData());
+            encoded = (encodedData != null && encodedData.length > 0);
+            if (encoded) {
+                out.writeBytes(encodedData);
+            }
+        }
+
+        if (!encoded) {
             // Failed to encode packet. Drop it.
             log.warn("Channel " + ctx.channel().localAddress() + " could not encode outgoing SRTP packet.");
-        } else {
-            // Send encoded packet over the wire
-            out.writeBytes(encoded);
         }
     }
 
@@ -26,13 +26,13 @@ import java.net.InetSocketAddress;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
-import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -54,8 +54,6 @@ import org.restcomm.media.core.rtp.crypto.SRTPTransformEngine;
  */
 public class DtlsHandler implements PacketHandler, DatagramTransport {
 
-    private static final AtomicLong THREAD_COUNTER = new AtomicLong(0);
-
     private static final Logger logger = LogManager.getLogger(DtlsHandler.class);
 
     public static final int DEFAULT_MTU = 1500;
@@ -64,6 +62,8 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
     private final static int MAX_IP_OVERHEAD = MIN_IP_OVERHEAD + 64;
     private final static int UDP_OVERHEAD = 8;
     public final static int MAX_DELAY = 10000;
+    /** Maximum number of DTLS records buffered while the handshake thread is busy */
+    private final static int RX_QUEUE_SIZE = 64;
 
     // Packet Handler properties
     private int pipelinePriority;
@@ -76,11 +76,11 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
     // DTLS Handshake properties
     private DtlsSrtpServer server;
     private DatagramChannel channel;
-    private final Queue<ByteBuffer> rxQueue;
+    private final BlockingQueue<ByteBuffer> rxQueue;
     private volatile boolean handshakeComplete;
     private volatile boolean handshakeFailed;
     private volatile boolean handshaking;
-    private Thread worker;
+    private final DtlsHandshakeExecutor handshakeExecutor;
     private String localHashFunction;
     private String remoteHashFunction;
     private String remoteFingerprint;
@@ -99,6 +99,10 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
     private DtlsSrtpServerProvider tlsServerProvider;
 
     public DtlsHandler(DtlsSrtpServerProvider tlsServerProvider) {
+        this(tlsServerProvider, DtlsHandshakeExecutor.getInstance());
+    }
+
+    public DtlsHandler(DtlsSrtpServerProvider tlsServerProvider, DtlsHandshakeExecutor handshakeExecutor) {
         this.pipelinePriority = 0;
 
         // Network properties
@@ -108,7 +112,8 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
 
         // Handshake properties
         this.server = tlsServerProvider.provide();
-        this.rxQueue = new ConcurrentLinkedQueue<>();
+        this.rxQueue = new LinkedBlockingQueue<>(RX_QUEUE_SIZE);
+        this.handshakeExecutor = handshakeExecutor;
         this.handshakeComplete = false;
         this.handshakeFailed = false;
         this.handshaking = false;
@@ -268,6 +273,27 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
         return this.srtpEncoder.transform(packet, offset, length);
     }
 
+    /**
+     * Decodes an RTP packet in place
+     * 
+     * @param packet The encoded RTP packet, between the position and the limit of the buffer
+     * @return Whether the packet is valid. If so, the limit of the buffer is moved to the end of the decoded packet.
+     */
+    public boolean decodeRTP(ByteBuffer packet) {
+        return this.srtpDecoder.reverseTransform(packet);
+    }
+
+    /**
+     * Encodes an RTP packet in place
+     * 
+     * @param packet The decoded RTP packet, between the position and the limit of the buffer. The capacity must leave
+     *        {@link PacketTransformer#MAX_TRAILER_LENGTH} bytes of room after the limit.
+     * @return Whether the packet was encoded. If so, the limit of the buffer is moved to the end of the encoded packet.
+     */
+    public boolean encodeRTP(ByteBuffer packet) {
+        return this.srtpEncoder.transform(packet);
+    }
+
     /**
      * Decodes an RTCP Packet
      * 
@@ -292,8 +318,15 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
         if (!handshaking && !handshakeComplete) {
             this.handshaking = true;
             this.startTime = System.currentTimeMillis();
-            this.worker = new Thread(new HandshakeWorker(), "DTLS-Server-" + THREAD_COUNTER.incrementAndGet());
-            this.worker.start();
+            // Drop stale records now, so that records arriving while the handshake waits for a thread are kept
+            this.rxQueue.clear();
+            if (!this.handshakeExecutor.submit(new HandshakeWorker())) {
+                // Too many handshakes pending. Fail fast so the call can be rejected instead of timing out later.
+                this.handshakeComplete = false;
+                this.handshakeFailed = true;
+                this.handshaking = false;
+                fireHandshakeFailed(new RejectedExecutionException("Too many DTLS handshakes in progress"));
+            }
         }
     }
 
@@ -362,7 +395,12 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
     @Override
     public byte[] handle(byte[] packet, int dataLength, int offset, InetSocketAddress localPeer, InetSocketAddress remotePeer)
             throws PacketHandlerException {
-        this.rxQueue.offer(ByteBuffer.wrap(packet, offset, dataLength));
+        // The packet buffer is reused by the channel, so keep a copy until the handshake thread reads it
+        byte[] record = new byte[dataLength];
+        System.arraycopy(packet, offset, record, 0, dataLength);
+        if (!this.rxQueue.offer(ByteBuffer.wrap(record)) && logger.isDebugEnabled()) {
+            logger.debug("Dropped DTLS record because the handshake is not consuming them.");
+        }
         return null;
     }
 
@@ -394,22 +432,20 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
             throw new IllegalStateException("Handshake is taking too long! (>" + MAX_DELAY + "ms");
         }
 
-        int attempts = waitMillis;
-        do {
-            ByteBuffer data = this.rxQueue.poll();
-            if (data != null) {
-                data.get(buf, off, data.limit());
-                return data.limit();
-            }
+        // Wait for the next record without spinning. The handshake thread is woken up as soon as handle() queues one.
+        ByteBuffer data = null;
+        try {
+            data = this.rxQueue.poll(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for DTLS data.");
+        }
 
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
-                logger.warn("Could not sleep thread to receive DTLS data.");
-            } finally {
-                attempts--;
-            }
-        } while (attempts > 0);
+        if (data != null) {
+            int length = Math.min(len, data.remaining());
+            data.get(buf, off, length);
+            return length;
+        }
 
         // Throw IO exception if no data was received in this interval. Restarts outbound flight.
         throw new SocketTimeoutException("Could not receive DTLS packet in " + waitMillis);
@@ -442,9 +478,11 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
     private class HandshakeWorker implements Runnable {
 
         public void run() {
-            DtlsHandler.this.rxQueue.clear();
-            SecureRandom secureRandom = new SecureRandom();
-            DTLSServerProtocol serverProtocol = new DTLSServerProtocol(secureRandom);
+            // The handshake timeout is measured from the moment a thread picks the handshake up
+            DtlsHandler.this.startTime = System.currentTimeMillis();
+            DTLSServerProtocol serverProtocol = new DTLSServerProtocol(handshakeExecutor.getSecureRandom());
+            handshakeExecutor.onHandshakeStarted();
+            final long start = System.nanoTime();
 
             try {
                 // Perform the handshake in a non-blocking fashion
@@ -463,6 +501,7 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
                 handshakeComplete = true;
                 handshakeFailed = false;
                 handshaking = false;
+                handshakeExecutor.onHandshakeComplete(System.nanoTime() - start);
 
                 // Warn listeners handshake completed
                 fireHandshakeComplete();
@@ -473,9 +512,12 @@ public class DtlsHandler implements PacketHandler, DatagramTransport {
                 handshakeComplete = false;
                 handshakeFailed = true;
                 handshaking = false;
+                handshakeExecutor.onHandshakeFailed();
 
                 // Warn listeners handshake completed
                 fireHandshakeFailed(e);
+            } finally {
+                handshakeExecutor.onHandshakeFinished();
             }
         }
 
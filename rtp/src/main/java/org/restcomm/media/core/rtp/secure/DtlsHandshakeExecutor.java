@@ -0,0 +1,229 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.secure;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Bounded pool that runs the DTLS handshakes of all {@link DtlsHandler}s.
+ * <p>
+ * At most <code>threads</code> handshakes run at the same time and at most <code>queueSize</code> more wait for a free
+ * thread. Handshakes submitted beyond that are rejected right away, so a burst of calls cannot create an unbounded number
+ * of threads. The handler reports a rejected handshake as failed.
+ * </p>
+ * <p>
+ * Handshake threads wait for DTLS records with a blocking poll and are woken up when a record arrives, instead of
+ * sleeping in a loop. They share one {@link SecureRandom}.
+ * </p>
+ * <p>
+ * The default instance is sized with the <code>restcomm.media.dtls.handshake-threads</code> and
+ * <code>restcomm.media.dtls.handshake-queue</code> system properties.
+ * </p>
+ */
+public class DtlsHandshakeExecutor {
+
+    private static final Logger log = LogManager.getLogger(DtlsHandshakeExecutor.class);
+
+    public static final String THREADS_PROPERTY = "restcomm.media.dtls.handshake-threads";
+    public static final String QUEUE_PROPERTY = "restcomm.media.dtls.handshake-queue";
+
+    public static final int DEFAULT_THREADS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+    public static final int DEFAULT_QUEUE = 256;
+
+    private static volatile DtlsHandshakeExecutor instance;
+
+    private final ThreadPoolExecutor executor;
+    private final SecureRandom secureRandom;
+
+    // Metrics
+    private final AtomicInteger active;
+    private final AtomicLong completed;
+    private final AtomicLong failed;
+    private final AtomicLong rejected;
+    private final AtomicLong totalLatency;
+    private final AtomicLong maxLatency;
+
+    public DtlsHandshakeExecutor(int threads, int queueSize) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Handshake threads must be positive: " + threads);
+        }
+        if (queueSize < 1) {
+            throw new IllegalArgumentException("Handshake queue size must be positive: " + queueSize);
+        }
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queueSize),
+                new HandshakeThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.secureRandom = new SecureRandom();
+
+        this.active = new AtomicInteger(0);
+        this.completed = new AtomicLong(0);
+        this.failed = new AtomicLong(0);
+        this.rejected = new AtomicLong(0);
+        this.totalLatency = new AtomicLong(0);
+        this.maxLatency = new AtomicLong(0);
+    }
+
+    /**
+     * Gets the executor shared by all handlers, creating it on first use.
+     * 
+     * @return The default executor
+     */
+    public static DtlsHandshakeExecutor getInstance() {
+        DtlsHandshakeExecutor result = instance;
+        if (result == null) {
+            synchronized (DtlsHandshakeExecutor.class) {
+                result = instance;
+                if (result == null) {
+                    result = new DtlsHandshakeExecutor(Integer.getInteger(THREADS_PROPERTY, DEFAULT_THREADS),
+                            Integer.getInteger(QUEUE_PROPERTY, DEFAULT_QUEUE));
+                    instance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    SecureRandom getSecureRandom() {
+        return secureRandom;
+    }
+
+    /**
+     * Queues a handshake.
+     * 
+     * @param handshake The handshake to run
+     * @return <code>true</code> if the handshake was accepted; <code>false</code> if too many handshakes are pending.
+     */
+    boolean submit(Runnable handshake) {
+        try {
+            this.executor.execute(handshake);
+            return true;
+        } catch (RejectedExecutionException e) {
+            this.rejected.incrementAndGet();
+            if (log.isWarnEnabled()) {
+                log.warn("Rejected DTLS handshake because " + this.executor.getQueue().size() + " handshakes are pending");
+            }
+            return false;
+        }
+    }
+
+    void onHandshakeStarted() {
+        this.active.incrementAndGet();
+    }
+
+    void onHandshakeFinished() {
+        this.active.decrementAndGet();
+    }
+
+    void onHandshakeComplete(long latencyNanos) {
+        this.completed.incrementAndGet();
+        this.totalLatency.addAndGet(latencyNanos);
+
+        long max = this.maxLatency.get();
+        while (latencyNanos > max && !this.maxLatency.compareAndSet(max, latencyNanos)) {
+            max = this.maxLatency.get();
+        }
+    }
+
+    void onHandshakeFailed() {
+        this.failed.incrementAndGet();
+    }
+
+    /**
+     * Gets the number of handshakes in progress.
+     * 
+     * @return The active handshakes
+     */
+    public int getActiveHandshakes() {
+        return active.get();
+    }
+
+    /**
+     * Gets the number of handshakes waiting for a free thread.
+     * 
+     * @return The queued handshakes
+     */
+    public int getQueuedHandshakes() {
+        return executor.getQueue().size();
+    }
+
+    public long getCompletedHandshakes() {
+        return completed.get();
+    }
+
+    public long getFailedHandshakes() {
+        return failed.get();
+    }
+
+    public long getRejectedHandshakes() {
+        return rejected.get();
+    }
+
+    /**
+     * Gets the mean duration of the successful handshakes, from their start to the SRTP keys being ready.
+     * 
+     * @return The mean latency in milliseconds, or zero if no handshake completed yet
+     */
+    public long getAverageLatency() {
+        long count = completed.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLatency.get() / count);
+    }
+
+    /**
+     * Gets the duration of the slowest successful handshake.
+     * 
+     * @return The maximum latency in milliseconds
+     */
+    public long getMaxLatency() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatency.get());
+    }
+
+    /**
+     * Stops accepting handshakes. Handshakes in progress are left to complete or time out.
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    private static final class HandshakeThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "DTLS-Handshake-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
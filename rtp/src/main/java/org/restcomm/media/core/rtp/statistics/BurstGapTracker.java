@@ -0,0 +1,199 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.statistics;
+
+import org.restcomm.media.core.rtcp.RtcpVoipMetrics;
+
+/**
+ * Classifies lost packets into bursts and gaps with the Markov model of RFC 3611.
+ * <p>
+ * The receive thread reports each in-order packet together with the number of packets missing before it. The transition
+ * counters only change when a packet is lost, so a new immutable snapshot is published on loss events only and the
+ * lossless packet path costs a single increment.
+ * </p>
+ * 
+ * @see <a href="https://tools.ietf.org/html/rfc3611#appendix-A.2">RFC 3611 - A.2 Algorithm for Determining Burst/Gap</a>
+ */
+final class BurstGapTracker {
+
+    /** Minimum number of consecutive received packets that ends a burst */
+    static final int GMIN = 16;
+
+    // Owned by the receive thread
+    private int pkt;
+    private int lost;
+    private int c11;
+    private int c13;
+    private int c14;
+    private int c22;
+    private int c23;
+    private int c33;
+    private long lossCount;
+    private long lossRuns;
+    private long received;
+
+    private volatile Counters counters = Counters.EMPTY;
+
+    /**
+     * Accounts a received packet.
+     * 
+     * @param missing the number of packets lost just before this one
+     */
+    void onPacket(int missing) {
+        if (missing > 0) {
+            for (int i = 0; i < missing; i++) {
+                onLoss();
+            }
+            this.lossRuns++;
+            this.counters = new Counters(c11, c13, c14, c22, c23, c33, pkt, lossCount, lossRuns, received);
+        }
+        this.pkt++;
+        this.received++;
+    }
+
+    private void onLoss() {
+        this.lossCount++;
+        if (this.pkt >= GMIN) {
+            if (this.lost == 1) {
+                this.c14++;
+            } else {
+                this.c13++;
+            }
+            this.lost = 1;
+            this.c11 += this.pkt;
+        } else {
+            this.lost++;
+            if (this.pkt == 0) {
+                this.c33++;
+            } else {
+                this.c23++;
+                this.c22 += (this.pkt - 1);
+            }
+        }
+        this.pkt = 0;
+    }
+
+    /**
+     * Gets the counters published by the last loss event.
+     * 
+     * @return the counters snapshot
+     */
+    Counters getCounters() {
+        return this.counters;
+    }
+
+    /**
+     * Transition counters of the burst/gap model, taken at the last loss event.
+     */
+    static final class Counters {
+
+        static final Counters EMPTY = new Counters(0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+        final int c11;
+        final int c13;
+        final int c14;
+        final int c22;
+        final int c23;
+        final int c33;
+        final int pkt;
+        final long lossCount;
+        final long lossRuns;
+        final long received;
+
+        Counters(int c11, int c13, int c14, int c22, int c23, int c33, int pkt, long lossCount, long lossRuns, long received) {
+            this.c11 = c11;
+            this.c13 = c13;
+            this.c14 = c14;
+            this.c22 = c22;
+            this.c23 = c23;
+            this.c33 = c33;
+            this.pkt = pkt;
+            this.lossCount = lossCount;
+            this.lossRuns = lossRuns;
+            this.received = received;
+        }
+
+        /**
+         * Computes the burst and gap metrics into a VoIP Metrics block.
+         * 
+         * @param metrics the block to fill
+         * @param received the packets received so far, used to account the packets received since the last loss
+         * @param packetMillis the duration of each packet, in milliseconds
+         */
+        void fill(RtcpVoipMetrics metrics, long received, int packetMillis) {
+            // Packets received since the last loss close the current burst or extend the current gap
+            long tail = this.pkt + Math.max(0, received - this.received);
+            double c11 = this.c11;
+            double c22 = this.c22;
+            if (tail >= GMIN || this.lossCount == 0) {
+                c11 += tail;
+            } else if (tail > 0) {
+                c22 += tail;
+            }
+
+            double c13 = this.c13;
+            double c14 = this.c14;
+            double c23 = this.c23;
+            double c33 = this.c33;
+            double c31 = c13;
+            double c32 = c23;
+            double ctotal = c11 + c14 + c13 + c22 + c23 + c31 + c32 + c33;
+
+            double p32 = (c31 + c32 + c33) > 0 ? c32 / (c31 + c32 + c33) : 0;
+            double p23 = (c22 + c23) < 1 ? 1 : 1 - c22 / (c22 + c23);
+
+            int burstDensity = this.lossCount == 0 ? 0 : (int) (256 * p23 / (p23 + p32));
+            int gapDensity = (c11 + c14) > 0 ? (int) (256 * c14 / (c11 + c14)) : 0;
+
+            int gapDuration;
+            int burstDuration;
+            if (c13 > 0) {
+                double gapLength = (c11 + c14 + c13) * packetMillis / c13;
+                gapDuration = (int) gapLength;
+                burstDuration = (int) (ctotal * packetMillis / c13 - gapLength);
+            } else if (this.lossCount == 0) {
+                gapDuration = (int) (c11 * packetMillis);
+                burstDuration = 0;
+            } else {
+                // Losses started before the first gap was long enough, so the call is still in its first burst
+                gapDuration = 0;
+                burstDuration = (int) (ctotal * packetMillis);
+            }
+            metrics.setGmin(GMIN);
+            metrics.setBurstDensity(burstDensity);
+            metrics.setGapDensity(gapDensity);
+            metrics.setBurstDuration(burstDuration);
+            metrics.setGapDuration(gapDuration);
+        }
+
+        /**
+         * Gets the mean number of packets lost in a row.
+         * 
+         * @return the average loss run length, or zero if nothing was lost
+         */
+        double getAverageLossRun() {
+            return this.lossRuns == 0 ? 0 : (double) this.lossCount / this.lossRuns;
+        }
+
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.statistics;
+
+import org.restcomm.media.core.rtcp.RtcpVoipMetrics;
+
+/**
+ * Immutable summary of the quality of one stream of an RTP session.
+ * <p>
+ * A local report describes a stream received by this server, as measured here. A remote report describes a stream sent by
+ * this server, as measured by the peer and received in an RTCP XR packet.
+ * </p>
+ */
+public class CallQualityReport {
+
+    private final String cname;
+    private final long ssrc;
+    private final boolean remote;
+    private final long timestamp;
+
+    private final int lossRate;
+    private final int discardRate;
+    private final int burstDensity;
+    private final int gapDensity;
+    private final int burstDuration;
+    private final int gapDuration;
+    private final int roundTripDelay;
+    private final int endSystemDelay;
+    private final int jitterBufferDelay;
+    private final int rFactor;
+    private final int mosLq;
+    private final int mosCq;
+
+    /**
+     * Creates a report from a VoIP Metrics block.
+     * 
+     * @param cname The CNAME of the local RTP session
+     * @param remote Whether the metrics were measured by the remote peer
+     * @param timestamp The time the metrics were measured or received, in milliseconds
+     * @param metrics The metrics
+     */
+    public CallQualityReport(String cname, boolean remote, long timestamp, RtcpVoipMetrics metrics) {
+        this.cname = cname;
+        this.ssrc = metrics.getSsrc();
+        this.remote = remote;
+        this.timestamp = timestamp;
+        this.lossRate = metrics.getLossRate();
+        this.discardRate = metrics.getDiscardRate();
+        this.burstDensity = metrics.getBurstDensity();
+        this.gapDensity = metrics.getGapDensity();
+        this.burstDuration = metrics.getBurstDuration();
+        this.gapDuration = metrics.getGapDuration();
+        this.roundTripDelay = metrics.getRoundTripDelay();
+        this.endSystemDelay = metrics.getEndSystemDelay();
+        this.jitterBufferDelay = metrics.getJbNominal();
+        this.rFactor = metrics.getRFactor();
+        this.mosLq = metrics.getMosLq();
+        this.mosCq = metrics.getMosCq();
+    }
+
+    public String getCname() {
+        return cname;
+    }
+
+    /**
+     * Gets the SSRC of the stream the report is about.
+     * 
+     * @return The SSRC identifier
+     */
+    public long getSsrc() {
+        return ssrc;
+    }
+
+    public boolean isRemote() {
+        return remote;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the fraction of packets lost in the network.
+     * 
+     * @return The fraction, from 0 to 1
+     */
+    public double getLossRate() {
+        return lossRate / 256.0;
+    }
+
+    /**
+     * Gets the fraction of packets discarded by the jitter buffer.
+     * 
+     * @return The fraction, from 0 to 1
+     */
+    public double getDiscardRate() {
+        return discardRate / 256.0;
+    }
+
+    public double getBurstDensity() {
+        return burstDensity / 256.0;
+    }
+
+    public double getGapDensity() {
+        return gapDensity / 256.0;
+    }
+
+    /**
+     * Gets the mean duration of loss bursts.
+     * 
+     * @return The duration, in milliseconds
+     */
+    public int getBurstDuration() {
+        return burstDuration;
+    }
+
+    /**
+     * Gets the mean duration of the gaps between loss bursts.
+     * 
+     * @return The duration, in milliseconds
+     */
+    public int getGapDuration() {
+        return gapDuration;
+    }
+
+    public int getRoundTripDelay() {
+        return roundTripDelay;
+    }
+
+    public int getEndSystemDelay() {
+        return endSystemDelay;
+    }
+
+    public int getJitterBufferDelay() {
+        return jitterBufferDelay;
+    }
+
+    /**
+     * Gets the conversational R factor.
+     * 
+     * @return The R factor from 0 to 100, or {@link RtcpVoipMetrics#UNAVAILABLE}
+     */
+    public int getRFactor() {
+        return rFactor;
+    }
+
+    /**
+     * Gets the estimated listening quality.
+     * 
+     * @return The MOS from 1 to 5, or zero if unavailable
+     */
+    public double getMosLq() {
+        return toMos(mosLq);
+    }
+
+    /**
+     * Gets the estimated conversational quality.
+     * 
+     * @return The MOS from 1 to 5, or zero if unavailable
+     */
+    public double getMosCq() {
+        return toMos(mosCq);
+    }
+
+    private static double toMos(int value) {
+        return value == RtcpVoipMetrics.UNAVAILABLE ? 0 : value / 10.0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("CallQualityReport[");
+        builder.append("cname=").append(this.cname);
+        builder.append(", ssrc=").append(this.ssrc);
+        builder.append(", remote=").append(this.remote);
+        builder.append(", loss=").append(getLossRate());
+        builder.append(", discard=").append(getDiscardRate());
+        builder.append(", rtt=").append(this.roundTripDelay);
+        builder.append(", R=").append(this.rFactor);
+        builder.append(", MOS-CQ=").append(getMosCq());
+        builder.append("]");
+        return builder.toString();
+    }
+
+}
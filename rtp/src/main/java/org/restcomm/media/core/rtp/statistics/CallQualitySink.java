@@ -0,0 +1,41 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.statistics;
+
+/**
+ * Receives the call quality summaries of RTP sessions.
+ * <p>
+ * Reports are pushed from the RTCP thread of each session every time a report is sent or received, so implementations
+ * must return quickly and never block. Aggregate or enqueue the reports instead of doing I/O in
+ * {@link #onQualityReport(CallQualityReport)}.
+ * </p>
+ */
+public interface CallQualitySink {
+
+    /**
+     * Handles a quality summary.
+     * 
+     * @param report The quality of one received stream, measured locally or by the remote peer.
+     */
+    void onQualityReport(CallQualityReport report);
+
+}
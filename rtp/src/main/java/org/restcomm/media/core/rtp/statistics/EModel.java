@@ -0,0 +1,119 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.statistics;
+
+/**
+ * Simplified ITU-T G.107 E-model used to estimate call quality from transport metrics.
+ * <p>
+ * Only delay and packet loss impairments are modelled, with the equipment constants of G.711 with packet loss concealment
+ * (G.113 Appendix I). Codec specific impairments are ignored, so the estimates are optimistic for compressed codecs. The
+ * values are meant to compare legs and spot degraded ones, not to replace a listening test.
+ * </p>
+ */
+final class EModel {
+
+    /** Basic signal-to-noise ratio with default G.107 parameters */
+    static final double R0 = 93.2;
+
+    /** Equipment impairment factor of G.711 */
+    static final double IE = 0;
+
+    /** Packet loss robustness factor of G.711 with PLC */
+    static final double BPL = 25.1;
+
+    private EModel() {
+        super();
+    }
+
+    /**
+     * Calculates the delay impairment factor.
+     * 
+     * @param delay the one way mouth-to-ear delay, in milliseconds
+     * @return the delay impairment Id
+     */
+    static double delayImpairment(double delay) {
+        double id = 0.024 * delay;
+        if (delay > 177.3) {
+            id += 0.11 * (delay - 177.3);
+        }
+        return id;
+    }
+
+    /**
+     * Calculates the effective equipment impairment factor.
+     * 
+     * @param lossPercent the packet loss probability, in percent, including jitter buffer discards
+     * @param burstRatio the ratio between the observed loss run length and the run length expected for random loss
+     * @return the effective equipment impairment Ie-eff
+     */
+    static double lossImpairment(double lossPercent, double burstRatio) {
+        if (lossPercent <= 0) {
+            return IE;
+        }
+        return IE + (95 - IE) * lossPercent / (lossPercent / Math.max(1, burstRatio) + BPL);
+    }
+
+    /**
+     * Calculates the transmission rating factor.
+     * 
+     * @param delay the one way delay, in milliseconds
+     * @param lossPercent the packet loss probability, in percent
+     * @param burstRatio the burst ratio, 1 for random loss
+     * @return the R factor from 0 to 100
+     */
+    static double rFactor(double delay, double lossPercent, double burstRatio) {
+        double r = R0 - delayImpairment(delay) - lossImpairment(lossPercent, burstRatio);
+        return Math.max(0, Math.min(100, r));
+    }
+
+    /**
+     * Converts an R factor into an estimated Mean Opinion Score.
+     * 
+     * @param r the R factor
+     * @return the MOS from 1 to 4.5
+     */
+    static double mos(double r) {
+        if (r <= 0) {
+            return 1;
+        }
+        if (r >= 100) {
+            return 4.5;
+        }
+        return 1 + 0.035 * r + r * (r - 60) * (100 - r) * 7e-6;
+    }
+
+    /**
+     * Calculates the burst ratio defined by G.113.
+     * 
+     * @param lossRatio the packet loss probability, from 0 to 1
+     * @param averageLossRun the mean number of packets lost in a row
+     * @return the burst ratio, 1 for random loss
+     */
+    static double burstRatio(double lossRatio, double averageLossRun) {
+        if (lossRatio <= 0 || lossRatio >= 1 || averageLossRun <= 0) {
+            return 1;
+        }
+        // With random loss the expected run length is 1 / (1 - p)
+        return Math.max(1, averageLossRun * (1 - lossRatio));
+    }
+
+}
@@ -20,17 +20,28 @@
 
 package org.restcomm.media.core.rtp.statistics;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
 import org.apache.commons.net.ntp.TimeStamp;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.restcomm.media.core.rtcp.RtcpReportBlock;
 import org.restcomm.media.core.rtcp.RtcpSenderReport;
+import org.restcomm.media.core.rtcp.RtcpVoipMetrics;
 import org.restcomm.media.core.rtcp.ntp.NtpUtils;
 import org.restcomm.media.core.rtp.RtpClock;
 import org.restcomm.media.core.rtp.RtpPacket;
+import org.restcomm.media.core.rtp.jitter.JitterBuffer;
 import org.restcomm.media.core.scheduler.Clock;
 
 /**
  * Holds statistics for a member of an RTP session.
+ * <p>
+ * Incoming packets are accounted by the receive thread only. After each packet the counters needed by the reception
+ * report are published behind a sequence counter, so the RTCP thread reads a consistent set of values without locking
+ * the packet path. See {@link #getReportBlock()}.
+ * </p>
  * 
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  * 
@@ -43,6 +54,17 @@ public class RtpMember {
 	public static final int MAX_DROPOUT = 100;
 	public static final int MAX_MISORDER = 100;
 	public static final int MIN_SEQUENTIAL = 2;
+
+	/** Packet duration assumed until it is measured from the stream */
+	public static final int DEFAULT_PACKET_DURATION = 20;
+
+	private static final AtomicIntegerFieldUpdater<RtpMember> VERSION = AtomicIntegerFieldUpdater.newUpdater(RtpMember.class, "version");
+	private static final AtomicLongFieldUpdater<RtpMember> PUBLISHED_PACKETS = AtomicLongFieldUpdater.newUpdater(RtpMember.class, "publishedPackets");
+	private static final AtomicLongFieldUpdater<RtpMember> PUBLISHED_OCTETS = AtomicLongFieldUpdater.newUpdater(RtpMember.class, "publishedOctets");
+	private static final AtomicIntegerFieldUpdater<RtpMember> PUBLISHED_FIRST_SEQUENCE = AtomicIntegerFieldUpdater.newUpdater(RtpMember.class, "publishedFirstSequence");
+	private static final AtomicIntegerFieldUpdater<RtpMember> PUBLISHED_HIGH_SEQUENCE = AtomicIntegerFieldUpdater.newUpdater(RtpMember.class, "publishedHighSequence");
+	private static final AtomicIntegerFieldUpdater<RtpMember> PUBLISHED_CYCLE = AtomicIntegerFieldUpdater.newUpdater(RtpMember.class, "publishedCycle");
+	private static final AtomicLongFieldUpdater<RtpMember> PUBLISHED_JITTER = AtomicLongFieldUpdater.newUpdater(RtpMember.class, "publishedJitter");
 	
 	// Core elements
 	private final RtpClock rtpClock;
@@ -66,6 +88,13 @@ public class RtpMember {
 	private long receivedPrior;
 	private long expectedPrior;
 
+	// Loss pattern
+	private final BurstGapTracker burstGap;
+	/** Packets missing before the last in-order packet, or -1 if the packet did not advance the sequence */
+	private int sequenceGap;
+	private long lastTimestamp;
+	private volatile int packetDuration;
+
 	// Jitter
 	/**
 	 * Measures the relative time it takes for an RTP packet to arrive from the
@@ -79,6 +108,18 @@ public class RtpMember {
 	private long lastSrTimestamp;
 	private long lastSrReceivedOn;
 
+	// Reception counters published by the receive thread. The version is odd while they are being written.
+	private volatile int version;
+	private volatile long publishedPackets;
+	private volatile long publishedOctets;
+	private volatile int publishedFirstSequence;
+	private volatile int publishedHighSequence;
+	private volatile int publishedCycle;
+	private volatile long publishedJitter;
+
+	// Owned by the thread that builds reception reports
+	private int reportFirstSequence;
+
 	public RtpMember(RtpClock clock, long ssrc, String cname) {
 		// Core elements
 		this.rtpClock = clock;
@@ -102,6 +143,12 @@ public class RtpMember {
 		this.receivedPrior = 0;
 		this.expectedPrior = 0;
 
+		// Loss pattern
+		this.burstGap = new BurstGapTracker();
+		this.sequenceGap = -1;
+		this.lastTimestamp = -1;
+		this.packetDuration = DEFAULT_PACKET_DURATION;
+
 		// Jitter
 		this.currentTransit = 0;
 		this.jitter = -1;
@@ -110,6 +157,16 @@ public class RtpMember {
 		this.lastSrTimestamp = 0;
 		this.lastSrReceivedOn = 0;
 		this.roundTripDelay = 0;
+
+		// Published counters
+		this.version = 0;
+		this.publishedPackets = 0;
+		this.publishedOctets = 0;
+		this.publishedFirstSequence = -1;
+		this.publishedHighSequence = 0;
+		this.publishedCycle = 0;
+		this.publishedJitter = -1;
+		this.reportFirstSequence = -1;
 	}
 
 	public RtpMember(RtpClock clock, long ssrc) {
@@ -151,11 +208,11 @@ public class RtpMember {
 	 * @return The number of packets received
 	 */
 	public long getPacketsReceived() {
-		return receivedPackets;
+		return publishedPackets;
 	}
 	
 	public long getPacketsExpected() {
-		return getExtHighSequence() - this.firstSequenceNumber + 1;
+		return getExtHighSequence() - this.publishedFirstSequence + 1;
 	}
 
 	/**
@@ -164,7 +221,7 @@ public class RtpMember {
 	 * @return The total of received octets
 	 */
 	public long getOctetsReceived() {
-		return receivedOctets;
+		return publishedOctets;
 	}
 
 	/**
@@ -197,12 +254,33 @@ public class RtpMember {
 //
 //		return fraction;
 		
-		long expected = getPacketsExpected();
+		long received;
+		int firstSequence;
+		int highSequence;
+		int version;
+		do {
+			version = awaitVersion();
+			received = this.publishedPackets;
+			firstSequence = this.publishedFirstSequence;
+			highSequence = this.publishedHighSequence;
+		} while (version != this.version);
+		
+		return getFractionLost(highSequence - firstSequence + 1, received, firstSequence);
+	}
+
+	private long getFractionLost(long expected, long received, int firstSequence) {
+		// The sequence was re-synchronized since the last report
+		if (firstSequence != this.reportFirstSequence) {
+			this.reportFirstSequence = firstSequence;
+			this.expectedPrior = 0;
+			this.receivedPrior = 0;
+		}
+
 		long expectedInterval = expected - this.expectedPrior;
 		this.expectedPrior = expected;
 		
-		long receivedInterval = this.receivedPackets - this.receivedPrior;
-		this.receivedPrior = this.receivedPackets;
+		long receivedInterval = received - this.receivedPrior;
+		this.receivedPrior = received;
 		
 		long lostInterval = expectedInterval - receivedInterval;
 		if(expectedInterval == 0 || lostInterval <= 0) {
@@ -236,8 +314,18 @@ public class RtpMember {
 	 *         Loss can be negative, i.e. duplicates have been received.
 	 */
 	public long getPacketsLost() {
-		long lost = getPacketsExpected() - this.receivedPackets;
+		long received;
+		long expected;
+		int version;
+		do {
+			version = awaitVersion();
+			received = this.publishedPackets;
+			expected = this.publishedHighSequence - this.publishedFirstSequence + 1;
+		} while (version != this.version);
+		return clampLost(expected - received);
+	}
 
+	private static long clampLost(long lost) {
 		if (lost > 0x7fffff) {
 			return 0x7fffff;
 		}
@@ -255,7 +343,7 @@ public class RtpMember {
 	 * @return The number of cycles
 	 */
 	public int getSequenceCycle() {
-		return (sequenceCycle >> 16);
+		return (publishedCycle >> 16);
 	}
 
 	/**
@@ -266,7 +354,7 @@ public class RtpMember {
 	 * @return the estimated jitter for this source
 	 */
 	public long getJitter() {
-		return this.jitter >> 4;
+		return this.publishedJitter >> 4;
 	}
 
 	/**
@@ -311,7 +399,7 @@ public class RtpMember {
 	 * @return extended highest sequence
 	 */
 	public int getExtHighSequence() {
-		return this.highestSequence + this.sequenceCycle;
+		return this.publishedHighSequence;
 	}
 	
 	public int getRTT() {
@@ -370,8 +458,6 @@ public class RtpMember {
     	this.highestSequence = sequence;
     	this.badSequence = RTP_SEQ_MOD + 1; // so seq != bad_seq
     	this.sequenceCycle = 0;
-    	this.receivedPrior = 0;
-    	this.expectedPrior = 0;
     }
     
     private boolean updateSequence(int sequence) {
@@ -398,7 +484,9 @@ public class RtpMember {
     		return false;
     	} else if (delta < MAX_DROPOUT) {
     		// in order, with permissible gap
-    		if(sequence < this.highestSequence) {
+    		if(sequence > this.highestSequence) {
+    			this.sequenceGap = sequence - this.highestSequence - 1;
+    		} else if(sequence < this.highestSequence) {
     			// sequence number wrapped - count another 64k cycle
     			this.sequenceCycle += RTP_SEQ_MOD;
     		}
@@ -423,6 +511,7 @@ public class RtpMember {
     }
     
 	public void onReceiveRtp(RtpPacket packet) {
+		this.sequenceGap = -1;
 		if(validateSequence(packet.getSeqNumber())) {
 			this.receivedSinceSR++;
 			this.receivedPackets++;
@@ -434,7 +523,147 @@ public class RtpMember {
 				initJitter(packet);
 			}
 			this.lastPacketReceivedOn = rtpClock.getLocalRtpTime();
+			
+			this.burstGap.onPacket(Math.max(0, this.sequenceGap));
+			if(this.sequenceGap == 0) {
+				estimatePacketDuration(packet.getTimestamp());
+			}
+			if(this.sequenceGap >= 0) {
+				this.lastTimestamp = packet.getTimestamp();
+			}
+		}
+		publish();
+	}
+
+	private void estimatePacketDuration(long timestamp) {
+		int clockRate = this.rtpClock.getClockRate();
+		if (this.lastTimestamp >= 0 && clockRate > 0) {
+			long duration = (timestamp - this.lastTimestamp) * 1000 / clockRate;
+			if (duration > 0 && duration <= 255 && duration != this.packetDuration) {
+				this.packetDuration = (int) duration;
+			}
+		}
+	}
+
+	/**
+	 * Publishes the reception counters for the RTCP thread.
+	 * <p>
+	 * Only the receive thread calls this method. Ordered writes are enough: each one makes the odd version visible before
+	 * the value it writes, and the final even version visible after all of them.
+	 * </p>
+	 */
+	private void publish() {
+		final int version = this.version;
+		VERSION.lazySet(this, version + 1);
+		PUBLISHED_PACKETS.lazySet(this, this.receivedPackets);
+		PUBLISHED_OCTETS.lazySet(this, this.receivedOctets);
+		PUBLISHED_FIRST_SEQUENCE.lazySet(this, this.firstSequenceNumber);
+		PUBLISHED_HIGH_SEQUENCE.lazySet(this, this.highestSequence + this.sequenceCycle);
+		PUBLISHED_CYCLE.lazySet(this, this.sequenceCycle);
+		PUBLISHED_JITTER.lazySet(this, this.jitter);
+		VERSION.lazySet(this, version + 2);
+	}
+
+	private int awaitVersion() {
+		int version = this.version;
+		while ((version & 1) != 0) {
+			Thread.yield();
+			version = this.version;
+		}
+		return version;
+	}
+
+	/**
+	 * Builds a reception report block for this source from a consistent snapshot of its counters.
+	 * <p>
+	 * Like {@link #getFractionLost()}, this starts a new reporting interval.
+	 * </p>
+	 * 
+	 * @return The report block
+	 */
+	public RtcpReportBlock getReportBlock() {
+		long received;
+		int firstSequence;
+		int highSequence;
+		int cycle;
+		long jitter;
+		int version;
+		do {
+			version = awaitVersion();
+			received = this.publishedPackets;
+			firstSequence = this.publishedFirstSequence;
+			highSequence = this.publishedHighSequence;
+			cycle = this.publishedCycle;
+			jitter = this.publishedJitter;
+		} while (version != this.version);
+
+		long expected = highSequence - firstSequence + 1;
+		int fraction = (int) getFractionLost(expected, received, firstSequence);
+		int lost = (int) clampLost(expected - received);
+		return new RtcpReportBlock(this.ssrc, fraction, lost, cycle >> 16, highSequence, (int) (jitter >> 4), getLastSR(),
+				getLastSRdelay());
+	}
+	
+	/**
+	 * Builds an RTCP XR VoIP Metrics block describing the quality of the stream received from this source.
+	 * <p>
+	 * Call quality is estimated with a simplified E-model that accounts for delay, loss and jitter buffer discards. Unlike
+	 * {@link #getReportBlock()}, this does not start a new reporting interval: all rates are cumulative since the beginning of
+	 * reception.
+	 * </p>
+	 * 
+	 * @param jitterBuffer The jitter buffer playing out the stream. May be null.
+	 * @return The metrics block
+	 */
+	public RtcpVoipMetrics getVoipMetrics(JitterBuffer jitterBuffer) {
+		long received;
+		int firstSequence;
+		int highSequence;
+		int version;
+		do {
+			version = awaitVersion();
+			received = this.publishedPackets;
+			firstSequence = this.publishedFirstSequence;
+			highSequence = this.publishedHighSequence;
+		} while (version != this.version);
+
+		RtcpVoipMetrics metrics = new RtcpVoipMetrics(this.ssrc);
+		long expected = highSequence - firstSequence + 1;
+		if (firstSequence < 0 || expected <= 0) {
+			// nothing to report yet
+			return metrics;
 		}
+
+		long lost = Math.max(0, expected - received);
+		long discarded = jitterBuffer == null ? 0 : Math.min(jitterBuffer.getDropped(), received);
+		metrics.setLossRate((int) ((lost << 8) / expected));
+		metrics.setDiscardRate((int) ((discarded << 8) / expected));
+
+		int packetDuration = this.packetDuration;
+		BurstGapTracker.Counters counters = this.burstGap.getCounters();
+		counters.fill(metrics, received, packetDuration);
+
+		int rtt = getRTT();
+		int nominalDelay = jitterBuffer == null ? 0 : jitterBuffer.getNominalDelay();
+		metrics.setRoundTripDelay(rtt);
+		metrics.setEndSystemDelay(nominalDelay + packetDuration);
+		if (jitterBuffer != null) {
+			metrics.setJitterBufferAdaptive(jitterBuffer.isAdaptive());
+			metrics.setJbNominal(nominalDelay);
+			metrics.setJbMaximum(jitterBuffer.getMaxDelay());
+			metrics.setJbAbsMax(jitterBuffer.getMaxDelay());
+		}
+
+		double lossRatio = (double) lost / expected;
+		double impairedPercent = 100.0 * (lost + discarded) / expected;
+		double burstRatio = EModel.burstRatio(lossRatio, counters.getAverageLossRun());
+		double delay = rtt / 2.0 + nominalDelay + packetDuration;
+		double r = EModel.rFactor(delay, impairedPercent, burstRatio);
+		double listeningR = EModel.rFactor(0, impairedPercent, burstRatio);
+		metrics.setRFactor((int) Math.round(r));
+		metrics.setMosCq((int) Math.round(EModel.mos(r) * 10));
+		metrics.setMosLq((int) Math.round(EModel.mos(listeningR) * 10));
+		return metrics;
 	}
 	
 	private boolean validateSequence(int sequence) {
@@ -21,9 +21,9 @@
 package org.restcomm.media.core.rtp.statistics;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -38,10 +38,16 @@ import org.restcomm.media.core.rtp.CnameGenerator;
 import org.restcomm.media.core.rtp.RtpClock;
 import org.restcomm.media.core.rtp.RtpPacket;
 import org.restcomm.media.core.rtp.SsrcGenerator;
+import org.restcomm.media.core.rtp.jitter.JitterBuffer;
 import org.restcomm.media.core.scheduler.Clock;
 
 /**
  * Encapsulates statistics of an RTP/RTCP channel
+ * <p>
+ * The packet counters have a single writer each (the receive and the transmit path) and are published with ordered
+ * writes, so the RTCP thread reads them without locking. Members and senders are kept in copy-on-write SSRC tables that
+ * are looked up without locking nor boxing.
+ * </p>
  * 
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  * 
@@ -50,6 +56,16 @@ public class RtpStatistics {
 	
 	private static final Logger logger = LogManager.getLogger(RtpStatistics.class);
 
+	private static final AtomicLongFieldUpdater<RtpStatistics> HEARTBEAT = AtomicLongFieldUpdater.newUpdater(RtpStatistics.class, "rtpLastHeartbeat");
+	private static final AtomicLongFieldUpdater<RtpStatistics> RX_PACKETS = AtomicLongFieldUpdater.newUpdater(RtpStatistics.class, "rtpRxPackets");
+	private static final AtomicLongFieldUpdater<RtpStatistics> RX_OCTETS = AtomicLongFieldUpdater.newUpdater(RtpStatistics.class, "rtpRxOctets");
+	private static final AtomicLongFieldUpdater<RtpStatistics> RX_ON = AtomicLongFieldUpdater.newUpdater(RtpStatistics.class, "rtpReceivedOn");
+	private static final AtomicLongFieldUpdater<RtpStatistics> TX_PACKETS = AtomicLongFieldUpdater.newUpdater(RtpStatistics.class, "rtpTxPackets");
+	private static final AtomicLongFieldUpdater<RtpStatistics> TX_OCTETS = AtomicLongFieldUpdater.newUpdater(RtpStatistics.class, "rtpTxOctets");
+	private static final AtomicLongFieldUpdater<RtpStatistics> TX_ON = AtomicLongFieldUpdater.newUpdater(RtpStatistics.class, "rtpSentOn");
+	private static final AtomicLongFieldUpdater<RtpStatistics> TX_TIMESTAMP = AtomicLongFieldUpdater.newUpdater(RtpStatistics.class, "rtpTimestamp");
+	private static final AtomicIntegerFieldUpdater<RtpStatistics> MEMBERS = AtomicIntegerFieldUpdater.newUpdater(RtpStatistics.class, "members");
+
 	/** Default session bandwidth (in octets per second). Matches g.711: 64kbps */
 	public static final int RTP_DEFAULT_BW = 8000;
 
@@ -77,7 +93,7 @@ public class RtpStatistics {
 	private String cname;
 
 	/* Global RTP statistics */
-	private long rtpLastHeartbeat;
+	private volatile long rtpLastHeartbeat;
 	private volatile long rtpRxPackets;
 	private volatile long rtpRxOctets;
 	private volatile long rtpTxPackets;
@@ -90,7 +106,7 @@ public class RtpStatistics {
 	private RtcpPacketType rtcpNextPacketType;
 	private double rtcpBw;
 	private double rtcpAvgSize;
-	private boolean weSent;
+	private volatile boolean weSent;
 	
 	private volatile long rtcpTxPackets;
 	private volatile long rtcpTxOctets;
@@ -112,12 +128,14 @@ public class RtpStatistics {
 	 * RTCP report intervals (5 is RECOMMENDED). This provides some robustness
 	 * against packet loss.
 	 */
-	private final Map<Long, RtpMember> membersMap;
-	private int pmembers;
-	private int members;
+	private final SsrcTable<RtpMember> membersTable;
+	private volatile int pmembers;
+	private volatile int members;
 	
-	private final List<Long> sendersList;
-	private int senders;
+	private final SsrcTable<Boolean> sendersTable;
+
+	/* Call quality */
+	private volatile JitterBuffer jitterBuffer;
 
 	public RtpStatistics(final RtpClock clock, final long ssrc, final String cname) {
 		// Common
@@ -137,12 +155,11 @@ public class RtpStatistics {
 		this.rtpTimestamp = -1;
 
 		// RTCP statistics
-		this.senders = 0;
-		this.sendersList = new ArrayList<Long>();
+		this.sendersTable = new SsrcTable<Boolean>();
 		this.pmembers = 1;
 		this.members = 1;
-		this.membersMap = new HashMap<Long, RtpMember>();
-		this.membersMap.put(Long.valueOf(this.ssrc), new RtpMember(this.rtpClock, this.ssrc));
+		this.membersTable = new SsrcTable<RtpMember>();
+		this.membersTable.putIfAbsent(this.ssrc, new RtpMember(this.rtpClock, this.ssrc));
 		this.rtcpBw = RTP_DEFAULT_BW * RTCP_BW_FRACTION;
 		this.rtcpAvgSize = RTCP_DEFAULT_AVG_SIZE;
 		this.rtcpNextPacketType = RtcpPacketType.RTCP_REPORT;
@@ -168,6 +185,26 @@ public class RtpStatistics {
 		this.cname = cname;
 	}
 
+	/**
+	 * Gets the jitter buffer that plays out the received stream.
+	 * 
+	 * @return The jitter buffer, or null if none was set
+	 */
+	public JitterBuffer getJitterBuffer() {
+		return jitterBuffer;
+	}
+
+	/**
+	 * Sets the jitter buffer that plays out the received stream.<br>
+	 * Its discards and delays are included in the RTCP XR VoIP Metrics reports.
+	 * 
+	 * @param jitterBuffer
+	 *            The jitter buffer
+	 */
+	public void setJitterBuffer(JitterBuffer jitterBuffer) {
+		this.jitterBuffer = jitterBuffer;
+	}
+
 	/**
 	 * Gets the relative time since an RTP packet or Heartbeat was received.
 	 * 
@@ -179,13 +216,15 @@ public class RtpStatistics {
 
 	/**
 	 * Sets the relative time for the last received Heartbeat on a RTP Channel.<br>
-	 * Used for RTP timeout control, not RTCP statistics.
+	 * Used for RTP timeout control, not RTCP statistics.<br>
+	 * Called for every packet, so the value is published without a fence and becomes visible to the inactivity sweeper
+	 * shortly after.
 	 * 
 	 * @param rtpKeepAlive
 	 *            The heartbeat timestamp, in nanoseconds.
 	 */
 	public void setLastHeartbeat(long rtpKeepAlive) {
-		this.rtpLastHeartbeat = rtpKeepAlive;
+		HEARTBEAT.lazySet(this, rtpKeepAlive);
 	}
 
 	/**
@@ -331,44 +370,29 @@ public class RtpStatistics {
 	 * @return The estimate number of senders
 	 */
 	public int getSenders() {
-		return this.senders;
+		return this.sendersTable.size();
 	}
 
 	public boolean isSender(long ssrc) {
-		synchronized (this.sendersList) {
-			return this.sendersList.contains(Long.valueOf(ssrc));
-		}
+		return this.sendersTable.contains(ssrc);
 	}
 
 	private void addSender(long ssrc) {
-		synchronized (this.sendersList) {
-			if (!this.sendersList.contains(Long.valueOf(ssrc))) {
-				this.sendersList.add(Long.valueOf(ssrc));
-				this.senders++;
-				if (this.ssrc == ssrc) {
-					this.weSent = true;
-				}
-			}
+		this.sendersTable.putIfAbsent(ssrc, Boolean.TRUE);
+		if (this.ssrc == ssrc) {
+			this.weSent = true;
 		}
 	}
 
 	private void removeSender(long ssrc) {
-		synchronized (this.sendersList) {
-			if (this.sendersList.remove(Long.valueOf(ssrc))) {
-				this.senders--;
-				if (this.ssrc == ssrc) {
-					this.weSent = false;
-				}
-			}
+		if (this.sendersTable.remove(ssrc) && this.ssrc == ssrc) {
+			this.weSent = false;
 		}
 	}
 
 	public void clearSenders() {
-		synchronized (this.sendersList) {
-			this.sendersList.clear();
-			this.senders = 0;
-			this.weSent = false;
-		}
+		this.sendersTable.clear();
+		this.weSent = false;
 	}
 
 	/**
@@ -391,23 +415,29 @@ public class RtpStatistics {
 	}
 
 	public RtpMember getMember(long ssrc) {
-		synchronized (this.membersMap) {
-			return this.membersMap.get(Long.valueOf(ssrc));
-		}
+		return this.membersTable.get(ssrc);
 	}
 
 	public List<Long> getMembersList() {
-		List<Long> copy;
-		synchronized (this.membersMap) {
-			copy = new ArrayList<Long>(this.membersMap.keySet());
+		long[] ssrcs = this.membersTable.keys();
+		List<Long> copy = new ArrayList<Long>(ssrcs.length);
+		for (long ssrc : ssrcs) {
+			copy.add(Long.valueOf(ssrc));
 		}
 		return copy;
 	}
 
+	/**
+	 * Gets the SSRC identifiers of the registered members.
+	 * 
+	 * @return A snapshot of the members, including this source
+	 */
+	public long[] getMemberSsrcs() {
+		return this.membersTable.keys();
+	}
+
 	public boolean isMember(long ssrc) {
-		synchronized (this.membersMap) {
-			return this.membersMap.containsKey(Long.valueOf(ssrc));
-		}
+		return this.membersTable.contains(ssrc);
 	}
 
 	private RtpMember addMember(long ssrc) {
@@ -417,20 +447,18 @@ public class RtpStatistics {
 	private RtpMember addMember(long ssrc, String cname) {
 		RtpMember member = getMember(ssrc);
 		if (member == null) {
-			synchronized (this.membersMap) {
-				member = new RtpMember(this.rtpClock, ssrc, cname);
-				this.membersMap.put(Long.valueOf(ssrc), member);
-				this.members++;
+			RtpMember newMember = new RtpMember(this.rtpClock, ssrc, cname);
+			member = this.membersTable.putIfAbsent(ssrc, newMember);
+			if (member == newMember) {
+				MEMBERS.incrementAndGet(this);
 			}
 		}
 		return member;
 	}
 
 	private void removeMember(long ssrc) {
-		synchronized (this.membersMap) {
-			if (this.membersMap.remove(Long.valueOf(ssrc)) != null) {
-				this.members--;
-			}
+		if (this.membersTable.remove(ssrc)) {
+			MEMBERS.decrementAndGet(this);
 		}
 	}
 
@@ -443,12 +471,10 @@ public class RtpStatistics {
 	}
 
 	public void resetMembers() {
-		synchronized (this.membersMap) {
-			this.membersMap.clear();
-			this.membersMap.put(Long.valueOf(this.ssrc), new RtpMember(this.rtpClock, this.ssrc));
-			this.members = 1;
-			this.pmembers = 1;
-		}
+		this.membersTable.clear();
+		this.membersTable.putIfAbsent(this.ssrc, new RtpMember(this.rtpClock, this.ssrc));
+		this.members = 1;
+		this.pmembers = 1;
 	}
 
 	/**
@@ -490,7 +516,7 @@ public class RtpStatistics {
 	 */
 	public long rtcpInterval(boolean initial) {
 		return RtcpIntervalCalculator.calculateInterval(initial, weSent,
-				senders, members, rtcpAvgSize, rtcpBw, RTCP_BW_FRACTION,
+				getSenders(), members, rtcpAvgSize, rtcpBw, RTCP_BW_FRACTION,
 				RTCP_SENDER_BW_FRACTION, RTCP_RECEIVER_BW_FRACTION);
 	}
 
@@ -506,7 +532,7 @@ public class RtpStatistics {
 	 */
 	public long rtcpReceiverInterval(boolean initial) {
 		return RtcpIntervalCalculator.calculateInterval(initial, false,
-				senders, members, rtcpAvgSize, rtcpBw, RTCP_BW_FRACTION,
+				getSenders(), members, rtcpAvgSize, rtcpBw, RTCP_BW_FRACTION,
 				RTCP_SENDER_BW_FRACTION, RTCP_RECEIVER_BW_FRACTION);
 	}
 	
@@ -543,12 +569,11 @@ public class RtpStatistics {
 		this.rtpTimestamp = -1;
 
 		// RTCP statistics
-		this.senders = 0;
-		this.sendersList.clear();
+		this.sendersTable.clear();
 		this.pmembers = 1;
 		this.members = 1;
-		this.membersMap.clear();
-		this.membersMap.put(Long.valueOf(this.ssrc), new RtpMember(this.rtpClock, this.ssrc));
+		this.membersTable.clear();
+		this.membersTable.putIfAbsent(this.ssrc, new RtpMember(this.rtpClock, this.ssrc));
 		this.rtcpBw = RTP_DEFAULT_BW * RTCP_BW_FRACTION;
 		this.rtcpAvgSize = RTCP_DEFAULT_AVG_SIZE;
 		this.rtcpNextPacketType = RtcpPacketType.RTCP_REPORT;
@@ -559,24 +584,25 @@ public class RtpStatistics {
 	 * EVENTS
 	 */
 	public void onRtpSent(RtpPacket packet) {
-		this.rtpTxPackets++;
-		this.rtpTxOctets += packet.getPayloadLength();
-		this.rtpSentOn = this.wallClock.getCurrentTime();
-		this.rtpTimestamp = packet.getTimestamp();
+		// Single writer: ordered writes publish the counters without a full fence per packet
+		TX_PACKETS.lazySet(this, this.rtpTxPackets + 1);
+		TX_OCTETS.lazySet(this, this.rtpTxOctets + packet.getPayloadLength());
+		TX_ON.lazySet(this, this.wallClock.getCurrentTime());
+		TX_TIMESTAMP.lazySet(this, packet.getTimestamp());
 		/*
 		 * If the participant sends an RTP packet when we_sent is false, it adds
 		 * itself to the sender table and sets we_sent to true.
 		 */
 		if (!this.weSent) {
-			addSender(Long.valueOf(this.ssrc));
+			addSender(this.ssrc);
 		}
 	}
 
 	public void onRtpReceive(RtpPacket packet) {
-		// Increment global statistics
-		this.rtpRxPackets++;
-		this.rtpRxOctets += packet.getPayloadLength();
-		this.rtpReceivedOn = this.wallClock.getTime();
+		// Increment global statistics. Single writer: ordered writes publish them without a full fence per packet
+		RX_PACKETS.lazySet(this, this.rtpRxPackets + 1);
+		RX_OCTETS.lazySet(this, this.rtpRxOctets + packet.getPayloadLength());
+		RX_ON.lazySet(this, this.wallClock.getTime());
 		
 		// Note that there is no point in registering new members if RTCP handler has scheduled a BYE
 		if(RtcpPacketType.RTCP_REPORT.equals(this.rtcpNextPacketType)) {
@@ -587,13 +613,13 @@ public class RtpStatistics {
 			 * not in the sender table, the SSRC is added to the table, and the
 			 * value for senders is updated.
 			 */
-			RtpMember member = getMember(syncSource);
+			RtpMember member = this.membersTable.get(syncSource);
 			
 			if (member == null) {
 				member = addMember(syncSource);
 			}
 
-			if (!isSender(syncSource)) {
+			if (!this.sendersTable.contains(syncSource)) {
 				addSender(syncSource);
 			}
 			
@@ -688,7 +714,7 @@ public class RtpStatistics {
 				 * avg_rtcp_size is updated only for received BYE packets.
 				 * senders is NOT updated when RTP packets arrive; it remains 0.
 				 */
-				this.members++;
+				MEMBERS.incrementAndGet(this);
 				break;
 
 			default:
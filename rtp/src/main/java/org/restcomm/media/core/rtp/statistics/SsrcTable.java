@@ -0,0 +1,191 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.statistics;
+
+/**
+ * Map of RTP synchronization sources to their state, keyed by the primitive SSRC.
+ * <p>
+ * Lookups never lock nor box the SSRC. The table is copy-on-write: sources join and leave a session rarely, so every
+ * change builds a new open-addressing table and publishes it with a single volatile write. Readers always see a complete
+ * table.
+ * </p>
+ *
+ * @param <V> the type of the state kept for each source
+ */
+class SsrcTable<V> {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private volatile Table table;
+
+    SsrcTable() {
+        this.table = new Table(MIN_CAPACITY);
+    }
+
+    /**
+     * Gets the state of a source.
+     *
+     * @param ssrc the synchronization source
+     * @return the state, or <code>null</code> if the source is not in the table
+     */
+    @SuppressWarnings("unchecked")
+    V get(long ssrc) {
+        final Table table = this.table;
+        final int index = table.indexOf(ssrc);
+        return index < 0 ? null : (V) table.values[index];
+    }
+
+    boolean contains(long ssrc) {
+        return this.table.indexOf(ssrc) >= 0;
+    }
+
+    int size() {
+        return this.table.size;
+    }
+
+    /**
+     * Adds a source, unless it is already in the table.
+     *
+     * @param ssrc the synchronization source
+     * @param value the state of the source. Cannot be null.
+     * @return the state now in the table for the source
+     */
+    @SuppressWarnings("unchecked")
+    synchronized V putIfAbsent(long ssrc, V value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+
+        final Table current = this.table;
+        final int index = current.indexOf(ssrc);
+        if (index >= 0) {
+            return (V) current.values[index];
+        }
+
+        // keep the load factor at or below 1/2 so probes stay short
+        int capacity = current.keys.length;
+        if ((current.size + 1) * 2 > capacity) {
+            capacity *= 2;
+        }
+        final Table next = current.copy(capacity, Long.MIN_VALUE);
+        next.insert(ssrc, value);
+        this.table = next;
+        return value;
+    }
+
+    /**
+     * Removes a source.
+     *
+     * @param ssrc the synchronization source
+     * @return <code>true</code> if the source was in the table
+     */
+    synchronized boolean remove(long ssrc) {
+        final Table current = this.table;
+        if (current.indexOf(ssrc) < 0) {
+            return false;
+        }
+        this.table = current.copy(current.keys.length, ssrc);
+        return true;
+    }
+
+    synchronized void clear() {
+        this.table = new Table(MIN_CAPACITY);
+    }
+
+    /**
+     * Gets the sources in the table at the time of the call.
+     *
+     * @return the SSRC identifiers
+     */
+    long[] keys() {
+        final Table table = this.table;
+        final long[] keys = new long[table.size];
+        int count = 0;
+        for (int i = 0; i < table.values.length; i++) {
+            if (table.values[i] != null) {
+                keys[count++] = table.keys[i];
+            }
+        }
+        return keys;
+    }
+
+    private static final class Table {
+
+        final long[] keys;
+        final Object[] values;
+        final int mask;
+        int size;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+            this.size = 0;
+        }
+
+        private int slot(long ssrc) {
+            // SSRCs are random 32-bit values, but spread them anyway in case a peer picks sequential ones
+            final int hash = (int) (ssrc ^ (ssrc >>> 32)) * 0x9E3779B9;
+            return (hash ^ (hash >>> 16)) & this.mask;
+        }
+
+        int indexOf(long ssrc) {
+            int index = slot(ssrc);
+            while (this.values[index] != null) {
+                if (this.keys[index] == ssrc) {
+                    return index;
+                }
+                index = (index + 1) & this.mask;
+            }
+            return -1;
+        }
+
+        void insert(long ssrc, Object value) {
+            int index = slot(ssrc);
+            while (this.values[index] != null) {
+                index = (index + 1) & this.mask;
+            }
+            this.keys[index] = ssrc;
+            this.values[index] = value;
+            this.size++;
+        }
+
+        /**
+         * Copies the table, leaving one source out.
+         *
+         * @param capacity the capacity of the copy, a power of two
+         * @param skip the source to leave out, or a value outside the 32-bit SSRC range to keep all of them
+         * @return the copy
+         */
+        Table copy(int capacity, long skip) {
+            final Table copy = new Table(capacity);
+            for (int i = 0; i < this.values.length; i++) {
+                if (this.values[i] != null && this.keys[i] != skip) {
+                    copy.insert(this.keys[i], this.values[i]);
+                }
+            }
+            return copy;
+        }
+
+    }
+
+}
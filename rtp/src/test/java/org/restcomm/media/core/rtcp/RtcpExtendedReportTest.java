@@ -0,0 +1,159 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtcp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link RtcpExtendedReport}
+ */
+public class RtcpExtendedReportTest {
+
+    private RtcpVoipMetrics buildMetrics(long ssrc) {
+        RtcpVoipMetrics metrics = new RtcpVoipMetrics(ssrc);
+        metrics.setLossRate(13);
+        metrics.setDiscardRate(2);
+        metrics.setBurstDensity(200);
+        metrics.setGapDensity(5);
+        metrics.setBurstDuration(60);
+        metrics.setGapDuration(4000);
+        metrics.setRoundTripDelay(150);
+        metrics.setEndSystemDelay(80);
+        metrics.setGmin(16);
+        metrics.setRFactor(82);
+        metrics.setMosLq(41);
+        metrics.setMosCq(40);
+        metrics.setJitterBufferAdaptive(true);
+        metrics.setJbNominal(60);
+        metrics.setJbMaximum(200);
+        metrics.setJbAbsMax(200);
+        return metrics;
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        // given
+        RtcpExtendedReport report = new RtcpExtendedReport(false, 0xCAFEBABEL);
+        report.addVoipMetrics(buildMetrics(0x12345678L));
+        byte[] rawData = new byte[256];
+
+        // when
+        int length = report.encode(rawData, 0);
+        RtcpExtendedReport decoded = new RtcpExtendedReport();
+        int offset = decoded.decode(rawData, 0);
+
+        // then
+        assertEquals(8 + RtcpVoipMetrics.SIZE, length);
+        assertEquals(length, offset);
+        assertEquals(RtcpHeader.RTCP_XR, rawData[1] & 0xFF);
+        assertEquals(RtcpHeader.RTCP_XR, decoded.getPacketType());
+        assertEquals(length, decoded.getLength());
+        assertEquals(0xCAFEBABEL, decoded.getSsrc());
+
+        List<RtcpVoipMetrics> blocks = decoded.getVoipMetrics();
+        assertEquals(1, blocks.size());
+        RtcpVoipMetrics metrics = blocks.get(0);
+        assertEquals(0x12345678L, metrics.getSsrc());
+        assertEquals(13, metrics.getLossRate());
+        assertEquals(2, metrics.getDiscardRate());
+        assertEquals(200, metrics.getBurstDensity());
+        assertEquals(5, metrics.getGapDensity());
+        assertEquals(60, metrics.getBurstDuration());
+        assertEquals(4000, metrics.getGapDuration());
+        assertEquals(150, metrics.getRoundTripDelay());
+        assertEquals(80, metrics.getEndSystemDelay());
+        assertEquals(RtcpVoipMetrics.UNAVAILABLE, metrics.getSignalLevel());
+        assertEquals(16, metrics.getGmin());
+        assertEquals(82, metrics.getRFactor());
+        assertEquals(RtcpVoipMetrics.UNAVAILABLE, metrics.getExtRFactor());
+        assertEquals(41, metrics.getMosLq());
+        assertEquals(40, metrics.getMosCq());
+        assertTrue(metrics.isJitterBufferAdaptive());
+        assertEquals(60, metrics.getJbNominal());
+        assertEquals(200, metrics.getJbMaximum());
+        assertEquals(200, metrics.getJbAbsMax());
+    }
+
+    @Test
+    public void testDecodeSkipsUnknownBlocks() {
+        // given
+        RtcpExtendedReport report = new RtcpExtendedReport(false, 1);
+        report.addVoipMetrics(buildMetrics(2));
+        byte[] encoded = new byte[256];
+        int length = report.encode(encoded, 0);
+
+        // insert a Packet Receipt Times block (BT=3) of 2 words before the VoIP Metrics
+        byte[] rawData = new byte[length + 12];
+        System.arraycopy(encoded, 0, rawData, 0, 8);
+        rawData[8] = 3;
+        rawData[11] = 2;
+        System.arraycopy(encoded, 8, rawData, 20, length - 8);
+        int words = (rawData.length / 4) - 1;
+        rawData[2] = (byte) (words >> 8);
+        rawData[3] = (byte) words;
+
+        // when
+        RtcpExtendedReport decoded = new RtcpExtendedReport();
+        int offset = decoded.decode(rawData, 0);
+
+        // then
+        assertEquals(rawData.length, offset);
+        assertEquals(1, decoded.getVoipMetrics().size());
+        assertEquals(2, decoded.getVoipMetrics().get(0).getSsrc());
+    }
+
+    @Test
+    public void testCompoundPacket() {
+        // given
+        RtcpReceiverReport rr = new RtcpReceiverReport(false, 1);
+        RtcpSdes sdes = new RtcpSdes(false);
+        RtcpSdesChunk chunk = new RtcpSdesChunk(1);
+        chunk.addRtcpSdesItem(new RtcpSdesItem(RtcpSdesItem.RTCP_SDES_CNAME, "cname"));
+        sdes.addRtcpSdesChunk(chunk);
+        RtcpExtendedReport xr = new RtcpExtendedReport(false, 1);
+        xr.addVoipMetrics(buildMetrics(2));
+        RtcpPacket packet = new RtcpPacket(rr, sdes);
+        packet.setExtendedReport(xr);
+        byte[] rawData = new byte[256];
+
+        // when
+        int length = packet.encode(rawData, 0);
+        byte[] data = new byte[length];
+        System.arraycopy(rawData, 0, data, 0, length);
+        RtcpPacket decoded = new RtcpPacket();
+        decoded.decode(data, 0);
+
+        // then
+        assertEquals(length, decoded.getSize());
+        assertNotNull(decoded.getReceiverReport());
+        assertNotNull(decoded.getSdes());
+        assertNotNull(decoded.getExtendedReport());
+        assertEquals(40, decoded.getExtendedReport().getVoipMetrics().get(0).getMosCq());
+    }
+
+}
@@ -24,6 +24,8 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.net.ntp.TimeStamp;
 import org.apache.logging.log4j.LogManager;
@@ -48,6 +50,8 @@ import org.restcomm.media.core.rtcp.RtcpSenderReport;
 import org.restcomm.media.core.rtp.CnameGenerator;
 import org.restcomm.media.core.rtp.RtpClock;
 import org.restcomm.media.core.rtp.SsrcGenerator;
+import org.restcomm.media.core.rtp.statistics.CallQualityReport;
+import org.restcomm.media.core.rtp.statistics.CallQualitySink;
 import org.restcomm.media.core.rtp.statistics.RtpMember;
 import org.restcomm.media.core.rtp.statistics.RtpStatistics;
 import org.restcomm.media.core.scheduler.Clock;
@@ -174,6 +178,54 @@ public class RtcpHandlerTest {
 		Assert.assertEquals(expectedSize, statistics.getRtcpAvgSize(), 0.0);
 	}
 
+	@Test
+	public void testHandleExtendedReport() throws PacketHandlerException {
+		// given
+		InetSocketAddress localPeer = new InetSocketAddress("127.0.0.1", 6100);
+		InetSocketAddress remotePeer = new InetSocketAddress("127.0.0.1", 6200);
+		long remoteSsrc = SsrcGenerator.generateSsrc();
+
+		RtcpReceiverReport rr = new RtcpReceiverReport(false, remoteSsrc);
+		RtcpSdes sdes = new RtcpSdes(false);
+		RtcpSdesChunk sdesChunk = new RtcpSdesChunk(remoteSsrc);
+		sdesChunk.addRtcpSdesItem(new RtcpSdesItem(RtcpSdesItem.RTCP_SDES_CNAME, CnameGenerator.generateCname()));
+		sdes.addRtcpSdesChunk(sdesChunk);
+		RtcpVoipMetrics metrics = new RtcpVoipMetrics(statistics.getSsrc());
+		metrics.setLossRate(64);
+		metrics.setRFactor(70);
+		metrics.setMosCq(36);
+		RtcpExtendedReport xr = new RtcpExtendedReport(false, remoteSsrc);
+		xr.addVoipMetrics(metrics);
+
+		RtcpPacket rtcpPacket = new RtcpPacket(rr, sdes);
+		rtcpPacket.setExtendedReport(xr);
+		byte[] rtcpData = new byte[300];
+		rtcpPacket.encode(rtcpData, 0);
+
+		final List<CallQualityReport> reports = new ArrayList<>();
+		handler.setQualitySink(new CallQualitySink() {
+
+			@Override
+			public void onQualityReport(CallQualityReport report) {
+				reports.add(report);
+			}
+		});
+
+		// when
+		handler.joinRtpSession();
+		handler.handle(rtcpData, localPeer, remotePeer);
+
+		// then
+		Assert.assertEquals(1, reports.size());
+		CallQualityReport report = reports.get(0);
+		Assert.assertTrue(report.isRemote());
+		Assert.assertEquals(statistics.getSsrc(), report.getSsrc());
+		Assert.assertEquals(statistics.getCname(), report.getCname());
+		Assert.assertEquals(0.25, report.getLossRate(), 0.0);
+		Assert.assertEquals(70, report.getRFactor());
+		Assert.assertEquals(3.6, report.getMosCq(), 0.0);
+	}
+
 	@Test
 	public void testHandleSenderReport() throws PacketHandlerException {
 		// given
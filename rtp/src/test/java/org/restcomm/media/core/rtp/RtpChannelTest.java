@@ -21,7 +21,12 @@
 package org.restcomm.media.core.rtp;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.net.InetSocketAddress;
@@ -290,6 +295,30 @@ public class RtpChannelTest {
         assertEquals(50, s1[0], 5);
     }
     
+    @Test
+    public void testRtpTimeout() throws Exception {
+        // given
+        final RtpListener listener1 = mock(RtpListener.class);
+        final RtpListener listener2 = mock(RtpListener.class);
+        channel1.setRtpListener(listener1);
+        channel2.setRtpListener(listener2);
+        udpManager.setUseSbc(true);
+        udpManager.setRtpTimeout(1);
+
+        // when
+        channel1.updateMode(ConnectionMode.RECV_ONLY);
+        channel2.updateMode(ConnectionMode.SEND_ONLY);
+        channel1.setRemotePeer(new InetSocketAddress("127.0.0.1", channel2.getLocalPort()));
+        channel2.setRemotePeer(new InetSocketAddress("127.0.0.1", channel1.getLocalPort()));
+
+        // then
+        assertEquals(1, udpManager.getInactivitySweeper().getWatchCount());
+        verify(listener1, timeout(3000)).onRtpFailure(anyString());
+        verify(listener2, never()).onRtpFailure(anyString());
+        assertEquals(0, udpManager.getInactivitySweeper().getWatchCount());
+        assertTrue(udpManager.getInactivitySweeper().getClock().getTime() - statistics1.getLastHeartbeat() > 1000000000L);
+    }
+
     @Test
     public void testFailureRate() throws Exception {
         for (int i = 0; i < 1; i++) {
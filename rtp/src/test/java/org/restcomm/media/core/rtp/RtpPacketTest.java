@@ -23,6 +23,8 @@
 package org.restcomm.media.core.rtp;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import java.nio.ByteBuffer;
 
@@ -32,6 +34,8 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.restcomm.media.core.rtp.RtpPacket;
+import org.restcomm.media.core.spi.memory.Frame;
+import org.restcomm.media.core.spi.memory.Memory;
 
 /**
  * 
@@ -123,6 +127,34 @@ public class RtpPacketTest {
         assertEquals(true, rtpPacket.getMarker());
     }
 
+    @Test
+    public void testWrapFrame() {
+        // given
+        Frame frame = Memory.allocate(2048);
+        System.arraycopy(p, 0, frame.getData(), 4, p.length);
+        frame.setOffset(4);
+        frame.setLength(p.length);
+
+        // when
+        rtpPacket.wrap(frame);
+
+        // then
+        assertSame(frame, rtpPacket.getFrame());
+        assertEquals(8, rtpPacket.getPayloadType());
+        assertEquals(27244, rtpPacket.getSeqNumber());
+        assertEquals(3249239181l, rtpPacket.getTimestamp());
+        assertEquals(3001189225l, rtpPacket.getSyncSource());
+        assertEquals(p.length - 12, rtpPacket.getPayloadLength());
+
+        // when
+        rtpPacket.unwrap();
+
+        // then
+        assertNull(rtpPacket.getFrame());
+        assertEquals(172, rtpPacket.getBuffer().capacity());
+        frame.recycle();
+    }
+
     @Test
     public void testWrapTime() {
         long s = System.nanoTime();
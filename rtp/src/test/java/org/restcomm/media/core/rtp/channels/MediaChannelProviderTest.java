@@ -0,0 +1,98 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.channels;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Test;
+import org.restcomm.media.core.network.deprecated.RtpPortManager;
+import org.restcomm.media.core.network.deprecated.UdpManager;
+import org.restcomm.media.core.rtp.ChannelsManager;
+import org.restcomm.media.core.rtp.crypto.DtlsSrtpServerProvider;
+import org.restcomm.media.core.scheduler.PriorityQueueScheduler;
+import org.restcomm.media.core.scheduler.ServiceScheduler;
+import org.restcomm.media.core.scheduler.WallClock;
+import org.restcomm.media.core.spi.dsp.DspFactory;
+
+public class MediaChannelProviderTest {
+
+    private ChannelsManager buildChannelsManager() {
+        PriorityQueueScheduler mediaScheduler = new PriorityQueueScheduler();
+        mediaScheduler.setClock(new WallClock());
+        UdpManager udpManager = new UdpManager(new ServiceScheduler(), new RtpPortManager(), new RtpPortManager());
+        ChannelsManager channelsManager = new ChannelsManager(udpManager, mock(DtlsSrtpServerProvider.class));
+        channelsManager.setScheduler(mediaScheduler);
+        return channelsManager;
+    }
+
+    @Test
+    public void testReuseReleasedAudioChannel() {
+        // given
+        final MediaChannelProvider provider = new MediaChannelProvider(buildChannelsManager(), mock(DspFactory.class), 2);
+
+        // then - pool is warmed on creation
+        assertEquals(2, provider.getPooledCount());
+        assertEquals(0, provider.warmUp());
+
+        // when
+        final AudioChannel channel1 = provider.provideAudioChannel();
+        final AudioChannel channel2 = provider.provideAudioChannel();
+        final AudioChannel channel3 = provider.provideAudioChannel();
+
+        // then
+        assertEquals(0, provider.getPooledCount());
+        assertNotSame(channel1, channel2);
+        assertNotNull(channel3);
+
+        // when
+        assertTrue(provider.release(channel1));
+        assertTrue(provider.release(channel2));
+        assertFalse(provider.release(channel3));
+
+        // then
+        assertEquals(2, provider.getPooledCount());
+        assertSame(channel1, provider.provideAudioChannel());
+
+        // when
+        final int added = provider.warmUp();
+
+        // then
+        assertEquals(1, added);
+        assertEquals(2, provider.getPooledCount());
+    }
+
+    @Test
+    public void testPoolingDisabled() {
+        // given
+        final MediaChannelProvider provider = new MediaChannelProvider(buildChannelsManager(), mock(DspFactory.class), 0);
+
+        // when
+        final AudioChannel channel = provider.provideAudioChannel();
+
+        // then
+        assertEquals(0, provider.warmUp());
+        assertFalse(provider.release(channel));
+        assertEquals(0, provider.getPooledCount());
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.crypto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import org.bouncycastle.asn1.pkcs.RSAPrivateKey;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.generators.RSAKeyPairGenerator;
+import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
+import org.bouncycastle.crypto.params.RSAKeyParameters;
+import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.util.io.pem.PemWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DtlsCredentialStoreTest {
+
+    private File certificateFile;
+    private File keyFile;
+
+    @Before
+    public void before() throws Exception {
+        this.certificateFile = File.createTempFile("dtls-cert", ".pem");
+        this.keyFile = File.createTempFile("dtls-key", ".pem");
+        writePem(this.certificateFile, "CERTIFICATE", TlsUtils.rsaCertData);
+        writePem(this.keyFile, "RSA PRIVATE KEY", generateKey());
+    }
+
+    @After
+    public void after() {
+        this.certificateFile.delete();
+        this.keyFile.delete();
+    }
+
+    private static void writePem(File file, String type, byte[] content) throws IOException {
+        try (PemWriter writer = new PemWriter(new FileWriter(file))) {
+            writer.writeObject(new PemObject(type, content));
+        }
+    }
+
+    private static byte[] generateKey() throws IOException {
+        RSAKeyPairGenerator generator = new RSAKeyPairGenerator();
+        generator.init(new RSAKeyGenerationParameters(BigInteger.valueOf(0x10001), new SecureRandom(), 1024, 25));
+        AsymmetricCipherKeyPair pair = generator.generateKeyPair();
+        RSAPrivateCrtKeyParameters key = (RSAPrivateCrtKeyParameters) pair.getPrivate();
+        return new RSAPrivateKey(key.getModulus(), key.getPublicExponent(), key.getExponent(), key.getP(), key.getQ(),
+                key.getDP(), key.getDQ(), key.getQInv()).getEncoded();
+    }
+
+    private String[] certificatePaths() {
+        return new String[] { this.certificateFile.getAbsolutePath() };
+    }
+
+    @Test
+    public void testParsesFilesOnce() throws Exception {
+        // given
+        DtlsCredentialStore store = new DtlsCredentialStore(certificatePaths(), keyFile.getAbsolutePath(), 0);
+
+        // when
+        DtlsCredentialStore.Credentials first = store.get();
+        this.certificateFile.delete();
+        this.keyFile.delete();
+        DtlsCredentialStore.Credentials second = store.get();
+
+        // then
+        assertSame(first, second);
+        assertEquals(1, first.getCertificateChain().getLength());
+        assertTrue(first.getPrivateKey() instanceof RSAKeyParameters);
+    }
+
+    @Test
+    public void testPrecomputesFingerprints() throws Exception {
+        // given
+        DtlsCredentialStore store = new DtlsCredentialStore(certificatePaths(), keyFile.getAbsolutePath(), 0);
+        org.bouncycastle.asn1.x509.Certificate certificate = TlsUtils.loadCertificateResource(certificateFile.getAbsolutePath());
+
+        // when
+        DtlsCredentialStore.Credentials credentials = store.get();
+
+        // then
+        assertEquals(TlsUtils.fingerprint("sha-256", certificate), credentials.getFingerprint("SHA-256"));
+        assertEquals(TlsUtils.fingerprint("sha-1", certificate), credentials.getFingerprint("sha-1"));
+        assertEquals(TlsUtils.fingerprint("sha-512", certificate), credentials.getFingerprint("sha-512"));
+        assertEquals(TlsUtils.fingerprint("sha-256", certificate), credentials.getFingerprint("md5"));
+    }
+
+    @Test
+    public void testReloadsChangedFiles() throws Exception {
+        // given
+        DtlsCredentialStore store = new DtlsCredentialStore(certificatePaths(), keyFile.getAbsolutePath(), 1);
+        DtlsCredentialStore.Credentials original = store.get();
+
+        // when
+        writePem(this.certificateFile, "CERTIFICATE", TlsUtils.dudRsaCertData);
+        this.certificateFile.setLastModified(this.certificateFile.lastModified() + 60000);
+        Thread.sleep(5);
+        DtlsCredentialStore.Credentials reloaded = store.get();
+
+        // then
+        assertNotSame(original, reloaded);
+        org.bouncycastle.asn1.x509.Certificate certificate = TlsUtils.loadCertificateResource(certificateFile.getAbsolutePath());
+        assertEquals(TlsUtils.fingerprint("sha-256", certificate), reloaded.getFingerprint("sha-256"));
+    }
+
+    @Test
+    public void testKeepsCredentialsWhenReloadFails() throws Exception {
+        // given
+        DtlsCredentialStore store = new DtlsCredentialStore(certificatePaths(), keyFile.getAbsolutePath(), 1);
+        DtlsCredentialStore.Credentials original = store.get();
+
+        // when
+        try (FileWriter writer = new FileWriter(this.keyFile)) {
+            writer.write("garbage");
+        }
+        this.keyFile.setLastModified(this.keyFile.lastModified() + 60000);
+        Thread.sleep(5);
+        DtlsCredentialStore.Credentials current = store.get();
+
+        // then
+        assertSame(original, current);
+    }
+
+    @Test
+    public void testSharesStoreBetweenProviders() {
+        // when
+        DtlsCredentialStore first = DtlsCredentialStore.getInstance(certificatePaths(), keyFile.getAbsolutePath());
+        DtlsCredentialStore second = DtlsCredentialStore.getInstance(certificatePaths(), keyFile.getAbsolutePath());
+
+        // then
+        assertSame(first, second);
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingFiles() throws Exception {
+        // given
+        DtlsCredentialStore store = new DtlsCredentialStore(new String[] { "missing-cert.pem" }, "missing-key.pem", 0);
+
+        // when
+        store.get();
+    }
+
+}
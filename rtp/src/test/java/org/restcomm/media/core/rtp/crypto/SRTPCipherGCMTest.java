@@ -0,0 +1,315 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+
+/**
+ * Checks the AEAD_AES_128_GCM and AEAD_AES_256_GCM transforms against RFC 7714.
+ */
+public class SRTPCipherGCMTest {
+
+    // RFC 7714 16.1.1 - SRTP AEAD_AES_128_GCM Encryption
+    private static final byte[] KEY = Hex.decode("000102030405060708090a0b0c0d0e0f");
+    private static final byte[] IV = Hex.decode("51753c6580c2726f20718414");
+    private static final byte[] HEADER = Hex.decode("8040f17b8041f8d35501a0b2");
+    private static final byte[] PLAINTEXT = Hex.decode("47616c6c696120657374206f6d6e697320646976697361"
+            + "20696e207061727465732074726573");
+    private static final byte[] CIPHERTEXT = Hex.decode("f24de3a3fb34de6cacba861c9d7e4bcabe633bd50d294e6f42a5f47a51c7d19b"
+            + "36de3adf8833899d7f27beb16a9152cf765ee4390cce");
+
+    private static final byte[] MASTER_KEY = Hex.decode("E1F97A0D3E018BE0D64FA32C06DE4139");
+    private static final byte[] MASTER_SALT = Hex.decode("0EC675AD498AFEEBB6960B3A");
+
+    private static SRTPPolicy srtpPolicy(SRTPParameters parameters, SRTPCryptoProvider provider) {
+        final SRTPPolicy policy = parameters.getSrtpPolicy();
+        policy.setCryptoProvider(provider);
+        return policy;
+    }
+
+    private static SRTPPolicy srtcpPolicy(SRTPParameters parameters, SRTPCryptoProvider provider) {
+        final SRTPPolicy policy = parameters.getSrtcpPolicy();
+        policy.setCryptoProvider(provider);
+        return policy;
+    }
+
+    private static SRTPCryptoContext srtpContext(SRTPParameters parameters, SRTPCryptoProvider provider) {
+        final byte[] masterKey = Arrays.copyOf(MASTER_KEY, parameters.getCipherKeyLength());
+        final SRTPCryptoContext context = new SRTPCryptoContext(0L, 0, 0L, masterKey, MASTER_SALT, srtpPolicy(parameters, provider));
+        context.deriveSrtpKeys(0L);
+        return context;
+    }
+
+    private static SRTCPCryptoContext srtcpContext(SRTPParameters parameters, SRTPCryptoProvider provider) {
+        final byte[] masterKey = Arrays.copyOf(MASTER_KEY, parameters.getCipherKeyLength());
+        final SRTCPCryptoContext context = new SRTCPCryptoContext(0L, masterKey, MASTER_SALT, srtcpPolicy(parameters, provider));
+        context.deriveSrtcpKeys();
+        return context;
+    }
+
+    private static byte[] rtpPacket(int seq, byte[] payload) {
+        final byte[] packet = new byte[HEADER.length + payload.length];
+        System.arraycopy(HEADER, 0, packet, 0, HEADER.length);
+        packet[2] = (byte) (seq >> 8);
+        packet[3] = (byte) seq;
+        System.arraycopy(payload, 0, packet, HEADER.length, payload.length);
+        return packet;
+    }
+
+    /**
+     * Derives a session key with the AES-CM PRF of RFC 3711 4.3.3, the 96-bit salt being padded with zeros.
+     */
+    private static byte[] derive(byte[] masterKey, int label, int length) throws Exception {
+        final byte[] iv = Arrays.copyOf(MASTER_SALT, 16);
+        iv[7] ^= label;
+        final Cipher prf = Cipher.getInstance("AES/CTR/NoPadding");
+        prf.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(masterKey, "AES"), new IvParameterSpec(iv));
+        return prf.doFinal(new byte[length]);
+    }
+
+    @Test
+    public void testEncryptionVector() {
+        for (SRTPCryptoProvider provider : SRTPCryptoProvider.values()) {
+            // given
+            final SRTPCipherGCM gcm = new SRTPCipherGCM(provider);
+            gcm.init(KEY);
+            final ByteBuffer packet = ByteBuffer.allocateDirect(HEADER.length + PLAINTEXT.length + SRTPCipherGCM.TAG_LENGTH);
+            packet.put(HEADER).put(PLAINTEXT).rewind();
+
+            // when
+            gcm.encrypt(packet, HEADER.length, null, PLAINTEXT.length, IV);
+
+            // then
+            final byte[] header = new byte[HEADER.length];
+            final byte[] ciphertext = new byte[CIPHERTEXT.length];
+            packet.get(header).get(ciphertext);
+            assertArrayEquals(provider.name(), HEADER, header);
+            assertArrayEquals(provider.name(), CIPHERTEXT, ciphertext);
+        }
+    }
+
+    @Test
+    public void testDecryptionVector() {
+        for (SRTPCryptoProvider provider : SRTPCryptoProvider.values()) {
+            // given
+            final SRTPCipherGCM gcm = new SRTPCipherGCM(provider);
+            gcm.init(KEY);
+            final ByteBuffer packet = ByteBuffer.allocateDirect(HEADER.length + CIPHERTEXT.length);
+            packet.put(HEADER).put(CIPHERTEXT).rewind();
+
+            // when
+            final boolean valid = gcm.decrypt(packet, HEADER.length, null, CIPHERTEXT.length, IV);
+
+            // then
+            assertTrue(provider.name(), valid);
+            final byte[] plaintext = new byte[PLAINTEXT.length];
+            packet.position(HEADER.length);
+            packet.get(plaintext);
+            assertArrayEquals(provider.name(), PLAINTEXT, plaintext);
+        }
+    }
+
+    @Test
+    public void testDecryptionRejectsForgedHeader() {
+        for (SRTPCryptoProvider provider : SRTPCryptoProvider.values()) {
+            // given
+            final SRTPCipherGCM gcm = new SRTPCipherGCM(provider);
+            gcm.init(KEY);
+            final ByteBuffer packet = ByteBuffer.allocateDirect(HEADER.length + CIPHERTEXT.length);
+            packet.put(HEADER).put(CIPHERTEXT).rewind();
+            packet.put(1, (byte) 0x41);
+
+            // when
+            final boolean valid = gcm.decrypt(packet, HEADER.length, null, CIPHERTEXT.length, IV);
+
+            // then
+            assertFalse(provider.name(), valid);
+            final byte[] ciphertext = new byte[CIPHERTEXT.length];
+            packet.position(HEADER.length);
+            packet.get(ciphertext);
+            assertArrayEquals(provider.name(), CIPHERTEXT, ciphertext);
+        }
+    }
+
+    @Test
+    public void testDerivedKeysProtectPacket() throws Exception {
+        for (SRTPParameters parameters : new SRTPParameters[] { SRTPParameters.SRTP_AEAD_AES_128_GCM, SRTPParameters.SRTP_AEAD_AES_256_GCM }) {
+            // given
+            final byte[] masterKey = Arrays.copyOf(MASTER_KEY, parameters.getCipherKeyLength());
+            final byte[] sessionKey = derive(masterKey, 0x00, parameters.getCipherKeyLength());
+            final byte[] sessionSalt = derive(masterKey, 0x02, parameters.getCipherSaltLength());
+            final byte[] packet = rtpPacket(0xf17b, PLAINTEXT);
+
+            // IV = (00 00 || SSRC || ROC || SEQ) XOR salt
+            final byte[] iv = new byte[SRTPCipherGCM.IV_LENGTH];
+            System.arraycopy(HEADER, 8, iv, 2, 4);
+            iv[10] = (byte) 0xf1;
+            iv[11] = (byte) 0x7b;
+            for (int i = 0; i < iv.length; i++) {
+                iv[i] ^= sessionSalt[i];
+            }
+            final Cipher aes = Cipher.getInstance("AES/GCM/NoPadding");
+            aes.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(sessionKey, "AES"), new GCMParameterSpec(128, iv));
+            aes.updateAAD(HEADER);
+            final byte[] expected = Arrays.copyOf(HEADER, HEADER.length + PLAINTEXT.length + SRTPCipherGCM.TAG_LENGTH);
+            aes.doFinal(PLAINTEXT, 0, PLAINTEXT.length, expected, HEADER.length);
+
+            for (SRTPCryptoProvider provider : SRTPCryptoProvider.values()) {
+                // when
+                final RawPacket raw = new RawPacket(packet, 0, packet.length);
+                srtpContext(parameters, provider).transformPacket(raw);
+
+                // then
+                assertArrayEquals(parameters + " " + provider, expected, raw.getData());
+            }
+        }
+    }
+
+    @Test
+    public void testProvidersAreInteroperable() {
+        // given
+        final Random random = new Random(7714);
+        final SRTPCryptoContext bouncyCastleSender = srtpContext(SRTPParameters.SRTP_AEAD_AES_256_GCM, SRTPCryptoProvider.BOUNCYCASTLE);
+        final SRTPCryptoContext jceSender = srtpContext(SRTPParameters.SRTP_AEAD_AES_256_GCM, SRTPCryptoProvider.JCE);
+        final SRTPCryptoContext bouncyCastleReceiver = srtpContext(SRTPParameters.SRTP_AEAD_AES_256_GCM, SRTPCryptoProvider.BOUNCYCASTLE);
+        final SRTPCryptoContext jceReceiver = srtpContext(SRTPParameters.SRTP_AEAD_AES_256_GCM, SRTPCryptoProvider.JCE);
+
+        for (int seq = 65530; seq < 65545; seq++) {
+            final byte[] payload = new byte[1 + random.nextInt(1200)];
+            random.nextBytes(payload);
+            final byte[] packet = rtpPacket(seq & 0xFFFF, payload);
+
+            // when
+            final RawPacket bouncyCastleProtected = new RawPacket(packet, 0, packet.length);
+            bouncyCastleSender.transformPacket(bouncyCastleProtected);
+            final RawPacket jceProtected = new RawPacket(packet, 0, packet.length);
+            jceSender.transformPacket(jceProtected);
+
+            // then
+            assertArrayEquals(bouncyCastleProtected.getData(), jceProtected.getData());
+            assertEquals(packet.length + SRTPCipherGCM.TAG_LENGTH, jceProtected.getLength());
+            assertTrue(jceReceiver.reverseTransformPacket(bouncyCastleProtected));
+            assertTrue(bouncyCastleReceiver.reverseTransformPacket(jceProtected));
+            assertArrayEquals(packet, bouncyCastleProtected.getData());
+            assertArrayEquals(packet, jceProtected.getData());
+        }
+    }
+
+    @Test
+    public void testReplayedPacketIsRejected() {
+        // given
+        final SRTPCryptoContext sender = srtpContext(SRTPParameters.SRTP_AEAD_AES_128_GCM, SRTPCryptoProvider.JCE);
+        final SRTPCryptoContext receiver = srtpContext(SRTPParameters.SRTP_AEAD_AES_128_GCM, SRTPCryptoProvider.JCE);
+        final RawPacket packet = new RawPacket(rtpPacket(100, PLAINTEXT), 0, HEADER.length + PLAINTEXT.length);
+        sender.transformPacket(packet);
+        final byte[] protectedData = packet.getData();
+
+        // when
+        final boolean first = receiver.reverseTransformPacket(new RawPacket(protectedData, 0, protectedData.length));
+        final boolean replayed = receiver.reverseTransformPacket(new RawPacket(protectedData, 0, protectedData.length));
+
+        // then
+        assertTrue(first);
+        assertFalse(replayed);
+    }
+
+    @Test
+    public void testRtcpRoundTrip() {
+        // given
+        final Random random = new Random(7714);
+        final SRTCPCryptoContext sender = srtcpContext(SRTPParameters.SRTP_AEAD_AES_128_GCM, SRTPCryptoProvider.BOUNCYCASTLE);
+        final SRTCPCryptoContext receiver = srtcpContext(SRTPParameters.SRTP_AEAD_AES_128_GCM, SRTPCryptoProvider.JCE);
+
+        for (int i = 0; i < 5; i++) {
+            final byte[] packet = new byte[8 + 20 + 4 * i];
+            random.nextBytes(packet);
+            packet[0] = (byte) 0x80;
+            packet[1] = (byte) 200;
+
+            // when
+            final RawPacket raw = new RawPacket(packet, 0, packet.length);
+            sender.transformPacket(raw);
+            final byte[] protectedData = raw.getData();
+
+            // then
+            assertEquals(packet.length + SRTPCipherGCM.TAG_LENGTH + 4, protectedData.length);
+            assertEquals(0x80000000 | i, ByteBuffer.wrap(protectedData).getInt(protectedData.length - 4));
+
+            final RawPacket received = new RawPacket(protectedData, 0, protectedData.length);
+            assertTrue(receiver.reverseTransformPacket(received));
+            assertArrayEquals(packet, received.getData());
+        }
+    }
+
+    @Test
+    public void testRtcpForgedIndexIsRejected() {
+        // given
+        final SRTCPCryptoContext sender = srtcpContext(SRTPParameters.SRTP_AEAD_AES_128_GCM, SRTPCryptoProvider.JCE);
+        final SRTCPCryptoContext receiver = srtcpContext(SRTPParameters.SRTP_AEAD_AES_128_GCM, SRTPCryptoProvider.JCE);
+        final byte[] packet = new byte[28];
+        packet[0] = (byte) 0x80;
+        packet[1] = (byte) 200;
+        final RawPacket raw = new RawPacket(packet, 0, packet.length);
+        sender.transformPacket(raw);
+        final byte[] protectedData = raw.getData();
+
+        // when
+        protectedData[protectedData.length - 1] = 7;
+        final boolean valid = receiver.reverseTransformPacket(new RawPacket(protectedData, 0, protectedData.length));
+
+        // then
+        assertFalse(valid);
+    }
+
+    @Test
+    public void testAeadProfilesAreNegotiable() {
+        // given
+        final SRTPParameters aes128 = SRTPParameters.getSrtpParametersForProfile(SRTPParameters.AEAD_AES_128_GCM);
+        final SRTPParameters aes256 = SRTPParameters.getSrtpParametersForProfile(SRTPParameters.AEAD_AES_256_GCM);
+
+        // then
+        assertEquals(SRTPParameters.SRTP_AEAD_AES_128_GCM, aes128);
+        assertEquals(16, aes128.getCipherKeyLength());
+        assertEquals(12, aes128.getCipherSaltLength());
+        assertEquals(SRTPParameters.SRTP_AEAD_AES_256_GCM, aes256);
+        assertEquals(32, aes256.getCipherKeyLength());
+        assertEquals(12, aes256.getCipherSaltLength());
+        assertTrue(aes128.getSrtpPolicy().isAead());
+        assertEquals(SRTPCipherGCM.TAG_LENGTH, aes256.getSrtcpPolicy().getAuthTagLength());
+    }
+
+}
@@ -0,0 +1,206 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.bouncycastle.crypto.engines.AESFastEngine;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+
+/**
+ * Checks both crypto providers against the test vectors of RFC 3711 appendix B and against each other.
+ */
+public class SRTPCryptoContextTest {
+
+    // RFC 3711 B.2 - AES-CM Test Vectors
+    private static final byte[] SESSION_KEY = Hex.decode("2B7E151628AED2A6ABF7158809CF4F3C");
+    private static final byte[] COUNTER_BLOCK = Hex.decode("F0F1F2F3F4F5F6F7F8F9FAFBFCFD0000");
+    private static final byte[] KEYSTREAM = Hex.decode("E03EAD0935C95E80E166B16DD92B4EB4"
+            + "D23513162B02D0F72A43A2FE4A5F97AB" + "41E95B3BB0A2E8DD477901E4FCA894C0");
+
+    // RFC 3711 B.3 - Key Derivation Test Vectors
+    private static final byte[] MASTER_KEY = Hex.decode("E1F97A0D3E018BE0D64FA32C06DE4139");
+    private static final byte[] MASTER_SALT = Hex.decode("0EC675AD498AFEEBB6960B3AABE6");
+    private static final byte[] CIPHER_KEY = Hex.decode("C61E7A93744F39EE10734AFE3FF7A087");
+    private static final byte[] CIPHER_SALT = Hex.decode("30CBBC08863D8C85D49DB34A9AE1");
+    private static final byte[] AUTH_KEY = Hex.decode("CEBE321F6FF7716B6FD4AB49AF256A156D38BAA4");
+
+    private static SRTPPolicy policy(SRTPCryptoProvider provider) {
+        // SRTP_AES128_CM_HMAC_SHA1_80
+        final SRTPPolicy policy = new SRTPPolicy(SRTPPolicy.AESCM_ENCRYPTION, 16, SRTPPolicy.HMACSHA1_AUTHENTICATION, 20, 10, 14);
+        policy.setCryptoProvider(provider);
+        return policy;
+    }
+
+    private static SRTPCryptoContext srtpContext(SRTPCryptoProvider provider) {
+        final SRTPCryptoContext context = new SRTPCryptoContext(0L, 0, 0L, MASTER_KEY, MASTER_SALT, policy(provider));
+        context.deriveSrtpKeys(0L);
+        return context;
+    }
+
+    private static SRTCPCryptoContext srtcpContext(SRTPCryptoProvider provider) {
+        final SRTCPCryptoContext context = new SRTCPCryptoContext(0L, MASTER_KEY, MASTER_SALT, policy(provider));
+        context.deriveSrtcpKeys();
+        return context;
+    }
+
+    private static byte[] rtpPacket(int seq, byte[] payload) {
+        final byte[] packet = new byte[12 + payload.length];
+        packet[0] = (byte) 0x80;
+        packet[2] = (byte) (seq >> 8);
+        packet[3] = (byte) seq;
+        System.arraycopy(payload, 0, packet, 12, payload.length);
+        return packet;
+    }
+
+    private static byte[] transform(SRTPCryptoContext context, byte[] packet) {
+        final RawPacket raw = new RawPacket(packet, 0, packet.length);
+        context.transformPacket(raw);
+        return raw.getData();
+    }
+
+    private static byte[] reverseTransform(SRTPCryptoContext context, byte[] packet) {
+        final RawPacket raw = new RawPacket(packet, 0, packet.length);
+        assertTrue(context.reverseTransformPacket(raw));
+        return raw.getData();
+    }
+
+    @Test
+    public void testKeystream() {
+        // given
+        final SRTPCipherCTR bouncyCastle = new SRTPCipherCTR();
+        final AESFastEngine aes = new AESFastEngine();
+        aes.init(true, new KeyParameter(SESSION_KEY));
+        final JceSRTPEngine jce = new JceSRTPEngine(true, false);
+        jce.initCipher(SESSION_KEY);
+
+        final ByteBuffer bouncyCastleData = ByteBuffer.allocateDirect(KEYSTREAM.length);
+        final ByteBuffer jceData = ByteBuffer.allocateDirect(KEYSTREAM.length);
+
+        // when
+        bouncyCastle.process(aes, bouncyCastleData, 0, KEYSTREAM.length, COUNTER_BLOCK);
+        jce.process(jceData, 0, KEYSTREAM.length, COUNTER_BLOCK);
+
+        // then
+        final byte[] bouncyCastleStream = new byte[KEYSTREAM.length];
+        bouncyCastleData.get(bouncyCastleStream);
+        final byte[] jceStream = new byte[KEYSTREAM.length];
+        jceData.get(jceStream);
+        assertArrayEquals(KEYSTREAM, bouncyCastleStream);
+        assertArrayEquals(KEYSTREAM, jceStream);
+    }
+
+    @Test
+    public void testDerivedKeysProtectPacket() throws Exception {
+        // given
+        final byte[] packet = rtpPacket(0, new byte[32]);
+
+        // expected output computed with the session keys listed in RFC 3711 B.3
+        final byte[] iv = Arrays.copyOf(CIPHER_SALT, 16);
+        final Cipher aes = Cipher.getInstance("AES/CTR/NoPadding");
+        aes.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(CIPHER_KEY, "AES"), new IvParameterSpec(iv));
+        final byte[] expected = Arrays.copyOf(packet, packet.length + 10);
+        aes.doFinal(packet, 12, 32, expected, 12);
+
+        final Mac hmac = Mac.getInstance("HmacSHA1");
+        hmac.init(new SecretKeySpec(AUTH_KEY, "HmacSHA1"));
+        hmac.update(expected, 0, packet.length);
+        hmac.update(new byte[4]);
+        System.arraycopy(hmac.doFinal(), 0, expected, packet.length, 10);
+
+        for (SRTPCryptoProvider provider : SRTPCryptoProvider.values()) {
+            // when
+            final byte[] protectedPacket = transform(srtpContext(provider), packet);
+
+            // then
+            assertArrayEquals(provider.name(), expected, protectedPacket);
+        }
+    }
+
+    @Test
+    public void testProvidersAreInteroperable() {
+        // given
+        final Random random = new Random(3711);
+        final SRTPCryptoContext bouncyCastleSender = srtpContext(SRTPCryptoProvider.BOUNCYCASTLE);
+        final SRTPCryptoContext jceSender = srtpContext(SRTPCryptoProvider.JCE);
+        final SRTPCryptoContext bouncyCastleReceiver = srtpContext(SRTPCryptoProvider.BOUNCYCASTLE);
+        final SRTPCryptoContext jceReceiver = srtpContext(SRTPCryptoProvider.JCE);
+
+        for (int seq = 1000; seq < 1015; seq++) {
+            final byte[] payload = new byte[1 + random.nextInt(1200)];
+            random.nextBytes(payload);
+            final byte[] packet = rtpPacket(seq, payload);
+
+            // when
+            final byte[] bouncyCastleProtected = transform(bouncyCastleSender, packet);
+            final byte[] jceProtected = transform(jceSender, packet);
+
+            // then
+            assertArrayEquals(bouncyCastleProtected, jceProtected);
+            assertArrayEquals(packet, reverseTransform(jceReceiver, bouncyCastleProtected));
+            assertArrayEquals(packet, reverseTransform(bouncyCastleReceiver, jceProtected));
+        }
+    }
+
+    @Test
+    public void testRtcpProvidersAreInteroperable() {
+        // given
+        final Random random = new Random(3711);
+        final SRTCPCryptoContext bouncyCastleSender = srtcpContext(SRTPCryptoProvider.BOUNCYCASTLE);
+        final SRTCPCryptoContext jceSender = srtcpContext(SRTPCryptoProvider.JCE);
+        final SRTCPCryptoContext jceReceiver = srtcpContext(SRTPCryptoProvider.JCE);
+
+        for (int i = 0; i < 5; i++) {
+            final byte[] packet = new byte[8 + 20 + 4 * i];
+            random.nextBytes(packet);
+            packet[0] = (byte) 0x80;
+            packet[1] = (byte) 200;
+
+            // when
+            final RawPacket bouncyCastleProtected = new RawPacket(packet, 0, packet.length);
+            bouncyCastleSender.transformPacket(bouncyCastleProtected);
+            final RawPacket jceProtected = new RawPacket(packet, 0, packet.length);
+            jceSender.transformPacket(jceProtected);
+
+            // then
+            final byte[] protectedData = jceProtected.getData();
+            assertArrayEquals(bouncyCastleProtected.getData(), protectedData);
+
+            final RawPacket received = new RawPacket(protectedData, 0, protectedData.length);
+            assertTrue(jceReceiver.reverseTransformPacket(received));
+            assertArrayEquals(packet, received.getData());
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+
+/**
+ * Checks the in place transformations against the array based ones.
+ */
+public class SRTPTransformerTest {
+
+    private static final byte[] MASTER_KEY = Hex.decode("E1F97A0D3E018BE0D64FA32C06DE4139");
+    private static final byte[] MASTER_SALT = Hex.decode("0EC675AD498AFEEBB6960B3AABE6");
+
+    private static SRTPTransformEngine engine(SRTPParameters parameters) {
+        final byte[] salt = new byte[parameters.getCipherSaltLength()];
+        System.arraycopy(MASTER_SALT, 0, salt, 0, salt.length);
+        return new SRTPTransformEngine(MASTER_KEY, salt, parameters.getSrtpPolicy(), parameters.getSrtcpPolicy());
+    }
+
+    private static byte[] rtpPacket(int seq, int length, Random random) {
+        final byte[] packet = new byte[length];
+        random.nextBytes(packet);
+        packet[0] = (byte) 0x80;
+        packet[1] = (byte) 0;
+        packet[2] = (byte) (seq >> 8);
+        packet[3] = (byte) seq;
+        return packet;
+    }
+
+    private static ByteBuffer inBuffer(byte[] packet, int offset) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(offset + packet.length + PacketTransformer.MAX_TRAILER_LENGTH);
+        buffer.position(offset);
+        buffer.put(packet);
+        buffer.flip();
+        buffer.position(offset);
+        return buffer;
+    }
+
+    private static byte[] readable(ByteBuffer buffer) {
+        final byte[] data = new byte[buffer.remaining()];
+        buffer.duplicate().get(data);
+        return data;
+    }
+
+    @Test
+    public void testRtpInPlace() {
+        for (SRTPParameters parameters : new SRTPParameters[] { SRTPParameters.SRTP_AES128_CM_HMAC_SHA1_80, SRTPParameters.SRTP_AEAD_AES_128_GCM }) {
+            // given
+            final Random random = new Random(14);
+            final PacketTransformer arrayEncoder = engine(parameters).getRTPTransformer();
+            final PacketTransformer bufferEncoder = engine(parameters).getRTPTransformer();
+            final PacketTransformer bufferDecoder = engine(parameters).getRTPTransformer();
+
+            for (int seq = 0; seq < 10; seq++) {
+                final byte[] packet = rtpPacket(seq, 12 + 160, random);
+                final ByteBuffer buffer = inBuffer(packet, 3);
+
+                // when
+                final byte[] expected = arrayEncoder.transform(packet, 0, packet.length);
+                final boolean encoded = bufferEncoder.transform(buffer);
+
+                // then
+                assertTrue(encoded);
+                assertEquals(3, buffer.position());
+                assertArrayEquals(parameters.name(), expected, readable(buffer));
+
+                // when
+                final boolean decoded = bufferDecoder.reverseTransform(buffer);
+
+                // then
+                assertTrue(decoded);
+                assertArrayEquals(parameters.name(), packet, readable(buffer));
+            }
+        }
+    }
+
+    @Test
+    public void testRtcpInPlace() {
+        for (SRTPParameters parameters : new SRTPParameters[] { SRTPParameters.SRTP_AES128_CM_HMAC_SHA1_80, SRTPParameters.SRTP_AEAD_AES_256_GCM }) {
+            // given
+            final Random random = new Random(14);
+            final PacketTransformer arrayEncoder = engine(parameters).getRTCPTransformer();
+            final PacketTransformer bufferEncoder = engine(parameters).getRTCPTransformer();
+            final PacketTransformer bufferDecoder = engine(parameters).getRTCPTransformer();
+
+            for (int i = 0; i < 5; i++) {
+                final byte[] packet = new byte[28 + 4 * i];
+                random.nextBytes(packet);
+                packet[0] = (byte) 0x80;
+                packet[1] = (byte) 200;
+                final ByteBuffer buffer = inBuffer(packet, 0);
+
+                // when
+                final byte[] expected = arrayEncoder.transform(packet, 0, packet.length);
+                final boolean encoded = bufferEncoder.transform(buffer);
+
+                // then
+                assertTrue(encoded);
+                assertArrayEquals(parameters.name(), expected, readable(buffer));
+
+                // when
+                final boolean decoded = bufferDecoder.reverseTransform(buffer);
+
+                // then
+                assertTrue(decoded);
+                assertArrayEquals(parameters.name(), packet, readable(buffer));
+            }
+        }
+    }
+
+    @Test
+    public void testTransformWithoutRoomForTag() {
+        // given
+        final byte[] packet = rtpPacket(1, 12 + 20, new Random(14));
+        final ByteBuffer buffer = ByteBuffer.allocate(packet.length);
+        buffer.put(packet).flip();
+        final PacketTransformer encoder = engine(SRTPParameters.SRTP_AES128_CM_HMAC_SHA1_80).getRTPTransformer();
+
+        // when
+        final boolean encoded = encoder.transform(buffer);
+
+        // then
+        assertFalse(encoded);
+        assertEquals(packet.length, buffer.limit());
+    }
+
+    @Test
+    public void testReverseTransformFailureKeepsLimit() {
+        // given
+        final byte[] packet = rtpPacket(1, 12 + 20, new Random(14));
+        final ByteBuffer buffer = inBuffer(packet, 0);
+        final PacketTransformer decoder = engine(SRTPParameters.SRTP_AES128_CM_HMAC_SHA1_80).getRTPTransformer();
+
+        // when
+        final boolean decoded = decoder.reverseTransform(buffer);
+
+        // then
+        assertFalse(decoded);
+        assertEquals(packet.length, buffer.limit());
+    }
+
+}
@@ -0,0 +1,291 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.jitter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.restcomm.media.core.rtp.BufferListener;
+import org.restcomm.media.core.rtp.MockWallClock;
+import org.restcomm.media.core.rtp.RtpClock;
+import org.restcomm.media.core.rtp.RtpPacket;
+import org.restcomm.media.core.sdp.format.AVProfile;
+import org.restcomm.media.core.sdp.format.RTPFormat;
+import org.restcomm.media.core.spi.memory.Frame;
+
+public class AdaptiveJitterBufferTest {
+
+    private static final byte SILENCE = (byte) 0xD5;
+    private static final byte SPEECH = (byte) 0xAA;
+
+    private final RTPFormat pcma = AVProfile.audio.find(8);
+
+    private MockWallClock wallClock;
+    private RtpClock rtpClock;
+    private AdaptiveJitterBuffer jitterBuffer;
+
+    @Before
+    public void setUp() {
+        wallClock = new MockWallClock();
+        rtpClock = new RtpClock(wallClock);
+        rtpClock.setClockRate(8000);
+        jitterBuffer = new AdaptiveJitterBuffer(rtpClock, 40);
+    }
+
+    private RtpPacket packet(int seq, byte sample) {
+        final byte[] payload = new byte[160];
+        Arrays.fill(payload, sample);
+        final RtpPacket packet = new RtpPacket(172, false);
+        packet.wrap(false, 8, seq, 160L * seq, 123, payload, 0, payload.length);
+        return packet;
+    }
+
+    private RtpPacket packet(int seq) {
+        return packet(seq, SPEECH);
+    }
+
+    @Test
+    public void testReorderedPackets() {
+        // given
+        final int[] arrival = { 1, 2, 4, 3 };
+
+        // when
+        for (int seq : arrival) {
+            jitterBuffer.write(packet(seq), pcma);
+        }
+
+        // then
+        for (int seq = 1; seq <= 4; seq++) {
+            assertEquals(seq, jitterBuffer.read(wallClock.getTime()).getSequenceNumber());
+        }
+        assertNull(jitterBuffer.read(wallClock.getTime()));
+    }
+
+    @Test
+    public void testSequenceWrap() {
+        // given
+        final int[] arrival = { 65534, 0, 65535, 1 };
+
+        // when
+        for (int seq : arrival) {
+            jitterBuffer.write(packet(seq), pcma);
+        }
+
+        // then
+        assertEquals(65534, jitterBuffer.read(wallClock.getTime()).getSequenceNumber());
+        assertEquals(65535, jitterBuffer.read(wallClock.getTime()).getSequenceNumber());
+        assertEquals(0, jitterBuffer.read(wallClock.getTime()).getSequenceNumber());
+        assertEquals(1, jitterBuffer.read(wallClock.getTime()).getSequenceNumber());
+    }
+
+    @Test
+    public void testMissingPacketIsSkipped() {
+        // given
+        final int[] arrival = { 1, 2, 4, 5 };
+        for (int seq : arrival) {
+            jitterBuffer.write(packet(seq), pcma);
+        }
+
+        // when
+        final Frame first = jitterBuffer.read(wallClock.getTime());
+        final Frame second = jitterBuffer.read(wallClock.getTime());
+        final Frame third = jitterBuffer.read(wallClock.getTime());
+
+        // then
+        assertEquals(1, first.getSequenceNumber());
+        assertEquals(20000000L, first.getDuration());
+        assertEquals(2, second.getSequenceNumber());
+        assertEquals(20000000L, second.getDuration());
+        assertEquals(4, third.getSequenceNumber());
+        assertEquals(1, jitterBuffer.getLost());
+    }
+
+    @Test
+    public void testLateAndDuplicatePacketsAreDropped() {
+        // given
+        jitterBuffer.write(packet(1), pcma);
+        jitterBuffer.write(packet(2), pcma);
+        jitterBuffer.write(packet(3), pcma);
+        jitterBuffer.read(wallClock.getTime());
+        jitterBuffer.read(wallClock.getTime());
+
+        // when
+        jitterBuffer.write(packet(1), pcma);
+        jitterBuffer.write(packet(3), pcma);
+
+        // then
+        assertEquals(1, jitterBuffer.getDropped());
+        assertEquals(3, jitterBuffer.read(wallClock.getTime()).getSequenceNumber());
+        assertNull(jitterBuffer.read(wallClock.getTime()));
+    }
+
+    @Test
+    public void testReadyWhenTargetDelayIsBuffered() {
+        // given
+        final BufferListener listener = mock(BufferListener.class);
+        jitterBuffer.setListener(listener);
+
+        // when
+        jitterBuffer.write(packet(1), pcma);
+
+        // then
+        verify(listener, times(0)).onFill();
+
+        // when
+        jitterBuffer.write(packet(2), pcma);
+
+        // then
+        verify(listener, times(1)).onFill();
+    }
+
+    @Test
+    public void testTargetDelayFollowsJitter() {
+        // given
+        int seq = 1;
+
+        // when - steady network
+        for (; seq <= 50; seq++) {
+            wallClock.tick(20000000L);
+            jitterBuffer.write(packet(seq), pcma);
+            jitterBuffer.read(wallClock.getTime());
+        }
+
+        // then
+        assertEquals(0, jitterBuffer.getEstimatedJitter());
+        assertEquals(20, jitterBuffer.getTargetDelay());
+
+        // when - packets arrive in pairs
+        for (; seq <= 100; seq += 2) {
+            wallClock.tick(40000000L);
+            jitterBuffer.write(packet(seq), pcma);
+            jitterBuffer.write(packet(seq + 1), pcma);
+            jitterBuffer.read(wallClock.getTime());
+            jitterBuffer.read(wallClock.getTime());
+        }
+
+        // then
+        assertTrue(jitterBuffer.getTargetDelay() > 40);
+        assertTrue(jitterBuffer.getTargetDelay() <= AdaptiveJitterBuffer.DEFAULT_MAX_DELAY);
+    }
+
+    @Test
+    public void testSilenceIsDroppedWhenLatencyIsHigh() {
+        // given
+        for (int seq = 1; seq <= 20; seq++) {
+            jitterBuffer.write(packet(seq, SILENCE), pcma);
+        }
+
+        // when
+        int frames = 0;
+        while (jitterBuffer.read(wallClock.getTime()) != null) {
+            frames++;
+        }
+
+        // then
+        assertTrue(jitterBuffer.getStretched() > 0);
+        assertTrue(frames < 20);
+    }
+
+    @Test
+    public void testSpeechIsNotStretched() {
+        // given
+        for (int seq = 1; seq <= 20; seq++) {
+            jitterBuffer.write(packet(seq, SPEECH), pcma);
+        }
+
+        // when
+        int frames = 0;
+        while (jitterBuffer.read(wallClock.getTime()) != null) {
+            frames++;
+        }
+
+        // then
+        assertEquals(0, jitterBuffer.getStretched());
+        assertEquals(20, frames);
+    }
+
+    @Test
+    public void testSilenceIsRepeatedWhenRunningLow() {
+        // given
+        jitterBuffer = new AdaptiveJitterBuffer(rtpClock, 100);
+        for (int seq = 1; seq <= 6; seq++) {
+            jitterBuffer.write(packet(seq, SILENCE), pcma);
+        }
+
+        // when
+        int frames = 0;
+        Frame frame;
+        while ((frame = jitterBuffer.read(wallClock.getTime())) != null) {
+            frames++;
+            frame.recycle();
+        }
+
+        // then
+        assertEquals(1, jitterBuffer.getStretched());
+        assertEquals(7, frames);
+    }
+
+    @Test
+    public void testSilenceDetection() {
+        // given
+        final Frame silence = packetFrame(SILENCE);
+        final Frame speech = packetFrame(SPEECH);
+
+        // then
+        assertTrue(AdaptiveJitterBuffer.isSilence(silence));
+        assertFalse(AdaptiveJitterBuffer.isSilence(speech));
+    }
+
+    private Frame packetFrame(byte sample) {
+        final AdaptiveJitterBuffer buffer = new AdaptiveJitterBuffer(rtpClock, 0);
+        buffer.write(packet(1, sample), pcma);
+        final Frame frame = buffer.read(wallClock.getTime());
+        assertNotNull(frame);
+        return frame;
+    }
+
+    @Test
+    public void testRestart() {
+        // given
+        jitterBuffer.write(packet(100), pcma);
+        jitterBuffer.write(packet(101), pcma);
+        jitterBuffer.read(wallClock.getTime());
+
+        // when
+        jitterBuffer.restart();
+        jitterBuffer.write(packet(7), pcma);
+
+        // then
+        assertEquals(7, jitterBuffer.read(wallClock.getTime()).getSequenceNumber());
+    }
+
+}
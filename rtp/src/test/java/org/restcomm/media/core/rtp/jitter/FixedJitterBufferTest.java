@@ -23,6 +23,7 @@
 package org.restcomm.media.core.rtp.jitter;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Random;
@@ -35,6 +36,7 @@ import org.restcomm.media.core.rtp.RtpPacket;
 import org.restcomm.media.core.rtp.jitter.FixedJitterBuffer;
 import org.restcomm.media.core.sdp.format.AVProfile;
 import org.restcomm.media.core.spi.memory.Frame;
+import org.restcomm.media.core.spi.memory.Memory;
 
 /**
  *
@@ -252,6 +254,42 @@ public class FixedJitterBufferTest {
 
     }
 
+    @Test
+    public void testWriteReceivedFrame() {
+        // given
+        byte[] payload = new byte[160];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+        RtpPacket source = new RtpPacket(172, false);
+        source.wrap(false, 8, 1, 160, 123, payload, 0, payload.length);
+        byte[] raw = source.getRawData();
+
+        Frame received = Memory.allocate(2048);
+        System.arraycopy(raw, 0, received.getData(), 0, raw.length);
+        received.setOffset(0);
+        received.setLength(raw.length);
+
+        RtpPacket packet = new RtpPacket(172, false);
+        packet.wrap(received);
+
+        // when
+        jitterBuffer.write(packet, AVProfile.audio.find(8));
+        packet.unwrap();
+        received.recycle();
+
+        // then
+        assertEquals(1, received.refCnt());
+        Frame frame = jitterBuffer.read(wallClock.getTime());
+        assertSame(received, frame);
+        assertEquals(RtpPacket.FIXED_HEADER_SIZE, frame.getOffset());
+        assertEquals(payload.length, frame.getLength());
+        for (int i = 0; i < payload.length; i++) {
+            assertEquals(payload[i], frame.getData()[frame.getOffset() + i]);
+        }
+        frame.recycle();
+    }
+
     private RtpPacket[] createStream(int size) {
         RtpPacket[] stream = new RtpPacket[size];
 
@@ -21,18 +21,19 @@
 
 package org.restcomm.media.core.rtp.netty;
 
-import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.ByteBuffer;
+
 import org.junit.Test;
-import org.restcomm.media.core.rtp.RtpPacket;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.restcomm.media.core.rtp.crypto.PacketTransformer;
 import org.restcomm.media.core.rtp.netty.SrtpDecoder;
 import org.restcomm.media.core.rtp.secure.SrtpPacket;
@@ -48,49 +49,53 @@ public class SrtpDecoderTest {
     @Test
     public void testDecode() {
         // given
-        final SrtpPacket srtpPacket = mock(SrtpPacket.class);
+        final SrtpPacket srtpPacket = new SrtpPacket(false);
         final PacketTransformer transformer = mock(PacketTransformer.class);
         final SrtpDecoder decoder = new SrtpDecoder(transformer);
         final EmbeddedChannel channel = new EmbeddedChannel(decoder);
         
-        final byte[] encodedPayload = "encoded".getBytes();
-        final byte[] decodedPayload = "decoded".getBytes();
+        final byte[] encodedPayload = "encoded+tag".getBytes();
+        srtpPacket.wrap(encodedPayload);
         
-        when(srtpPacket.getRawData()).thenReturn(encodedPayload);
-        when(transformer.reverseTransform(encodedPayload, 0, encodedPayload.length)).thenReturn(decodedPayload);
+        when(transformer.reverseTransform(any(ByteBuffer.class))).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                ByteBuffer buffer = (ByteBuffer) invocation.getArguments()[0];
+                buffer.duplicate().put("decoded".getBytes());
+                buffer.limit(buffer.position() + "decoded".length());
+                return true;
+            }
+        });
         
         // when
         channel.writeInbound(srtpPacket);
         Object inboundObject = channel.readInbound();
         
         // then
-        verify(transformer).reverseTransform(eq(encodedPayload), any(Integer.class), any(Integer.class));
-        verify(srtpPacket).wrap(decodedPayload);
-        assertNotNull(inboundObject);
-        assertTrue(inboundObject instanceof RtpPacket);
+        verify(transformer).reverseTransform(srtpPacket.getBuffer());
+        assertSame(srtpPacket, inboundObject);
+        assertEquals("decoded", new String(srtpPacket.getRawData()));
     }
 
     @Test
     public void testDecodeFailure() {
         // given
-        final SrtpPacket srtpPacket = mock(SrtpPacket.class);
+        final SrtpPacket srtpPacket = new SrtpPacket(false);
         final PacketTransformer transformer = mock(PacketTransformer.class);
         final SrtpDecoder decoder = new SrtpDecoder(transformer);
         final EmbeddedChannel channel = new EmbeddedChannel(decoder);
         
         final byte[] encodedPayload = "encoded".getBytes();
-        final byte[] decodedPayload = null;
+        srtpPacket.wrap(encodedPayload);
         
-        when(srtpPacket.getRawData()).thenReturn(encodedPayload);
-        when(transformer.reverseTransform(encodedPayload, 0, encodedPayload.length)).thenReturn(decodedPayload);
+        when(transformer.reverseTransform(any(ByteBuffer.class))).thenReturn(false);
         
         // when
         channel.writeInbound(srtpPacket);
         Object inboundObject = channel.readInbound();
         
         // then
-        verify(transformer).reverseTransform(eq(encodedPayload), any(Integer.class), any(Integer.class));
-        verify(srtpPacket, never()).wrap(decodedPayload);
+        verify(transformer).reverseTransform(srtpPacket.getBuffer());
         assertNull(inboundObject);
     }
     
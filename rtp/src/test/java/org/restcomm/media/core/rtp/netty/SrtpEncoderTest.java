@@ -24,17 +24,26 @@ package org.restcomm.media.core.rtp.netty;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.ByteBuffer;
+
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.restcomm.media.core.rtp.RtpPacket;
 import org.restcomm.media.core.rtp.crypto.PacketTransformer;
 import org.restcomm.media.core.rtp.netty.SrtpEncoder;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.EmptyByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.embedded.EmbeddedChannel;
 
 /**
@@ -46,50 +55,88 @@ public class SrtpEncoderTest {
     @Test
     public void testEncode() {
         // given
-        final RtpPacket rtpPacket = mock(RtpPacket.class);
+        final RtpPacket rtpPacket = new RtpPacket(false);
         final PacketTransformer transformer = mock(PacketTransformer.class);
         final SrtpEncoder decoder = new SrtpEncoder(transformer);
         final EmbeddedChannel channel = new EmbeddedChannel(decoder);
 
-        final byte[] encodedPayload = "encoded".getBytes();
+        final byte[] encodedPayload = "Encoded+tag".getBytes();
         final byte[] decodedPayload = "decoded".getBytes();
-
-        when(rtpPacket.getRawData()).thenReturn(decodedPayload);
-        when(transformer.transform(decodedPayload)).thenReturn(encodedPayload);
+        rtpPacket.wrap(decodedPayload);
+
+        when(transformer.transform(any(ByteBuffer.class))).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) throws Throwable {
+                // secure the packet in place, using the room left for the tag
+                ByteBuffer buffer = (ByteBuffer) invocation.getArguments()[0];
+                assertTrue(buffer.capacity() - buffer.limit() >= PacketTransformer.MAX_TRAILER_LENGTH);
+                buffer.limit(buffer.position() + encodedPayload.length);
+                buffer.duplicate().put(encodedPayload);
+                return true;
+            }
+        });
 
         // when
         channel.writeOutbound(rtpPacket);
         Object outboundObject = channel.readOutbound();
 
         // then
-        verify(transformer).transform(decodedPayload);
+        verify(transformer).transform(any(ByteBuffer.class));
         assertNotNull(outboundObject);
         assertTrue(outboundObject instanceof ByteBuf);
+        ByteBuf outbound = (ByteBuf) outboundObject;
+        assertEquals(encodedPayload.length, outbound.readableBytes());
+        byte[] data = new byte[encodedPayload.length];
+        outbound.getBytes(0, data);
+        assertEquals(new String(encodedPayload), new String(data));
+    }
+
+    @Test
+    public void testEncodeIntoCompositeBuffer() throws Exception {
+        // given
+        final RtpPacket rtpPacket = new RtpPacket(false);
+        final PacketTransformer transformer = mock(PacketTransformer.class);
+        final SrtpEncoder encoder = new SrtpEncoder(transformer);
+        final byte[] header = "head".getBytes();
+        final CompositeByteBuf out = Unpooled.compositeBuffer();
+        out.addComponent(true, Unpooled.buffer(header.length).writeBytes(header));
+
+        final byte[] encodedPayload = "Encoded+tag".getBytes();
+        final byte[] decodedPayload = "decoded".getBytes();
+        rtpPacket.wrap(decodedPayload);
+
+        when(transformer.transform(any(byte[].class))).thenReturn(encodedPayload);
+
+        // when
+        encoder.encode(mock(ChannelHandlerContext.class), rtpPacket, out);
+
+        // then
+        verify(transformer, never()).transform(any(ByteBuffer.class));
+        assertEquals(header.length + encodedPayload.length, out.readableBytes());
         byte[] data = new byte[encodedPayload.length];
-        ((ByteBuf) outboundObject).getBytes(0, data);
+        out.getBytes(header.length, data);
         assertEquals(new String(encodedPayload), new String(data));
     }
 
     @Test
     public void testEncodeFailure() {
         // given
-        final RtpPacket rtpPacket = mock(RtpPacket.class);
+        final RtpPacket rtpPacket = new RtpPacket(false);
         final PacketTransformer transformer = mock(PacketTransformer.class);
         final SrtpEncoder decoder = new SrtpEncoder(transformer);
         final EmbeddedChannel channel = new EmbeddedChannel(decoder);
 
-        final byte[] encodedPayload = null;
         final byte[] decodedPayload = "decoded".getBytes();
+        rtpPacket.wrap(decodedPayload);
 
-        when(rtpPacket.getRawData()).thenReturn(decodedPayload);
-        when(transformer.transform(decodedPayload)).thenReturn(encodedPayload);
+        when(transformer.transform(any(ByteBuffer.class))).thenReturn(false);
 
         // when
         channel.writeOutbound(rtpPacket);
         Object outboundObject = channel.readOutbound();
 
         // then
-        verify(transformer).transform(decodedPayload);
+        verify(transformer).transform(any(ByteBuffer.class));
         assertNotNull(outboundObject);
         assertTrue(outboundObject instanceof EmptyByteBuf);
     }
@@ -0,0 +1,193 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.secure;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.restcomm.media.core.rtp.crypto.DtlsSrtpServer;
+import org.restcomm.media.core.rtp.crypto.DtlsSrtpServerProvider;
+
+public class DtlsHandshakeExecutorTest {
+
+    private DtlsHandshakeExecutor executor;
+    private CountDownLatch release;
+
+    @Before
+    public void before() {
+        this.executor = new DtlsHandshakeExecutor(1, 1);
+        this.release = new CountDownLatch(1);
+    }
+
+    @After
+    public void after() {
+        this.release.countDown();
+        this.executor.shutdown();
+    }
+
+    private Runnable blocking(final CountDownLatch started) {
+        return new Runnable() {
+
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testRejectsHandshakesAboveCap() throws Exception {
+        // given
+        CountDownLatch started = new CountDownLatch(1);
+
+        // when
+        boolean first = executor.submit(blocking(started));
+        started.await(5, TimeUnit.SECONDS);
+        boolean second = executor.submit(blocking(new CountDownLatch(1)));
+        boolean third = executor.submit(blocking(new CountDownLatch(1)));
+
+        // then
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertEquals(1, executor.getQueuedHandshakes());
+        assertEquals(1, executor.getRejectedHandshakes());
+    }
+
+    @Test
+    public void testHandshakeMetrics() {
+        // when
+        executor.onHandshakeStarted();
+        executor.onHandshakeStarted();
+        executor.onHandshakeStarted();
+        executor.onHandshakeComplete(TimeUnit.MILLISECONDS.toNanos(10));
+        executor.onHandshakeFinished();
+        executor.onHandshakeComplete(TimeUnit.MILLISECONDS.toNanos(30));
+        executor.onHandshakeFinished();
+
+        // then
+        assertEquals(1, executor.getActiveHandshakes());
+        assertEquals(2, executor.getCompletedHandshakes());
+        assertEquals(0, executor.getFailedHandshakes());
+        assertEquals(20, executor.getAverageLatency());
+        assertEquals(30, executor.getMaxLatency());
+    }
+
+    @Test
+    public void testHandlerFailsWhenHandshakeIsRejected() throws Exception {
+        // given
+        DtlsSrtpServerProvider provider = mock(DtlsSrtpServerProvider.class);
+        when(provider.provide()).thenReturn(mock(DtlsSrtpServer.class));
+        DtlsListener listener = mock(DtlsListener.class);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(blocking(started));
+        started.await(5, TimeUnit.SECONDS);
+        executor.submit(blocking(new CountDownLatch(1)));
+
+        DtlsHandler handler = new DtlsHandler(provider, executor);
+        handler.addListener(listener);
+
+        // when
+        handler.handshake();
+
+        // then
+        assertFalse(handler.isHandshaking());
+        assertTrue(handler.isHandshakeFailed());
+        verify(listener).onDtlsHandshakeFailed(any(RejectedExecutionException.class));
+    }
+
+    @Test
+    public void testHandlerReceivesQueuedRecord() throws Exception {
+        // given
+        DtlsSrtpServerProvider provider = mock(DtlsSrtpServerProvider.class);
+        when(provider.provide()).thenReturn(mock(DtlsSrtpServer.class));
+        DtlsHandler handler = new DtlsHandler(provider, executor);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(blocking(started));
+        started.await(5, TimeUnit.SECONDS);
+        byte[] packet = new byte[] { 0x00, 0x16, (byte) 0xfe, (byte) 0xfd, 0x01 };
+        byte[] buffer = new byte[8];
+
+        // when
+        // the handshake waits in the queue, so the test thread plays the handshake thread
+        handler.handshake();
+        handler.handle(packet, 3, 1, null, null);
+        packet[1] = 0x00;
+        int length = handler.receive(buffer, 2, buffer.length - 2, 1000);
+
+        // then
+        assertEquals(3, length);
+        assertArrayEquals(new byte[] { 0x00, 0x00, 0x16, (byte) 0xfe, (byte) 0xfd, 0x00, 0x00, 0x00 }, buffer);
+    }
+
+    @Test(expected = SocketTimeoutException.class)
+    public void testHandshakeDropsRecordsReceivedBeforeIt() throws Exception {
+        // given
+        DtlsSrtpServerProvider provider = mock(DtlsSrtpServerProvider.class);
+        when(provider.provide()).thenReturn(mock(DtlsSrtpServer.class));
+        DtlsHandler handler = new DtlsHandler(provider, executor);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(blocking(started));
+        started.await(5, TimeUnit.SECONDS);
+        byte[] packet = new byte[] { 0x16, (byte) 0xfe, (byte) 0xfd };
+
+        // when
+        handler.handle(packet, packet.length, 0, null, null);
+        handler.handshake();
+        handler.receive(new byte[8], 0, 8, 10);
+    }
+
+    @Test(expected = SocketTimeoutException.class)
+    public void testHandlerReceiveTimesOut() throws Exception {
+        // given
+        DtlsSrtpServerProvider provider = mock(DtlsSrtpServerProvider.class);
+        when(provider.provide()).thenReturn(mock(DtlsSrtpServer.class));
+        DtlsHandler handler = new DtlsHandler(provider, executor);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(blocking(started));
+        started.await(5, TimeUnit.SECONDS);
+
+        // when
+        handler.handshake();
+        handler.receive(new byte[8], 0, 8, 10);
+    }
+
+}
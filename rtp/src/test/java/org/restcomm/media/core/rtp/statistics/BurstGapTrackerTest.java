@@ -0,0 +1,105 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.restcomm.media.core.rtcp.RtcpVoipMetrics;
+
+/**
+ * Unit tests for {@link BurstGapTracker} and {@link EModel}
+ */
+public class BurstGapTrackerTest {
+
+    @Test
+    public void testNoLoss() {
+        // given
+        BurstGapTracker tracker = new BurstGapTracker();
+        RtcpVoipMetrics metrics = new RtcpVoipMetrics(1);
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            tracker.onPacket(0);
+        }
+        tracker.getCounters().fill(metrics, 100, 20);
+
+        // then
+        assertSame(BurstGapTracker.Counters.EMPTY, tracker.getCounters());
+        assertEquals(0, metrics.getBurstDensity());
+        assertEquals(0, metrics.getGapDensity());
+        assertEquals(0, metrics.getBurstDuration());
+        assertEquals(100 * 20, metrics.getGapDuration());
+        assertEquals(BurstGapTracker.GMIN, metrics.getGmin());
+    }
+
+    @Test
+    public void testBurstAndGaps() {
+        // given
+        BurstGapTracker tracker = new BurstGapTracker();
+        RtcpVoipMetrics metrics = new RtcpVoipMetrics(1);
+
+        // when
+        // 100 good packets, then a burst of 5 packets with 3 of them lost, then 100 good packets
+        for (int i = 0; i < 100; i++) {
+            tracker.onPacket(0);
+        }
+        tracker.onPacket(1);
+        tracker.onPacket(2);
+        for (int i = 0; i < 99; i++) {
+            tracker.onPacket(0);
+        }
+        tracker.getCounters().fill(metrics, 201, 20);
+
+        // then
+        assertEquals(1.5, tracker.getCounters().getAverageLossRun(), 0.001);
+        assertTrue(metrics.getBurstDensity() > 128);
+        assertEquals(0, metrics.getGapDensity());
+        assertTrue(metrics.getBurstDuration() > 0);
+        assertTrue(metrics.getGapDuration() > metrics.getBurstDuration());
+    }
+
+    @Test
+    public void testEModel() {
+        // no impairment gives the G.711 reference quality
+        assertEquals(93.2, EModel.rFactor(0, 0, 1), 0.001);
+        assertEquals(4.41, EModel.mos(93.2), 0.01);
+
+        // delay only hurts above 177.3ms
+        assertEquals(0.024 * 150, EModel.delayImpairment(150), 0.001);
+        assertEquals(0.024 * 300 + 0.11 * (300 - 177.3), EModel.delayImpairment(300), 0.001);
+
+        // bursty loss is worse than random loss
+        double random = EModel.rFactor(50, 5, 1);
+        double bursty = EModel.rFactor(50, 5, EModel.burstRatio(0.05, 4));
+        assertTrue(bursty < random);
+        assertEquals(1, EModel.burstRatio(0, 4), 0);
+
+        // bounds
+        assertEquals(0, EModel.rFactor(2000, 100, 1), 0);
+        assertEquals(1, EModel.mos(0), 0);
+        assertEquals(4.5, EModel.mos(100), 0);
+    }
+
+}
@@ -21,16 +21,23 @@
 package org.restcomm.media.core.rtp.statistics;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import java.util.Date;
 
 import org.apache.commons.net.ntp.TimeStamp;
 import org.junit.Test;
+import org.restcomm.media.core.rtcp.RtcpReportBlock;
 import org.restcomm.media.core.rtcp.RtcpSenderReport;
+import org.restcomm.media.core.rtcp.RtcpVoipMetrics;
 import org.restcomm.media.core.rtcp.ntp.NtpUtils;
 import org.restcomm.media.core.rtp.MockWallClock;
 import org.restcomm.media.core.rtp.RtpClock;
 import org.restcomm.media.core.rtp.RtpPacket;
+import org.restcomm.media.core.rtp.jitter.JitterBuffer;
 import org.restcomm.media.core.rtp.statistics.RtpMember;
 
 /**
@@ -334,4 +341,73 @@ public class RtpMemberTest {
 		assertEquals(fractionLost, member.getFractionLost());
 	}
 
+	@Test
+	public void testReportBlock() {
+		// given
+		RtpMember member = new RtpMember(rtpClock, 123);
+		RtpPacket p1 = new RtpPacket(172, false);
+		RtpPacket p2 = new RtpPacket(172, false);
+		RtpPacket p3 = new RtpPacket(172, false);
+		RtpPacket p4 = new RtpPacket(172, false);
+		p1.wrap(false, 8, 1, 160 * 1, 123, new byte[160], 0, 160);
+		p2.wrap(false, 8, 2, 160 * 2, 123, new byte[160], 0, 160);
+		p3.wrap(false, 8, 3, 160 * 3, 123, new byte[160], 0, 160);
+		p4.wrap(false, 8, 8, 160 * 8, 123, new byte[160], 0, 160);
+
+		// when
+		receiveRtpPackets(member, p1, p2, p3, p4);
+		RtcpReportBlock first = member.getReportBlock();
+		RtcpReportBlock second = member.getReportBlock();
+
+		// then
+		long expected = p4.getSeqNumber() - p3.getSeqNumber() + 1; // the sequence is valid after 2 consecutive packets
+		long lost = expected - 2; // 2 first packets were in probation period
+		assertEquals(123, first.getSsrc());
+		assertEquals(lost, first.getLost());
+		assertEquals((lost << 8) / expected, first.getFraction());
+		assertEquals(p4.getSeqNumber(), first.getLastSeq());
+		assertEquals(member.getJitter(), first.getJitter());
+		assertEquals(0, first.getSeqNumCycle());
+		// the first report opened a new interval with no packets
+		assertEquals(lost, second.getLost());
+		assertEquals(0, second.getFraction());
+	}
+
+	@Test
+	public void testVoipMetrics() {
+		// given
+		RtpMember member = new RtpMember(rtpClock, 123);
+		JitterBuffer jitterBuffer = mock(JitterBuffer.class);
+		when(jitterBuffer.getDropped()).thenReturn(1);
+		when(jitterBuffer.getNominalDelay()).thenReturn(40);
+		when(jitterBuffer.getMaxDelay()).thenReturn(100);
+		when(jitterBuffer.isAdaptive()).thenReturn(false);
+
+		// 30ms packets with sequence numbers 20 and 21 lost
+		for (int seq = 1; seq <= 50; seq++) {
+			if (seq != 20 && seq != 21) {
+				RtpPacket packet = new RtpPacket(172, false);
+				packet.wrap(false, 8, seq, 240 * seq, 123, new byte[160], 0, 160);
+				receiveRtpPackets(member, packet);
+			}
+		}
+
+		// when
+		RtcpVoipMetrics metrics = member.getVoipMetrics(jitterBuffer);
+
+		// then
+		long expected = member.getPacketsExpected();
+		assertEquals(123, metrics.getSsrc());
+		assertEquals((2 << 8) / expected, metrics.getLossRate());
+		assertEquals((1 << 8) / expected, metrics.getDiscardRate());
+		assertEquals(BurstGapTracker.GMIN, metrics.getGmin());
+		assertEquals(40 + 30, metrics.getEndSystemDelay());
+		assertEquals(40, metrics.getJbNominal());
+		assertEquals(100, metrics.getJbMaximum());
+		assertFalse(metrics.isJitterBufferAdaptive());
+		assertTrue(metrics.getRFactor() < 93);
+		assertTrue(metrics.getMosCq() <= metrics.getMosLq());
+		assertTrue(metrics.getMosCq() >= 10 && metrics.getMosCq() < 44);
+	}
+
 }
@@ -0,0 +1,128 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.statistics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.restcomm.media.core.rtcp.RtcpPacket;
+import org.restcomm.media.core.rtcp.RtcpPacketFactory;
+import org.restcomm.media.core.rtp.RtpClock;
+import org.restcomm.media.core.rtp.RtpPacket;
+import org.restcomm.media.core.scheduler.WallClock;
+
+/**
+ * Measures {@link RtpStatistics#onRtpReceive(RtpPacket)} on the receive thread, alone and while the RTCP thread builds
+ * reports from the same statistics.
+ * <p>
+ * Run with <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.restcomm.media.core.rtp.statistics.RtpStatisticsBenchmark</code> or from the IDE.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class RtpStatisticsBenchmark {
+
+    /** One full cycle of sequence numbers, so every source sees an in-order stream that wraps */
+    private static final int PACKETS = 65536;
+
+    /** Number of remote sources interleaved on the channel. Must divide {@link #PACKETS}. */
+    @Param({ "1", "4" })
+    public int sources;
+
+    private RtpStatistics statistics;
+    private RtpPacket[] packets;
+    private int index;
+
+    @Setup
+    public void setup() {
+        final RtpClock clock = new RtpClock(new WallClock());
+        clock.setClockRate(8000);
+        this.statistics = new RtpStatistics(clock, 0x12345678L, "benchmark");
+
+        final byte[] payload = new byte[160];
+        this.packets = new RtpPacket[PACKETS];
+        for (int i = 0; i < PACKETS; i++) {
+            final RtpPacket packet = new RtpPacket(172, false);
+            packet.wrap(false, 8, i, 160L * i, 1000 + (i % sources), payload, 0, payload.length);
+            this.packets[i] = packet;
+        }
+        this.index = 0;
+    }
+
+    private RtpPacket next() {
+        final RtpPacket packet = this.packets[this.index];
+        this.index = (this.index + 1) & (PACKETS - 1);
+        return packet;
+    }
+
+    @Benchmark
+    @Group("receive")
+    @GroupThreads(1)
+    public void receive() {
+        statistics.onRtpReceive(next());
+    }
+
+    /*
+     * Receive thread and RTCP thread working on the same channel.
+     */
+
+    @Benchmark
+    @Group("receiveWhileReporting")
+    @GroupThreads(1)
+    public void receiveWhileReporting() {
+        statistics.onRtpReceive(next());
+    }
+
+    @Benchmark
+    @Group("receiveWhileReporting")
+    @GroupThreads(1)
+    public RtcpPacket report() {
+        return RtcpPacketFactory.buildReport(statistics);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(RtpStatisticsBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.rtp.statistics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class SsrcTableTest {
+
+    @Test
+    public void testPutIfAbsent() {
+        // given
+        SsrcTable<String> table = new SsrcTable<>();
+        String first = "first";
+        String second = "second";
+
+        // when
+        String added = table.putIfAbsent(0xFFFFFFFFL, first);
+        String existing = table.putIfAbsent(0xFFFFFFFFL, second);
+
+        // then
+        assertSame(first, added);
+        assertSame(first, existing);
+        assertSame(first, table.get(0xFFFFFFFFL));
+        assertTrue(table.contains(0xFFFFFFFFL));
+        assertEquals(1, table.size());
+        assertNull(table.get(0L));
+    }
+
+    @Test
+    public void testGrowAndRemove() {
+        // given
+        SsrcTable<Long> table = new SsrcTable<>();
+
+        // when
+        for (long ssrc = 0; ssrc < 100; ssrc++) {
+            table.putIfAbsent(ssrc, Long.valueOf(ssrc));
+        }
+        boolean removed = table.remove(50);
+        boolean removedAgain = table.remove(50);
+
+        // then
+        assertTrue(removed);
+        assertFalse(removedAgain);
+        assertEquals(99, table.size());
+        assertFalse(table.contains(50));
+        for (long ssrc = 0; ssrc < 100; ssrc++) {
+            if (ssrc != 50) {
+                assertEquals(Long.valueOf(ssrc), table.get(ssrc));
+            }
+        }
+
+        long[] keys = table.keys();
+        Arrays.sort(keys);
+        assertEquals(99, keys.length);
+        assertEquals(0, keys[0]);
+        assertEquals(99, keys[98]);
+    }
+
+    @Test
+    public void testKeysSnapshotIsNotAffectedByLaterChanges() {
+        // given
+        SsrcTable<String> table = new SsrcTable<>();
+        table.putIfAbsent(1, "one");
+        table.putIfAbsent(2, "two");
+
+        // when
+        long[] keys = table.keys();
+        table.clear();
+
+        // then
+        assertEquals(2, keys.length);
+        assertEquals(0, table.size());
+        assertFalse(table.contains(1));
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clock that caches the time of the {@link WallClock} and is refreshed once per tick of a {@link TimingWheel}.
+ * <p>
+ * Reading the time is a plain volatile read, which makes it suitable for hot paths that only need tick precision, such as
+ * stamping the arrival of every RTP packet for inactivity detection. The time never goes backwards and lags the wall clock
+ * by at most one tick while the wheel is running. It stops moving while the wheel is stopped.
+ * </p>
+ */
+public class CoarseClock implements Clock {
+
+    private volatile long time;
+    private volatile long currentTime;
+
+    public CoarseClock() {
+        update();
+    }
+
+    /**
+     * Refreshes the cached time.
+     */
+    void update() {
+        this.time = System.nanoTime();
+        this.currentTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public long getTime() {
+        return this.time;
+    }
+
+    @Override
+    public long getCurrentTime() {
+        return this.currentTime;
+    }
+
+    @Override
+    public long getTime(TimeUnit timeUnit) {
+        return timeUnit.convert(this.time, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public TimeUnit getTimeUnit() {
+        return TimeUnit.NANOSECONDS;
+    }
+
+}
@@ -0,0 +1,293 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Detects inactive streams across all connections in a single periodic pass.
+ * <p>
+ * Streams publish the time of their last activity, read from the {@link CoarseClock} of the wheel, and the sweeper compares
+ * it against their timeout once per period. Watches live in slots tracked by a bitmap, so registering and canceling a
+ * watch is cheap and a pass only visits occupied slots. There is no timer or task per stream: a single {@link WheelTimer}
+ * drives the passes while there is something to watch.
+ * </p>
+ * <p>
+ * The period defaults to one second and can be changed with the <code>restcomm.media.timer.inactivity-sweep</code> system
+ * property, in milliseconds. Inactivity is therefore detected between the timeout and the timeout plus one period.
+ * </p>
+ */
+public class InactivitySweeper {
+
+    public static final String PERIOD_PROPERTY = "restcomm.media.timer.inactivity-sweep";
+    public static final long DEFAULT_PERIOD = 1000L;
+
+    private static final Logger logger = LogManager.getLogger(InactivitySweeper.class);
+
+    private static final int INITIAL_SLOTS = 64;
+
+    /**
+     * Source of the last activity of a stream.
+     */
+    public interface Activity {
+
+        /**
+         * Gets the time of the last activity.
+         * 
+         * @return The time in nanoseconds, in the time base of {@link CoarseClock#getTime()}
+         */
+        long getLastActivity();
+
+    }
+
+    /**
+     * Notified once when a watched stream exceeds its timeout. The watch is canceled before the listener runs.
+     */
+    public interface Listener {
+
+        /**
+         * @param idle The time elapsed since the last activity, in nanoseconds
+         */
+        void onInactive(long idle);
+
+    }
+
+    private final CoarseClock clock;
+    private final long periodNanos;
+    private final WheelTimer sweepTimer;
+
+    // Guarded by this
+    private Watch[] slots;
+    private long[] occupied;
+    private int count;
+
+    /**
+     * Creates a sweeper.
+     * 
+     * @param wheel The wheel that drives the passes and whose clock is used to measure inactivity
+     * @param period The time between passes
+     * @param unit The unit of the period
+     */
+    public InactivitySweeper(TimingWheel wheel, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive: " + period);
+        }
+        this.clock = wheel.getClock();
+        this.periodNanos = unit.toNanos(period);
+        this.sweepTimer = wheel.newTimer(new Runnable() {
+
+            @Override
+            public void run() {
+                sweep();
+            }
+
+        });
+
+        this.slots = new Watch[INITIAL_SLOTS];
+        this.occupied = new long[INITIAL_SLOTS / Long.SIZE];
+        this.count = 0;
+    }
+
+    public InactivitySweeper(TimingWheel wheel) {
+        this(wheel, Long.getLong(PERIOD_PROPERTY, DEFAULT_PERIOD), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the clock streams should use to publish their activity.
+     * 
+     * @return The clock of the wheel
+     */
+    public CoarseClock getClock() {
+        return this.clock;
+    }
+
+    public long getPeriod(TimeUnit unit) {
+        return unit.convert(this.periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the number of streams being watched.
+     * 
+     * @return The number of active watches
+     */
+    public synchronized int getWatchCount() {
+        return this.count;
+    }
+
+    /**
+     * Starts watching a stream.
+     * 
+     * @param activity The source of the last activity of the stream
+     * @param timeout The maximum inactivity allowed
+     * @param unit The unit of the timeout
+     * @param listener The listener to be notified when the timeout is exceeded
+     * @return The watch, to be canceled when the stream no longer needs to be watched
+     */
+    public Watch watch(Activity activity, long timeout, TimeUnit unit, Listener listener) {
+        if (activity == null || listener == null) {
+            throw new NullPointerException("Activity and listener cannot be null");
+        }
+
+        final Watch watch = new Watch(activity, unit.toNanos(timeout), listener);
+        synchronized (this) {
+            watch.slot = allocate(watch);
+            this.count++;
+        }
+
+        if (!this.sweepTimer.isPending()) {
+            arm();
+        }
+        return watch;
+    }
+
+    private int allocate(Watch watch) {
+        for (int i = 0; i < this.occupied.length; i++) {
+            final long free = ~this.occupied[i];
+            if (free != 0) {
+                final int slot = (i << 6) + Long.numberOfTrailingZeros(free);
+                this.occupied[i] |= 1L << (slot & 63);
+                this.slots[slot] = watch;
+                return slot;
+            }
+        }
+
+        // All slots are taken
+        final int slot = this.slots.length;
+        this.slots = Arrays.copyOf(this.slots, slot << 1);
+        this.occupied = Arrays.copyOf(this.occupied, this.occupied.length << 1);
+        this.occupied[slot >> 6] |= 1L << (slot & 63);
+        this.slots[slot] = watch;
+        return slot;
+    }
+
+    private boolean release(Watch watch) {
+        final int slot = watch.slot;
+        if (slot < 0 || this.slots[slot] != watch) {
+            return false;
+        }
+        this.slots[slot] = null;
+        this.occupied[slot >> 6] &= ~(1L << (slot & 63));
+        this.count--;
+        watch.slot = -1;
+        return true;
+    }
+
+    private void arm() {
+        try {
+            this.sweepTimer.schedule(this.periodNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Could not schedule inactivity sweep: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks all watched streams once and notifies the ones that exceeded their timeout.
+     */
+    void sweep() {
+        final long now = this.clock.getTime();
+        List<Watch> inactive = null;
+        final int remaining;
+
+        synchronized (this) {
+            for (int i = 0; i < this.occupied.length; i++) {
+                long word = this.occupied[i];
+                while (word != 0) {
+                    final int slot = (i << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+
+                    final Watch watch = this.slots[slot];
+                    final long idle = now - watch.activity.getLastActivity();
+                    if (idle > watch.timeout) {
+                        release(watch);
+                        watch.idle = idle;
+                        if (inactive == null) {
+                            inactive = new ArrayList<>();
+                        }
+                        inactive.add(watch);
+                    }
+                }
+            }
+            remaining = this.count;
+        }
+
+        if (remaining > 0) {
+            arm();
+        }
+
+        if (inactive != null) {
+            for (Watch watch : inactive) {
+                try {
+                    watch.listener.onInactive(watch.idle);
+                } catch (Exception e) {
+                    logger.error("Inactivity listener failed.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Registration of a stream in the sweeper.
+     */
+    public final class Watch {
+
+        private final Activity activity;
+        private final long timeout;
+        private final Listener listener;
+
+        // Guarded by the sweeper
+        private int slot;
+        private long idle;
+
+        private Watch(Activity activity, long timeout, Listener listener) {
+            this.activity = activity;
+            this.timeout = timeout;
+            this.listener = listener;
+            this.slot = -1;
+        }
+
+        /**
+         * Stops watching the stream.
+         * 
+         * @return true if the watch was active
+         */
+        public boolean cancel() {
+            synchronized (InactivitySweeper.this) {
+                return release(this);
+            }
+        }
+
+        public boolean isActive() {
+            synchronized (InactivitySweeper.this) {
+                return this.slot >= 0;
+            }
+        }
+
+    }
+
+}
@@ -22,24 +22,39 @@
 
 package org.restcomm.media.core.scheduler;
 
-import org.restcomm.media.core.concurrent.ConcurrentCyclicFIFO;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.restcomm.media.core.concurrent.MpmcRingBuffer;
 
 /**
  * Implements queue of tasks.
  * 
+ * Tasks are kept in bounded ring buffers. Since a task can never be dropped, tasks that
+ * do not fit in the ring spill over to an unbounded list that is drained after the ring.
+ * While the list holds tasks, new tasks are appended to it rather than to the ring, so
+ * tasks are always polled in the order they were accepted.
  * 
  * @author yulian oifa
  */
 public class OrderedTaskQueue {
+	public static final int DEFAULT_CAPACITY = 4096;
+	
 	//inner holder for tasks
-    private ConcurrentCyclicFIFO<Task>[] taskList=new ConcurrentCyclicFIFO[2];
+    private MpmcRingBuffer<Task>[] taskList=new MpmcRingBuffer[2];
+    private ConcurrentLinkedQueue<Task>[] overflowList=new ConcurrentLinkedQueue[2];
     
     private Integer activeIndex=0;
     
     public OrderedTaskQueue() {
+    	this(DEFAULT_CAPACITY);
+    }
+    
+    public OrderedTaskQueue(int capacity) {
         //intitalize task list
-    	taskList[0] = new ConcurrentCyclicFIFO<Task>();
-    	taskList[1] = new ConcurrentCyclicFIFO<Task>();    
+    	taskList[0] = new MpmcRingBuffer<Task>(capacity);
+    	taskList[1] = new MpmcRingBuffer<Task>(capacity);
+    	overflowList[0] = new ConcurrentLinkedQueue<Task>();
+    	overflowList[1] = new ConcurrentLinkedQueue<Task>();
     }    
 
     /**
@@ -53,7 +68,7 @@ public class OrderedTaskQueue {
     	{
     		if(!task.isInQueue0())
     		{
-    			taskList[0].offer(task);
+    			offer(0, task);
     			task.storedInQueue0();
     		}
     	}
@@ -61,12 +76,26 @@ public class OrderedTaskQueue {
     	{
     		if(!task.isInQueue1())
     		{
-    			taskList[1].offer(task);
+    			offer(1, task);
     			task.storedInQueue1();
     		}
     	}    	    	    
     }
     
+    private void offer(int index, Task task) {
+    	//the ring only takes new tasks once the overflow is drained, otherwise they would overtake it
+    	if(!overflowList[index].isEmpty() || !taskList[index].offer(task))
+    		overflowList[index].offer(task);
+    }
+    
+    private Task poll(int index) {
+    	Task result=taskList[index].poll();
+    	if(result==null)
+    		result=overflowList[index].poll();
+    	
+    	return result;
+    }
+    
     /**
      * Retrieves the task with earliest dead line and removes it from queue.
      * 
@@ -76,13 +105,13 @@ public class OrderedTaskQueue {
     	Task result=null;
     	if(activeIndex==0)
     	{
-    		result=taskList[0].poll();
+    		result=poll(0);
     		if(result!=null)
     			result.removeFromQueue0();    		
     	}
     	else
     	{
-    		result=taskList[1].poll();
+    		result=poll(1);
     		if(result!=null)
     			result.removeFromQueue1();
     	}
@@ -100,7 +129,9 @@ public class OrderedTaskQueue {
      */
     public void clear() {
     	taskList[0].clear();
-    	taskList[1].clear();    	    	    
+    	taskList[1].clear();
+    	overflowList[0].clear();
+    	overflowList[1].clear();
     }
     
     /**
@@ -109,7 +140,7 @@ public class OrderedTaskQueue {
      * @return the size of the queue.
      */
     public int size() {
-    	return taskList[activeIndex].size();    	
+    	return taskList[activeIndex].size() + overflowList[activeIndex].size();    	
     }
 
     @Override
@@ -117,7 +148,7 @@ public class OrderedTaskQueue {
         StringBuilder sb = new StringBuilder();
         sb.append("Queue[");
         
-        int len = Math.min(30, taskList[activeIndex].size());
+        int len = Math.min(30, size());
         for (int i = 0; i < len -1; i++) {
         	//sb.append(taskList[activeIndex].get(i).getPriority());
             sb.append(",");
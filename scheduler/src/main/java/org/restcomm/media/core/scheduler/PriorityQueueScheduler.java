@@ -28,7 +28,7 @@ import java.util.concurrent.locks.LockSupport;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.restcomm.media.core.concurrent.ConcurrentCyclicFIFO;
+import org.restcomm.media.core.concurrent.MpmcRingBuffer;
 
 /**
  * Implements scheduler with multi-level priority queue.
@@ -63,6 +63,9 @@ public class PriorityQueueScheduler  {
 	//HEARTBEAT QUEUE
 	public static final Integer HEARTBEAT_QUEUE=-1;
 	
+	//yields a core thread waits for room in a full worker queue
+	private static final int HANDOFF_TRIES=64;
+	
     //The clock for time measurement
     private Clock clock;
 
@@ -80,8 +83,13 @@ public class PriorityQueueScheduler  {
 
     private Logger logger = LogManager.getLogger(PriorityQueueScheduler.class) ;
     
-    private ConcurrentCyclicFIFO<Task> waitingTasks=new ConcurrentCyclicFIFO<Task>();
-    private ConcurrentCyclicFIFO<Task> criticalTasks=new ConcurrentCyclicFIFO<Task>();
+    //cycle, phase and task execution times
+    protected final SchedulerMetrics metrics = new SchedulerMetrics();
+    
+    //tasks handed from core threads to workers. Core threads wait a few yields for room when full,
+    //and run the task themselves if the workers still have not caught up
+    private MpmcRingBuffer<Task> waitingTasks=new MpmcRingBuffer<Task>(OrderedTaskQueue.DEFAULT_CAPACITY);
+    private MpmcRingBuffer<Task> criticalTasks=new MpmcRingBuffer<Task>(OrderedTaskQueue.DEFAULT_CAPACITY);
     
     private WorkerThread[] workerThreads;
     private CriticalWorkerThread[] criticalWorkerThreads;
@@ -141,6 +149,15 @@ public class PriorityQueueScheduler  {
         return clock;
     }
 
+    /**
+     * Gets the metrics recorded by this scheduler.
+     *
+     * @return the scheduler metrics.
+     */
+    public SchedulerMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Queues task for execution according to its priority.
      *
@@ -185,6 +202,7 @@ public class PriorityQueueScheduler  {
         
         logger.info("Starting ");
         
+        metrics.register(getClass().getSimpleName());
         coreThread.activate();
         criticalThread.activate();
         for(int i=0;i<workerThreads.length;i++)
@@ -225,19 +243,26 @@ public class PriorityQueueScheduler  {
         
         for(int i=0;i<heartBeatQueue.length;i++)
         	heartBeatQueue[i].clear();
+        
+        metrics.unregister();
     }
 
     /**
      * Shows the miss rate.
      * 
-     * @return the miss rate value;
+     * @return the share of media cycles that overran their 20ms period;
      */
     public double getMissRate() {
-        return 0;
+        return metrics.getMissRate();
     }
 
+    /**
+     * Shows the worst execution time of a single task.
+     * 
+     * @return the execution time in nanoseconds.
+     */
     public long getWorstExecutionTime() {
-        return 0;
+        return metrics.getTasks().getMax();
     }
 
     /**
@@ -276,28 +301,22 @@ public class PriorityQueueScheduler  {
         		currQueue=MANAGEMENT_QUEUE;
         		while(currQueue<=OUTPUT_QUEUE)
     			{    		
-        			executeQueue(taskQueues[currQueue]);
-					while(activeTasksCount.get()!=0)
-						LockSupport.park();
-					
+        			executePhase(currQueue,taskQueues[currQueue]);
 					currQueue++;															
     			}				        		
         		
-        		executeQueue(taskQueues[MANAGEMENT_QUEUE]);
-        		while(activeTasksCount.get()!=0)
-					LockSupport.park();					
+        		executePhase(MANAGEMENT_QUEUE,taskQueues[MANAGEMENT_QUEUE]);
         		
         		runIndex=(runIndex+1)%5;        		
-    			executeQueue(heartBeatQueue[runIndex]);
-        		while(activeTasksCount.get()!=0)
-					LockSupport.park();
+        		executePhase(HEARTBEAT_QUEUE,heartBeatQueue[runIndex]);
         		
-        		executeQueue(taskQueues[MANAGEMENT_QUEUE]);
-        		while(activeTasksCount.get()!=0)
-					LockSupport.park();	
+        		executePhase(MANAGEMENT_QUEUE,taskQueues[MANAGEMENT_QUEUE]);
         		
         		//sleep till next cycle
         		cycleDuration=clock.getTime() - cycleStart;
+        		if(metrics.isEnabled())
+        			metrics.recordCycle(cycleDuration, 20000000L);
+        		
         		if(cycleDuration<20000000L)
         			try  {                                               
         				sleep(20L-cycleDuration/1000000L,(int)((20000000L-cycleDuration)%1000000L));
@@ -311,6 +330,17 @@ public class PriorityQueueScheduler  {
         	}
         }
         
+        private void executePhase(int queue,OrderedTaskQueue currQueue)
+        {
+        	long phaseStart=clock.getTime();
+        	executeQueue(currQueue);
+        	while(activeTasksCount.get()!=0)
+        		LockSupport.park();
+        	
+        	if(metrics.isEnabled())
+        		metrics.recordPhase(queue, clock.getTime()-phaseStart);
+        }
+        
         private void executeQueue(OrderedTaskQueue currQueue)
         {
         	Task t;        	
@@ -321,7 +351,11 @@ public class PriorityQueueScheduler  {
             while(t!=null)
             {
             	activeTasksCount.incrementAndGet();
-            	waitingTasks.offer(t);
+            	if(!handOff(waitingTasks, t))
+            	{
+            		execute(t);
+            		activeTasksCount.decrementAndGet();
+            	}
             	t = currQueue.poll();
             }            
         }
@@ -397,7 +431,11 @@ public class PriorityQueueScheduler  {
             while(t!=null)
             {
             	activeTasksCount.incrementAndGet();
-            	criticalTasks.offer(t);
+            	if(!handOff(criticalTasks, t))
+            	{
+            		execute(t);
+            		activeTasksCount.decrementAndGet();
+            	}
             	t = currQueue.poll();
             }            
         }
@@ -410,6 +448,34 @@ public class PriorityQueueScheduler  {
         }
     }
     
+    /**
+     * Queues a task for the workers, yielding a bounded number of times while the queue is full.
+     * 
+     * @return false if the queue stayed full, in which case the caller runs the task itself
+     */
+    private boolean handOff(MpmcRingBuffer<Task> queue, Task task) {
+    	for(int i=0;i<HANDOFF_TRIES;i++)
+    	{
+    		if(queue.offer(task))
+    			return true;
+    		
+    		Thread.yield();
+    	}
+    	
+    	return false;
+    }
+    
+    private void execute(Task task) {
+    	if(!metrics.isEnabled()) {
+    		task.run();
+    		return;
+    	}
+    	
+    	long taskStart=clock.getTime();
+    	task.run();
+    	metrics.recordTask(task, clock.getTime()-taskStart);
+    }
+    
     private class WorkerThread extends Thread {
     	private volatile boolean active;
     	private Task current;
@@ -433,7 +499,7 @@ public class PriorityQueueScheduler  {
     					logger.warn("Could not poll waiting task in timely fashion. Will keep trying.");
     				}    				
     			}
-    			current.run();
+    			execute(current);
     			coreThread.notifyCompletion();    			
     		}
     	}
@@ -475,7 +541,7 @@ public class PriorityQueueScheduler  {
     					
     				}    				
     			}
-    			current.run();
+    			execute(current);
     			criticalThread.notifyCompletion();
     		}
     	}
@@ -80,6 +80,17 @@ public interface Scheduler {
     ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long initialDelay, long period, TimeUnit unit)
             throws IllegalArgumentException, RejectedExecutionException;
 
+    /**
+     * Gets the timing wheel of the scheduler.
+     * <p>
+     * The wheel is meant for large numbers of coarse timers, like protocol timeouts and periodic reports. It runs and stops
+     * along with the scheduler.
+     * </p>
+     * 
+     * @return The timing wheel
+     */
+    TimingWheel getTimingWheel();
+
     /**
      * Starts the scheduler.
      * <p>
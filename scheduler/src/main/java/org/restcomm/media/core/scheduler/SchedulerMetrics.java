@@ -0,0 +1,385 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.core.scheduler;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.restcomm.media.core.concurrent.LatencyHistogram;
+
+/**
+ * Records how long media cycles, queue phases and tasks take in a media scheduler.
+ * <p>
+ * Recording does not allocate nor lock, except when a task type beats its own worst execution time and is slow enough to be
+ * one of the {@value #SLOWEST_TASKS} slowest task types, which only happens a handful of times per type after start-up. Recording can be turned off at runtime or with the
+ * <code>restcomm.media.scheduler.metrics</code> system property.
+ * </p>
+ */
+public class SchedulerMetrics implements SchedulerMetricsMBean {
+
+    public static final String ENABLED_PROPERTY = "restcomm.media.scheduler.metrics";
+    public static final String DOMAIN = "org.restcomm.media.core";
+
+    private static final int SLOWEST_TASKS = 8;
+
+    /** Phase index of the heartbeat queue, which is numbered -1 */
+    private static final int HEARTBEAT_PHASE = PriorityQueueScheduler.OUTPUT_QUEUE + 1;
+
+    private static final Logger logger = LogManager.getLogger(SchedulerMetrics.class);
+
+    private volatile boolean enabled;
+
+    private final LatencyHistogram cycles;
+    private final AtomicLong overruns;
+    private final LatencyHistogram[] phases;
+    private final LatencyHistogram tasks;
+
+    // Slowest task types. Guarded by this, except the threshold and worst times read by the fast path
+    private final Class<?>[] slowestTypes;
+    private final String[] slowestSamples;
+    private final long[] slowestTimes;
+    private volatile long slowestThreshold;
+    private volatile ClassValue<WorstTime> worstTimes;
+
+    private ObjectName objectName;
+
+    public SchedulerMetrics() {
+        this.enabled = Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"));
+        this.cycles = new LatencyHistogram();
+        this.overruns = new AtomicLong(0);
+        this.phases = new LatencyHistogram[HEARTBEAT_PHASE + 1];
+        for (int i = 0; i < phases.length; i++) {
+            this.phases[i] = new LatencyHistogram();
+        }
+        this.tasks = new LatencyHistogram();
+        this.slowestTypes = new Class<?>[SLOWEST_TASKS];
+        this.slowestSamples = new String[SLOWEST_TASKS];
+        this.slowestTimes = new long[SLOWEST_TASKS];
+        this.slowestThreshold = 0;
+        this.worstTimes = newWorstTimes();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Records the time taken by a media cycle.
+     * 
+     * @param duration the time between the cycle start and the end of its last phase, in nanoseconds.
+     * @param period the cycle period, in nanoseconds.
+     */
+    public void recordCycle(long duration, long period) {
+        cycles.record(duration);
+        if (duration > period) {
+            overruns.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records the time taken to run all tasks of a queue in a cycle.
+     * 
+     * @param queue the queue number, including {@link PriorityQueueScheduler#HEARTBEAT_QUEUE}.
+     * @param duration the time taken, in nanoseconds.
+     */
+    public void recordPhase(int queue, long duration) {
+        phases[queue < 0 ? HEARTBEAT_PHASE : queue].record(duration);
+    }
+
+    /**
+     * Records the execution time of a task.
+     * 
+     * @param task the task that was run
+     * @param duration the execution time, in nanoseconds.
+     */
+    public void recordTask(Task task, long duration) {
+        tasks.record(duration);
+        if (duration > slowestThreshold) {
+            // only lock when the type beats its own worst time, which quickly becomes rare
+            final WorstTime worst = worstTimes.get(task.getClass());
+            if (duration > worst.time) {
+                sampleSlowTask(task, duration);
+            }
+        }
+    }
+
+    private synchronized void sampleSlowTask(Task task, long duration) {
+        final Class<?> type = task.getClass();
+        final WorstTime worst = worstTimes.get(type);
+        if (duration > worst.time) {
+            worst.time = duration;
+        }
+
+        // same type already sampled: keep its worst time
+        int slot = -1;
+        for (int i = 0; i < SLOWEST_TASKS; i++) {
+            if (slowestTypes[i] == type) {
+                slot = i;
+                break;
+            }
+        }
+
+        if (slot < 0) {
+            // new type replaces the fastest one
+            slot = 0;
+            for (int i = 1; i < SLOWEST_TASKS; i++) {
+                if (slowestTimes[i] < slowestTimes[slot]) {
+                    slot = i;
+                }
+            }
+            if (slowestTimes[slot] >= duration) {
+                return;
+            }
+            slowestTypes[slot] = type;
+        } else if (slowestTimes[slot] >= duration) {
+            return;
+        }
+
+        slowestTimes[slot] = duration;
+        slowestSamples[slot] = String.valueOf(task);
+
+        // a free slot takes any new type, so the threshold only rises once all slots are taken
+        long threshold = Long.MAX_VALUE;
+        for (int i = 0; i < SLOWEST_TASKS; i++) {
+            if (slowestTypes[i] == null) {
+                threshold = 0;
+                break;
+            }
+            threshold = Math.min(threshold, slowestTimes[i]);
+        }
+        slowestThreshold = threshold;
+    }
+
+    private static ClassValue<WorstTime> newWorstTimes() {
+        return new ClassValue<WorstTime>() {
+
+            @Override
+            protected WorstTime computeValue(Class<?> type) {
+                return new WorstTime();
+            }
+        };
+    }
+
+    public LatencyHistogram getCycles() {
+        return cycles;
+    }
+
+    public LatencyHistogram getPhase(int queue) {
+        return phases[queue < 0 ? HEARTBEAT_PHASE : queue];
+    }
+
+    public LatencyHistogram getTasks() {
+        return tasks;
+    }
+
+    @Override
+    public long getCycleCount() {
+        return cycles.getCount();
+    }
+
+    @Override
+    public long getOverrunCount() {
+        return overruns.get();
+    }
+
+    @Override
+    public double getMissRate() {
+        final long count = cycles.getCount();
+        return count == 0 ? 0.0 : (double) overruns.get() / count;
+    }
+
+    @Override
+    public long getCycleMeanMicros() {
+        return toMicros(cycles.getMean());
+    }
+
+    @Override
+    public long getCycle99PercentileMicros() {
+        return toMicros(cycles.getValueAtPercentile(99.0));
+    }
+
+    @Override
+    public long getCycleMaxMicros() {
+        return toMicros(cycles.getMax());
+    }
+
+    @Override
+    public long getInputPhase99PercentileMicros() {
+        return toMicros(getPhase(PriorityQueueScheduler.INPUT_QUEUE).getValueAtPercentile(99.0));
+    }
+
+    @Override
+    public long getInputPhaseMaxMicros() {
+        return toMicros(getPhase(PriorityQueueScheduler.INPUT_QUEUE).getMax());
+    }
+
+    @Override
+    public long getMixerPhase99PercentileMicros() {
+        return toMicros(getPhase(PriorityQueueScheduler.MIXER_MIX_QUEUE).getValueAtPercentile(99.0));
+    }
+
+    @Override
+    public long getMixerPhaseMaxMicros() {
+        return toMicros(getPhase(PriorityQueueScheduler.MIXER_MIX_QUEUE).getMax());
+    }
+
+    @Override
+    public long getOutputPhase99PercentileMicros() {
+        return toMicros(getPhase(PriorityQueueScheduler.OUTPUT_QUEUE).getValueAtPercentile(99.0));
+    }
+
+    @Override
+    public long getOutputPhaseMaxMicros() {
+        return toMicros(getPhase(PriorityQueueScheduler.OUTPUT_QUEUE).getMax());
+    }
+
+    @Override
+    public long getHeartbeatPhase99PercentileMicros() {
+        return toMicros(getPhase(PriorityQueueScheduler.HEARTBEAT_QUEUE).getValueAtPercentile(99.0));
+    }
+
+    @Override
+    public long getHeartbeatPhaseMaxMicros() {
+        return toMicros(getPhase(PriorityQueueScheduler.HEARTBEAT_QUEUE).getMax());
+    }
+
+    @Override
+    public long getTask99PercentileMicros() {
+        return toMicros(tasks.getValueAtPercentile(99.0));
+    }
+
+    @Override
+    public long getWorstExecutionTimeMicros() {
+        return toMicros(tasks.getMax());
+    }
+
+    @Override
+    public synchronized String[] getSlowestTasks() {
+        final Integer[] order = new Integer[SLOWEST_TASKS];
+        for (int i = 0; i < SLOWEST_TASKS; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Long.compare(slowestTimes[b], slowestTimes[a]);
+            }
+        });
+
+        int count = 0;
+        while (count < SLOWEST_TASKS && slowestTypes[order[count]] != null) {
+            count++;
+        }
+
+        final String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            final int slot = order[i];
+            result[i] = slowestTypes[slot].getName() + " [" + slowestSamples[slot] + "]: " + toMicros(slowestTimes[slot]) + "us";
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void reset() {
+        cycles.reset();
+        overruns.set(0);
+        for (int i = 0; i < phases.length; i++) {
+            phases[i].reset();
+        }
+        tasks.reset();
+        for (int i = 0; i < SLOWEST_TASKS; i++) {
+            slowestTypes[i] = null;
+            slowestSamples[i] = null;
+            slowestTimes[i] = 0;
+        }
+        slowestThreshold = 0;
+        worstTimes = newWorstTimes();
+    }
+
+    /**
+     * Exposes the metrics through the platform MBean server.
+     * 
+     * @param name the name of the scheduler
+     */
+    public synchronized void register(String name) {
+        if (objectName != null) {
+            return;
+        }
+        try {
+            final ObjectName objectName = new ObjectName(DOMAIN + ":type=Scheduler,name=" + ObjectName.quote(name));
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                logger.warn("Scheduler metrics " + objectName + " are already registered by another scheduler");
+                return;
+            }
+            server.registerMBean(this, objectName);
+            this.objectName = objectName;
+        } catch (JMException e) {
+            logger.warn("Could not register scheduler metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server.
+     */
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            logger.warn("Could not unregister scheduler metrics: " + e.getMessage());
+        }
+        objectName = null;
+    }
+
+    private static long toMicros(long nanos) {
+        return nanos / 1000L;
+    }
+
+    /**
+     * Worst execution time of a task type. Written while holding the metrics monitor.
+     */
+    private static final class WorstTime {
+
+        private volatile long time;
+
+    }
+
+}
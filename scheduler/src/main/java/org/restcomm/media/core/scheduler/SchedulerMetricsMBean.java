@@ -0,0 +1,108 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.core.scheduler;
+
+/**
+ * Management interface of the media scheduler metrics.
+ */
+public interface SchedulerMetricsMBean {
+
+    /**
+     * Tells whether the scheduler records metrics.
+     * 
+     * @return true if recording is enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Turns recording on or off. Recorded values are kept until {@link #reset()}.
+     * 
+     * @param enabled whether to record metrics
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Gets the number of media cycles run since the last reset.
+     * 
+     * @return the cycle count
+     */
+    long getCycleCount();
+
+    /**
+     * Gets the number of media cycles that took longer than their period.
+     * 
+     * @return the overrun count
+     */
+    long getOverrunCount();
+
+    /**
+     * Gets the share of media cycles that missed their deadline.
+     * 
+     * @return the ratio of overruns to cycles, between 0 and 1.
+     */
+    double getMissRate();
+
+    long getCycleMeanMicros();
+
+    long getCycle99PercentileMicros();
+
+    long getCycleMaxMicros();
+
+    long getInputPhase99PercentileMicros();
+
+    long getInputPhaseMaxMicros();
+
+    long getMixerPhase99PercentileMicros();
+
+    long getMixerPhaseMaxMicros();
+
+    long getOutputPhase99PercentileMicros();
+
+    long getOutputPhaseMaxMicros();
+
+    long getHeartbeatPhase99PercentileMicros();
+
+    long getHeartbeatPhaseMaxMicros();
+
+    long getTask99PercentileMicros();
+
+    /**
+     * Gets the longest execution time of a single task.
+     * 
+     * @return the worst execution time
+     */
+    long getWorstExecutionTimeMicros();
+
+    /**
+     * Describes the task types with the longest execution times, slowest first.
+     * 
+     * @return one line per task type
+     */
+    String[] getSlowestTasks();
+
+    /**
+     * Clears all metrics.
+     */
+    void reset();
+
+}
@@ -24,6 +24,7 @@ package org.restcomm.media.core.scheduler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
@@ -40,6 +41,9 @@ import java.util.concurrent.atomic.AtomicInteger;
  * 
  * The ServiceScheduler is a Singleton because its meant to be used as the core element of the Media Server, so it relies on a
  * ServiceExecutor that will allocate a thread pool as big as the system allows (within recommended values).
+ * <p>
+ * Coarse timers are kept in a {@link TimingWheel} whose expired timers run on the same thread pool.
+ * </p>
  * 
  * @author Henrique Rosa (henrique.rosa@telestax.com)
  *
@@ -52,7 +56,8 @@ public class ServiceScheduler implements Scheduler {
 
     private volatile boolean started;
     private final Clock wallClock;
-    private ScheduledExecutorService executor;
+    private volatile ScheduledExecutorService executor;
+    private final TimingWheel timingWheel;
     private final ThreadFactory threadFactory = new ThreadFactory() {
 
         private AtomicInteger index = new AtomicInteger(0);
@@ -66,6 +71,13 @@ public class ServiceScheduler implements Scheduler {
     public ServiceScheduler(final Clock wallClock) {
         this.started = false;
         this.wallClock = new WallClock();
+        this.timingWheel = new TimingWheel(new Executor() {
+
+            @Override
+            public void execute(Runnable command) {
+                executor.execute(command);
+            }
+        });
     }
 
     public ServiceScheduler() {
@@ -102,6 +114,11 @@ public class ServiceScheduler implements Scheduler {
         return this.executor.scheduleWithFixedDelay(task, initialDelay, period, unit);
     }
 
+    @Override
+    public TimingWheel getTimingWheel() {
+        return this.timingWheel;
+    }
+
     @Override
     public void start() {
         if (!this.started) {
@@ -109,6 +126,7 @@ public class ServiceScheduler implements Scheduler {
             this.executor = Executors.newScheduledThreadPool(POOL_SIZE, threadFactory);
             ((ScheduledThreadPoolExecutor) this.executor).setRemoveOnCancelPolicy(true);
             ((ScheduledThreadPoolExecutor) this.executor).prestartAllCoreThreads();
+            this.timingWheel.start();
             LOGGER.info("Started scheduler!");
         }
     }
@@ -117,6 +135,7 @@ public class ServiceScheduler implements Scheduler {
     public void stop() {
         if (this.started) {
             this.started = false;
+            this.timingWheel.stop();
             this.executor.shutdownNow();
             LOGGER.info("Stopped scheduler!");
         }
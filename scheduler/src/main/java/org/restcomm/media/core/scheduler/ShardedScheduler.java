@@ -0,0 +1,316 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.core.scheduler;
+
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Media scheduler that spreads tasks over a fixed set of shards, each one owning its queues and a single thread.
+ * <p>
+ * A task is placed on a shard according to its {@link Task#getAffinity() affinity}, so all tasks of an endpoint and of its
+ * connections run on the same thread and keep the INPUT, MIXER and OUTPUT phase order within every cycle. Shards do not
+ * wait for each other: a slow endpoint only delays the endpoints that share its shard.
+ * </p>
+ * <p>
+ * Tasks run inline on the shard thread, so there is no hand-off to a worker pool and no cycle-wide completion counter.
+ * The RECEIVER and SENDER queues keep their 4ms cycle on a dedicated shard.
+ * </p>
+ * <p>
+ * The number of shards defaults to the number of available processors and can be changed with the
+ * <code>restcomm.media.scheduler.shards</code> system property.
+ * </p>
+ */
+public class ShardedScheduler extends PriorityQueueScheduler {
+
+    public static final String SHARDS_PROPERTY = "restcomm.media.scheduler.shards";
+
+    private static final long MEDIA_CYCLE = 20000000L;
+    private static final long CRITICAL_CYCLE = 4000000L;
+
+    /** Tasks beyond this many per queue spill over to the unbounded overflow list */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private static final int HEARTBEAT_SLOTS = 5;
+
+    /** Queues run by media shards on each cycle, in order. Heartbeats and another management pass follow them */
+    private static final int[] MEDIA_PHASES = { MANAGEMENT_QUEUE, UDP_MANAGER_QUEUE, INPUT_QUEUE, MIXER_MIX_QUEUE, OUTPUT_QUEUE, MANAGEMENT_QUEUE };
+    private static final int[] CRITICAL_PHASES = { RECEIVER_QUEUE, SENDER_QUEUE };
+
+    private static final Logger logger = LogManager.getLogger(ShardedScheduler.class);
+
+    private final Shard[] shards;
+    private final Shard criticalShard;
+
+    private volatile boolean active;
+
+    /**
+     * Creates new scheduler.
+     * 
+     * @param clock the clock used for time measurement.
+     * @param shardCount the number of media shards.
+     */
+    public ShardedScheduler(Clock clock, int shardCount) {
+        super(clock);
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            this.shards[i] = new Shard("scheduler-shard-" + i, MEDIA_PHASES, MEDIA_CYCLE, true, metrics);
+        }
+        this.criticalShard = new Shard("scheduler-critical", CRITICAL_PHASES, CRITICAL_CYCLE, false, metrics);
+    }
+
+    public ShardedScheduler(Clock clock) {
+        this(clock, Integer.getInteger(SHARDS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public ShardedScheduler() {
+        this(null);
+    }
+
+    /**
+     * Gets the number of media shards.
+     * 
+     * @return the number of threads running media tasks.
+     */
+    @Override
+    public int getPoolSize() {
+        return shards.length;
+    }
+
+    /**
+     * Gets the media shard that runs tasks with a given affinity.
+     * 
+     * @param affinity the task affinity
+     * @return the index of the shard
+     */
+    public int getShard(int affinity) {
+        // spread affinities that are allocated with a fixed stride, such as task ids
+        int hash = affinity * 0x9E3779B9;
+        hash ^= hash >>> 16;
+        return (hash & Integer.MAX_VALUE) % shards.length;
+    }
+
+    @Override
+    public void submit(Task task, Integer index) {
+        final int queue = index;
+        task.activate(false);
+        if (queue == RECEIVER_QUEUE || queue == SENDER_QUEUE) {
+            criticalShard.queues[queue].accept(task);
+        } else {
+            shardOf(task).queues[queue].accept(task);
+        }
+    }
+
+    @Override
+    public void submitHeatbeat(Task task) {
+        task.activate(true);
+        final Shard shard = shardOf(task);
+        shard.heartbeats[shard.runIndex].accept(task);
+    }
+
+    private Shard shardOf(Task task) {
+        // a queued task stays on its shard even if its affinity changed meanwhile, so it never runs twice in a cycle
+        int shard = task.shard;
+        if (shard < 0 || !(task.isInQueue0() || task.isInQueue1())) {
+            shard = getShard(task.getAffinity());
+            task.shard = shard;
+        }
+        return shards[shard];
+    }
+
+    @Override
+    public synchronized void start() {
+        if (this.active) {
+            return;
+        }
+
+        final Clock clock = getClock();
+        if (clock == null) {
+            throw new IllegalStateException("Clock is not set");
+        }
+
+        this.active = true;
+        logger.info("Starting " + shards.length + " shards");
+        metrics.register(getClass().getSimpleName());
+
+        // all shards share the same cycle boundaries
+        final long epoch = clock.getTime();
+        for (int i = 0; i < shards.length; i++) {
+            shards[i].activate(clock, epoch);
+        }
+        criticalShard.activate(clock, epoch);
+
+        logger.info("Started ");
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!this.active) {
+            return;
+        }
+        this.active = false;
+
+        for (int i = 0; i < shards.length; i++) {
+            shards[i].shutdown();
+        }
+        criticalShard.shutdown();
+
+        for (int i = 0; i < shards.length; i++) {
+            shards[i].await();
+            shards[i].clear();
+        }
+        criticalShard.await();
+        criticalShard.clear();
+
+        metrics.unregister();
+    }
+
+    private static final class Shard implements Runnable {
+
+        private final String name;
+        private final int[] phases;
+        private final long period;
+        private final boolean media;
+        private final SchedulerMetrics metrics;
+
+        private final OrderedTaskQueue[] queues = new OrderedTaskQueue[OUTPUT_QUEUE + 1];
+        private final OrderedTaskQueue[] heartbeats = new OrderedTaskQueue[HEARTBEAT_SLOTS];
+        private volatile int runIndex = 0;
+
+        private volatile boolean active;
+        private Thread thread;
+        private Clock clock;
+        private long cycleStart;
+
+        private Shard(String name, int[] phases, long period, boolean media, SchedulerMetrics metrics) {
+            this.name = name;
+            this.phases = phases;
+            this.period = period;
+            this.media = media;
+            this.metrics = metrics;
+
+            for (int i = 0; i < queues.length; i++) {
+                queues[i] = new OrderedTaskQueue(QUEUE_CAPACITY);
+            }
+            for (int i = 0; i < heartbeats.length; i++) {
+                heartbeats[i] = new OrderedTaskQueue(QUEUE_CAPACITY);
+            }
+        }
+
+        private void activate(Clock clock, long epoch) {
+            this.clock = clock;
+            this.cycleStart = epoch;
+            this.active = true;
+            this.thread = new Thread(this, name);
+            this.thread.start();
+        }
+
+        @Override
+        public void run() {
+            while (active) {
+                for (int i = 0; i < phases.length; i++) {
+                    execute(phases[i], queues[phases[i]]);
+                }
+
+                if (media) {
+                    runIndex = (runIndex + 1) % HEARTBEAT_SLOTS;
+                    execute(HEARTBEAT_QUEUE, heartbeats[runIndex]);
+                    execute(MANAGEMENT_QUEUE, queues[MANAGEMENT_QUEUE]);
+
+                    if (metrics.isEnabled()) {
+                        metrics.recordCycle(clock.getTime() - cycleStart, period);
+                    }
+                }
+
+                // sleep till next cycle
+                cycleStart += period;
+                long delay = cycleStart - clock.getTime();
+                if (delay < -period) {
+                    // more than a whole cycle late: start over instead of running the missed cycles back to back
+                    cycleStart = clock.getTime();
+                }
+                while (delay > 0 && active) {
+                    LockSupport.parkNanos(delay);
+                    delay = cycleStart - clock.getTime();
+                }
+            }
+        }
+
+        private void execute(int index, OrderedTaskQueue queue) {
+            final boolean recording = metrics.isEnabled();
+            final long phaseStart = recording ? clock.getTime() : 0;
+
+            queue.changePool();
+            Task task = queue.poll();
+            while (task != null) {
+                if (recording) {
+                    final long taskStart = clock.getTime();
+                    task.run();
+                    metrics.recordTask(task, clock.getTime() - taskStart);
+                } else {
+                    task.run();
+                }
+                task = queue.poll();
+            }
+
+            if (recording) {
+                metrics.recordPhase(index, clock.getTime() - phaseStart);
+            }
+        }
+
+        private void shutdown() {
+            this.active = false;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void await() {
+            if (thread == null) {
+                return;
+            }
+            try {
+                thread.join(2 * MEDIA_CYCLE / 1000000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+
+        private void clear() {
+            for (int i = 0; i < queues.length; i++) {
+                queues[i].clear();
+            }
+            for (int i = 0; i < heartbeats.length; i++) {
+                heartbeats[i].clear();
+            }
+        }
+    }
+
+}
@@ -50,8 +50,37 @@ public abstract class Task implements Runnable {
     
     protected int taskId;
     
+    //tasks with the same affinity are run by the same shard of a ShardedScheduler
+    private volatile int affinity;
+    
+    //shard the task was last queued on, kept while the task is still queued
+    volatile int shard = -1;
+    
     public Task() {
     	taskId=id.incrementAndGet();
+    	affinity=taskId;
+    }
+
+    /**
+     * Gets the affinity of this task.
+     * <p>
+     * Schedulers that spread tasks over several threads keep tasks with the same affinity on the same thread, so that
+     * they run in queue order within a cycle. By default every task has its own affinity.
+     * </p>
+     * 
+     * @return the affinity key
+     */
+    public int getAffinity() {
+    	return affinity;
+    }
+    
+    /**
+     * Modifies the affinity of this task.
+     * 
+     * @param affinity the affinity key, usually shared by all tasks of an endpoint.
+     */
+    public void setAffinity(int affinity) {
+    	this.affinity = affinity;
     }
 
     public void storedInQueue0()
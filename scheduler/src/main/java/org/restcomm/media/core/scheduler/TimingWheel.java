@@ -0,0 +1,417 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.scheduler;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Hashed timing wheel for coarse, high volume timers such as RTCP reports, SSRC housekeeping and MGCP timeouts.
+ * <p>
+ * Timers are linked into one of a fixed number of buckets according to their deadline, so arming and canceling a timer are
+ * O(1) and never touch a shared priority queue. A single thread advances the wheel once per tick and collects all timers of
+ * the current bucket whose deadline has been reached. The expired timers of a tick are handed to the executor as one batch.
+ * </p>
+ * <p>
+ * Timers fire with tick precision, after their delay and at most one tick late while the wheel keeps up. Use a
+ * {@link Scheduler} for sub-tick delays.
+ * </p>
+ * <p>
+ * The tick and the number of buckets default to 10ms and 512 and can be changed with the
+ * <code>restcomm.media.timer.tick</code> and <code>restcomm.media.timer.wheel-size</code> system properties.
+ * </p>
+ * <p>
+ * Every tick also refreshes the {@link CoarseClock} of the wheel, for callers that need the time on a hot path.
+ * </p>
+ * 
+ * @see WheelTimer
+ */
+public class TimingWheel {
+
+    public static final String TICK_PROPERTY = "restcomm.media.timer.tick";
+    public static final String WHEEL_SIZE_PROPERTY = "restcomm.media.timer.wheel-size";
+
+    public static final long DEFAULT_TICK = 10L;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final Logger logger = LogManager.getLogger(TimingWheel.class);
+
+    private static final AtomicInteger INDEX = new AtomicInteger(0);
+
+    private final long tickNanos;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final Executor executor;
+    private final CoarseClock clock;
+
+    private volatile long tick;
+    private volatile boolean running;
+    private Ticker ticker;
+
+    // Statistics
+    private final AtomicInteger pending;
+    private final AtomicLong expired;
+
+    /**
+     * Creates a timing wheel.
+     * 
+     * @param tick The duration of a tick
+     * @param unit The unit of the tick
+     * @param wheelSize The number of buckets, rounded up to a power of two
+     * @param executor The executor that runs batches of expired timers. If null, timers run on the wheel thread.
+     */
+    public TimingWheel(long tick, TimeUnit unit, int wheelSize, Executor executor) {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tick);
+        }
+        if (wheelSize < 1 || wheelSize > (1 << 20)) {
+            throw new IllegalArgumentException("Wheel size must be between 1 and 2^20: " + wheelSize);
+        }
+        this.tickNanos = unit.toNanos(tick);
+        int size = Integer.highestOneBit(wheelSize) == wheelSize ? wheelSize : Integer.highestOneBit(wheelSize) << 1;
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.buckets[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.executor = executor;
+        this.clock = new CoarseClock();
+
+        this.tick = 0;
+        this.running = false;
+        this.pending = new AtomicInteger(0);
+        this.expired = new AtomicLong(0);
+    }
+
+    public TimingWheel(Executor executor) {
+        this(Long.getLong(TICK_PROPERTY, DEFAULT_TICK), TimeUnit.MILLISECONDS, Integer.getInteger(WHEEL_SIZE_PROPERTY, DEFAULT_WHEEL_SIZE), executor);
+    }
+
+    /**
+     * Creates a reusable timer bound to this wheel.
+     * 
+     * @param task The task to run every time the timer expires
+     * @return The timer, not armed
+     */
+    public WheelTimer newTimer(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("Task cannot be null");
+        }
+        return new WheelTimer(this, task);
+    }
+
+    /**
+     * Gets the duration of a tick, which is the precision of the timers.
+     * 
+     * @param unit The time unit of the result
+     * @return The duration of a tick
+     */
+    public long getTick(TimeUnit unit) {
+        return unit.convert(this.tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the clock refreshed on every tick of this wheel.
+     * 
+     * @return The coarse clock, with tick precision
+     */
+    public CoarseClock getClock() {
+        return this.clock;
+    }
+
+    public int getWheelSize() {
+        return this.buckets.length;
+    }
+
+    /**
+     * Gets the number of armed timers.
+     * 
+     * @return The number of timers waiting to expire
+     */
+    public int getPendingTimers() {
+        return this.pending.get();
+    }
+
+    /**
+     * Gets the number of timers that expired since the wheel was created.
+     * 
+     * @return The number of expirations
+     */
+    public long getExpiredTimers() {
+        return this.expired.get();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public synchronized void start() {
+        if (!this.running) {
+            this.running = true;
+            this.clock.update();
+            this.ticker = new Ticker("timing-wheel-" + INDEX.incrementAndGet());
+            this.ticker.start();
+        }
+    }
+
+    /**
+     * Stops the wheel.
+     * <p>
+     * Armed timers stay armed, and resume when the wheel is started again. The ticker thread is joined, so a restart never
+     * runs two tickers over the same wheel.
+     * </p>
+     */
+    public synchronized void stop() {
+        if (this.running) {
+            this.running = false;
+            this.ticker.shutdown();
+            this.ticker.await();
+            this.ticker = null;
+        }
+    }
+
+    /**
+     * Links a timer into the bucket of its deadline.
+     * <p>
+     * The caller holds the lock of the timer, which is not linked to any bucket.
+     * </p>
+     */
+    void arm(WheelTimer timer, long delayNanos) throws RejectedExecutionException {
+        if (!this.running) {
+            throw new RejectedExecutionException("Timing wheel is not running.");
+        }
+
+        long ticks = Math.max(1L, (delayNanos + this.tickNanos - 1) / this.tickNanos);
+        while (true) {
+            long deadline = this.tick + ticks;
+            Bucket bucket = this.buckets[(int) (deadline & this.mask)];
+            synchronized (bucket) {
+                /*
+                 * The ticker publishes the new tick before locking its bucket. If the deadline was not reached while this
+                 * bucket is held, the ticker will scan the bucket afterwards and see the timer.
+                 */
+                if (this.tick < deadline) {
+                    timer.deadline = deadline;
+                    bucket.link(timer);
+                    this.pending.incrementAndGet();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Unlinks a timer from its bucket.
+     * 
+     * @return true if the timer was armed
+     */
+    boolean disarm(WheelTimer timer) {
+        Bucket bucket = timer.bucket;
+        if (bucket != null && bucket.remove(timer)) {
+            this.pending.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void advance() {
+        this.clock.update();
+
+        final long current = this.tick + 1;
+        this.tick = current;
+
+        Batch batch = this.buckets[(int) (current & this.mask)].expire(current);
+        if (batch != null) {
+            this.pending.addAndGet(-batch.size);
+            this.expired.addAndGet(batch.size);
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(Batch batch) {
+        if (this.executor == null) {
+            batch.run();
+        } else {
+            try {
+                this.executor.execute(batch);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Could not run " + batch.size + " expired timers: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Advances the wheel once per tick. Ticks missed while the thread was late are caught up at once.
+     * <p>
+     * Each ticker has its own run flag, so a ticker that outlives {@link #stop()} exits even if the wheel was started again.
+     * </p>
+     */
+    private final class Ticker implements Runnable {
+
+        private final Thread thread;
+        private volatile boolean active;
+
+        private Ticker(String name) {
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+            this.active = true;
+        }
+
+        private void start() {
+            this.thread.start();
+        }
+
+        private void shutdown() {
+            this.active = false;
+            LockSupport.unpark(this.thread);
+        }
+
+        private void await() {
+            // a timer that stops the wheel from the ticker thread cannot wait for itself
+            if (Thread.currentThread() == this.thread) {
+                return;
+            }
+            try {
+                this.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            long deadline = System.nanoTime();
+            while (active) {
+                deadline += tickNanos;
+                long wait = deadline - System.nanoTime();
+                while (wait > 0 && active) {
+                    LockSupport.parkNanos(wait);
+                    wait = deadline - System.nanoTime();
+                }
+
+                if (active) {
+                    try {
+                        advance();
+                    } catch (Throwable t) {
+                        logger.error("Timing wheel failed to advance.", t);
+                    }
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Doubly linked list of timers. Guarded by its own monitor.
+     */
+    static final class Bucket {
+
+        private WheelTimer head;
+
+        void link(WheelTimer timer) {
+            timer.bucket = this;
+            timer.previous = null;
+            timer.next = this.head;
+            if (this.head != null) {
+                this.head.previous = timer;
+            }
+            this.head = timer;
+        }
+
+        synchronized boolean remove(WheelTimer timer) {
+            if (timer.bucket != this) {
+                return false;
+            }
+            unlink(timer);
+            return true;
+        }
+
+        private void unlink(WheelTimer timer) {
+            if (timer.previous == null) {
+                this.head = timer.next;
+            } else {
+                timer.previous.next = timer.next;
+            }
+            if (timer.next != null) {
+                timer.next.previous = timer.previous;
+            }
+            timer.previous = null;
+            timer.next = null;
+            timer.bucket = null;
+        }
+
+        synchronized Batch expire(long tick) {
+            Batch batch = null;
+            WheelTimer timer = this.head;
+            while (timer != null) {
+                WheelTimer next = timer.next;
+                if (timer.deadline <= tick) {
+                    unlink(timer);
+                    if (batch == null) {
+                        batch = new Batch();
+                    }
+                    batch.add(timer, timer.sequence);
+                }
+                timer = next;
+            }
+            return batch;
+        }
+
+    }
+
+    /**
+     * Timers that expired on the same tick.
+     */
+    static final class Batch implements Runnable {
+
+        private WheelTimer[] timers = new WheelTimer[4];
+        private long[] sequences = new long[4];
+        private int size;
+
+        void add(WheelTimer timer, long sequence) {
+            if (this.size == this.timers.length) {
+                this.timers = Arrays.copyOf(this.timers, this.size << 1);
+                this.sequences = Arrays.copyOf(this.sequences, this.size << 1);
+            }
+            this.timers[this.size] = timer;
+            this.sequences[this.size] = sequence;
+            this.size++;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < this.size; i++) {
+                this.timers[i].expire(this.sequences[i]);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.scheduler;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ScheduledExecutorService} that keeps its delayed tasks in a {@link TimingWheel}.
+ * <p>
+ * Components written against the executor interfaces, like the MGCP signals and connection timers, can share a single wheel
+ * instead of each scheduled thread pool maintaining its own delay queue. Wrap it with Guava's
+ * <code>MoreExecutors.listeningDecorator</code> where a <code>ListeningScheduledExecutorService</code> is expected.
+ * </p>
+ * <p>
+ * Delays are rounded up to the tick of the wheel. Tasks run on the executor given to the wheel; immediate tasks run on the
+ * executor given to this service.
+ * </p>
+ */
+public class WheelScheduledExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private final TimingWheel wheel;
+    private final ExecutorService executor;
+
+    public WheelScheduledExecutor(TimingWheel wheel, ExecutorService executor) {
+        this.wheel = wheel;
+        this.executor = executor;
+    }
+
+    public TimingWheel getTimingWheel() {
+        return wheel;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        this.executor.execute(command);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return schedule(Executors.callable(command, null), delay, unit);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        WheelFuture<V> future = new WheelFuture<>(callable, 0);
+        future.arm(delay, unit);
+        return future;
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive: " + period);
+        }
+        WheelFuture<Void> future = new WheelFuture<>(Executors.<Void> callable(command, null), unit.toNanos(period));
+        future.arm(initialDelay, unit);
+        return future;
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException("Delay must be positive: " + delay);
+        }
+        WheelFuture<Void> future = new WheelFuture<>(Executors.<Void> callable(command, null), -unit.toNanos(delay));
+        future.arm(initialDelay, unit);
+        return future;
+    }
+
+    @Override
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return this.executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return this.executor.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return this.executor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Future of a task kept in the wheel.
+     * <p>
+     * The period is positive for fixed rate tasks, negative for fixed delay tasks and zero for one-shot tasks.
+     * </p>
+     */
+    private final class WheelFuture<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        private final long period;
+        private final WheelTimer timer;
+        private volatile long time;
+
+        WheelFuture(Callable<V> callable, long period) {
+            super(callable);
+            this.period = period;
+            this.timer = wheel.newTimer(this);
+        }
+
+        void arm(long delay, TimeUnit unit) {
+            if (isShutdown()) {
+                throw new RejectedExecutionException("Executor is shut down.");
+            }
+            long delayNanos = Math.max(0L, unit.toNanos(delay));
+            this.time = System.nanoTime() + delayNanos;
+            this.timer.schedule(delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return this.period != 0;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(this.time - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+            long diff = getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+            return (diff < 0) ? -1 : (diff > 0) ? 1 : 0;
+        }
+
+        @Override
+        public void run() {
+            if (!isPeriodic()) {
+                super.run();
+            } else if (super.runAndReset() && !isShutdown()) {
+                long next = this.period > 0 ? this.time + this.period : System.nanoTime() - this.period;
+                this.time = next;
+                try {
+                    this.timer.schedule(Math.max(0L, next - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    cancel(false);
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean canceled = super.cancel(mayInterruptIfRunning);
+            if (canceled) {
+                this.timer.cancel();
+            }
+            return canceled;
+        }
+
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.scheduler;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Reusable timer of a {@link TimingWheel}.
+ * <p>
+ * A timer runs the same task every time it expires and can be armed again from any thread, including from its own task,
+ * without allocating. Arming a timer that is already armed moves its deadline.
+ * </p>
+ * <p>
+ * Re-arming or canceling a timer that already expired but whose task has not started yet prevents that run, so a task never
+ * runs for a deadline that was replaced.
+ * </p>
+ */
+public final class WheelTimer {
+
+    private static final Logger logger = LogManager.getLogger(WheelTimer.class);
+
+    private final TimingWheel wheel;
+    private final Runnable task;
+
+    // Guarded by the bucket the timer is linked to
+    volatile TimingWheel.Bucket bucket;
+    WheelTimer previous;
+    WheelTimer next;
+    long deadline;
+
+    /** Changes every time the timer is armed or canceled. Written while holding the timer monitor */
+    volatile long sequence;
+
+    WheelTimer(TimingWheel wheel, Runnable task) {
+        this.wheel = wheel;
+        this.task = task;
+        this.sequence = 0;
+    }
+
+    public Runnable getTask() {
+        return task;
+    }
+
+    /**
+     * Arms the timer, replacing its current deadline if armed.
+     * 
+     * @param delay The time to wait before running the task
+     * @param unit The time unit of the delay
+     * @return true if the timer was armed and its previous deadline was replaced
+     * @throws RejectedExecutionException If the wheel is not running
+     */
+    public synchronized boolean schedule(long delay, TimeUnit unit) throws RejectedExecutionException {
+        boolean replaced = this.wheel.disarm(this);
+        this.sequence++;
+        this.wheel.arm(this, unit.toNanos(delay));
+        return replaced;
+    }
+
+    /**
+     * Cancels the timer.
+     * 
+     * @return true if the timer was armed, false if it was idle or already expired
+     */
+    public synchronized boolean cancel() {
+        boolean canceled = this.wheel.disarm(this);
+        this.sequence++;
+        return canceled;
+    }
+
+    /**
+     * Gets whether the timer is armed and waiting for its deadline.
+     * 
+     * @return true if armed
+     */
+    public boolean isPending() {
+        return this.bucket != null;
+    }
+
+    void expire(long sequence) {
+        // the timer was re-armed or canceled after being collected
+        if (sequence != this.sequence) {
+            return;
+        }
+
+        try {
+            this.task.run();
+        } catch (Throwable t) {
+            logger.error("Timer task " + this.task + " failed.", t);
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class InactivitySweeperTest {
+
+    private TimingWheel wheel;
+
+    @After
+    public void after() {
+        if (wheel != null) {
+            wheel.stop();
+        }
+    }
+
+    private static InactivitySweeper.Activity activity(final AtomicLong lastActivity) {
+        return new InactivitySweeper.Activity() {
+
+            @Override
+            public long getLastActivity() {
+                return lastActivity.get();
+            }
+        };
+    }
+
+    @Test(timeout = 5000)
+    public void testCoarseClockFollowsTicks() throws Exception {
+        // given
+        wheel = new TimingWheel(5, TimeUnit.MILLISECONDS, 8, null);
+        final CoarseClock clock = wheel.getClock();
+
+        // when
+        wheel.start();
+        final long before = clock.getTime();
+        Thread.sleep(50);
+
+        // then
+        long elapsed = clock.getTime() - before;
+        assertTrue("Clock moved " + elapsed + "ns", elapsed >= TimeUnit.MILLISECONDS.toNanos(30));
+        assertTrue(clock.getTime() <= System.nanoTime());
+    }
+
+    @Test(timeout = 5000)
+    public void testInactiveStreamIsReported() throws Exception {
+        // given
+        wheel = new TimingWheel(5, TimeUnit.MILLISECONDS, 8, null);
+        wheel.start();
+        final InactivitySweeper sweeper = new InactivitySweeper(wheel, 20, TimeUnit.MILLISECONDS);
+        final AtomicLong idleStream = new AtomicLong(sweeper.getClock().getTime());
+        final AtomicLong activeStream = new AtomicLong(sweeper.getClock().getTime());
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicLong reported = new AtomicLong(-1);
+        final AtomicInteger activeReports = new AtomicInteger(0);
+
+        // when
+        sweeper.watch(activity(idleStream), 100, TimeUnit.MILLISECONDS, new InactivitySweeper.Listener() {
+
+            @Override
+            public void onInactive(long idle) {
+                reported.set(idle);
+                latch.countDown();
+            }
+        });
+        final InactivitySweeper.Watch activeWatch = sweeper.watch(activity(activeStream), 100, TimeUnit.MILLISECONDS, new InactivitySweeper.Listener() {
+
+            @Override
+            public void onInactive(long idle) {
+                activeReports.incrementAndGet();
+            }
+        });
+        while (latch.getCount() > 0) {
+            activeStream.set(sweeper.getClock().getTime());
+            latch.await(10, TimeUnit.MILLISECONDS);
+        }
+
+        // then
+        assertTrue(reported.get() > TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0, activeReports.get());
+        assertTrue(activeWatch.isActive());
+        assertEquals(1, sweeper.getWatchCount());
+    }
+
+    @Test(timeout = 5000)
+    public void testCanceledWatchIsNotReported() throws Exception {
+        // given
+        wheel = new TimingWheel(5, TimeUnit.MILLISECONDS, 8, null);
+        wheel.start();
+        final InactivitySweeper sweeper = new InactivitySweeper(wheel, 10, TimeUnit.MILLISECONDS);
+        final AtomicInteger reports = new AtomicInteger(0);
+        final InactivitySweeper.Watch watch = sweeper.watch(activity(new AtomicLong(sweeper.getClock().getTime())), 1, TimeUnit.MILLISECONDS, new InactivitySweeper.Listener() {
+
+            @Override
+            public void onInactive(long idle) {
+                reports.incrementAndGet();
+            }
+        });
+
+        // when
+        boolean canceled = watch.cancel();
+        Thread.sleep(50);
+
+        // then
+        assertTrue(canceled);
+        assertFalse(watch.isActive());
+        assertFalse(watch.cancel());
+        assertEquals(0, reports.get());
+        assertEquals(0, sweeper.getWatchCount());
+    }
+
+    @Test(timeout = 10000)
+    public void testManyStreamsInOnePass() throws Exception {
+        // given
+        final int streams = 1000;
+        wheel = new TimingWheel(5, TimeUnit.MILLISECONDS, 8, null);
+        wheel.start();
+        final InactivitySweeper sweeper = new InactivitySweeper(wheel, 20, TimeUnit.MILLISECONDS);
+        final CountDownLatch latch = new CountDownLatch(streams / 2);
+        final long now = sweeper.getClock().getTime();
+        final AtomicLong alive = new AtomicLong(now + TimeUnit.HOURS.toNanos(1));
+        final AtomicLong dead = new AtomicLong(now - TimeUnit.HOURS.toNanos(1));
+        final InactivitySweeper.Listener listener = new InactivitySweeper.Listener() {
+
+            @Override
+            public void onInactive(long idle) {
+                latch.countDown();
+            }
+        };
+
+        // when
+        List<InactivitySweeper.Watch> watches = new ArrayList<>(streams);
+        for (int i = 0; i < streams; i++) {
+            watches.add(sweeper.watch(activity(i % 2 == 0 ? dead : alive), 10, TimeUnit.MILLISECONDS, listener));
+        }
+        latch.await();
+
+        // then
+        assertEquals(streams / 2, sweeper.getWatchCount());
+        for (int i = 0; i < streams; i++) {
+            assertEquals(i % 2 != 0, watches.get(i).isActive());
+        }
+    }
+
+}
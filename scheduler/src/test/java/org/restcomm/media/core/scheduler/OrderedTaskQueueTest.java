@@ -0,0 +1,74 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class OrderedTaskQueueTest {
+
+    @Test
+    public void testOverflowKeepsOrder() {
+        // given - a ring of two tasks
+        OrderedTaskQueue queue = new OrderedTaskQueue(2);
+        OrderedTask[] tasks = new OrderedTask[6];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = new OrderedTask();
+        }
+        for (int i = 0; i < 4; i++) {
+            queue.accept(tasks[i]);
+        }
+        queue.changePool();
+
+        // when - polling frees room in the ring while the overflow still holds tasks
+        assertSame(tasks[0], queue.poll());
+        queue.changePool();
+        queue.accept(tasks[4]);
+        queue.accept(tasks[5]);
+        queue.changePool();
+
+        // then
+        for (int i = 1; i < tasks.length; i++) {
+            assertSame(tasks[i], queue.poll());
+        }
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    private static class OrderedTask extends Task {
+
+        @Override
+        public int getQueueNumber() {
+            return PriorityQueueScheduler.INPUT_QUEUE;
+        }
+
+        @Override
+        public long perform() {
+            return 0;
+        }
+
+    }
+
+}
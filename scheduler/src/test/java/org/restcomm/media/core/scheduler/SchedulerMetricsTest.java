@@ -0,0 +1,221 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.core.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class SchedulerMetricsTest {
+
+    @Test
+    public void testMissRate() {
+        // given
+        SchedulerMetrics metrics = new SchedulerMetrics();
+
+        // when
+        for (int i = 0; i < 9; i++) {
+            metrics.recordCycle(15000000L, 20000000L);
+        }
+        metrics.recordCycle(25000000L, 20000000L);
+
+        // then
+        assertEquals(10, metrics.getCycleCount());
+        assertEquals(1, metrics.getOverrunCount());
+        assertEquals(0.1, metrics.getMissRate(), 0.0001);
+        assertEquals(25000, metrics.getCycleMaxMicros());
+    }
+
+    @Test
+    public void testPhases() {
+        // given
+        SchedulerMetrics metrics = new SchedulerMetrics();
+
+        // when
+        metrics.recordPhase(PriorityQueueScheduler.INPUT_QUEUE, 1000000L);
+        metrics.recordPhase(PriorityQueueScheduler.MIXER_MIX_QUEUE, 2000000L);
+        metrics.recordPhase(PriorityQueueScheduler.OUTPUT_QUEUE, 3000000L);
+        metrics.recordPhase(PriorityQueueScheduler.HEARTBEAT_QUEUE, 4000000L);
+
+        // then
+        assertEquals(1000, metrics.getInputPhaseMaxMicros());
+        assertEquals(2000, metrics.getMixerPhaseMaxMicros());
+        assertEquals(3000, metrics.getOutputPhaseMaxMicros());
+        assertEquals(4000, metrics.getHeartbeatPhaseMaxMicros());
+    }
+
+    @Test
+    public void testSlowestTasksKeepWorstTimePerType() {
+        // given
+        SchedulerMetrics metrics = new SchedulerMetrics();
+
+        // when
+        metrics.recordTask(new FastTask(), 1000000L);
+        metrics.recordTask(new SlowTask(), 5000000L);
+        metrics.recordTask(new SlowTask(), 2000000L);
+        metrics.recordTask(new FastTask(), 3000000L);
+
+        // then
+        String[] slowest = metrics.getSlowestTasks();
+        assertEquals(2, slowest.length);
+        assertTrue(slowest[0], slowest[0].startsWith(SlowTask.class.getName()));
+        assertTrue(slowest[0], slowest[0].endsWith(": 5000us"));
+        assertTrue(slowest[1], slowest[1].startsWith(FastTask.class.getName()));
+        assertTrue(slowest[1], slowest[1].endsWith(": 3000us"));
+        assertEquals(5000, metrics.getWorstExecutionTimeMicros());
+    }
+
+    @Test(timeout = 5000)
+    public void testTaskBelowItsWorstTimeSkipsSampling() throws InterruptedException {
+        // given - a single sampled type, so most slots are still free
+        final SchedulerMetrics metrics = new SchedulerMetrics();
+        final SlowTask worst = new SlowTask();
+        metrics.recordTask(worst, 5000000L);
+        final String[] samples = metrics.getSlowestTasks();
+
+        // when - the monitor is held elsewhere, so taking it would block
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread holder = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                synchronized (metrics) {
+                    locked.countDown();
+                    try {
+                        done.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        });
+        holder.start();
+        locked.await();
+        try {
+            for (int i = 0; i < 1000; i++) {
+                metrics.recordTask(new SlowTask(), 1000000L + i);
+            }
+        } finally {
+            done.countDown();
+            holder.join();
+        }
+
+        // then
+        assertEquals(1001, metrics.getTasks().getCount());
+        assertEquals(samples.length, metrics.getSlowestTasks().length);
+        assertEquals(samples[0], metrics.getSlowestTasks()[0]);
+        assertTrue(samples[0], samples[0].contains(String.valueOf(worst)));
+    }
+
+    @Test
+    public void testReset() {
+        // given
+        SchedulerMetrics metrics = new SchedulerMetrics();
+        metrics.recordCycle(25000000L, 20000000L);
+        metrics.recordTask(new SlowTask(), 5000000L);
+
+        // when
+        metrics.reset();
+
+        // then
+        assertEquals(0, metrics.getCycleCount());
+        assertEquals(0.0, metrics.getMissRate(), 0.0);
+        assertEquals(0, metrics.getSlowestTasks().length);
+    }
+
+    @Test
+    public void testJmxRegistration() throws Exception {
+        // given
+        SchedulerMetrics metrics = new SchedulerMetrics();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(SchedulerMetrics.DOMAIN + ":type=Scheduler,name=" + ObjectName.quote("test"));
+        metrics.recordCycle(25000000L, 20000000L);
+
+        // when
+        metrics.register("test");
+
+        // then
+        assertTrue(server.isRegistered(name));
+        assertEquals(1L, server.getAttribute(name, "OverrunCount"));
+
+        // when
+        metrics.unregister();
+
+        // then
+        assertFalse(server.isRegistered(name));
+    }
+
+    @Test(timeout = 10000)
+    public void testSchedulerRecordsCycles() throws Exception {
+        // given
+        final ShardedScheduler scheduler = new ShardedScheduler(new WallClock(), 1);
+        Task task = new SlowTask() {
+
+            @Override
+            public long perform() {
+                scheduler.submit(this, PriorityQueueScheduler.MIXER_MIX_QUEUE);
+                return 0;
+            }
+        };
+
+        // when
+        scheduler.submit(task, PriorityQueueScheduler.MIXER_MIX_QUEUE);
+        scheduler.start();
+        while (scheduler.getMetrics().getCycleCount() < 5) {
+            Thread.sleep(20);
+        }
+        scheduler.stop();
+
+        // then
+        assertTrue(scheduler.getMetrics().getTasks().getCount() >= 4);
+        assertTrue(scheduler.getMetrics().getPhase(PriorityQueueScheduler.MIXER_MIX_QUEUE).getCount() >= 5);
+        assertEquals(1, scheduler.getMetrics().getSlowestTasks().length);
+    }
+
+    private static class FastTask extends Task {
+
+        @Override
+        public int getQueueNumber() {
+            return PriorityQueueScheduler.INPUT_QUEUE;
+        }
+
+        @Override
+        public long perform() {
+            return 0;
+        }
+    }
+
+    private static class SlowTask extends FastTask {
+
+    }
+
+}
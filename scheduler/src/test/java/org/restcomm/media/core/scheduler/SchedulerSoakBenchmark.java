@@ -0,0 +1,188 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.core.scheduler;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Soak benchmark that shows how cycle jitter and CPU usage of the media schedulers scale with the number of legs.
+ * <p>
+ * Legs are grouped in conferences of {@value #LEGS_PER_CONFERENCE}. Each leg runs an INPUT and an OUTPUT task with a
+ * fixed amount of busy work and each conference runs a MIXER task that records how far apart its consecutive runs are.
+ * Jitter is the distance of that interval from the 20ms cycle.
+ * </p>
+ * <p>
+ * Usage: <code>SchedulerSoakBenchmark [seconds] [workMicros] [legs...]</code>
+ * </p>
+ */
+public class SchedulerSoakBenchmark {
+
+    private static final int LEGS_PER_CONFERENCE = 10;
+    private static final long CYCLE = 20000000L;
+
+    /** Jitter histogram resolution and range */
+    private static final long BUCKET_NANOS = 100000L;
+    private static final int BUCKETS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        final int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        final long workNanos = (args.length > 1 ? Long.parseLong(args[1]) : 20L) * 1000L;
+        final int[] legs;
+        if (args.length > 2) {
+            legs = new int[args.length - 2];
+            for (int i = 2; i < args.length; i++) {
+                legs[i - 2] = Integer.parseInt(args[i]);
+            }
+        } else {
+            legs = new int[] { 10, 100, 500, 1000 };
+        }
+
+        System.out.println(String.format(Locale.US, "%-10s %6s %9s %9s %9s %7s", "scheduler", "legs", "p50(ms)", "p99(ms)",
+                "max(ms)", "cpu(%)"));
+        for (int i = 0; i < legs.length; i++) {
+            run("priority", new PriorityQueueScheduler(new WallClock()), legs[i], seconds, workNanos);
+            run("sharded", new ShardedScheduler(new WallClock()), legs[i], seconds, workNanos);
+        }
+        System.exit(0);
+    }
+
+    private static void run(String name, PriorityQueueScheduler scheduler, int legs, int seconds, long workNanos)
+            throws InterruptedException {
+        final AtomicLongArray jitter = new AtomicLongArray(BUCKETS);
+        final int conferences = (legs + LEGS_PER_CONFERENCE - 1) / LEGS_PER_CONFERENCE;
+        final LegTask[] tasks = new LegTask[legs * 2 + conferences];
+
+        int index = 0;
+        for (int c = 0; c < conferences; c++) {
+            MixerTask mixer = new MixerTask(scheduler, workNanos, jitter);
+            tasks[index++] = mixer;
+            for (int l = c * LEGS_PER_CONFERENCE; l < Math.min(legs, (c + 1) * LEGS_PER_CONFERENCE); l++) {
+                tasks[index++] = new LegTask(scheduler, PriorityQueueScheduler.INPUT_QUEUE, workNanos, mixer.getAffinity());
+                tasks[index++] = new LegTask(scheduler, PriorityQueueScheduler.OUTPUT_QUEUE, workNanos, mixer.getAffinity());
+            }
+        }
+
+        scheduler.start();
+        for (int i = 0; i < index; i++) {
+            scheduler.submit(tasks[i], tasks[i].getQueueNumber());
+        }
+
+        // let the scheduler settle before measuring
+        Thread.sleep(1000);
+        for (int i = 0; i < BUCKETS; i++) {
+            jitter.set(i, 0);
+        }
+        final long cpuStart = processCpuTime();
+        final long wallStart = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        final long cpu = processCpuTime() - cpuStart;
+        final long wall = System.nanoTime() - wallStart;
+
+        for (int i = 0; i < index; i++) {
+            tasks[i].cancel();
+        }
+        scheduler.stop();
+
+        System.out.println(String.format(Locale.US, "%-10s %6d %9.1f %9.1f %9.1f %7.1f", name, legs,
+                percentile(jitter, 0.5), percentile(jitter, 0.99), percentile(jitter, 1.0), 100.0 * cpu / wall));
+    }
+
+    private static double percentile(AtomicLongArray histogram, double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += histogram.get(i);
+        }
+        final long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram.get(i);
+            if (seen >= rank && seen > 0) {
+                return (i + 1) * BUCKET_NANOS / 1000000.0;
+            }
+        }
+        return 0;
+    }
+
+    private static long processCpuTime() {
+        java.lang.management.OperatingSystemMXBean bean = ManagementFactory.getOperatingSystemMXBean();
+        if (bean instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) bean).getProcessCpuTime();
+        }
+        return 0;
+    }
+
+    private static class LegTask extends Task {
+
+        protected final PriorityQueueScheduler scheduler;
+        private final int queue;
+        private final long workNanos;
+
+        public LegTask(PriorityQueueScheduler scheduler, int queue, long workNanos, int affinity) {
+            this.scheduler = scheduler;
+            this.queue = queue;
+            this.workNanos = workNanos;
+            setAffinity(affinity);
+        }
+
+        @Override
+        public int getQueueNumber() {
+            return queue;
+        }
+
+        @Override
+        public long perform() {
+            final long end = System.nanoTime() + workNanos;
+            while (System.nanoTime() < end) {
+                // simulate media processing
+            }
+            scheduler.submit(this, queue);
+            return 0;
+        }
+    }
+
+    private static class MixerTask extends LegTask {
+
+        private final AtomicLongArray jitter;
+        private long lastRun = 0;
+
+        public MixerTask(PriorityQueueScheduler scheduler, long workNanos, AtomicLongArray jitter) {
+            super(scheduler, PriorityQueueScheduler.MIXER_MIX_QUEUE, workNanos, 0);
+            setAffinity(taskId);
+            this.jitter = jitter;
+        }
+
+        @Override
+        public long perform() {
+            final long now = System.nanoTime();
+            if (lastRun > 0) {
+                final long bucket = Math.abs(now - lastRun - CYCLE) / BUCKET_NANOS;
+                jitter.incrementAndGet((int) Math.min(bucket, BUCKETS - 1));
+            }
+            lastRun = now;
+            return super.perform();
+        }
+    }
+
+}
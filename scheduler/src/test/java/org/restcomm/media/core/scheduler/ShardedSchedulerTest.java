@@ -0,0 +1,196 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package org.restcomm.media.core.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ShardedSchedulerTest {
+
+    private ShardedScheduler scheduler;
+
+    @After
+    public void after() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void testAffinitySpreadOverShards() {
+        // given
+        scheduler = new ShardedScheduler(new WallClock(), 4);
+        Set<Integer> used = new HashSet<>();
+
+        // when
+        for (int affinity = 0; affinity < 1000; affinity += 8) {
+            int shard = scheduler.getShard(affinity);
+            assertTrue(shard >= 0 && shard < 4);
+            assertEquals(shard, scheduler.getShard(affinity));
+            used.add(shard);
+        }
+
+        // then
+        assertEquals(4, scheduler.getPoolSize());
+        assertEquals(4, used.size());
+    }
+
+    @Test(timeout = 10000)
+    public void testPhaseOrderWithinShard() throws Exception {
+        // given
+        scheduler = new ShardedScheduler(new WallClock(), 4);
+        List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        RecordingTask output = new RecordingTask(PriorityQueueScheduler.OUTPUT_QUEUE, "O", log);
+        RecordingTask mixer = new RecordingTask(PriorityQueueScheduler.MIXER_MIX_QUEUE, "M", log);
+        RecordingTask input = new RecordingTask(PriorityQueueScheduler.INPUT_QUEUE, "I", log);
+        mixer.setAffinity(input.getAffinity());
+        output.setAffinity(input.getAffinity());
+
+        // when
+        scheduler.submit(output, output.getQueueNumber());
+        scheduler.submit(mixer, mixer.getQueueNumber());
+        scheduler.submit(input, input.getQueueNumber());
+        scheduler.start();
+        while (log.size() < 30) {
+            Thread.sleep(20);
+        }
+        scheduler.stop();
+
+        // then
+        List<String> snapshot = new ArrayList<>(log);
+        for (int i = 0; i + 2 < 30; i += 3) {
+            assertEquals("I", snapshot.get(i));
+            assertEquals("M", snapshot.get(i + 1));
+            assertEquals("O", snapshot.get(i + 2));
+        }
+        assertEquals(1, input.threads.size());
+        assertEquals(input.threads, mixer.threads);
+        assertEquals(input.threads, output.threads);
+    }
+
+    @Test(timeout = 10000)
+    public void testSlowShardDoesNotDelayOthers() throws Exception {
+        // given
+        scheduler = new ShardedScheduler(new WallClock(), 2);
+        List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        RecordingTask slow = new RecordingTask(PriorityQueueScheduler.MIXER_MIX_QUEUE, "S", log);
+        slow.sleep = 100;
+        RecordingTask fast = new RecordingTask(PriorityQueueScheduler.MIXER_MIX_QUEUE, "F", log);
+        int affinity = 0;
+        while (scheduler.getShard(affinity) == scheduler.getShard(slow.getAffinity())) {
+            affinity++;
+        }
+        fast.setAffinity(affinity);
+
+        // when
+        scheduler.submit(slow, slow.getQueueNumber());
+        scheduler.submit(fast, fast.getQueueNumber());
+        scheduler.start();
+        Thread.sleep(500);
+        scheduler.stop();
+
+        // then
+        assertTrue(slow.count <= 6);
+        assertTrue("fast task ran " + fast.count + " times", fast.count >= 15);
+    }
+
+    @Test(timeout = 10000)
+    public void testHeartbeatRunsEveryFifthCycle() throws Exception {
+        // given
+        scheduler = new ShardedScheduler(new WallClock(), 1);
+        List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        RecordingTask cycle = new RecordingTask(PriorityQueueScheduler.INPUT_QUEUE, "C", log);
+        RecordingTask heartbeat = new RecordingTask(PriorityQueueScheduler.HEARTBEAT_QUEUE, "H", log);
+        heartbeat.repeat = false;
+
+        // when
+        scheduler.submit(cycle, cycle.getQueueNumber());
+        scheduler.start();
+        Thread.sleep(50);
+        int submittedAt = log.size();
+        scheduler.submitHeatbeat(heartbeat);
+        while (heartbeat.count == 0) {
+            Thread.sleep(5);
+        }
+        scheduler.stop();
+
+        // then
+        List<String> snapshot = new ArrayList<>(log);
+        int cycles = 0;
+        for (int i = submittedAt; i < snapshot.indexOf("H"); i++) {
+            cycles++;
+        }
+        assertTrue("heartbeat ran after " + cycles + " cycles", cycles >= 4);
+    }
+
+    private class RecordingTask extends Task {
+
+        private final int queue;
+        private final String name;
+        private final List<String> log;
+        private final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+
+        private volatile boolean repeat = true;
+        private volatile long sleep = 0;
+        private volatile int count = 0;
+
+        public RecordingTask(int queue, String name, List<String> log) {
+            this.queue = queue;
+            this.name = name;
+            this.log = log;
+        }
+
+        @Override
+        public int getQueueNumber() {
+            return queue;
+        }
+
+        @Override
+        public long perform() {
+            threads.add(Thread.currentThread());
+            log.add(name);
+            count++;
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (repeat) {
+                scheduler.submit(this, queue);
+            }
+            return 0;
+        }
+    }
+
+}
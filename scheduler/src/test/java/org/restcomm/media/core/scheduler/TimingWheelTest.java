@@ -0,0 +1,258 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TimingWheelTest {
+
+    private TimingWheel wheel;
+    private ExecutorService executor;
+
+    @After
+    public void after() {
+        if (wheel != null) {
+            wheel.stop();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testTimerExpires() throws Exception {
+        // given
+        wheel = new TimingWheel(5, TimeUnit.MILLISECONDS, 8, null);
+        final CountDownLatch latch = new CountDownLatch(1);
+        WheelTimer timer = wheel.newTimer(new Runnable() {
+
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        wheel.start();
+
+        // when
+        long start = System.nanoTime();
+        timer.schedule(100, TimeUnit.MILLISECONDS);
+
+        // then
+        assertTrue(timer.isPending());
+        assertEquals(1, wheel.getPendingTimers());
+        latch.await();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // the delay spans several rotations of the 8 bucket wheel
+        assertTrue("Expired after " + elapsed + "ms", elapsed >= 100);
+        assertFalse(timer.isPending());
+        assertEquals(0, wheel.getPendingTimers());
+        assertEquals(1, wheel.getExpiredTimers());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        // given
+        wheel = new TimingWheel(5, TimeUnit.MILLISECONDS, 64, null);
+        final AtomicInteger runs = new AtomicInteger(0);
+        WheelTimer timer = wheel.newTimer(new Runnable() {
+
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        });
+        wheel.start();
+
+        // when
+        timer.schedule(20, TimeUnit.MILLISECONDS);
+        boolean canceled = timer.cancel();
+        boolean canceledTwice = timer.cancel();
+        Thread.sleep(100);
+
+        // then
+        assertTrue(canceled);
+        assertFalse(canceledTwice);
+        assertEquals(0, runs.get());
+        assertEquals(0, wheel.getPendingTimers());
+    }
+
+    @Test(timeout = 5000)
+    public void testRescheduleMovesDeadline() throws Exception {
+        // given
+        wheel = new TimingWheel(5, TimeUnit.MILLISECONDS, 64, null);
+        final AtomicInteger runs = new AtomicInteger(0);
+        final CountDownLatch latch = new CountDownLatch(1);
+        WheelTimer timer = wheel.newTimer(new Runnable() {
+
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+                latch.countDown();
+            }
+        });
+        wheel.start();
+
+        // when
+        timer.schedule(30, TimeUnit.MILLISECONDS);
+        boolean replaced = timer.schedule(200, TimeUnit.MILLISECONDS);
+        Thread.sleep(100);
+        int runsBeforeDeadline = runs.get();
+        latch.await();
+        Thread.sleep(50);
+
+        // then
+        assertTrue(replaced);
+        assertEquals(0, runsBeforeDeadline);
+        assertEquals(1, runs.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testManyTimersExpireInBatches() throws Exception {
+        // given
+        executor = Executors.newFixedThreadPool(2);
+        wheel = new TimingWheel(10, TimeUnit.MILLISECONDS, 128, executor);
+        final int count = 10000;
+        final CountDownLatch latch = new CountDownLatch(count);
+        Runnable task = new Runnable() {
+
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+        wheel.start();
+
+        // when
+        for (int i = 0; i < count; i++) {
+            wheel.newTimer(task).schedule(50 + (i % 500), TimeUnit.MILLISECONDS);
+        }
+
+        // then
+        latch.await();
+        assertEquals(count, wheel.getExpiredTimers());
+        assertEquals(0, wheel.getPendingTimers());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testScheduleOnStoppedWheel() {
+        // given
+        wheel = new TimingWheel(10, TimeUnit.MILLISECONDS, 16, null);
+        WheelTimer timer = wheel.newTimer(new Runnable() {
+
+            @Override
+            public void run() {
+            }
+        });
+
+        // when
+        timer.schedule(10, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(timeout = 5000)
+    public void testScheduledExecutor() throws Exception {
+        // given
+        executor = Executors.newFixedThreadPool(2);
+        wheel = new TimingWheel(5, TimeUnit.MILLISECONDS, 64, executor);
+        wheel.start();
+        WheelScheduledExecutor scheduledExecutor = new WheelScheduledExecutor(wheel, executor);
+        final AtomicInteger periodicRuns = new AtomicInteger(0);
+        final CountDownLatch periodicLatch = new CountDownLatch(3);
+
+        // when
+        ScheduledFuture<String> oneShot = scheduledExecutor.schedule(new Callable<String>() {
+
+            @Override
+            public String call() {
+                return "done";
+            }
+        }, 20, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> periodic = scheduledExecutor.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                periodicRuns.incrementAndGet();
+                periodicLatch.countDown();
+            }
+        }, 10, 10, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> canceled = scheduledExecutor.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                periodicRuns.addAndGet(1000);
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+        canceled.cancel(false);
+
+        // then
+        assertEquals("done", oneShot.get(1, TimeUnit.SECONDS));
+        periodicLatch.await();
+        periodic.cancel(false);
+        Thread.sleep(100);
+        int runs = periodicRuns.get();
+        Thread.sleep(50);
+        assertTrue(canceled.isCancelled());
+        assertTrue(periodic.isCancelled());
+        assertTrue(runs >= 3 && runs < 1000);
+        assertEquals(runs, periodicRuns.get());
+    }
+
+    @Test(timeout = 5000)
+    public void testRestartJoinsTicker() throws Exception {
+        // given
+        wheel = new TimingWheel(1, TimeUnit.MILLISECONDS, 8, null);
+        int tickers = countTickers();
+
+        // when
+        for (int i = 0; i < 20; i++) {
+            wheel.start();
+            wheel.stop();
+        }
+
+        // then
+        assertEquals(tickers, countTickers());
+    }
+
+    private static int countTickers() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.isAlive() && thread.getName().startsWith("timing-wheel-")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+}
@@ -22,11 +22,18 @@
 
 package org.restcomm.media.core.spi.memory;
 
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.restcomm.media.core.spi.format.Format;
 
 /**
+ * Pooled media buffer.
+ * 
+ * A frame starts with one reference, held by whoever allocated it. Code that keeps a frame
+ * beyond the call that handed it over takes its own reference with {@link #retain()}, and
+ * every reference is given back with {@link #recycle()}. The frame returns to its partition
+ * once the last reference is gone.
  *
  * @author yulian oifa
  */
@@ -45,13 +52,57 @@ public class Frame {
     private volatile Format format;
     private volatile String header;
     
-    protected AtomicBoolean inPartition=new AtomicBoolean(false);
+    private static final AtomicIntegerFieldUpdater<Frame> IN_PARTITION = AtomicIntegerFieldUpdater.newUpdater(Frame.class, "inPartition");
+    
+    //1 while the frame sits in its partition, 0 while it is in use
+    private volatile int inPartition = 0;
+    
+    private static final AtomicIntegerFieldUpdater<Frame> REF_CNT = AtomicIntegerFieldUpdater.newUpdater(Frame.class, "refCnt");
+    
+    //number of owners, the frame is recycled when it drops to 0
+    private volatile int refCnt = 1;
+    
+    //heap view over data, created on first use
+    private ByteBuffer buffer;
+    
+    //set only while leak detection tracks this frame
+    private volatile FrameLeakDetector.Tracker leakTracker;
     
     protected Frame(Partition partition, byte[] data) {
         this.partition = partition;
         this.data = data;
     }
 
+    /**
+     * Marks the frame as handed out by its partition.
+     */
+    void markAllocated() {
+        this.refCnt = 1;
+        this.inPartition = 0;
+    }
+
+    /**
+     * Marks the frame as returned to its partition.
+     * 
+     * @return false if the frame was already recycled
+     */
+    boolean markRecycled() {
+        if (!IN_PARTITION.compareAndSet(this, 0, 1)) {
+            return false;
+        }
+
+        final FrameLeakDetector.Tracker tracker = this.leakTracker;
+        if (tracker != null) {
+            this.leakTracker = null;
+            tracker.close();
+        }
+        return true;
+    }
+
+    void setLeakTracker(FrameLeakDetector.Tracker leakTracker) {
+        this.leakTracker = leakTracker;
+    }
+
     protected void reset() {
         this.timestamp = 0;
         this.duration = 0;
@@ -87,6 +138,22 @@ public class Frame {
         return data;
     }
 
+    /**
+     * Gets a heap buffer backed by the data of this frame.
+     * <p>
+     * The same buffer is returned on every call and its position and limit are whatever the last
+     * user left them at, so callers set both before use.
+     * </p>
+     * 
+     * @return the buffer wrapping {@link #getData()}
+     */
+    public ByteBuffer getBuffer() {
+        if (buffer == null) {
+            buffer = ByteBuffer.wrap(data);
+        }
+        return buffer;
+    }
+
     public long getTimestamp() {
         return timestamp;
     }
@@ -127,8 +194,50 @@ public class Frame {
         this.format = format;
     }    
 
+    /**
+     * Takes one more reference to the frame.
+     * 
+     * @return this frame
+     * @throws IllegalStateException if the frame was already recycled
+     */
+    public Frame retain() {
+        for (;;) {
+            int count = this.refCnt;
+            if (count <= 0) {
+                throw new IllegalStateException("Frame was already recycled");
+            }
+            if (REF_CNT.compareAndSet(this, count, count + 1)) {
+                return this;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of references held to the frame.
+     * 
+     * @return the reference count, 0 once the frame is recycled
+     */
+    public int refCnt() {
+        return refCnt;
+    }
+
+    /**
+     * Gives back one reference to the frame. The frame returns to its partition with the last one.
+     */
     public void recycle() {
-        partition.recycle(this);
+        for (;;) {
+            int count = this.refCnt;
+            if (count <= 0) {
+                //already recycled, the partition ignores duplicates anyway
+                return;
+            }
+            if (REF_CNT.compareAndSet(this, count, count - 1)) {
+                if (count == 1) {
+                    partition.recycle(this);
+                }
+                return;
+            }
+        }
     }
 
     @Override
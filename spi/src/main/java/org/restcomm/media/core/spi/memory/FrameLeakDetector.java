@@ -0,0 +1,132 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.spi.memory;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Reports frames that are garbage collected without ever being recycled, together with the place where they were
+ * allocated.
+ * <p>
+ * A tracked frame holds a weak reference that is discarded when the frame is recycled. If the garbage collector clears
+ * it first, the frame leaked. Leaks are reported by the allocating threads, so no extra thread is needed.
+ * </p>
+ * <p>
+ * The level defaults to the <code>restcomm.media.memory.leakDetection</code> system property.
+ * </p>
+ */
+class FrameLeakDetector {
+
+    private static final Logger logger = LogManager.getLogger(FrameLeakDetector.class);
+
+    static final String LEVEL_PROPERTY = "restcomm.media.memory.leakDetection";
+
+    /** One in every SAMPLING_INTERVAL allocations is tracked in {@link LeakDetection#SAMPLE} mode */
+    static final int SAMPLING_INTERVAL = 128;
+
+    private volatile LeakDetection level;
+
+    private final ReferenceQueue<Frame> collected = new ReferenceQueue<>();
+    private final Set<Tracker> live = ConcurrentHashMap.newKeySet();
+    private final LongAdder leaks = new LongAdder();
+
+    FrameLeakDetector() {
+        this(LeakDetection.valueOf(System.getProperty(LEVEL_PROPERTY, LeakDetection.DISABLED.name()).toUpperCase()));
+    }
+
+    FrameLeakDetector(LeakDetection level) {
+        this.level = level;
+    }
+
+    boolean isEnabled() {
+        return level != LeakDetection.DISABLED;
+    }
+
+    LeakDetection getLevel() {
+        return level;
+    }
+
+    void setLevel(LeakDetection level) {
+        this.level = level;
+    }
+
+    long getLeakCount() {
+        return leaks.sum();
+    }
+
+    void track(Frame frame) {
+        reportLeaks();
+
+        final LeakDetection level = this.level;
+        if (level == LeakDetection.PARANOID
+                || (level == LeakDetection.SAMPLE && ThreadLocalRandom.current().nextInt(SAMPLING_INTERVAL) == 0)) {
+            final Tracker tracker = new Tracker(frame, frame.getData().length, this);
+            live.add(tracker);
+            frame.setLeakTracker(tracker);
+        }
+    }
+
+    /**
+     * Reports all tracked frames collected since the last call.
+     */
+    void reportLeaks() {
+        Tracker tracker;
+        while ((tracker = (Tracker) collected.poll()) != null) {
+            if (live.remove(tracker)) {
+                leaks.increment();
+                logger.error("LEAK: frame of " + tracker.size + " bytes was garbage collected without being recycled. It was allocated by:", tracker.allocation);
+            }
+        }
+    }
+
+    static final class Tracker extends WeakReference<Frame> {
+
+        private final int size;
+        private final Throwable allocation;
+        private final FrameLeakDetector detector;
+
+        private Tracker(Frame frame, int size, FrameLeakDetector detector) {
+            super(frame, detector.collected);
+            this.size = size;
+            this.allocation = new Throwable("Frame allocation site");
+            this.detector = detector;
+        }
+
+        /**
+         * Stops tracking the frame, it was recycled as expected.
+         */
+        void close() {
+            clear();
+            detector.live.remove(this);
+        }
+
+    }
+
+}
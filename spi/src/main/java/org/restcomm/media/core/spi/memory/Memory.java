@@ -22,27 +22,98 @@
 
 package org.restcomm.media.core.spi.memory;
 
-import org.restcomm.media.core.concurrent.ConcurrentMap;
-
 /**
- *
+ * Pooled allocator for media frames.
+ * 
+ * Requested sizes are grouped in power-of-two size classes. Each class holds a bounded
+ * number of exact-size partitions, the cap on idle frames for those partitions and the
+ * hit/miss counters. Frame arrays always have the exact requested length, since
+ * consumers rely on <code>getData().length</code>.
+ * 
+ * Sizes above {@link #MAX_POOLED_SIZE} are never pooled.
+ * 
  * @author oifa yulian
  */
 public class Memory 
 {
-    private static ConcurrentMap<Partition> partitions = new ConcurrentMap<Partition>();
+    public static final int MIN_POOLED_SIZE = 16;
+    public static final int MAX_POOLED_SIZE = 65536;
+    
+    private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_POOLED_SIZE);
+    
+    private static final SizeClass[] sizeClasses;
+    private static final SizeClass unpooled = new SizeClass(Integer.MAX_VALUE, 0, 0);
+    
+    private static final FrameLeakDetector leakDetector = new FrameLeakDetector();
+    
+    static {
+    	int count = Integer.numberOfTrailingZeros(MAX_POOLED_SIZE) - MIN_SHIFT + 1;
+    	sizeClasses = new SizeClass[count];
+    	for(int i=0;i<count;i++) {
+    		int classSize = MIN_POOLED_SIZE << i;
+    		int capacity = Integer.getInteger(SizeClass.CAPACITY_PROPERTY + classSize, SizeClass.DEFAULT_CAPACITY);
+    		sizeClasses[i] = new SizeClass(classSize, capacity, SizeClass.MAX_PARTITIONS);
+    	}
+    }
     
     public static Frame allocate(int size) 
     {
-    	Partition currPartition=partitions.get(size);
-    	if(currPartition==null)
-    	{
-    		currPartition=new Partition(size);
-    		Partition oldPartition=partitions.putIfAbsent(size,currPartition);
-    		if(oldPartition!=null)
-    			currPartition=oldPartition;		
-    	}
+    	Frame frame = sizeClassOf(size).allocate(size);
+    	if(leakDetector.isEnabled())
+    		leakDetector.track(frame);
+    	
+    	return frame;
+    }
+    
+    static SizeClass sizeClassOf(int size) {
+    	if(size > MAX_POOLED_SIZE)
+    		return unpooled;
     	
-    	return currPartition.allocate();
+    	if(size <= MIN_POOLED_SIZE)
+    		return sizeClasses[0];
+    	
+    	return sizeClasses[32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT];
+    }
+    
+    /**
+     * Gets the size classes of the allocator, from the smallest to the largest.
+     * 
+     * @return the size classes, with their caps and counters
+     */
+    public static SizeClass[] getSizeClasses() {
+    	return sizeClasses.clone();
+    }
+    
+    /**
+     * Gets the size class that serves frames of a given size.
+     * 
+     * @param size the frame size in bytes
+     * @return the size class, or null if frames of that size are not pooled
+     */
+    public static SizeClass getSizeClass(int size) {
+    	SizeClass sizeClass = sizeClassOf(size);
+    	return sizeClass == unpooled ? null : sizeClass;
+    }
+    
+    /**
+     * Changes how frames that are never recycled are reported.
+     * 
+     * @param level the leak detection level
+     */
+    public static void setLeakDetection(LeakDetection level) {
+    	leakDetector.setLevel(level);
+    }
+    
+    public static LeakDetection getLeakDetection() {
+    	return leakDetector.getLevel();
+    }
+    
+    /**
+     * Gets the number of frames that were garbage collected without being recycled.
+     * 
+     * @return the number of leaks found while leak detection was enabled
+     */
+    public static long getLeakCount() {
+    	return leakDetector.getLeakCount();
     }
 }
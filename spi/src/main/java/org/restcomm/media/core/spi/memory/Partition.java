@@ -22,43 +22,159 @@
 
 package org.restcomm.media.core.spi.memory;
 
-import org.restcomm.media.core.concurrent.ConcurrentCyclicFIFO;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.restcomm.media.core.concurrent.MpmcRingBuffer;
 
 /**
+ * Pool of frames of one exact size.
+ * 
+ * Every thread allocates from and recycles to its own small cache. Only when the cache
+ * runs empty or full does it move a batch of frames from or to the shared depot, so most
+ * calls touch no shared state. The depot holds at most the capacity of the size class;
+ * frames beyond it are left to the GC.
+ * 
+ * A partition that sits idle may be retired by its size class in favour of a busier size.
+ * Frames recycled to a retired partition are left to the GC.
  *
  * @author oifa yulian
  */
 public class Partition {
 
-    protected int size;
-    private ConcurrentCyclicFIFO<Frame> heap = new ConcurrentCyclicFIFO<Frame>();
+    //frames moved between a thread cache and the depot at once
+    protected static final int BATCH_SIZE = 16;
+    protected static final int CACHE_SIZE = BATCH_SIZE * 2;
 
-    protected Partition(int size) {
+    protected final int size;
+    private final SizeClass sizeClass;
+    private final MpmcRingBuffer<Frame> depot;
+    
+    //allocations, sampled by the size class when it looks for an idle partition
+    private final LongAdder uses = new LongAdder();
+    private long sampledUses;
+    private volatile boolean retired;
+    
+    private final ThreadLocal<FrameCache> caches = new ThreadLocal<FrameCache>() {
+    	@Override
+    	protected FrameCache initialValue() {
+    		return new FrameCache();
+    	}
+    };
+
+    protected Partition(SizeClass sizeClass, int size, int capacity) {
+    	this.sizeClass = sizeClass;
         this.size = size;
+        this.depot = capacity > 0 ? new MpmcRingBuffer<Frame>(Math.max(capacity, 2)) : null;
+    }
+    
+    protected boolean isPooled() {
+    	return depot != null;
     }
     
     protected Frame allocate() {
-    	//if (true) return new Frame(this, new byte[size]);
-    	Frame result=heap.poll();    	
+    	uses.increment();
+    	FrameCache cache = caches.get();
+    	Frame result = cache.pop();
+    	if (result == null && cache.refill(depot) > 0)
+    		result = cache.pop();
     	
         if (result==null) {
+        	sizeClass.miss();
             return new Frame(this, new byte[size]);
         }
         
-        result.inPartition.set(false);
+        sizeClass.hit();
+        result.markAllocated();
         return result;
     }
 
     protected void recycle(Frame frame) {
-    	if(frame.inPartition.getAndSet(true)) {
+    	if(!frame.markRecycled()) {
     		//dont add duplicate,otherwise may be reused in different places
     		return;
     	}
+    	
+    	if(depot == null || retired)
+    		return;
+    	
         frame.setHeader(null);
         frame.setDuration(Long.MAX_VALUE);
         frame.setEOM(false);        
-        heap.offer(frame);
-        //queue.offer(frame, frame.getDelay(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        
+        FrameCache cache = caches.get();
+        if(cache.isFull())
+        	sizeClass.drop(cache.drain(depot));
+        
+        cache.push(frame);
+    }
+    
+    /**
+     * Gets the number of allocations since the previous call. Guarded by the lock of the size class.
+     */
+    long sampleUses() {
+    	long total = uses.sum();
+    	long delta = total - sampledUses;
+    	sampledUses = total;
+    	return delta;
+    }
+    
+    void retire() {
+    	retired = true;
+    }
+    
+    /**
+     * Frames owned by a single thread.
+     */
+    private static final class FrameCache {
+    	private final Frame[] frames = new Frame[CACHE_SIZE];
+    	private int count;
+    	
+    	Frame pop() {
+    		if(count == 0)
+    			return null;
+    		
+    		Frame frame = frames[--count];
+    		frames[count] = null;
+    		return frame;
+    	}
+    	
+    	void push(Frame frame) {
+    		frames[count++] = frame;
+    	}
+    	
+    	boolean isFull() {
+    		return count == frames.length;
+    	}
+    	
+    	int refill(MpmcRingBuffer<Frame> depot) {
+    		int moved = 0;
+    		Frame frame;
+    		while(moved < BATCH_SIZE && (frame = depot.poll()) != null) {
+    			frames[count++] = frame;
+    			moved++;
+    		}
+    		return moved;
+    	}
+    	
+    	/**
+    	 * Moves the oldest half of the cache to the depot.
+    	 * 
+    	 * @return the number of frames dropped because the depot was full
+    	 */
+    	int drain(MpmcRingBuffer<Frame> depot) {
+    		int dropped = 0;
+    		for(int i = 0; i < BATCH_SIZE; i++) {
+    			if(!depot.offer(frames[i]))
+    				dropped++;
+    		}
+    		
+    		System.arraycopy(frames, BATCH_SIZE, frames, 0, count - BATCH_SIZE);
+    		for(int i = count - BATCH_SIZE; i < count; i++)
+    			frames[i] = null;
+    		
+    		count -= BATCH_SIZE;
+    		return dropped;
+    	}
     }
 
 }
@@ -0,0 +1,288 @@
+/*
+ * TeleStax, Open Source Cloud Communications
+ * Copyright 2011-2018, Telestax Inc and individual contributors
+ * by the @authors tag. 
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.restcomm.media.core.spi.memory;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Group of frame sizes sharing the same power-of-two upper bound.
+ * <p>
+ * A size class keeps up to {@link #MAX_PARTITIONS} exact-size partitions, created on first use. Further sizes in the
+ * same class are served without pooling, so odd payload lengths can no longer create an unbounded number of partitions.
+ * </p>
+ * <p>
+ * Unpooled sizes are not locked out forever. The class follows the most frequent unpooled size, and once that size has
+ * been requested {@link #REPLACE_THRESHOLD} times more than all the other unpooled sizes, it replaces the partition that
+ * served the fewest allocations since the previous check, provided that partition served fewer allocations than the
+ * threshold. A few odd early sizes therefore give way to the hot frame sizes of the running calls.
+ * </p>
+ * <p>
+ * The capacity is the maximum number of idle frames each partition keeps in its shared depot, on top of the small
+ * per-thread caches. It is read when a partition is created, so it should be set before media starts flowing. The
+ * default can be overridden per class with the <code>restcomm.media.memory.capacity.&lt;classSize&gt;</code> system
+ * property.
+ * </p>
+ */
+public class SizeClass {
+
+    public static final String CAPACITY_PROPERTY = "restcomm.media.memory.capacity.";
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final int MAX_PARTITIONS = 8;
+    public static final int REPLACE_THRESHOLD = 256;
+
+    private final int size;
+    private final int maxPartitions;
+    private volatile int capacity;
+
+    // copy-on-write, lookups are a short linear scan without locking
+    private volatile Partition[] partitions = new Partition[0];
+    private final Object lock = new Object();
+
+    // most frequent unpooled size, guarded by the lock
+    private int candidateSize;
+    private int candidateCount;
+
+    // frames of sizes that do not fit in the partitions, recycling them only marks them as released
+    private final Partition unpooledPartition = new Partition(this, 0, 0);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder unpooled = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder replaced = new LongAdder();
+
+    SizeClass(int size, int capacity, int maxPartitions) {
+        this.size = size;
+        this.capacity = capacity;
+        this.maxPartitions = maxPartitions;
+    }
+
+    Frame allocate(int frameSize) {
+        Partition partition = partition(frameSize);
+        if (partition == null) {
+            partition = replacePartition(frameSize);
+        }
+        if (partition == null) {
+            unpooled.increment();
+            return new Frame(unpooledPartition, new byte[frameSize]);
+        }
+        return partition.allocate();
+    }
+
+    private Partition partition(int frameSize) {
+        final Partition[] current = this.partitions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].size == frameSize) {
+                return current[i];
+            }
+        }
+
+        if (current.length >= maxPartitions) {
+            return null;
+        }
+        return createPartition(frameSize);
+    }
+
+    private Partition createPartition(int frameSize) {
+        synchronized (lock) {
+            final Partition[] current = this.partitions;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].size == frameSize) {
+                    return current[i];
+                }
+            }
+
+            if (current.length >= maxPartitions || capacity == 0) {
+                return null;
+            }
+
+            final Partition partition = new Partition(this, frameSize, capacity);
+            final Partition[] updated = new Partition[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, current.length);
+            updated[current.length] = partition;
+            this.partitions = updated;
+            return partition;
+        }
+    }
+
+    /**
+     * Counts an allocation of a size without partition and, once the size is frequent enough, lets it take over the
+     * partition of an idle size.
+     *
+     * @return the new partition, or null if the size stays unpooled
+     */
+    private Partition replacePartition(int frameSize) {
+        synchronized (lock) {
+            if (maxPartitions == 0 || capacity == 0) {
+                return null;
+            }
+
+            // majority vote, a size only wins when it outnumbers all other unpooled sizes
+            if (candidateSize == frameSize) {
+                candidateCount++;
+            } else if (candidateCount == 0) {
+                candidateSize = frameSize;
+                candidateCount = 1;
+            } else {
+                candidateCount--;
+                return null;
+            }
+
+            if (candidateCount < REPLACE_THRESHOLD) {
+                return null;
+            }
+            candidateCount = 0;
+
+            final Partition[] current = this.partitions;
+            int victim = -1;
+            long fewest = REPLACE_THRESHOLD;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].size == frameSize) {
+                    return current[i];
+                }
+                final long uses = current[i].sampleUses();
+                if (uses < fewest) {
+                    fewest = uses;
+                    victim = i;
+                }
+            }
+
+            if (victim < 0) {
+                return null;
+            }
+
+            final Partition partition = new Partition(this, frameSize, capacity);
+            final Partition[] updated = current.clone();
+            updated[victim] = partition;
+            this.partitions = updated;
+            current[victim].retire();
+            replaced.increment();
+            return partition;
+        }
+    }
+
+    void hit() {
+        hits.increment();
+    }
+
+    void miss() {
+        misses.increment();
+    }
+
+    void drop(int frames) {
+        if (frames > 0) {
+            dropped.add(frames);
+        }
+    }
+
+    /**
+     * Gets the largest frame size served by this class.
+     *
+     * @return the size in bytes
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the maximum number of idle frames kept by partitions created from now on.
+     *
+     * @param capacity the number of frames. Zero disables pooling for new sizes of this class.
+     */
+    public void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the exact frame sizes currently pooled by this class.
+     *
+     * @return the sizes in bytes
+     */
+    public int[] getPooledSizes() {
+        final Partition[] current = this.partitions;
+        final int[] sizes = new int[current.length];
+        for (int i = 0; i < current.length; i++) {
+            sizes[i] = current[i].size;
+        }
+        return sizes;
+    }
+
+    /**
+     * Gets the number of allocations served by a recycled frame.
+     *
+     * @return the pool hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of allocations of pooled sizes that had to create a new frame.
+     *
+     * @return the pool misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of allocations of sizes that are not pooled because the class already holds
+     * {@link #MAX_PARTITIONS} sizes.
+     *
+     * @return the unpooled allocations
+     */
+    public long getUnpooled() {
+        return unpooled.sum();
+    }
+
+    /**
+     * Gets the number of idle partitions that were handed over to a more frequent size.
+     *
+     * @return the replaced partitions
+     */
+    public long getReplaced() {
+        return replaced.sum();
+    }
+
+    /**
+     * Gets the number of recycled frames left to the garbage collector because the pool was full.
+     *
+     * @return the dropped frames
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "SizeClass[size=" + size + ", hits=" + getHits() + ", misses=" + getMisses() + ", unpooled="
+                + getUnpooled() + ", replaced=" + getReplaced() + ", dropped=" + getDropped() + "]";
+    }
+
+}
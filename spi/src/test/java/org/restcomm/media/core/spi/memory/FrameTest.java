@@ -28,6 +28,8 @@
 package org.restcomm.media.core.spi.memory;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -96,4 +98,56 @@ public class FrameTest {
         assertEquals(2, (int)(frame1.getData()[1]));    	
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testRetainDefersRecycle() {
+        // given
+        Frame frame = Memory.allocate(100);
+        frame.retain();
+
+        // when
+        frame.recycle();
+
+        // then
+        assertEquals(1, frame.refCnt());
+        Frame other = Memory.allocate(100);
+        assertNotSame(frame, other);
+
+        // when
+        frame.recycle();
+
+        // then
+        assertEquals(0, frame.refCnt());
+        assertSame(frame, Memory.allocate(100));
+        other.recycle();
+    }
+
+    @Test
+    public void testRecycleTwiceIsIgnored() {
+        // given
+        Frame frame = Memory.allocate(100);
+
+        // when
+        frame.recycle();
+        frame.recycle();
+
+        // then
+        assertEquals(0, frame.refCnt());
+        Frame first = Memory.allocate(100);
+        Frame second = Memory.allocate(100);
+        assertSame(frame, first);
+        assertNotSame(first, second);
+        first.recycle();
+        second.recycle();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRetainRecycledFrame() {
+        // given
+        Frame frame = Memory.allocate(100);
+        frame.recycle();
+
+        // when
+        frame.retain();
+    }
+
+}
@@ -27,6 +27,12 @@
 
 package org.restcomm.media.core.spi.memory;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -84,6 +90,169 @@ public class MemoryTest {
 */
     }
 
+    @Test
+    public void testSizeClasses() {
+        assertEquals(16, Memory.getSizeClass(0).getSize());
+        assertEquals(16, Memory.getSizeClass(16).getSize());
+        assertEquals(32, Memory.getSizeClass(17).getSize());
+        assertEquals(512, Memory.getSizeClass(320).getSize());
+        assertEquals(Memory.MAX_POOLED_SIZE, Memory.getSizeClass(Memory.MAX_POOLED_SIZE).getSize());
+        assertNull(Memory.getSizeClass(Memory.MAX_POOLED_SIZE + 1));
+    }
+
+    @Test
+    public void testFrameHasExactSize() {
+        Frame frame = Memory.allocate(333);
+        assertEquals(333, frame.getData().length);
+        frame.recycle();
+    }
+
+    @Test
+    public void testRecycledFrameIsReused() {
+        // given
+        SizeClass sizeClass = Memory.getSizeClass(1201);
+        Frame frame = Memory.allocate(1201);
+        long hits = sizeClass.getHits();
+
+        // when
+        frame.recycle();
+        Frame reused = Memory.allocate(1201);
+
+        // then
+        assertSame(frame, reused);
+        assertEquals(hits + 1, sizeClass.getHits());
+    }
+
+    @Test
+    public void testDoubleRecycleIsIgnored() {
+        // given
+        Frame frame = Memory.allocate(1203);
+
+        // when
+        frame.recycle();
+        frame.recycle();
+
+        // then
+        Frame first = Memory.allocate(1203);
+        Frame second = Memory.allocate(1203);
+        assertSame(frame, first);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void testFrameIsReusedAcrossThreads() throws InterruptedException {
+        // given
+        final int size = 1205;
+        final Frame[] frames = new Frame[Partition.CACHE_SIZE + 1];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = Memory.allocate(size);
+        }
+        SizeClass sizeClass = Memory.getSizeClass(size);
+        final long hits = sizeClass.getHits();
+
+        // when - a full cache moves a batch to the depot, where other threads can take it
+        for (Frame frame : frames) {
+            frame.recycle();
+        }
+        Thread other = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                Memory.allocate(size);
+            }
+        });
+        other.start();
+        other.join();
+
+        // then
+        assertEquals(hits + 1, sizeClass.getHits());
+    }
+
+    @Test
+    public void testSizesBeyondClassLimitAreNotPooled() {
+        // given - sizes 4097..8192 belong to the same class
+        SizeClass sizeClass = Memory.getSizeClass(8000);
+        int used = sizeClass.getPooledSizes().length;
+        for (int i = 0; i < SizeClass.MAX_PARTITIONS - used; i++) {
+            Memory.allocate(8000 + i).recycle();
+        }
+        long unpooled = sizeClass.getUnpooled();
+
+        // when
+        Frame frame = Memory.allocate(8100);
+        frame.recycle();
+        Frame other = Memory.allocate(8100);
+
+        // then
+        assertEquals(SizeClass.MAX_PARTITIONS, sizeClass.getPooledSizes().length);
+        assertEquals(8100, frame.getData().length);
+        assertNotSame(frame, other);
+        assertEquals(unpooled + 2, sizeClass.getUnpooled());
+    }
+
+    @Test
+    public void testFrequentSizeReplacesIdlePartition() {
+        // given - two odd sizes take both partitions
+        SizeClass sizeClass = new SizeClass(2048, 16, 2);
+        sizeClass.allocate(1500).recycle();
+        sizeClass.allocate(1501).recycle();
+
+        // when
+        for (int i = 0; i < SizeClass.REPLACE_THRESHOLD; i++) {
+            sizeClass.allocate(1280).recycle();
+        }
+        Frame frame = sizeClass.allocate(1280);
+        frame.recycle();
+        Frame reused = sizeClass.allocate(1280);
+
+        // then
+        assertEquals(1, sizeClass.getReplaced());
+        assertEquals(SizeClass.REPLACE_THRESHOLD - 1, sizeClass.getUnpooled());
+        assertEquals(2, sizeClass.getPooledSizes().length);
+        assertTrue(sizeClass.getPooledSizes()[0] == 1280 || sizeClass.getPooledSizes()[1] == 1280);
+        assertSame(frame, reused);
+    }
+
+    @Test
+    public void testBusyPartitionIsNotReplaced() {
+        // given
+        SizeClass sizeClass = new SizeClass(2048, 16, 1);
+        sizeClass.allocate(1500).recycle();
+
+        // when - the pooled size stays busier than the unpooled one
+        for (int i = 0; i < SizeClass.REPLACE_THRESHOLD; i++) {
+            sizeClass.allocate(1500).recycle();
+            sizeClass.allocate(1280).recycle();
+        }
+
+        // then
+        assertEquals(0, sizeClass.getReplaced());
+        assertEquals(SizeClass.REPLACE_THRESHOLD, sizeClass.getUnpooled());
+        assertEquals(1500, sizeClass.getPooledSizes()[0]);
+    }
+
+    @Test
+    public void testLeakDetection() throws InterruptedException {
+        // given
+        FrameLeakDetector detector = new FrameLeakDetector(LeakDetection.PARANOID);
+        SizeClass sizeClass = new SizeClass(64, 16, 1);
+        Frame recycled = sizeClass.allocate(40);
+        detector.track(recycled);
+
+        // when
+        detector.track(sizeClass.allocate(40));
+        recycled.recycle();
+
+        // then
+        for (int i = 0; i < 50 && detector.getLeakCount() == 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+            detector.reportLeaks();
+        }
+        assertEquals(1, detector.getLeakCount());
+        assertTrue(Memory.getLeakDetection() == LeakDetection.DISABLED);
+    }
+
     //@Test
     public void testGC() throws InterruptedException {
         for (int i = 0; i < 5000; i++) {